@@ -0,0 +1,257 @@
+package com.xceptance.xlt.common.actions;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.xceptance.xlt.api.actions.AbstractAction;
+import com.xceptance.xlt.api.engine.RequestData;
+import com.xceptance.xlt.api.engine.Session;
+import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.util.ParameterUtils;
+import com.xceptance.xlt.common.util.action.execution.URLActionDataExecutionable;
+import com.xceptance.xlt.common.util.action.validation.StreamingValidation;
+import com.xceptance.xlt.common.util.action.validation.URLActionDataExecutableResult;
+import com.xceptance.xlt.common.util.action.validation.URLActionDataExecutableResultFactory;
+import com.xceptance.xlt.common.util.async.AsyncHttpClient;
+import com.xceptance.xlt.common.util.async.AsyncHttpFuture;
+
+/**
+ * Loads the WebResponse for a passed WebRequest via the non-blocking {@link AsyncHttpClient}. The WebResponse is
+ * wrapped in a {@link URLActionDataExecutableResult}. Once the response arrived, the static content requests are fired
+ * all at once. Their bodies are only counted, not kept. <br>
+ * Since no web client is involved, every request on the wire (redirects included) is reported as {@link RequestData}
+ * of this action by the action itself.
+ * The user thread waits for the response of the action, so there is still one thread per user. Only the IO is done
+ * by the shared threads of the client. <br>
+ * The action has no previous action, since it needs nothing but the client.
+ *
+ * @extends {@link AbstractAction}
+ * @implements {@link URLActionDataExecutionable}
+ */
+public class AsyncAction extends AbstractAction implements URLActionDataExecutionable
+{
+    /**
+     * Carries the requests of the user.
+     */
+    protected AsyncHttpClient client;
+
+    /**
+     * The WebRequest that is fired.
+     */
+    protected WebRequest webRequest;
+
+    /**
+     * The response of {@link #webRequest}.
+     */
+    protected WebResponse webResponse;
+
+    /**
+     * The static content requests. To add a request, use {@link #addStaticRequest(URL)}
+     */
+    protected final List<URL> staticRequests = new ArrayList<URL>();
+
+    /**
+     * Whether the static content requests are fired at all.
+     */
+    protected boolean loadStaticContent;
+
+    /**
+     * The Wrapper for the WebResponse.
+     */
+    protected URLActionDataExecutableResult result;
+
+    /**
+     * Validates the body while it is received, <code>null</code> if the body is kept.
+     */
+    protected StreamingValidation streamingValidation;
+
+    /**
+     * Automatically produces the {@link URLActionDataExecutableResult}
+     */
+    protected URLActionDataExecutableResultFactory resultFactory;
+
+    /**
+     * @param name
+     *            : name of the action.
+     * @param webRequest
+     *            : the request that is fired.
+     * @param client
+     *            : the {@link AsyncHttpClient} of the user.
+     * @param resultFactory
+     *            : produces the {@link #result}
+     * @param loadStaticContent
+     *            : whether the static content requests are fired.
+     */
+    public AsyncAction(final String name,
+                       final WebRequest webRequest,
+                       final AsyncHttpClient client,
+                       final URLActionDataExecutableResultFactory resultFactory,
+                       final boolean loadStaticContent)
+    {
+        super(name);
+        setWebRequest(webRequest);
+        setClient(client);
+        setResultFactory(resultFactory);
+        this.loadStaticContent = loadStaticContent;
+        XltLogger.runTimeLogger.debug("Creating new Instance");
+    }
+
+    private void setWebRequest(final WebRequest webRequest)
+    {
+        ParameterUtils.isNotNull(webRequest, "WebRequest");
+        this.webRequest = webRequest;
+    }
+
+    private void setClient(final AsyncHttpClient client)
+    {
+        ParameterUtils.isNotNull(client, "AsyncHttpClient");
+        this.client = client;
+    }
+
+    private void setResultFactory(final URLActionDataExecutableResultFactory resultFactory)
+    {
+        ParameterUtils.isNotNull(resultFactory,
+                                 "URLActionDataExecutableResultFactory");
+        this.resultFactory = resultFactory;
+    }
+
+    @Override
+    public void preValidate() throws Exception
+    {
+
+    }
+
+    @Override
+    protected void execute() throws Exception
+    {
+        final AsyncHttpFuture future = client.execute(this.webRequest, this.streamingValidation);
+        try
+        {
+            this.webResponse = future.get();
+        }
+        finally
+        {
+            logRequests(future);
+        }
+        loadStaticContent();
+    }
+
+    /**
+     * Fires all static content requests at once and waits for them. Failed requests are logged, but do not fail the
+     * action.
+     */
+    protected void loadStaticContent()
+    {
+        if (!loadStaticContent || staticRequests.isEmpty())
+        {
+            return;
+        }
+        final List<AsyncHttpFuture> futures = new ArrayList<AsyncHttpFuture>(staticRequests.size());
+        for (final URL url : staticRequests)
+        {
+            futures.add(client.execute(new WebRequest(url), false));
+        }
+        for (final AsyncHttpFuture future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (final IOException e)
+            {
+                XltLogger.runTimeLogger.warn("Failed to load static content: " + e.getMessage());
+            }
+            finally
+            {
+                logRequests(future);
+            }
+        }
+    }
+
+    /**
+     * Reports every request on the wire of the future as {@link RequestData} of this action.
+     */
+    private void logRequests(final AsyncHttpFuture future)
+    {
+        for (final AsyncHttpFuture.Hop hop : future.getHops())
+        {
+            final RequestData requestData = new RequestData(getTimerName());
+            requestData.setTime(hop.getStartTime());
+            requestData.setRunTime(hop.getRunTime());
+            requestData.setUrl(hop.getUrl().toString());
+            requestData.setResponseCode(hop.getResponseCode());
+            requestData.setContentType(hop.getContentType());
+            requestData.setBytesSent((int) hop.getBytesSent());
+            requestData.setBytesReceived((int) hop.getBytesReceived());
+            requestData.setFailed(hop.getResponseCode() == 0);
+            Session.getCurrent().getDataManager().logDataRecord(requestData);
+        }
+    }
+
+    @Override
+    protected void postValidate() throws Exception
+    {
+        this.result = this.resultFactory.getResult(this.webResponse, this.streamingValidation);
+    }
+
+    @Override
+    public URLActionDataExecutableResult getResult()
+    {
+        return this.result;
+    }
+
+    @Override
+    public void releaseResult()
+    {
+        this.result = null;
+        this.webResponse = null;
+        this.streamingValidation = null;
+    }
+
+    /**
+     * The body is offered to the streaming validation, while it arrives.
+     */
+    @Override
+    public void setStreamingValidation(final StreamingValidation streamingValidation)
+    {
+        this.streamingValidation = streamingValidation;
+    }
+
+    @Override
+    public void executeAction()
+    {
+        try
+        {
+            XltLogger.runTimeLogger.debug("Executing Action");
+            this.run();
+        }
+        catch (final Throwable e)
+        {
+            throw new IllegalArgumentException("Failed to execute Action: "
+                                               + getTimerName() + " - "
+                                               + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds a static content request, which is fired after the response of the action arrived.
+     */
+    @Override
+    public void addStaticRequest(final URL url)
+    {
+        this.staticRequests.add(url);
+    }
+
+    /**
+     * @return the url of the {@link WebRequest}.
+     */
+    @Override
+    public URL getUrl()
+    {
+        return this.webRequest.getUrl();
+    }
+}
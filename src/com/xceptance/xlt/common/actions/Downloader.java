@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.util.NoCodingPropAdmin;
 import com.xceptance.xlt.common.util.ParameterUtils;
 import com.xceptance.xlt.engine.XltWebClient;
 
@@ -23,6 +24,16 @@ public class Downloader
 
     private boolean userAgentUID = false;
 
+    /**
+     * Whether the page action loads the added requests after the page.
+     */
+    private boolean loadedAfterPage = false;
+
+    /**
+     * Browser like cache of the user, <code>null</code> if static content is not cached.
+     */
+    private StaticContentCache cache;
+
     /**
      * 
      * @param webClient : the {@link XltWebClient}, that fires the requests.
@@ -49,6 +60,29 @@ public class Downloader
         setWebClient(webClient);
     }
 
+    /**
+     * Creates the downloader of a page action, as configured by the properties.
+     * 
+     * @param webClient : the {@link XltWebClient}, that fires the requests.
+     * @param propAdmin : the properties
+     * @return the downloader
+     */
+    public static Downloader create(final XltWebClient webClient, final NoCodingPropAdmin propAdmin)
+    {
+        final boolean userAgentUID = propAdmin.getPropertyByKey(NoCodingPropAdmin.USERAGENTUID, false);
+        final int threadCount = propAdmin.getPropertyByKey(NoCodingPropAdmin.DOWNLOADTHREADS, 1);
+        final Downloader downloader = new Downloader(webClient, threadCount, userAgentUID);
+        downloader.setLoadedAfterPage(propAdmin.getPropertyByKey(NoCodingPropAdmin.LOADSCRIPTSTATICCONTENT, false));
+
+        if (propAdmin.getPropertyByKey(NoCodingPropAdmin.STATICCONTENTCACHE, false))
+        {
+            final long maxBytes = propAdmin.getPropertyByKey(NoCodingPropAdmin.STATICCONTENTCACHESIZE,
+                                                             10L * 1024 * 1024);
+            downloader.setCache(StaticContentCache.getInstance(maxBytes));
+        }
+        return downloader;
+    }
+
     private void setUserAgentUID(final boolean userAgentUID)
     {
         this.userAgentUID = userAgentUID;
@@ -65,6 +99,30 @@ public class Downloader
         this.webClient = webClient;
     }
 
+    /**
+     * @param loadedAfterPage : whether the page action loads the added requests after the page
+     */
+    public void setLoadedAfterPage(final boolean loadedAfterPage)
+    {
+        this.loadedAfterPage = loadedAfterPage;
+    }
+
+    /**
+     * @return whether the page action loads the added requests after the page
+     */
+    public boolean isLoadedAfterPage()
+    {
+        return loadedAfterPage;
+    }
+
+    /**
+     * @param cache : the {@link StaticContentCache} of the user, or <code>null</code> to load everything
+     */
+    public void setCache(final StaticContentCache cache)
+    {
+        this.cache = cache;
+    }
+
     /**
      * Adds a request.
      * @param url : request url
@@ -90,6 +148,7 @@ public class Downloader
                                                                                    webClient,
                                                                                    threadCount,
                                                                                    userAgentUID);
+            downloader.setCache(cache);
             try
             {
                 // load the additional URLs
@@ -100,13 +159,10 @@ public class Downloader
             }
             finally
             {
-                // make sure we wait for all resources and clean up too
-                if (downloader != null)
-                {
-                    downloader.waitForCompletion();
-                    downloader.shutdown();
-                }
+                // make sure we wait for all resources, the executor is shared and kept alive
+                downloader.waitForCompletion();
             }
+            urls.clear();
         }
     }
 }
@@ -7,6 +7,7 @@ import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import com.xceptance.xlt.api.util.XltLogger;
 import com.xceptance.xlt.common.util.ParameterUtils;
 import com.xceptance.xlt.common.util.action.execution.URLActionDataExecutionable;
+import com.xceptance.xlt.common.util.action.validation.StreamingValidation;
 import com.xceptance.xlt.common.util.action.validation.URLActionDataExecutableResult;
 import com.xceptance.xlt.common.util.action.validation.URLActionDataExecutableResultFactory;
 
@@ -114,6 +115,21 @@ public class HtmlPageAction extends ModifiedAbstractHtmlPageAction
     protected void execute() throws Exception
     {
         loadPage(this.webRequest);
+        loadStaticContent();
+    }
+
+    /**
+     * Loads the static content, that was added via {@link #addStaticRequest(URL)}, if the {@link Downloader} is
+     * configured to load it after the page.
+     * 
+     * @throws Exception
+     */
+    protected void loadStaticContent() throws Exception
+    {
+        if (this.downloader != null && this.downloader.isLoadedAfterPage())
+        {
+            this.downloader.loadRequests();
+        }
     }
 
     @Override
@@ -134,6 +150,13 @@ public class HtmlPageAction extends ModifiedAbstractHtmlPageAction
         return this.result;
     }
 
+    @Override
+    public void releaseResult()
+    {
+        this.result = null;
+        releaseHtmlPage();
+    }
+
     @Override
     public void executeAction()
     {
@@ -150,6 +173,14 @@ public class HtmlPageAction extends ModifiedAbstractHtmlPageAction
         }
     }
 
+    /**
+     * Ignored, the body is received by the web client, which keeps it as a whole.
+     */
+    @Override
+    public void setStreamingValidation(final StreamingValidation streamingValidation)
+    {
+    }
+
     /**
      * Adds a static content request, which gets loaded by the {@link Downloader}.
      */
@@ -7,6 +7,7 @@ import com.xceptance.xlt.api.htmlunit.LightWeightPage;
 import com.xceptance.xlt.api.util.XltLogger;
 import com.xceptance.xlt.common.util.ParameterUtils;
 import com.xceptance.xlt.common.util.action.execution.URLActionDataExecutionable;
+import com.xceptance.xlt.common.util.action.validation.StreamingValidation;
 import com.xceptance.xlt.common.util.action.validation.URLActionDataExecutableResult;
 import com.xceptance.xlt.common.util.action.validation.URLActionDataExecutableResultFactory;
 
@@ -117,6 +118,21 @@ public class LightWeightPageAction extends
     protected void execute() throws Exception
     {
         loadPage(this.webRequest);
+        loadStaticContent();
+    }
+
+    /**
+     * Loads the static content, that was added via {@link #addStaticRequest(URL)}, if the {@link Downloader} is
+     * configured to load it after the page.
+     * 
+     * @throws Exception
+     */
+    protected void loadStaticContent() throws Exception
+    {
+        if (this.downloader != null && this.downloader.isLoadedAfterPage())
+        {
+            this.downloader.loadRequests();
+        }
     }
 
     @Override
@@ -131,6 +147,14 @@ public class LightWeightPageAction extends
 
     }
 
+    /**
+     * Ignored, the body is received by the web client, which keeps it as a whole.
+     */
+    @Override
+    public void setStreamingValidation(final StreamingValidation streamingValidation)
+    {
+    }
+
     /**
      * Adds a static content request, which gets loaded by the {@link Downloader}.
      */
@@ -146,6 +170,13 @@ public class LightWeightPageAction extends
 
     }
 
+    @Override
+    public void releaseResult()
+    {
+        this.result = null;
+        releaseLightWeightPage();
+    }
+
     @Override
     public void executeAction()
     {
@@ -139,6 +139,15 @@ public abstract class ModifiedAbstractHtmlPageAction extends AbstractWebAction
         this.htmlPage = waitForPageIsComplete(htmlPage, waitingTime);
     }
     
+    /**
+     * Drops the page and its network data, so they can be collected once the page is no longer displayed.
+     */
+    protected void releaseHtmlPage()
+    {
+        this.htmlPage = null;
+        this.netStats = null;
+    }
+
     private void dumpPage(final HtmlPage htmlPage)
     {
         if (htmlPage != null)
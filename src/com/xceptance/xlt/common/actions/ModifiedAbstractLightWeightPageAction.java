@@ -87,6 +87,14 @@ public abstract class ModifiedAbstractLightWeightPageAction extends AbstractWebA
         this.page = page;
     }
     
+    /**
+     * Drops the page, so it can be collected.
+     */
+    protected void releaseLightWeightPage()
+    {
+        this.page = null;
+    }
+
     protected void loadPage(final WebRequest webRequest)
         throws FailingHttpStatusCodeException, IOException
     {
@@ -0,0 +1,346 @@
+package com.xceptance.xlt.common.actions;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.client.utils.DateUtils;
+
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.xceptance.xlt.api.engine.Session;
+import com.xceptance.xlt.api.util.XltLogger;
+
+/**
+ * Browser like cache for static content of a single user. <br>
+ * Only the caching information is kept, never the content itself, since static content is not evaluated anyway.
+ * <ul>
+ * <li>Fresh entries are not requested again. Freshness is taken from 'Cache-Control: max-age', 'Expires' or, as
+ * heuristic, from 'Last-Modified'.</li>
+ * <li>Stale entries are revalidated via 'If-None-Match' and 'If-Modified-Since'.</li>
+ * <li>'Cache-Control: no-store' responses are not cached, 'no-cache' responses are always revalidated.</li>
+ * <li>Least recently used entries are evicted, as soon as the cached content exceeds the byte budget.</li>
+ * </ul>
+ * The cache of a user survives iterations, so a user behaves like a returning visitor.
+ */
+public class StaticContentCache
+{
+    /**
+     * The caches, keyed by user ID.
+     */
+    private static final ConcurrentMap<String, StaticContentCache> CACHES = new ConcurrentHashMap<String, StaticContentCache>();
+
+    /**
+     * Fraction of the time since the last modification, a response without explicit expiration is considered fresh.
+     */
+    private static final long HEURISTIC_DIVISOR = 10;
+
+    /**
+     * Maximum size of the cached content in bytes.
+     */
+    private final long maxBytes;
+
+    /**
+     * Current size of the cached content in bytes.
+     */
+    private long usedBytes;
+
+    /**
+     * The entries, in access order.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong revalidations = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Caching information of a single URL.
+     */
+    private static final class Entry
+    {
+        private final String eTag;
+
+        private final String lastModified;
+
+        private final long size;
+
+        /**
+         * Point in time until the entry is fresh, in milliseconds.
+         */
+        private long expiresAt;
+
+        private Entry(final String eTag, final String lastModified, final long size, final long expiresAt)
+        {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * @param maxBytes
+     *            maximum size of the cached content in bytes
+     */
+    public StaticContentCache(final long maxBytes)
+    {
+        this.maxBytes = maxBytes;
+        XltLogger.runTimeLogger.debug("Creating new Instance");
+    }
+
+    /**
+     * Returns the cache of the current user, creates it on first use.
+     *
+     * @param maxBytes
+     *            maximum size of the cached content in bytes, only used when the cache is created
+     * @return the cache
+     */
+    public static StaticContentCache getInstance(final long maxBytes)
+    {
+        final String userID = Session.getCurrent().getUserID();
+        StaticContentCache cache = CACHES.get(userID);
+        if (cache == null)
+        {
+            final StaticContentCache newCache = new StaticContentCache(maxBytes);
+            cache = CACHES.putIfAbsent(userID, newCache);
+            if (cache == null)
+            {
+                cache = newCache;
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Checks whether the URL is cached and still fresh, so it must not be requested at all.
+     *
+     * @param url
+     *            the URL
+     * @return <code>true</code> if there is a fresh entry
+     */
+    public synchronized boolean isFresh(final String url)
+    {
+        final Entry entry = entries.get(url);
+        if (entry != null && entry.expiresAt > System.currentTimeMillis())
+        {
+            hits.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the conditional headers of a cached entry to the request.
+     *
+     * @param request
+     *            the request to the cached URL
+     */
+    public synchronized void addValidators(final WebRequest request)
+    {
+        final Entry entry = entries.get(request.getUrl().toString());
+        if (entry != null)
+        {
+            if (entry.eTag != null)
+            {
+                request.setAdditionalHeader("If-None-Match", entry.eTag);
+            }
+            if (entry.lastModified != null)
+            {
+                request.setAdditionalHeader("If-Modified-Since", entry.lastModified);
+            }
+        }
+    }
+
+    /**
+     * Updates the cache with the response to a request for the URL.
+     *
+     * @param url
+     *            the URL
+     * @param response
+     *            the response
+     * @param size
+     *            size of the response content in bytes
+     */
+    public synchronized void update(final String url, final WebResponse response, final long size)
+    {
+        final long now = System.currentTimeMillis();
+        final int statusCode = response.getStatusCode();
+
+        if (statusCode == 304)
+        {
+            final Entry entry = entries.get(url);
+            if (entry != null)
+            {
+                revalidations.incrementAndGet();
+                entry.expiresAt = Math.max(getExpiration(response, now), 0);
+                return;
+            }
+        }
+        misses.incrementAndGet();
+        remove(url);
+
+        if (statusCode != 200 || size > maxBytes)
+        {
+            return;
+        }
+        final long expiresAt = getExpiration(response, now);
+        final String eTag = response.getResponseHeaderValue("ETag");
+        final String lastModified = response.getResponseHeaderValue("Last-Modified");
+        if (expiresAt < 0 || (expiresAt <= now && eTag == null && lastModified == null))
+        {
+            // not cacheable or useless, neither fresh nor revalidatable
+            return;
+        }
+
+        entries.put(url, new Entry(eTag, lastModified, size, expiresAt));
+        usedBytes += size;
+        evict();
+    }
+
+    /**
+     * Computes the point in time until a response is fresh.
+     *
+     * @return the expiration time in milliseconds, 0 if the response must be revalidated, or -1 if it must not be
+     *         cached
+     */
+    private static long getExpiration(final WebResponse response, final long now)
+    {
+        final String cacheControl = response.getResponseHeaderValue("Cache-Control");
+        if (cacheControl != null)
+        {
+            long maxAge = -1;
+            boolean noCache = false;
+            for (final String rawDirective : StringUtils.split(cacheControl, ','))
+            {
+                final String directive = rawDirective.trim().toLowerCase();
+                if (directive.equals("no-store"))
+                {
+                    return -1;
+                }
+                else if (directive.equals("no-cache"))
+                {
+                    noCache = true;
+                }
+                else if (directive.startsWith("max-age="))
+                {
+                    try
+                    {
+                        maxAge = Long.parseLong(directive.substring("max-age=".length()).trim());
+                    }
+                    catch (final NumberFormatException e)
+                    {
+                        maxAge = 0;
+                    }
+                }
+            }
+            if (noCache)
+            {
+                return 0;
+            }
+            if (maxAge >= 0)
+            {
+                return now + maxAge * 1000;
+            }
+        }
+
+        final String expires = response.getResponseHeaderValue("Expires");
+        if (expires != null)
+        {
+            final Date expiresDate = parseDate(expires);
+            return expiresDate == null ? 0 : expiresDate.getTime();
+        }
+
+        final Date lastModified = parseDate(response.getResponseHeaderValue("Last-Modified"));
+        if (lastModified != null)
+        {
+            final Date date = parseDate(response.getResponseHeaderValue("Date"));
+            final long responseTime = (date == null) ? now : date.getTime();
+            return now + Math.max(responseTime - lastModified.getTime(), 0) / HEURISTIC_DIVISOR;
+        }
+        return 0;
+    }
+
+    private static Date parseDate(final String value)
+    {
+        return (value == null) ? null : DateUtils.parseDate(value);
+    }
+
+    private void remove(final String url)
+    {
+        final Entry entry = entries.remove(url);
+        if (entry != null)
+        {
+            usedBytes -= entry.size;
+        }
+    }
+
+    /**
+     * Removes least recently used entries until the byte budget is kept.
+     */
+    private void evict()
+    {
+        final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && iterator.hasNext())
+        {
+            usedBytes -= iterator.next().getValue().size;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Drops all entries.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * @return the number of cached URLs
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * @return the size of the cached content in bytes
+     */
+    public synchronized long getUsedBytes()
+    {
+        return usedBytes;
+    }
+
+    /**
+     * @return the number of requests, that were not sent since the entry was fresh
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of requests, that were answered with 'Not Modified'
+     */
+    public long getRevalidations()
+    {
+        return revalidations.get();
+    }
+
+    /**
+     * @return the number of requests, that loaded the content
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+}
@@ -0,0 +1,159 @@
+package com.xceptance.xlt.common.actions;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.xceptance.common.util.Getter;
+import com.xceptance.common.util.concurrent.DaemonThreadFactory;
+import com.xceptance.xlt.api.engine.Session;
+import com.xceptance.xlt.api.util.XltLogger;
+
+/**
+ * Holds the long-lived executors, that load static content for the {@link StaticContentDownloader}. <br>
+ * Every user gets one bounded executor, whose size is the configured number of download threads
+ * ('com.xceptance.xlt.staticContent.downloadThreads'). The executor is reused across all actions and iterations of the
+ * user, idle threads are released after {@link #KEEP_ALIVE_SECONDS}. The threads are started by the user thread, so
+ * they belong to its thread group and XLT attributes their requests to the session of the user.
+ */
+public final class StaticContentDownloadExecutors
+{
+    /**
+     * Time idle threads are kept before they terminate.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * The executors, keyed by user ID.
+     */
+    private static final ConcurrentMap<String, ThreadPoolExecutor> EXECUTORS = new ConcurrentHashMap<String, ThreadPoolExecutor>();
+
+    /**
+     * Number of downloads that were handed over to an executor.
+     */
+    private static final AtomicLong TASK_COUNT = new AtomicLong();
+
+    /**
+     * Accumulated time downloads were waiting in the queue, in nanoseconds.
+     */
+    private static final AtomicLong WAIT_TIME = new AtomicLong();
+
+    private StaticContentDownloadExecutors()
+    {
+    }
+
+    /**
+     * Returns the executor of the current user. Creates it on first use and resizes it, if the thread count changed.
+     *
+     * @param threadCount
+     *            the number of download threads
+     * @return the executor
+     */
+    public static ThreadPoolExecutor getExecutor(final int threadCount)
+    {
+        final String userID = Session.getCurrent().getUserID();
+
+        ThreadPoolExecutor executor = EXECUTORS.get(userID);
+        if (executor == null)
+        {
+            final ThreadPoolExecutor newExecutor = createExecutor(userID, threadCount);
+            executor = EXECUTORS.putIfAbsent(userID, newExecutor);
+            if (executor == null)
+            {
+                XltLogger.runTimeLogger.debug("Creating static content executor with " + threadCount + " threads");
+                executor = newExecutor;
+            }
+            else
+            {
+                newExecutor.shutdown();
+            }
+        }
+        else if (executor.getMaximumPoolSize() != threadCount)
+        {
+            resize(executor, threadCount);
+        }
+        return executor;
+    }
+
+    private static ThreadPoolExecutor createExecutor(final String userID, final int threadCount)
+    {
+        final ThreadFactory threadFactory = new DaemonThreadFactory(new Getter<String>()
+        {
+            @Override
+            public String get()
+            {
+                return userID + "-pool-";
+            }
+        });
+
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount,
+                                                                   threadCount,
+                                                                   KEEP_ALIVE_SECONDS,
+                                                                   TimeUnit.SECONDS,
+                                                                   new LinkedBlockingQueue<Runnable>(),
+                                                                   threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static void resize(final ThreadPoolExecutor executor, final int threadCount)
+    {
+        // the core size must never exceed the maximum size
+        if (threadCount > executor.getMaximumPoolSize())
+        {
+            executor.setMaximumPoolSize(threadCount);
+            executor.setCorePoolSize(threadCount);
+        }
+        else
+        {
+            executor.setCorePoolSize(threadCount);
+            executor.setMaximumPoolSize(threadCount);
+        }
+    }
+
+    /**
+     * Records that a download waited the passed time before it started.
+     *
+     * @param waitTime
+     *            wait time in nanoseconds
+     */
+    static void recordWaitTime(final long waitTime)
+    {
+        TASK_COUNT.incrementAndGet();
+        WAIT_TIME.addAndGet(waitTime);
+    }
+
+    /**
+     * @return the number of downloads, that were executed by the executors so far
+     */
+    public static long getTaskCount()
+    {
+        return TASK_COUNT.get();
+    }
+
+    /**
+     * @return the average time downloads were waiting for a free thread, in milliseconds
+     */
+    public static double getAverageWaitTime()
+    {
+        final long taskCount = TASK_COUNT.get();
+        return taskCount == 0 ? 0 : WAIT_TIME.get() / 1000000.0 / taskCount;
+    }
+
+    /**
+     * @return the number of downloads, that are currently waiting for a free thread, over all users
+     */
+    public static int getQueueDepth()
+    {
+        int queueDepth = 0;
+        for (final ThreadPoolExecutor executor : EXECUTORS.values())
+        {
+            queueDepth += executor.getQueue().size();
+        }
+        return queueDepth;
+    }
+}
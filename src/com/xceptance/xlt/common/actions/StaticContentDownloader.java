@@ -16,24 +16,28 @@
  */
 package com.xceptance.xlt.common.actions;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.gargoylesoftware.htmlunit.WebRequest;
-import com.xceptance.common.util.Getter;
+import com.gargoylesoftware.htmlunit.WebResponse;
 import com.xceptance.common.util.SynchronizingCounter;
-import com.xceptance.common.util.concurrent.DaemonThreadFactory;
+import com.xceptance.xlt.api.engine.CustomValue;
+import com.xceptance.xlt.api.engine.DataManager;
 import com.xceptance.xlt.api.engine.Session;
 import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.util.NoCodingEvents;
 import com.xceptance.xlt.common.util.UserAgentUtils;
 import com.xceptance.xlt.engine.XltWebClient;
 
 /**
  * The {@link StaticContentDownloader} aids in managing the parallel download of resources. The goal is to better
  * simulate the download behavior of real browsers. The number of threads working in parallel is controlled by
- * configuration. Note that there is no differentiation between requests to different domains.
+ * configuration. Note that there is no differentiation between requests to different domains. <br>
+ * Parallel downloads run on the long-lived executor of the current user, see {@link StaticContentDownloadExecutors}.
  */
 public class StaticContentDownloader
 {
@@ -43,10 +47,76 @@ public class StaticContentDownloader
     private static final int WAIT_TIMEOUT = 5 * 60 * 1000;
 
     /**
-     * The executor service running RequestHandler instances. The service's thread pool is unbounded, but shrinks
-     * automatically if possible.
+     * Name of the custom value holding the maximum number of downloads waiting for a free thread.
      */
-    private final ExecutorService executorService;
+    private static final String QUEUE_DEPTH_VALUE_NAME = "StaticContent.QueueDepth";
+
+    /**
+     * Name of the custom value holding the average time downloads were waiting for a free thread.
+     */
+    private static final String WAIT_TIME_VALUE_NAME = "StaticContent.WaitTime";
+
+    /**
+     * Name of the custom value holding the number of decoded content bytes loaded for a page.
+     */
+    private static final String BYTES_VALUE_NAME = "StaticContent.Bytes";
+
+    /**
+     * Name of the custom value holding the accumulated load time of all resources of a page.
+     */
+    private static final String LOAD_TIME_VALUE_NAME = "StaticContent.LoadTime";
+
+    /**
+     * Size of the buffer static content is counted with.
+     */
+    private static final int COUNT_BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Reusable buffer per download thread.
+     */
+    private static final ThreadLocal<byte[]> COUNT_BUFFER = new ThreadLocal<byte[]>()
+    {
+        @Override
+        protected byte[] initialValue()
+        {
+            return new byte[COUNT_BUFFER_SIZE];
+        }
+    };
+
+    /**
+     * The shared executor running RequestHandler instances. Obtained when the first request is added in parallel mode.
+     */
+    private ThreadPoolExecutor executorService;
+
+    /**
+     * The number of requests handed over to the {@link #executorService}.
+     */
+    private int parallelRequestCount;
+
+    /**
+     * The maximum number of requests waiting in the queue of the {@link #executorService}.
+     */
+    private int maxQueueDepth;
+
+    /**
+     * Accumulated time requests were waiting for a free thread, in nanoseconds.
+     */
+    private final AtomicLong waitTime = new AtomicLong();
+
+    /**
+     * Number of resources, that were actually loaded.
+     */
+    private final AtomicLong loadCount = new AtomicLong();
+
+    /**
+     * Accumulated content size of the loaded resources.
+     */
+    private final AtomicLong loadedBytes = new AtomicLong();
+
+    /**
+     * Accumulated load time of the loaded resources, in milliseconds.
+     */
+    private final AtomicLong loadTime = new AtomicLong();
 
     /**
      * Maintains the number of requests which have been added, but have not been loaded completely yet.
@@ -73,6 +143,11 @@ public class StaticContentDownloader
      */
     private final boolean userAgentUID;
 
+    /**
+     * The browser like cache of the user, or <code>null</code> if static content is not cached.
+     */
+    private StaticContentCache cache;
+
     /**
      * Creates a new RequestQueue object and initializes it with the given web client and the number of threads which
      * process the requests.
@@ -91,19 +166,20 @@ public class StaticContentDownloader
         parallelModeEnabled = true;
         this.userAgentUID = userAgentUID;
 
-        final ThreadFactory threadFactory = new DaemonThreadFactory(new Getter<String>()
-        {
-            @Override
-            public String get()
-            {
-                return Session.getCurrent().getUserID() + "-pool-";
-            }
-        });
-
-        executorService = Executors.newFixedThreadPool(threadCount, threadFactory);
         ongoingRequestsCount = new SynchronizingCounter(0);
     }
 
+    /**
+     * Sets the cache, that decides whether a resource must be loaded or revalidated.
+     * 
+     * @param cache
+     *            the cache of the user, or <code>null</code> to load everything
+     */
+    public void setCache(final StaticContentCache cache)
+    {
+        this.cache = cache;
+    }
+
     /**
      * Adds the given URL to the list of URLs to be loaded. Whether the URL is loaded by the calling or a separate
      * thread is controlled by the parallelModeEnabled flag. If the flag is false, the method does not return until the
@@ -123,20 +199,20 @@ public class StaticContentDownloader
         if (isParallelModeEnabled())
         {
             // handle the request asynchronously
-            requestHandler = new RequestHandler(url);
+            if (executorService == null)
+            {
+                executorService = StaticContentDownloadExecutors.getExecutor(threadCount);
+            }
+            requestHandler = new RequestHandler(url, System.nanoTime());
             executorService.execute(requestHandler);
 
-            // debug
-            // ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor)
-            // executorService;
-            // System.err.printf("active = %d / size = %d\n",
-            // threadPoolExecutor.getActiveCount(),
-            // threadPoolExecutor.getPoolSize());
+            parallelRequestCount++;
+            maxQueueDepth = Math.max(maxQueueDepth, executorService.getQueue().size());
         }
         else
         {
             // handle the request synchronously
-            requestHandler = new RequestHandler(url);
+            requestHandler = new RequestHandler(url, 0);
             requestHandler.run();
         }
     }
@@ -162,14 +238,6 @@ public class StaticContentDownloader
         parallelModeEnabled = value;
     }
 
-    /**
-     * Shuts this request queue down. Any background thread is terminated.
-     */
-    public void shutdown()
-    {
-        executorService.shutdownNow();
-    }
-
     /**
      * Waits until all previously added requests have been executed.
      */
@@ -187,6 +255,7 @@ public class StaticContentDownloader
                 Session.getCurrent().getDataManager()
                        .logEvent("Timed out when loading static content", "Outstanding requests: " + count);
             }
+            logMetrics();
         }
         catch (final InterruptedException ex)
         {
@@ -194,6 +263,67 @@ public class StaticContentDownloader
         }
     }
 
+    /**
+     * Returns the size of the decoded response content, the same measure for every resource, no matter whether it was
+     * compressed or chunked on the wire. HtmlUnit has already received and buffered the whole content when the
+     * response is returned, so this only counts the buffered copy through the reusable buffer of the current thread.
+     * 
+     * @param response
+     *            the response
+     * @return decoded content size in bytes
+     * @throws IOException
+     */
+    private static long getContentLength(final WebResponse response) throws IOException
+    {
+        long size = 0;
+        final InputStream content = response.getContentAsStream();
+        if (content != null)
+        {
+            try
+            {
+                final byte[] buffer = COUNT_BUFFER.get();
+                int read;
+                while ((read = content.read(buffer)) != -1)
+                {
+                    size += read;
+                }
+            }
+            finally
+            {
+                content.close();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Logs the loaded bytes as well as queue depth and wait time of the parallel downloads as custom values.
+     */
+    private void logMetrics()
+    {
+        final DataManager dataManager = Session.getCurrent().getDataManager();
+        if (loadCount.get() > 0)
+        {
+            final CustomValue bytes = new CustomValue(BYTES_VALUE_NAME);
+            bytes.setValue(loadedBytes.get());
+            dataManager.logDataRecord(bytes);
+
+            final CustomValue loadTime = new CustomValue(LOAD_TIME_VALUE_NAME);
+            loadTime.setValue(this.loadTime.get());
+            dataManager.logDataRecord(loadTime);
+        }
+        if (parallelRequestCount > 0)
+        {
+            final CustomValue queueDepth = new CustomValue(QUEUE_DEPTH_VALUE_NAME);
+            queueDepth.setValue(maxQueueDepth);
+            dataManager.logDataRecord(queueDepth);
+
+            final CustomValue averageWaitTime = new CustomValue(WAIT_TIME_VALUE_NAME);
+            averageWaitTime.setValue(waitTime.get() / 1000000.0 / parallelRequestCount);
+            dataManager.logDataRecord(averageWaitTime);
+        }
+    }
+
     /**
      * A {@link Runnable} that loads exactly one resource.
      */
@@ -204,19 +334,65 @@ public class StaticContentDownloader
          */
         private final URL url;
 
+        /**
+         * The time the request was queued at, in nanoseconds, or 0 if it is executed synchronously.
+         */
+        private final long queuedAt;
+
         /**
          * Creates a new RequestHandler object.
          * 
          * @param url
          *            the URL to load
-         * @param referrerUrl
-         *            the referrer URL
-         * @param requestStack
-         *            the request stack to use
+         * @param queuedAt
+         *            the time the request was queued at
          */
-        public RequestHandler(final URL url)
+        public RequestHandler(final URL url, final long queuedAt)
         {
             this.url = url;
+            this.queuedAt = queuedAt;
+        }
+
+        /**
+         * Loads the resource, unless it is fresh in the {@link #cache}.
+         * 
+         * @throws IOException
+         */
+        private void load() throws IOException
+        {
+            final String urlString = url.toString();
+            if (cache != null && cache.isFresh(urlString))
+            {
+                return;
+            }
+
+            final WebRequest request = new WebRequest(url);
+            if (cache != null)
+            {
+                cache.addValidators(request);
+            }
+
+            UserAgentUtils.setUserAgentUID(webClient, userAgentUID);
+            final WebResponse response = webClient.loadWebResponse(request);
+            final long size;
+            try
+            {
+                size = getContentLength(response);
+            }
+            finally
+            {
+                // the content is never evaluated, release it right away
+                response.cleanUp();
+            }
+
+            loadCount.incrementAndGet();
+            loadedBytes.addAndGet(size);
+            loadTime.addAndGet(response.getLoadTime());
+
+            if (cache != null)
+            {
+                cache.update(urlString, response, size);
+            }
         }
 
         /**
@@ -225,10 +401,16 @@ public class StaticContentDownloader
         @Override
         public void run()
         {
+            if (queuedAt != 0)
+            {
+                final long waited = System.nanoTime() - queuedAt;
+                waitTime.addAndGet(waited);
+                StaticContentDownloadExecutors.recordWaitTime(waited);
+            }
+            final NoCodingEvents.Event event = NoCodingEvents.begin(NoCodingEvents.STATIC_CONTENT);
             try
             {
-                UserAgentUtils.setUserAgentUID(webClient, userAgentUID);
-                webClient.loadWebResponse(new WebRequest(url));
+                load();
             }
             catch (final Exception e)
             {
@@ -236,6 +418,10 @@ public class StaticContentDownloader
             }
             finally
             {
+                if (event != null)
+                {
+                    event.commit(url);
+                }
                 // request is done
                 ongoingRequestsCount.decrement();
             }
@@ -40,6 +40,7 @@ public class XhrHtmlPageAction extends HtmlPageAction
     protected void execute() throws Exception
     {
         this.xhrResponse = getWebClient().loadWebResponse(this.webRequest);
+        loadStaticContent();
     }
 
     @Override
@@ -53,4 +54,11 @@ public class XhrHtmlPageAction extends HtmlPageAction
     {
         return this.result;
     }
+
+    @Override
+    public void releaseResult()
+    {
+        super.releaseResult();
+        this.xhrResponse = null;
+    }
 }
@@ -36,6 +36,7 @@ public class XhrLightWeightPageAction extends LightWeightPageAction
     protected void execute() throws Exception
     {
         this.xhrResponse = getWebClient().loadWebResponse(this.webRequest);
+        loadStaticContent();
     }
 
     @Override
@@ -49,4 +50,11 @@ public class XhrLightWeightPageAction extends LightWeightPageAction
     {
         return this.result;
     }
+
+    @Override
+    public void releaseResult()
+    {
+        super.releaseResult();
+        this.xhrResponse = null;
+    }
 }
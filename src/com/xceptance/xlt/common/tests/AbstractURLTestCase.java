@@ -1,16 +1,22 @@
 package com.xceptance.xlt.common.tests;
 
 import java.io.File;
+import java.nio.charset.Charset;
 import java.util.List;
 
+import org.junit.After;
 import org.junit.Before;
 
+import bsh.EvalError;
+
 import com.xceptance.xlt.api.data.GeneralDataProvider;
 import com.xceptance.xlt.api.engine.Session;
 import com.xceptance.xlt.api.tests.AbstractTestCase;
 import com.xceptance.xlt.api.util.XltLogger;
 import com.xceptance.xlt.api.util.XltProperties;
 import com.xceptance.xlt.common.util.NoCodingPropAdmin;
+import com.xceptance.xlt.common.util.StageTimers;
+import com.xceptance.xlt.common.util.StageTimers.Stage;
 import com.xceptance.xlt.common.util.action.data.URLActionData;
 import com.xceptance.xlt.common.util.action.data.URLActionDataListFacade;
 import com.xceptance.xlt.common.util.action.data.URLActionDataStore;
@@ -18,10 +24,15 @@ import com.xceptance.xlt.common.util.action.data.URLActionDataValidation;
 import com.xceptance.xlt.common.util.action.execution.URLActionDataExecutionableFactory;
 import com.xceptance.xlt.common.util.action.execution.URLActionDataExecutionbleFactoryBuilder;
 import com.xceptance.xlt.common.util.action.execution.URLActionDataRequestBuilder;
+import com.xceptance.xlt.common.util.action.validation.DeferredValidations;
 import com.xceptance.xlt.common.util.action.validation.URLActionDataResponseHandler;
 import com.xceptance.xlt.common.util.action.validation.URLActionDataStoreResponseHandler;
 import com.xceptance.xlt.common.util.action.validation.URLActionDataValidationResponseHandler;
 import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
+import com.xceptance.xlt.common.util.feed.DataFeed;
+import com.xceptance.xlt.common.util.feed.DataFeeder;
+import com.xceptance.xlt.common.util.feed.DataPartition;
+import com.xceptance.xlt.common.util.feed.FeedStrategy;
 
 /**
  * Prepares the actual test run. <br>
@@ -97,6 +108,11 @@ public class AbstractURLTestCase extends AbstractTestCase
      */
     protected String mode;
 
+    /**
+     * Measures the stages of the framework, if enabled via {@link NoCodingPropAdmin#STAGETIMERS}.
+     */
+    protected StageTimers stageTimers;
+
     /**
      * Mapped informations from the files, where the test case is specified. e.g. the .yaml file.
      */
@@ -115,6 +131,7 @@ public class AbstractURLTestCase extends AbstractTestCase
         loadFileName();
         loadFilePath();
         loadMode();
+        setupStageTimers();
         setupParameterInterpreter();
         setupURLActionListFacade();
         setupURLActionExecutableFactory();
@@ -123,6 +140,23 @@ public class AbstractURLTestCase extends AbstractTestCase
         setupURLActionList();
     }
 
+    /**
+     * Releases the resources of the {@link #executionableFactory}. Validations, that were deferred but did not start
+     * yet, are dropped before.
+     */
+    @After
+    public void closeExecutionableFactory()
+    {
+        if (this.responseHandler != null)
+        {
+            this.responseHandler.cancelDeferredValidations();
+        }
+        if (this.executionableFactory != null)
+        {
+            this.executionableFactory.close();
+        }
+    }
+
     private void loadXltProperties()
     {
         this.properties = XltProperties.getInstance();
@@ -186,10 +220,74 @@ public class AbstractURLTestCase extends AbstractTestCase
         }
     }
 
+    private void setupStageTimers()
+    {
+        this.stageTimers = new StageTimers(propertiesAdmin.getPropertyByKey(NoCodingPropAdmin.STAGETIMERS,
+                                                                            false));
+    }
+
     private void setupParameterInterpreter()
     {
         this.interpreter = new ParameterInterpreter(this.properties,
                                                     this.dataProvider);
+        this.interpreter.setStageTimers(this.stageTimers);
+        final DataPartition dataPartition = DataPartition.nextIteration();
+        try
+        {
+            this.interpreter.setDataPartition(dataPartition);
+        }
+        catch (final EvalError e)
+        {
+            throw new IllegalArgumentException("Failed to add data partition: " + e.getMessage(), e);
+        }
+        setupDataFeeder(dataPartition);
+    }
+
+    /**
+     * Makes the configured data feeds available as ${FEED.&lt;feed&gt;.&lt;column&gt;}.
+     */
+    private void setupDataFeeder(final DataPartition dataPartition)
+    {
+        final String feedNames = propertiesAdmin.getPropertyByKey(NoCodingPropAdmin.FEEDS);
+        if (feedNames == null || feedNames.trim().isEmpty())
+        {
+            return;
+        }
+        final DataFeeder dataFeeder = new DataFeeder();
+        dataFeeder.setPartition(dataPartition);
+        for (final String name : feedNames.split(","))
+        {
+            final String feedName = name.trim();
+            final String prefix = NoCodingPropAdmin.FEED + "." + feedName + ".";
+            final String fileName = propertiesAdmin.getPropertyByKey(prefix + "file");
+            if (fileName == null)
+            {
+                throw new IllegalArgumentException("Missing property '" + prefix + "file'!");
+            }
+            File file = new File(fileName);
+            if (!file.isAbsolute())
+            {
+                file = new File(dataDirectory, fileName);
+            }
+            final String separator = propertiesAdmin.getPropertyByKey(prefix + "separator", ",");
+            if (separator.length() != 1)
+            {
+                throw new IllegalArgumentException("Data feed separator must be a single character: \"" + separator
+                                                   + "\"");
+            }
+            final Charset charset = Charset.forName(propertiesAdmin.getPropertyByKey(prefix + "encoding", "UTF-8"));
+            final FeedStrategy strategy = FeedStrategy.fromName(propertiesAdmin.getPropertyByKey(prefix + "strategy",
+                                                                                                 "sequential"));
+            dataFeeder.addFeed(feedName, DataFeed.open(file, separator.charAt(0), charset), strategy);
+        }
+        try
+        {
+            this.interpreter.setDataFeeder(dataFeeder);
+        }
+        catch (final EvalError e)
+        {
+            throw new IllegalArgumentException("Failed to add data feeds: " + e.getMessage(), e);
+        }
     }
 
     private void setupURLActionListFacade()
@@ -216,13 +314,36 @@ public class AbstractURLTestCase extends AbstractTestCase
         this.validationHandler = new URLActionDataValidationResponseHandler();
         this.responseHandler = new URLActionDataResponseHandler(this.storeHandler,
                                                                 this.validationHandler);
+        this.responseHandler.setStageTimers(this.stageTimers);
+        if (propertiesAdmin.getPropertyByKey(NoCodingPropAdmin.DEFERREDVALIDATIONS, false))
+        {
+            final int threadCount = propertiesAdmin.getPropertyByKey(NoCodingPropAdmin.DEFERREDVALIDATIONTHREADS, 2);
+            this.responseHandler.setDeferredValidations(new DeferredValidations(threadCount));
+        }
+        if (propertiesAdmin.getPropertyByKey(NoCodingPropAdmin.STREAMINGVALIDATION, false))
+        {
+            if (URLActionDataExecutionbleFactoryBuilder.MODE_ASYNC.equals(this.mode))
+            {
+                final int maxMatchLength = propertiesAdmin.getPropertyByKey(NoCodingPropAdmin.STREAMINGVALIDATIONMAXMATCHLENGTH,
+                                                                            65536);
+                this.responseHandler.enableStreamingValidation(maxMatchLength);
+            }
+            else
+            {
+                XltLogger.runTimeLogger.warn("Streaming validation is only supported in mode: "
+                                             + URLActionDataExecutionbleFactoryBuilder.MODE_ASYNC);
+            }
+        }
     }
 
     private void setupURLActionList()
     {
         try
         {
+            final long start = stageTimers.start();
             this.actions = urlActionListFacade.buildUrlActions();
+            stageTimers.stop(Stage.PARSE, start);
+            stageTimers.report("");
         }
         catch (final Exception e)
         {
@@ -230,5 +351,6 @@ public class AbstractURLTestCase extends AbstractTestCase
                                                    + e.getMessage(),
                                                e);
         }
+        this.executionableFactory.checkActions(this.actions);
     }
 }
@@ -1,12 +1,19 @@
 package com.xceptance.xlt.common.tests;
 
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 
 import com.gargoylesoftware.htmlunit.WebRequest;
 import com.xceptance.xlt.api.util.XltLogger;
 import com.xceptance.xlt.common.actions.Downloader;
+import com.xceptance.xlt.common.util.NoCodingEvents;
+import com.xceptance.xlt.common.util.StageTimers.Stage;
 import com.xceptance.xlt.common.util.action.data.URLActionData;
 import com.xceptance.xlt.common.util.action.execution.URLActionDataExecutionable;
+import com.xceptance.xlt.common.util.action.execution.URLActionDataExecutionableGroup;
 import com.xceptance.xlt.common.util.action.validation.URLActionDataResponseHandler;
 
 /**
@@ -23,6 +30,15 @@ import com.xceptance.xlt.common.util.action.validation.URLActionDataResponseHand
  * <li>static requests are treated differently. They go to the {@link Downloader} and cannot be validated.
  * Therefore before executing an action, we have to take a look onto the next actions in the list to see whether they are 
  * static requests and must be added to the Downloader.
+ * <li>consecutive xhr requests of the same {@link URLActionData#getParallelGroup() parallel group} are fired concurrently.
+ * Modes, that cannot do so, reject parallel groups when the script is loaded. Their responses are handled in the order
+ * of the list, after all of them completed.
+ * <li>validations, that no later action depends on, may be evaluated while the next request is in flight, see
+ * {@link URLActionData#hasDeferrableValidations()}. The iteration waits for them at its end.
+ * <li>in async mode, the body of a response may be validated while it is received, see
+ * {@link URLActionData#hasStreamableValidations()}.
+ * <li>the page of an action is released, as soon as its response was handled. Only the session state, i.e. the web
+ * client and its cookies, is handed over to the next action.
  * </ul>
  * 
  * @author matthias mitterreiter
@@ -33,6 +49,11 @@ public class URLTestCase extends AbstractURLTestCase
 
     protected URLActionData previousActionData;
 
+    /**
+     * Whether {@link #previousExecutable} was already executed and its response handled.
+     */
+    protected boolean previousFinished;
+
     /**
      * The first and the last action are treated differently: <br>
      * The first action cannot be a static request or a XmlHttpRequest. <br>
@@ -45,12 +66,19 @@ public class URLTestCase extends AbstractURLTestCase
         {
             handleFirstAction();
 
-            for (final URLActionData action : actions)
+            for (int i = 0; i < actions.size(); i++)
             {
+                final URLActionData action = actions.get(i);
                 if (action.isAction())
                 {
                     handleAction(action);
                 }
+                else if (action.isParallel())
+                {
+                    final List<URLActionData> parallelActions = getParallelActions(i);
+                    handleParallelXhrActions(parallelActions);
+                    i += parallelActions.size() - 1;
+                }
                 else if (action.isXHRAction())
                 {
                     handleXhrAction(action);
@@ -80,10 +108,13 @@ public class URLTestCase extends AbstractURLTestCase
         removeActionFromActionList(action);
     }
 
+    /**
+     * The iteration must not end before the deferred validations are evaluated.
+     */
     protected void handleLastAction()
     {
-        executePreviousExecutionable();
-        handleResponse();
+        finishPreviousExecutionable();
+        responseHandler.awaitDeferredValidations();
     }
 
     protected void removeActionFromActionList(final URLActionData action)
@@ -94,6 +125,7 @@ public class URLTestCase extends AbstractURLTestCase
     protected void setPreviousExecutionable(final URLActionDataExecutionable executable)
     {
         previousExecutable = executable;
+        previousFinished = false;
     }
 
     protected void setPreviousURLAction(final URLActionData action)
@@ -116,13 +148,15 @@ public class URLTestCase extends AbstractURLTestCase
 
     protected WebRequest createActionWebRequest(final URLActionData action)
     {
-        return requestBuilder.buildRequest(action);
+        final long start = startStage(action);
+        final WebRequest request = requestBuilder.buildRequest(action);
+        stageTimers.stop(Stage.BUILD, start);
+        return request;
     }
     
     protected void handleAction(final URLActionData action)
     {
-        executePreviousExecutionable();
-        handleResponse();
+        finishPreviousExecutionable();
 
         final WebRequest request = createActionWebRequest(action);
         final URLActionDataExecutionable executable = createExecutionableFromAction(action,
@@ -131,21 +165,95 @@ public class URLTestCase extends AbstractURLTestCase
         setPreviousExecutionable(executable);
     }
 
+    /**
+     * Handles the response of the {@link #previousExecutable} and releases it afterwards, so at most one page per user
+     * is kept reachable.
+     */
     protected void handleResponse()
     {
-        responseHandler.handleURLActionResponse(previousActionData,
-                                                previousExecutable.getResult());
+        startStage(previousActionData);
+        try
+        {
+            responseHandler.handleURLActionResponse(previousActionData,
+                                                    previousExecutable.getResult());
+        }
+        finally
+        {
+            previousExecutable.releaseResult();
+        }
+        if (stageTimers.isEnabled())
+        {
+            stageTimers.report(previousActionData.getName());
+        }
     }
 
     protected void executePreviousExecutionable()
     {
+        final long start = startStage(previousActionData);
         previousExecutable.executeAction();
+        stageTimers.stop(Stage.EXECUTE, start);
+    }
+
+    /**
+     * An invalid url is reported by the action itself, the event must not hide that.
+     */
+    protected void commitActionEvent(final NoCodingEvents.Event event, final URLActionData action)
+    {
+        try
+        {
+            event.commit(action.getName(), action.getType(), action.getUrlString());
+        }
+        catch (final RuntimeException e)
+        {
+            event.commit(action.getName(), action.getType());
+        }
+    }
+
+    /**
+     * Attributes the following measurements of the {@link #stageTimers} to the action.
+     * 
+     * @return the start of the measurement
+     */
+    protected long startStage(final URLActionData action)
+    {
+        if (stageTimers.isEnabled())
+        {
+            stageTimers.setCurrentAction(action.getName());
+        }
+        return stageTimers.start();
+    }
+
+    /**
+     * Executes the {@link #previousExecutable} and handles its response, unless this was already done.
+     */
+    protected void finishPreviousExecutionable()
+    {
+        if (!previousFinished)
+        {
+            final NoCodingEvents.Event event = NoCodingEvents.begin(NoCodingEvents.ACTION);
+            try
+            {
+                executePreviousExecutionable();
+                handleResponse();
+            }
+            finally
+            {
+                if (event != null)
+                {
+                    commitActionEvent(event, previousActionData);
+                }
+            }
+            previousFinished = true;
+        }
     }
 
     protected URLActionDataExecutionable createExecutionableFromAction(final URLActionData action,
                                                                   final WebRequest request)
     {
-        return executionableFactory.createPageAction(action.getName(), request);
+        final URLActionDataExecutionable executable = executionableFactory.createPageAction(action.getName(),
+                                                                                            request);
+        executable.setStreamingValidation(responseHandler.createStreamingValidation(action));
+        return executable;
     }
 
     protected void handleXhrAction(final URLActionData xhrAction)
@@ -153,23 +261,120 @@ public class URLTestCase extends AbstractURLTestCase
         final WebRequest request = createXhrWebRequest(xhrAction);
         final URLActionDataExecutionable executable = createExecutionableFromXhr(xhrAction,
                                                                               request);
-        executePreviousExecutionable();
-        handleResponse();
+        finishPreviousExecutionable();
         setPreviousURLAction(xhrAction);
         setPreviousExecutionable(executable);
     }
 
     protected WebRequest createXhrWebRequest(final URLActionData xhrAction)
     {
-        return requestBuilder.buildXhrRequest(xhrAction,
-                                              previousExecutable.getUrl());
+        final long start = startStage(xhrAction);
+        final WebRequest request = requestBuilder.buildXhrRequest(xhrAction,
+                                                                  previousExecutable.getUrl());
+        stageTimers.stop(Stage.BUILD, start);
+        return request;
     }
 
     protected URLActionDataExecutionable createExecutionableFromXhr(final URLActionData action,
                                                                final WebRequest request)
     {
-        return executionableFactory.createXhrPageAction(action.getName(),
-                                                        request);
+        final URLActionDataExecutionable executable = executionableFactory.createXhrPageAction(action.getName(),
+                                                                                               request);
+        executable.setStreamingValidation(responseHandler.createStreamingValidation(action));
+        return executable;
+    }
+
+    /**
+     * Collects the xhr requests of the parallel group, that starts at the passed index, together with the static
+     * requests in between and directly after them.
+     * 
+     * @param start
+     *            index of the first xhr request of the group in {@link #actions}
+     * @return the requests of the group, in the order of the list
+     */
+    protected List<URLActionData> getParallelActions(final int start)
+    {
+        final String parallelGroup = actions.get(start).getParallelGroup();
+        final List<URLActionData> parallelActions = new ArrayList<URLActionData>();
+        for (int i = start; i < actions.size(); i++)
+        {
+            final URLActionData action = actions.get(i);
+            if (action.isStaticContent()
+                || (action.isParallel() && parallelGroup.equals(action.getParallelGroup())))
+            {
+                parallelActions.add(action);
+            }
+            else
+            {
+                break;
+            }
+        }
+        return parallelActions;
+    }
+
+    /**
+     * Fires the xhr requests of a parallel group concurrently. Only the async mode supports it, the other modes reject
+     * parallel groups when the script is loaded. <br>
+     * All requests are built before any of them is fired, so they see the stored values of the actions before the
+     * group only. After all of them completed, the responses are validated and stored in the order of the list.
+     * 
+     * @param parallelActions
+     *            the requests of the group, see {@link #getParallelActions(int)}
+     */
+    protected void handleParallelXhrActions(final List<URLActionData> parallelActions)
+    {
+        finishPreviousExecutionable();
+
+        final URL referer = previousExecutable.getUrl();
+        final List<URLActionData> xhrActions = new ArrayList<URLActionData>();
+        final URLActionDataExecutionableGroup group = new URLActionDataExecutionableGroup();
+        URLActionDataExecutionable executable = null;
+
+        for (final URLActionData action : parallelActions)
+        {
+            if (action.isStaticContent())
+            {
+                executable.addStaticRequest(action.getUrl());
+            }
+            else
+            {
+                final long start = startStage(action);
+                final WebRequest request = requestBuilder.buildXhrRequest(action,
+                                                                          referer);
+                stageTimers.stop(Stage.BUILD, start);
+                executable = createExecutionableFromXhr(action, request);
+                xhrActions.add(action);
+                group.add(executable);
+            }
+        }
+
+        // the requests run concurrently, so the group is measured as a whole
+        final String parallelGroup = xhrActions.get(0).getParallelGroup();
+        stageTimers.setCurrentAction(parallelGroup);
+        final NoCodingEvents.Event event = NoCodingEvents.begin(NoCodingEvents.ACTION);
+        final long start = stageTimers.start();
+        try
+        {
+            group.executeAll();
+            stageTimers.stop(Stage.EXECUTE, start);
+            stageTimers.report(parallelGroup);
+
+            final List<URLActionDataExecutionable> executables = group.getExecutionables();
+            for (int i = 0; i < xhrActions.size(); i++)
+            {
+                setPreviousURLAction(xhrActions.get(i));
+                setPreviousExecutionable(executables.get(i));
+                handleResponse();
+            }
+        }
+        finally
+        {
+            if (event != null)
+            {
+                event.commit(parallelGroup, URLActionData.TYPE_XHR, referer);
+            }
+        }
+        previousFinished = true;
     }
 
     protected void handleStaticAction(final URLActionData staticAction)
@@ -0,0 +1,344 @@
+package com.xceptance.xlt.common.util;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.api.util.XltProperties;
+
+/**
+ * Custom Java Flight Recorder events for the stages of the NoCoding pipeline, so a recording shows which action,
+ * validation, store item, parameter or static resource caused the HtmlUnit and BeanShell frames.
+ * <ul>
+ * <li>Disabled by default, enabled via {@link NoCodingPropAdmin#JFREVENTS}. If disabled,
+ * {@link #begin(EventType)} only reads a flag.</li>
+ * <li>If enabled, but nothing is recording, the event is dropped right after its creation.</li>
+ * <li>The events are defined at runtime via <code>jdk.jfr.EventFactory</code> and accessed via reflection, since the
+ * code base must still run on JVMs without JFR. On such JVMs no events are emitted.</li>
+ * </ul>
+ * Usage:
+ *
+ * <pre>
+ * final NoCodingEvents.Event event = NoCodingEvents.begin(NoCodingEvents.VALIDATION);
+ * ...
+ * if (event != null)
+ * {
+ *     event.commit(name, selectionMode, selectionContent);
+ * }
+ * </pre>
+ */
+public final class NoCodingEvents
+{
+    /**
+     * Execution and response handling of an action. Fields: name, type, url.
+     */
+    public static final EventType ACTION = new EventType("Action", "name", "type", "url");
+
+    /**
+     * A single validation. Fields: name, selectionMode, selectionContent.
+     */
+    public static final EventType VALIDATION = new EventType("Validation", "name", "selectionMode", "selectionContent");
+
+    /**
+     * A single store item. Fields: name, selectionMode, selectionContent.
+     */
+    public static final EventType STORE = new EventType("Store", "name", "selectionMode", "selectionContent");
+
+    /**
+     * Interpretation of a string with dynamic parameters. Fields: input.
+     */
+    public static final EventType INTERPRETATION = new EventType("Interpretation", "input");
+
+    /**
+     * Download of a static resource. Fields: url.
+     */
+    public static final EventType STATIC_CONTENT = new EventType("StaticContent", "url");
+
+    private static final String EVENT_NAME_PREFIX = "com.xceptance.xlt.nocoding.";
+
+    private static volatile boolean enabled = XltProperties.getInstance().getProperty(NoCodingPropAdmin.JFREVENTS,
+                                                                                      false);
+
+    private NoCodingEvents()
+    {
+    }
+
+    /**
+     * @return whether events are emitted at all
+     */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Overrides {@link NoCodingPropAdmin#JFREVENTS}.
+     *
+     * @param value
+     *            whether to emit events
+     */
+    public static void setEnabled(final boolean value)
+    {
+        enabled = value;
+    }
+
+    /**
+     * Starts the timing of an event.
+     *
+     * @param type
+     *            the type of the event
+     * @return the started event, <code>null</code> if events are disabled, not supported or not recorded
+     */
+    public static Event begin(final EventType type)
+    {
+        if (!enabled)
+        {
+            return null;
+        }
+        return type.begin();
+    }
+
+    /**
+     * A started event.
+     */
+    public static final class Event
+    {
+        private final Object event;
+
+        private Event(final Object event)
+        {
+            this.event = event;
+        }
+
+        /**
+         * Ends the timing and commits the event, if it passes the thresholds of the recording.
+         *
+         * @param values
+         *            the field values, in the order of the field names of the {@link EventType}
+         */
+        public void commit(final Object... values)
+        {
+            try
+            {
+                Jfr.API.end.invoke(event);
+                if ((Boolean) Jfr.API.shouldCommit.invoke(event))
+                {
+                    for (int i = 0; i < values.length; i++)
+                    {
+                        Jfr.API.set.invoke(event, i, (values[i] != null) ? values[i].toString() : null);
+                    }
+                    Jfr.API.commit.invoke(event);
+                }
+            }
+            catch (final Exception e)
+            {
+                XltLogger.runTimeLogger.debug("Failed to commit flight recorder event", e);
+            }
+        }
+    }
+
+    /**
+     * Type of an event, defined on first use.
+     */
+    public static final class EventType
+    {
+        private final String name;
+
+        private final String[] fields;
+
+        /**
+         * The <code>jdk.jfr.EventFactory</code>, <code>null</code> if not created yet or not supported.
+         */
+        private volatile Object factory;
+
+        /**
+         * The <code>jdk.jfr.EventType</code> of the {@link #factory}.
+         */
+        private volatile Object eventType;
+
+        private volatile boolean unsupported;
+
+        private EventType(final String name, final String... fields)
+        {
+            this.name = name;
+            this.fields = fields;
+        }
+
+        public String getName()
+        {
+            return EVENT_NAME_PREFIX + name;
+        }
+
+        private Event begin()
+        {
+            final Object eventFactory = getFactory();
+            if (eventFactory == null)
+            {
+                return null;
+            }
+            try
+            {
+                // checking the type first avoids creating events, that are not recorded anyway
+                if (!(Boolean) Jfr.API.isTypeEnabled.invoke(eventType))
+                {
+                    return null;
+                }
+                final Object event = Jfr.API.newEvent.invoke(eventFactory);
+                if (!(Boolean) Jfr.API.isEnabled.invoke(event))
+                {
+                    return null;
+                }
+                Jfr.API.begin.invoke(event);
+                return new Event(event);
+            }
+            catch (final Exception e)
+            {
+                XltLogger.runTimeLogger.debug("Failed to begin flight recorder event", e);
+                return null;
+            }
+        }
+
+        private Object getFactory()
+        {
+            Object result = factory;
+            if (result == null && !unsupported)
+            {
+                synchronized (this)
+                {
+                    result = factory;
+                    if (result == null && !unsupported)
+                    {
+                        result = createFactory();
+                        if (result != null)
+                        {
+                            eventType = getEventType(result);
+                            result = (eventType != null) ? result : null;
+                        }
+                        factory = result;
+                        unsupported = (result == null);
+                    }
+                }
+            }
+            return result;
+        }
+
+        private Object getEventType(final Object eventFactory)
+        {
+            try
+            {
+                return Jfr.API.getEventType.invoke(eventFactory);
+            }
+            catch (final Exception e)
+            {
+                XltLogger.runTimeLogger.warn("Failed to define flight recorder event: " + getName(), e);
+                return null;
+            }
+        }
+
+        private Object createFactory()
+        {
+            if (Jfr.API == null)
+            {
+                XltLogger.runTimeLogger.warn("Flight recorder events are not supported by this JVM");
+                return null;
+            }
+            try
+            {
+                final List<Object> annotations = new ArrayList<Object>();
+                annotations.add(Jfr.API.newAnnotation("jdk.jfr.Name", getName()));
+                annotations.add(Jfr.API.newAnnotation("jdk.jfr.Label", "NoCoding " + name));
+                annotations.add(Jfr.API.newAnnotation("jdk.jfr.Category", new String[]
+                    {
+                        "XLT", "NoCoding"
+                    }));
+
+                final List<Object> valueDescriptors = new ArrayList<Object>();
+                for (final String field : fields)
+                {
+                    valueDescriptors.add(Jfr.API.valueDescriptor.newInstance(String.class, field));
+                }
+                return Jfr.API.create.invoke(null, annotations, valueDescriptors);
+            }
+            catch (final Exception e)
+            {
+                XltLogger.runTimeLogger.warn("Failed to define flight recorder event: " + getName(), e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The reflectively resolved JFR API.
+     */
+    private static final class Jfr
+    {
+        /**
+         * The API, <code>null</code> if the JVM does not support JFR.
+         */
+        private static final Jfr API = load();
+
+        private final Method create;
+
+        private final Method newEvent;
+
+        private final Method getEventType;
+
+        private final Method isTypeEnabled;
+
+        private final Method isEnabled;
+
+        private final Method begin;
+
+        private final Method end;
+
+        private final Method shouldCommit;
+
+        private final Method set;
+
+        private final Method commit;
+
+        private final Constructor<?> annotationElement;
+
+        private final Constructor<?> valueDescriptor;
+
+        private Jfr() throws Exception
+        {
+            final Class<?> eventClass = Class.forName("jdk.jfr.Event");
+            final Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+            create = factoryClass.getMethod("create", List.class, List.class);
+            newEvent = factoryClass.getMethod("newEvent");
+            getEventType = factoryClass.getMethod("getEventType");
+            isTypeEnabled = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+            isEnabled = eventClass.getMethod("isEnabled");
+            begin = eventClass.getMethod("begin");
+            end = eventClass.getMethod("end");
+            shouldCommit = eventClass.getMethod("shouldCommit");
+            set = eventClass.getMethod("set", int.class, Object.class);
+            commit = eventClass.getMethod("commit");
+            annotationElement = Class.forName("jdk.jfr.AnnotationElement").getConstructor(Class.class, Object.class);
+            valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class);
+        }
+
+        private static Jfr load()
+        {
+            try
+            {
+                return new Jfr();
+            }
+            catch (final Exception e)
+            {
+                return null;
+            }
+        }
+
+        private Object newAnnotation(final String annotationClassName, final Object value) throws Exception
+        {
+            final Class<? extends Annotation> annotationClass = Class.forName(annotationClassName)
+                                                                     .asSubclass(Annotation.class);
+            return annotationElement.newInstance(annotationClass, value);
+        }
+    }
+}
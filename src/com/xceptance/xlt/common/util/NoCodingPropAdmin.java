@@ -38,8 +38,52 @@ public class NoCodingPropAdmin
 
     public static final String DOWNLOADTHREADS = "com.xceptance.xlt.staticContent.downloadThreads";
 
+    public static final String LOADSCRIPTSTATICCONTENT = "com.xceptance.xlt.nocoding.loadScriptStaticContent";
+
+    public static final String STATICCONTENTCACHE = "com.xceptance.xlt.nocoding.staticContentCache";
+
+    public static final String STATICCONTENTCACHESIZE = "com.xceptance.xlt.nocoding.staticContentCache.maxBytes";
+
     public static final String TLSVERSION = "com.xceptance.xlt.nocoding.TLSVersion";
 
+    public static final String SSLEASYMODE = "com.xceptance.xlt.ssl.easyMode";
+
+    public static final String PROXY = "com.xceptance.xlt.proxy";
+
+    public static final String PROXYHOST = "com.xceptance.xlt.proxy.host";
+
+    public static final String PROXYPORT = "com.xceptance.xlt.proxy.port";
+
+    public static final String PROXYUSERNAME = "com.xceptance.xlt.proxy.userName";
+
+    public static final String PROXYPASSWORD = "com.xceptance.xlt.proxy.password";
+
+    public static final String PROXYBYPASS = "com.xceptance.xlt.proxy.bypassForHosts";
+
+    public static final String TIMEOUT = "com.xceptance.xlt.timeout";
+
+    public static final String USERAGENT = "com.xceptance.xlt.browser.userAgent";
+
+    public static final String ASYNCIOTHREADS = "com.xceptance.xlt.nocoding.async.ioThreads";
+
+    public static final String STAGETIMERS = "com.xceptance.xlt.nocoding.stageTimers";
+
+    public static final String JFREVENTS = "com.xceptance.xlt.nocoding.jfrEvents";
+
+    public static final String DEFERREDVALIDATIONS = "com.xceptance.xlt.nocoding.deferredValidations";
+
+    public static final String DEFERREDVALIDATIONTHREADS = "com.xceptance.xlt.nocoding.deferredValidations.threads";
+
+    public static final String STREAMINGVALIDATION = "com.xceptance.xlt.nocoding.streamingValidation";
+
+    public static final String STREAMINGVALIDATIONMAXMATCHLENGTH = "com.xceptance.xlt.nocoding.streamingValidation.maxMatchLength";
+
+    public static final String FEEDS = "com.xceptance.xlt.nocoding.feeds";
+
+    public static final String LOADTESTS = "com.xceptance.xlt.loadtests";
+
+    public static final String FEED = "com.xceptance.xlt.nocoding.feed";
+
     public NoCodingPropAdmin(final XltProperties xltProperties,
                              final String fullTestCaseName,
                              final String testName)
@@ -150,17 +194,28 @@ public class NoCodingPropAdmin
 
     private void setCredentials(final XltWebClient webClient)
     {
-        final String name = getAuthName();
-        final String password = getAuthPassword();
-        if (name != null)
+        final String authorization = getBasicAuthorization();
+        if (authorization != null)
         {
-            final String userPass = name + ":" + password;
-            final String userPassBase64 = Base64.encodeBase64String(userPass.getBytes());
-            webClient.addRequestHeader("Authorization", "Basic "
-                                                        + userPassBase64);
+            webClient.addRequestHeader("Authorization", authorization);
             XltLogger.runTimeLogger.debug(getConfigWebClient("Credentials",
-                                                             userPass));
+                                                             getAuthName() + ":" + getAuthPassword()));
+        }
+    }
+
+    /**
+     * @return the value of the 'Authorization' header for basic authentication with the configured credentials, or
+     *         <code>null</code> if no user name is configured.
+     */
+    public String getBasicAuthorization()
+    {
+        final String name = getAuthName();
+        if (name == null)
+        {
+            return null;
         }
+        final String userPass = name + ":" + getAuthPassword();
+        return "Basic " + Base64.encodeBase64String(userPass.getBytes());
     }
 
     private String getAuthName()
@@ -0,0 +1,75 @@
+package com.xceptance.xlt.common.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Process wide cache of compiled regular expressions. <br>
+ * {@link Pattern}s are immutable and thread safe, so all users share them. Patterns that are constant in a script
+ * should be compiled via {@link #compileIfStatic(String)} when the script is built, patterns with dynamic parameters
+ * are compiled once per distinct expression via {@link #get(String)}.
+ */
+public final class PatternCache
+{
+    /**
+     * Maximum number of cached patterns. Dynamic patterns might produce an unbounded number of expressions, so
+     * further patterns are compiled but not cached any longer.
+     */
+    static final int MAX_PATTERNS = 10000;
+
+    private static final ConcurrentMap<String, Pattern> PATTERNS = new ConcurrentHashMap<String, Pattern>();
+
+    private PatternCache()
+    {
+    }
+
+    /**
+     * Returns the compiled pattern, compiles it on first use.
+     * 
+     * @param regex
+     *            the regular expression
+     * @return the compiled pattern
+     * @throws java.util.regex.PatternSyntaxException
+     *             if the expression is invalid
+     */
+    public static Pattern get(final String regex)
+    {
+        ParameterUtils.isNotNull(regex, "Regex");
+        Pattern pattern = PATTERNS.get(regex);
+        if (pattern == null)
+        {
+            pattern = Pattern.compile(regex);
+            if (PATTERNS.size() < MAX_PATTERNS)
+            {
+                PATTERNS.putIfAbsent(regex, pattern);
+            }
+        }
+        return pattern;
+    }
+
+    /**
+     * Compiles the expression in advance, but only if it does not contain dynamic parameters and is valid.
+     * 
+     * @param regex
+     *            the raw regular expression, might be <code>null</code>
+     * @return the compiled pattern or <code>null</code>, if it must be compiled after the dynamic interpretation or is
+     *         invalid
+     */
+    public static Pattern compileIfStatic(final String regex)
+    {
+        if (regex == null || regex.contains("${"))
+        {
+            return null;
+        }
+        try
+        {
+            return get(regex);
+        }
+        catch (final RuntimeException e)
+        {
+            // reported when the pattern is used
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.xceptance.xlt.common.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates daemon threads, that are shared by all users of the agent. <br>
+ * XLT attributes a thread to a user via its thread group. A thread inherits the group of the thread, that creates it,
+ * so a shared thread started on demand by a user would be attributed to this user forever. The threads of this
+ * factory belong to the root thread group instead, no matter which thread creates them.
+ */
+public class SharedThreadFactory implements ThreadFactory
+{
+    private static final ThreadGroup ROOT_GROUP = getRootGroup();
+
+    private final String namePrefix;
+
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    /**
+     * @param namePrefix
+     *            the names of the threads are the prefix followed by a sequence number
+     */
+    public SharedThreadFactory(final String namePrefix)
+    {
+        ParameterUtils.isNotNull(namePrefix, "namePrefix");
+        this.namePrefix = namePrefix;
+    }
+
+    @Override
+    public Thread newThread(final Runnable runnable)
+    {
+        final Thread thread = new Thread(ROOT_GROUP, runnable, namePrefix + threadNumber.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static ThreadGroup getRootGroup()
+    {
+        ThreadGroup group = Thread.currentThread().getThreadGroup();
+        while (group.getParent() != null)
+        {
+            group = group.getParent();
+        }
+        return group;
+    }
+}
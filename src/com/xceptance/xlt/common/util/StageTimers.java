@@ -0,0 +1,226 @@
+package com.xceptance.xlt.common.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.xceptance.xlt.api.engine.CustomValue;
+import com.xceptance.xlt.api.engine.DataManager;
+import com.xceptance.xlt.api.engine.Session;
+import com.xceptance.xlt.api.util.XltLogger;
+
+/**
+ * Optional timers for the stages of the NoCoding pipeline, to tell the time spent in the framework from the time
+ * spent in the network. <br>
+ * <ul>
+ * <li>Times are measured via {@link System#nanoTime()} and summed up per action name and {@link Stage}.
+ * <li>Validations are additionally timed one by one, to spot expensive ones.
+ * <li>{@link #report(String)} logs the sums of an action as custom values in milliseconds, named
+ * <code>NoCoding.&lt;action&gt;.&lt;stage&gt;</code> and <code>NoCoding.&lt;action&gt;.Validate.&lt;validation&gt;</code>.
+ * Times measured without an action, such as parsing the script, are named <code>NoCoding.&lt;stage&gt;</code>.
+ * </ul>
+ * Enabled via {@link NoCodingPropAdmin#STAGETIMERS}. If disabled, {@link #start()} and {@link #stop(Stage, long)} do
+ * not even read the clock. <br>
+ * Not thread safe, every user owns its own instance.
+ */
+public class StageTimers
+{
+    /**
+     * The measured stages. {@link #INTERPRET} is part of the stages it is called from.
+     */
+    public enum Stage
+    {
+        PARSE("Parse"),
+        INTERPRET("Interpret"),
+        BUILD("BuildRequest"),
+        EXECUTE("Execute"),
+        VALIDATE("Validate"),
+        STORE("Store");
+
+        private final String name;
+
+        private Stage(final String name)
+        {
+            this.name = name;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+    }
+
+    public static final String PREFIX = "NoCoding.";
+
+    private static final int STAGES = Stage.values().length;
+
+    private final boolean enabled;
+
+    /**
+     * Name of the action, the measured times are attributed to.
+     */
+    private String currentAction = "";
+
+    /**
+     * Summed up times per action name, in nanoseconds.
+     */
+    private final Map<String, ActionTimes> times = new HashMap<String, ActionTimes>();
+
+    /**
+     * @param enabled
+     *            whether to measure at all
+     */
+    public StageTimers(final boolean enabled)
+    {
+        XltLogger.runTimeLogger.debug("Creating new Instance");
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @param actionName
+     *            the action, following measurements are attributed to. Empty for measurements without an action.
+     */
+    public void setCurrentAction(final String actionName)
+    {
+        if (enabled)
+        {
+            currentAction = (actionName != null) ? actionName : "";
+        }
+    }
+
+    /**
+     * @return the start of a measurement, <code>0</code> if disabled
+     */
+    public long start()
+    {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Adds the time since start to the stage of the current action.
+     *
+     * @param stage
+     *            the stage
+     * @param start
+     *            the value of {@link #start()}
+     */
+    public void stop(final Stage stage, final long start)
+    {
+        if (enabled)
+        {
+            getActionTimes(currentAction).stages[stage.ordinal()] += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Adds the time since start to the validation of the current action, as well as to its {@link Stage#VALIDATE}
+     * stage.
+     *
+     * @param validationName
+     *            the name of the validation
+     * @param start
+     *            the value of {@link #start()}
+     */
+    public void stopValidation(final String validationName, final long start)
+    {
+        if (enabled)
+        {
+            final long duration = System.nanoTime() - start;
+            final ActionTimes actionTimes = getActionTimes(currentAction);
+            actionTimes.stages[Stage.VALIDATE.ordinal()] += duration;
+
+            final Long sum = actionTimes.validations.get(validationName);
+            actionTimes.validations.put(validationName, (sum != null) ? sum + duration : duration);
+        }
+    }
+
+    /**
+     * @param actionName
+     *            the action
+     * @param stage
+     *            the stage
+     * @return the summed up time of the stage, not yet reported, in nanoseconds
+     */
+    public long getTime(final String actionName, final Stage stage)
+    {
+        final ActionTimes actionTimes = times.get(actionName);
+        return (actionTimes != null) ? actionTimes.stages[stage.ordinal()] : 0;
+    }
+
+    /**
+     * @param actionName
+     *            the action
+     * @param validationName
+     *            the validation
+     * @return the summed up time of the validation, not yet reported, in nanoseconds
+     */
+    public long getValidationTime(final String actionName, final String validationName)
+    {
+        final ActionTimes actionTimes = times.get(actionName);
+        final Long time = (actionTimes != null) ? actionTimes.validations.get(validationName) : null;
+        return (time != null) ? time : 0;
+    }
+
+    /**
+     * Logs the times of the action as custom values and resets them.
+     *
+     * @param actionName
+     *            the action
+     */
+    public void report(final String actionName)
+    {
+        final ActionTimes actionTimes = enabled ? times.remove(actionName) : null;
+        if (actionTimes == null)
+        {
+            return;
+        }
+
+        final DataManager dataManager = Session.getCurrent().getDataManager();
+        final String prefix = actionName.isEmpty() ? PREFIX : PREFIX + actionName + ".";
+        for (final Stage stage : Stage.values())
+        {
+            final long time = actionTimes.stages[stage.ordinal()];
+            if (time > 0)
+            {
+                logValue(dataManager, prefix + stage.getName(), time);
+            }
+        }
+        for (final Map.Entry<String, Long> entry : actionTimes.validations.entrySet())
+        {
+            logValue(dataManager, prefix + Stage.VALIDATE.getName() + "." + entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static void logValue(final DataManager dataManager, final String name, final long nanos)
+    {
+        final CustomValue value = new CustomValue(name);
+        value.setValue(nanos / 1000000.0);
+        dataManager.logDataRecord(value);
+    }
+
+    private ActionTimes getActionTimes(final String actionName)
+    {
+        ActionTimes actionTimes = times.get(actionName);
+        if (actionTimes == null)
+        {
+            actionTimes = new ActionTimes();
+            times.put(actionName, actionTimes);
+        }
+        return actionTimes;
+    }
+
+    /**
+     * The not yet reported times of an action.
+     */
+    private static final class ActionTimes
+    {
+        private final long[] stages = new long[STAGES];
+
+        private final Map<String, Long> validations = new LinkedHashMap<String, Long>();
+    }
+}
@@ -45,6 +45,14 @@ public class CSVBasedURLActionDataListBuilder extends URLActionDataListBuilder
 
     public static final String REGEXP_GETTER_PREFIX = "regexp";
 
+    public static final String BETWEEN_GETTER_PREFIX = "between";
+
+    public static final String LEFT_GETTER_PREFIX = "left";
+
+    public static final String RIGHT_GETTER_PREFIX = "right";
+
+    public static final String OCCURRENCE_GETTER_PREFIX = "occurrence";
+
     public static final int DYNAMIC_GETTER_COUNT = 10;
 
     /**
@@ -80,12 +88,20 @@ public class CSVBasedURLActionDataListBuilder extends URLActionDataListBuilder
 
     public static final String REGEXP = "RegExp";
 
+    public static final String LEFT = "Left";
+
+    public static final String RIGHT = "Right";
+
+    public static final String OCCURRENCE = "Occurrence";
+
     public static final String TEXT = "Text";
 
     public static final String ENCODED = "Encoded";
 
     public static final String ENCODED_DEFAULT = "false";
 
+    public static final String PARALLEL = "Parallel";
+
     static
     {
         PERMITTEDHEADERFIELDS.add(TYPE);
@@ -96,13 +112,20 @@ public class CSVBasedURLActionDataListBuilder extends URLActionDataListBuilder
         PERMITTEDHEADERFIELDS.add(RESPONSECODE);
         PERMITTEDHEADERFIELDS.add(XPATH);
         PERMITTEDHEADERFIELDS.add(REGEXP);
+        PERMITTEDHEADERFIELDS.add(LEFT);
+        PERMITTEDHEADERFIELDS.add(RIGHT);
+        PERMITTEDHEADERFIELDS.add(OCCURRENCE);
         PERMITTEDHEADERFIELDS.add(TEXT);
         PERMITTEDHEADERFIELDS.add(ENCODED);
+        PERMITTEDHEADERFIELDS.add(PARALLEL);
 
         for (int i = 1; i <= DYNAMIC_GETTER_COUNT; i++)
         {
             PERMITTEDHEADERFIELDS.add(XPATH_GETTER_PREFIX + i);
             PERMITTEDHEADERFIELDS.add(REGEXP_GETTER_PREFIX + i);
+            PERMITTEDHEADERFIELDS.add(LEFT_GETTER_PREFIX + i);
+            PERMITTEDHEADERFIELDS.add(RIGHT_GETTER_PREFIX + i);
+            PERMITTEDHEADERFIELDS.add(OCCURRENCE_GETTER_PREFIX + i);
         }
     }
 
@@ -211,6 +234,8 @@ public class CSVBasedURLActionDataListBuilder extends URLActionDataListBuilder
         final String responseCode = StringUtils.defaultIfBlank(csvRecord.get(RESPONSECODE),
                                                                RESPONSECODE_DEFAULT);
 
+        final String parallelGroup = StringUtils.trimToNull(csvRecord.get(PARALLEL));
+
         List<NameValuePair> parameters = new ArrayList<NameValuePair>();
 
         if (parametersString != null)
@@ -231,6 +256,14 @@ public class CSVBasedURLActionDataListBuilder extends URLActionDataListBuilder
         else if (this.TYPE_XHR_ACTION.equals(type))
         {
             action.setType(URLActionData.TYPE_XHR);
+            action.setParallelGroup(parallelGroup);
+        }
+        if (parallelGroup != null && !TYPE_XHR_ACTION.equals(type))
+        {
+            throw new IllegalArgumentException(MessageFormat.format("Only rows of type \"{0}\" can be \"{1}\": \"{2}\"",
+                                                                    TYPE_XHR_ACTION,
+                                                                    PARALLEL,
+                                                                    name));
         }
         action.setMethod(method);
         action.setHttpResponceCode(responseCode);
@@ -251,6 +284,9 @@ public class CSVBasedURLActionDataListBuilder extends URLActionDataListBuilder
 
         final String regexpString = csvRecord.get(REGEXP);
         final String xPath = csvRecord.get(XPATH);
+        final String left = csvRecord.get(LEFT);
+        final String right = csvRecord.get(RIGHT);
+        final String occurrence = csvRecord.get(OCCURRENCE);
 
         final String text = csvRecord.get(TEXT);
 
@@ -264,6 +300,11 @@ public class CSVBasedURLActionDataListBuilder extends URLActionDataListBuilder
             selectionMode = URLActionDataValidation.XPATH;
             selectionValue = xPath;
         }
+        else if (StringUtils.isNotEmpty(left))
+        {
+            selectionMode = URLActionDataValidation.BETWEEN;
+            selectionValue = left;
+        }
 
         if (text != null)
         {
@@ -283,6 +324,14 @@ public class CSVBasedURLActionDataListBuilder extends URLActionDataListBuilder
                                                                                    validationMode,
                                                                                    validationValue,
                                                                                    this.interpreter);
+            if (URLActionDataValidation.BETWEEN.equals(selectionMode))
+            {
+                validation.setRightBoundary(getRightBoundary(right, RIGHT));
+                if (StringUtils.isNotBlank(occurrence))
+                {
+                    validation.setOccurrence(occurrence);
+                }
+            }
             resultList.add(validation);
 
         }
@@ -323,10 +372,47 @@ public class CSVBasedURLActionDataListBuilder extends URLActionDataListBuilder
                                                                             this.interpreter);
                 resultList.add(storeItem);
             }
+
+            final String left = csvRecord.get(LEFT_GETTER_PREFIX + i);
+            if (StringUtils.isNotEmpty(left))
+            {
+                final URLActionDataStore storeItem = new URLActionDataStore(BETWEEN_GETTER_PREFIX
+                                                                                + i,
+                                                                            URLActionDataStore.BETWEEN,
+                                                                            left,
+                                                                            this.interpreter);
+                storeItem.setRightBoundary(getRightBoundary(csvRecord.get(RIGHT_GETTER_PREFIX + i),
+                                                            RIGHT_GETTER_PREFIX + i));
+                final String occurrence = csvRecord.get(OCCURRENCE_GETTER_PREFIX + i);
+                if (StringUtils.isNotBlank(occurrence))
+                {
+                    storeItem.setOccurrence(occurrence);
+                }
+                resultList.add(storeItem);
+            }
         }
         return resultList;
     }
 
+    /**
+     * @param right
+     *            the value of the right boundary column
+     * @param column
+     *            the name of the column
+     * @return the right boundary
+     * @throws IllegalArgumentException
+     *             if the right boundary is missing.
+     */
+    private String getRightBoundary(final String right, final String column)
+    {
+        if (StringUtils.isEmpty(right))
+        {
+            throw new IllegalArgumentException(MessageFormat.format("Column \"{0}\" is required for a selection between boundaries",
+                                                                    column));
+        }
+        return right;
+    }
+
     private URLActionData buildURLActionData(final CSVRecord csvRecord)
     {
         final URLActionData action = buildURLActionDataFromCSVRecord(csvRecord);
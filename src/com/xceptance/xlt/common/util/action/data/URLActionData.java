@@ -28,8 +28,8 @@ import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
  * <li>Attributes are of type String to allow parameter interpretation and may be parsed to the intended type when they
  * are accessed.</li>
  * <li>Defaults common used Http request values, if not set explicitly.</li>
- * <li>Holds a list of {@link #validations response validations}.</li>
- * <li>Holds a list of {@link #store variables} which should be taken out of the response for dynamic parameter
+ * <li>Holds a list of {@link Definition#validations response validations}.</li>
+ * <li>Holds a list of {@link Definition#store variables} which should be taken out of the response for dynamic parameter
  * interpretation.</li>
  * </ul>
  * 
@@ -40,109 +40,33 @@ public class URLActionData
 {
 
     /**
-     * Http request name.
+     * The raw data of the action, shared with all {@link #URLActionData(URLActionData, ParameterInterpreter) copies}
+     * of the action.
      */
-    private String name;
+    private Definition definition;
 
     /**
-     * <p>
-     * Type of request. <br>
-     * Default: {@link #TYPE_ACTION 'A'}. <br>
-     * </p>
-     * See {@link #PERMITTEDTYPES permitted request types}.
-     */
-    private String type;
-
-    /**
-     * Intended type: {@link URL} <br>
-     * The url used for the request. <br>
-     * May be completed with {@link #parameters query parameters}.
-     */
-    private String url;
-
-    /**
-     * <p>
-     * Http request method. <br>
-     * Default : 'GET'. <br>
-     * </p>
-     * See {@link #PERMITTEDMETHODS permitted methods}.
-     */
-    private String method;
-
-    /**
-     * <p>
-     * Intended type: Boolean <br>
-     * Default: 'true'. <br>
-     * </p>
-     * <p>
-     * Allows further encoding of request {@link #parameters} with the declared {@link #encodingType encoding type}.
-     * </p>
-     */
-    private String encodeParameters;
-
-    /**
-     * <p>
-     * Intended type: Boolean <br>
-     * Default: 'true'. <br>
-     * </p>
-     * <p>
-     * Allows further encoding of request {@link #body} with the declared {@link #encodingType encoding type}.
-     * </p>
-     */
-    private String encodeBody;
-
-    /**
-     * Intended type: Integer <br>
-     * Expected HttpResponseCode. <br>
-     * Default : '200'.
-     */
-    private String httpResponceCode;
-
-    /**
-     * <p>
-     * Request Body.
-     * </p>
-     * May be {@link #encodeBody encoded}.
-     */
-    private String body;
-
-    /**
-     * Not implemented yet
+     * Whether the action is a per user copy, whose validations and store items are bound to the {@link #interpreter}
+     * of the copy when they are accessed.
      */
-    @SuppressWarnings("unused")
-	private String encodingType;
+    private final boolean copy;
 
     /**
-     * Data to validate the Http response.
-     */
-    private List<URLActionDataValidation> validations = Collections.emptyList();
-
-    /**
-     * Data, which should be taken out of the Http response and stored for dynamic parameter interpretation.
-     */
-    private List<URLActionDataStore> store = Collections.emptyList();
-
-    /**
-     * Request parameters. <br>
-     * Depends on the {@link #method method}, whether they are GET or POST parameters.
-     */
-    private List<NameValuePair> parameters = Collections.emptyList();
-
-    /**
-     * Additional data for the "Cookie" request header field. <br>
-     * Not implemented yet.
+     * {@link ParameterInterpreter}.
      */
-    private List<NameValuePair> cookies = Collections.emptyList();
+    private ParameterInterpreter interpreter;
 
     /**
-     * Request headers.
+     * The validations of a {@link #copy}, bound to its {@link #interpreter}. <code>null</code> until they are accessed
+     * or after a modification.
      */
-    private List<NameValuePair> headers = Collections.emptyList();
+    private List<URLActionDataValidation> boundValidations;
 
     /**
-     * {@link ParameterInterpreter}.
+     * The store items of a {@link #copy}, bound to its {@link #interpreter}. <code>null</code> until they are accessed
+     * or after a modification.
      */
-    private ParameterInterpreter interpreter;
+    private List<URLActionDataStore> boundStore;
 
     /**
      * <p>
@@ -223,9 +147,9 @@ public class URLActionData
      * Defaults the rest of the attributes. <br>
      * 
      * @param name
-     *            : {@link #name}
+     *            : {@link Definition#name}
      * @param url
-     *            : {@link #url}
+     *            : {@link Definition#url}
      * @param interpreter
      *            : {@link #interpreter}
      */
@@ -234,6 +158,8 @@ public class URLActionData
                          final ParameterInterpreter interpreter)
     {
         XltLogger.runTimeLogger.debug("Ceating new Instance ");
+        this.definition = new Definition();
+        this.copy = false;
         setName(name);
         setUrl(url);
         setType(TYPE_ACTION); // default
@@ -244,6 +170,26 @@ public class URLActionData
         setInterpreter(interpreter);
     }
 
+    /**
+     * Creates a copy of the passed action, which shares the raw data of the template but interprets it via the
+     * passed interpreter. <br>
+     * Validations and store items are bound to the same interpreter, when they are accessed first. <br>
+     * Used to hand out a per user view of a cached action list, see {@link URLActionDataListCache}.
+     * 
+     * @param template
+     *            the action to copy
+     * @param interpreter
+     *            : {@link #interpreter}
+     */
+    public URLActionData(final URLActionData template,
+                         final ParameterInterpreter interpreter)
+    {
+        this.definition = template.definition;
+        this.definition.markShared();
+        this.copy = true;
+        setInterpreter(interpreter);
+    }
+
     /**
      * For debugging purpose. <br>
      * 'err-streams' the attributes of the object. <br>
@@ -264,11 +210,11 @@ public class URLActionData
             System.err.println("\t"
                                + "HttpCode: "
                                + getResponseCodeValidator().getHttpResponseCode());
-            if (body != null)
+            if (definition.body != null)
             {
                 System.err.println("\t" + "Body: " + getBody());
             }
-            if (!parameters.isEmpty())
+            if (!definition.parameters.isEmpty())
             {
                 final List<NameValuePair> parameters = getParameters();
                 System.err.println("\t" + "Parameters: ");
@@ -278,7 +224,7 @@ public class URLActionData
                                        + nvp.getValue());
                 }
             }
-            if (!headers.isEmpty())
+            if (!definition.headers.isEmpty())
             {
                 System.err.println("\t" + "Headers: ");
                 final List<NameValuePair> headers = getHeaders();
@@ -288,7 +234,7 @@ public class URLActionData
                                        + nvp.getValue());
                 }
             }
-            if (!cookies.isEmpty())
+            if (!definition.cookies.isEmpty())
             {
                 System.err.println("\t" + "Cookies: ");
                 final List<NameValuePair> cookies = getCookies();
@@ -298,18 +244,18 @@ public class URLActionData
                                        + nvp.getValue());
                 }
             }
-            if (!validations.isEmpty())
+            if (!definition.validations.isEmpty())
             {
                 System.err.println("\t" + "Validations: ");
-                for (final URLActionDataValidation v : validations)
+                for (final URLActionDataValidation v : getValidations())
                 {
                     v.outline();
                 }
             }
-            if (!store.isEmpty())
+            if (!definition.store.isEmpty())
             {
                 System.err.println("\tStore:");
-                for (final URLActionDataStore storeItem : store)
+                for (final URLActionDataStore storeItem : getStore())
                 {
                     storeItem.outline();
                 }
@@ -331,7 +277,7 @@ public class URLActionData
     {
         if (httpResponceCode != null)
         {
-            this.httpResponceCode = httpResponceCode;
+            modifiableDefinition().httpResponceCode = httpResponceCode;
             XltLogger.runTimeLogger.debug(getSetTagToValueMessage("HttpResponceCode",
                                                                   httpResponceCode));
         }
@@ -346,9 +292,9 @@ public class URLActionData
     {
         if (httpResponceCode != null)
         {
-            this.httpResponceCode = httpResponceCode.toString();
+            modifiableDefinition().httpResponceCode = httpResponceCode.toString();
             XltLogger.runTimeLogger.debug(getSetTagToValueMessage("HttpResponceCode",
-                                                                  this.httpResponceCode));
+                                                                  definition.httpResponceCode));
         }
     }
 
@@ -360,9 +306,9 @@ public class URLActionData
      */
     public void setUrl(final String url)
     {
-        this.url = (url != null) ? url
+        modifiableDefinition().url = (url != null) ? url
                                 : (String) throwIllegalArgumentException("'Url' cannot be null");
-        XltLogger.runTimeLogger.debug(getSetTagToValueMessage("URL", this.url));
+        XltLogger.runTimeLogger.debug(getSetTagToValueMessage("URL", definition.url));
     }
 
     /**
@@ -374,9 +320,9 @@ public class URLActionData
     {
         if (method != null)
         {
-            this.method = method;
+            modifiableDefinition().method = method;
             XltLogger.runTimeLogger.debug(getSetTagToValueMessage("Method",
-                                                                  this.method));
+                                                                  definition.method));
         }
     }
 
@@ -389,9 +335,9 @@ public class URLActionData
     {
         if (encoded != null)
         {
-            this.encodeParameters = encoded;
+            modifiableDefinition().encodeParameters = encoded;
             XltLogger.runTimeLogger.debug(getSetTagToValueMessage("encodedParameters",
-                                                                  this.encodeParameters));
+                                                                  definition.encodeParameters));
         }
     }
 
@@ -404,9 +350,9 @@ public class URLActionData
     {
         if (encoded != null)
         {
-            this.encodeParameters = encoded.toString();
+            modifiableDefinition().encodeParameters = encoded.toString();
             XltLogger.runTimeLogger.debug(getSetTagToValueMessage("encodedParameters",
-                                                                  this.encodeParameters));
+                                                                  definition.encodeParameters));
         }
     }
 
@@ -419,9 +365,9 @@ public class URLActionData
     {
         if (encoded != null)
         {
-            this.encodeBody = encoded;
+            modifiableDefinition().encodeBody = encoded;
             XltLogger.runTimeLogger.debug(getSetTagToValueMessage("encodedBody",
-                                                                  this.encodeBody));
+                                                                  definition.encodeBody));
         }
     }
 
@@ -435,9 +381,9 @@ public class URLActionData
     {
         if (encoded != null)
         {
-            this.encodeBody = encoded.toString();
+            modifiableDefinition().encodeBody = encoded.toString();
             XltLogger.runTimeLogger.debug(getSetTagToValueMessage("encodedBody",
-                                                                  this.encodeBody));
+                                                                  definition.encodeBody));
         }
     }
 
@@ -450,9 +396,24 @@ public class URLActionData
     {
         if (type != null)
         {
-            this.type = type;
+            modifiableDefinition().type = type;
             XltLogger.runTimeLogger.debug(getSetTagToValueMessage("Type",
-                                                                  this.type));
+                                                                  definition.type));
+        }
+    }
+
+    /**
+     * Sets if NOT null.
+     * 
+     * @param parallelGroup
+     */
+    public void setParallelGroup(final String parallelGroup)
+    {
+        if (parallelGroup != null)
+        {
+            modifiableDefinition().parallelGroup = parallelGroup;
+            XltLogger.runTimeLogger.debug(getSetTagToValueMessage("Parallel",
+                                                                  definition.parallelGroup));
         }
     }
 
@@ -464,10 +425,10 @@ public class URLActionData
      */
     public void setName(final String name)
     {
-        this.name = ((name != null) ? name
+        modifiableDefinition().name = ((name != null) ? name
                                    : (String) throwIllegalArgumentException("Name' cannot be null"));
         XltLogger.runTimeLogger.debug(MessageFormat.format("Set Action 'Name' to \"{0}\"",
-                                                           this.name));
+                                                           definition.name));
 
     }
 
@@ -495,7 +456,7 @@ public class URLActionData
     {
         if (validations != null)
         {
-            this.validations = validations;
+            modifiableDefinition().validations = validations;
             XltLogger.runTimeLogger.debug(getSetNewTagMessage("validations"));
             for(final URLActionDataValidation validation : validations)
             {
@@ -513,7 +474,7 @@ public class URLActionData
     {
         if (headers != null)
         {
-            this.headers = headers;
+            modifiableDefinition().headers = headers;
             XltLogger.runTimeLogger.debug(getSetNewTagMessage("headers"));
             for (final NameValuePair header : headers)
             {
@@ -532,7 +493,7 @@ public class URLActionData
     {
         if (store != null)
         {
-            this.store = store;
+            modifiableDefinition().store = store;
             XltLogger.runTimeLogger.debug(getSetNewTagMessage("store"));
             for(final URLActionDataStore storeItem : store)
             {
@@ -550,7 +511,7 @@ public class URLActionData
     {
         if (parameters != null)
         {
-            this.parameters = parameters;
+            modifiableDefinition().parameters = parameters;
             XltLogger.runTimeLogger.debug(getSetNewTagMessage("parameters"));
             for (final NameValuePair parameter : parameters)
             {
@@ -569,7 +530,7 @@ public class URLActionData
     {
         if (cookies != null)
         {
-            this.cookies = cookies;
+            modifiableDefinition().cookies = cookies;
             XltLogger.runTimeLogger.debug(getSetNewTagMessage("cookies"));
             for (final NameValuePair cookie : cookies)
             {
@@ -588,23 +549,23 @@ public class URLActionData
     {
         if (body != null)
         {
-            this.body = body;
+            modifiableDefinition().body = body;
             XltLogger.runTimeLogger.debug(getSetTagToValueMessage("body",
-                                                                  this.body));
+                                                                  definition.body));
         }
     }
 
     /**
-     * @return {@link #body}, after its dynamic interpretation via {@link #interpreter}.
+     * @return {@link Definition#body}, after its dynamic interpretation via {@link #interpreter}.
      */
     @Nullable
     public String getBody()
     {
-        return interpreter.processDynamicData(this.body);
+        return interpreter.processDynamicData(definition.body);
     }
 
     /**
-     * @return The {@link #type type of request}. <br>
+     * @return The {@link Definition#type type of request}. <br>
      *         if type is unknown, it returns {@link #TYPE_ACTION}.
      */
     public String getType()
@@ -626,13 +587,13 @@ public class URLActionData
     }
 
     /**
-     * @return {@link #url}, after its dynamic interpretation via {@link #interpreter}.
+     * @return {@link Definition#url}, after its dynamic interpretation via {@link #interpreter}.
      */
     public URL getUrl()
     {
         try
         {
-            return new URL(interpreter.processDynamicData(url));
+            return new URL(interpreter.processDynamicData(definition.url));
         }
         catch (final MalformedURLException e)
         {
@@ -643,7 +604,7 @@ public class URLActionData
     }
 
     /**
-     * @return {@link #url}, after its dynamic interpretation via {@link #interpreter}.
+     * @return {@link Definition#url}, after its dynamic interpretation via {@link #interpreter}.
      */
     public String getUrlString()
     {
@@ -651,36 +612,36 @@ public class URLActionData
     }
 
     /**
-     * @return {@link #httpResponceCode}, after its dynamic interpretation via {@link #interpreter}.
+     * @return {@link Definition#httpResponceCode}, after its dynamic interpretation via {@link #interpreter}.
      */
     public HttpResponseCodeValidator getResponseCodeValidator()
     {
-        final String dynmaicResponseCode = interpreter.processDynamicData(this.httpResponceCode);
+        final String dynmaicResponseCode = interpreter.processDynamicData(definition.httpResponceCode);
         final HttpResponseCodeValidator result = StringUtils.isNotBlank(dynmaicResponseCode) ? new HttpResponseCodeValidator(Integer.parseInt(dynmaicResponseCode))
                                                                                             : HttpResponseCodeValidator.getInstance();
         return result;
     }
 
     /**
-     * @return {@link #httpResponceCode}, after its dynamic interpretation via {@link #interpreter}.
+     * @return {@link Definition#httpResponceCode}, after its dynamic interpretation via {@link #interpreter}.
      */
     public Integer getHttpResponseCode()
     {
-        final String dynmaicResponseCode = interpreter.processDynamicData(this.httpResponceCode);
+        final String dynmaicResponseCode = interpreter.processDynamicData(definition.httpResponceCode);
         final Integer resultInteger = dynmaicResponseCode != null ? Integer.parseInt(dynmaicResponseCode)
                                                                  : 200;
         return resultInteger;
     }
 
     /**
-     * @returns {@link #method}, after its dynamic interpretation via {@link #interpreter}. If the value of
-     *          {@link #method} is unsupported, it gets defaulted to {@link #METHOD_GET GET}.
+     * @returns {@link Definition#method}, after its dynamic interpretation via {@link #interpreter}. If the value of
+     *          {@link Definition#method} is unsupported, it gets defaulted to {@link #METHOD_GET GET}.
      */
     public HttpMethod getMethod()
     {
         HttpMethod result = HttpMethod.GET;
 
-        final String dynamicMethod = interpreter.processDynamicData(this.method);
+        final String dynamicMethod = interpreter.processDynamicData(definition.method);
 
         result = selectMethodFromDynamicData(dynamicMethod);
 
@@ -689,8 +650,8 @@ public class URLActionData
 
     /**
      * @param dynamicMethod
-     * @return {@link #method} after its dynamic interpretation via {@link #interpreter}. If its value is unsupported,
-     *         {@link #method} gets defaulted to {@link #METHOD_GET GET}.
+     * @return {@link Definition#method} after its dynamic interpretation via {@link #interpreter}. If its value is unsupported,
+     *         {@link Definition#method} gets defaulted to {@link #METHOD_GET GET}.
      */
     private HttpMethod selectMethodFromDynamicData(final String dynamicMethod)
     {
@@ -728,29 +689,58 @@ public class URLActionData
     }
 
     /**
-     * @return {@link #validations}.
+     * @return {@link Definition#validations}. The validations of a copy are bound to the {@link #interpreter} of the
+     *         copy once, on first access.
      */
     public List<URLActionDataValidation> getValidations()
     {
-        return this.validations;
+        if (!copy || definition.validations.isEmpty())
+        {
+            return definition.validations;
+        }
+        if (boundValidations == null)
+        {
+            final List<URLActionDataValidation> result =
+                new ArrayList<URLActionDataValidation>(definition.validations.size());
+            for (final URLActionDataValidation validation : definition.validations)
+            {
+                result.add(new URLActionDataValidation(validation, interpreter));
+            }
+            boundValidations = Collections.unmodifiableList(result);
+        }
+        return boundValidations;
     }
 
     /**
-     * @return {@link #store}.
+     * @return {@link Definition#store}. The store items of a copy are bound to the {@link #interpreter} of the copy
+     *         once, on first access.
      */
     public List<URLActionDataStore> getStore()
     {
-        return this.store;
+        if (!copy || definition.store.isEmpty())
+        {
+            return definition.store;
+        }
+        if (boundStore == null)
+        {
+            final List<URLActionDataStore> result = new ArrayList<URLActionDataStore>(definition.store.size());
+            for (final URLActionDataStore storeItem : definition.store)
+            {
+                result.add(new URLActionDataStore(storeItem, interpreter));
+            }
+            boundStore = Collections.unmodifiableList(result);
+        }
+        return boundStore;
     }
 
     /**
-     * @return {@link #parameters}, after its dynamic interpretation via {@link #interpreter}.
+     * @return {@link Definition#parameters}, after its dynamic interpretation via {@link #interpreter}.
      */
     public List<NameValuePair> getParameters()
     {
-        final List<NameValuePair> result = new ArrayList<NameValuePair>(parameters.size());
+        final List<NameValuePair> result = new ArrayList<NameValuePair>(definition.parameters.size());
 
-        for (final NameValuePair pair : parameters)
+        for (final NameValuePair pair : definition.parameters)
         {
             result.add(getDynamicPair(pair));
         }
@@ -773,13 +763,13 @@ public class URLActionData
     }
 
     /**
-     * @return {@link #cookies}, after its dynamic interpretation via {@link #interpreter}.
+     * @return {@link Definition#cookies}, after its dynamic interpretation via {@link #interpreter}.
      */
     public List<NameValuePair> getCookies()
     {
-        final List<NameValuePair> result = new ArrayList<NameValuePair>(cookies.size());
+        final List<NameValuePair> result = new ArrayList<NameValuePair>(definition.cookies.size());
 
-        for (final NameValuePair pair : cookies)
+        for (final NameValuePair pair : definition.cookies)
         {
             result.add(getDynamicPair(pair));
         }
@@ -787,13 +777,13 @@ public class URLActionData
     }
 
     /**
-     * @return {@link #headers}, after its dynamic interpretation via {@link #interpreter}.
+     * @return {@link Definition#headers}, after its dynamic interpretation via {@link #interpreter}.
      */
     public List<NameValuePair> getHeaders()
     {
-        final List<NameValuePair> result = new ArrayList<NameValuePair>(headers.size());
+        final List<NameValuePair> result = new ArrayList<NameValuePair>(definition.headers.size());
 
-        for (final NameValuePair pair : headers)
+        for (final NameValuePair pair : definition.headers)
         {
             result.add(getDynamicPair(pair));
         }
@@ -801,11 +791,11 @@ public class URLActionData
     }
 
     /**
-     * @return {@link #name} after its dynamic interpretation via {@link #interpreter}.
+     * @return {@link Definition#name} after its dynamic interpretation via {@link #interpreter}.
      */
     public String getName()
     {
-        return interpreter.processDynamicData(name);
+        return interpreter.processDynamicData(definition.name);
     }
 
     public ParameterInterpreter getInterpreter()
@@ -814,12 +804,32 @@ public class URLActionData
     }
 
     /**
-     * @return value of {@link #encodeParameters} after its dynamic interpretation via {@link #interpreter}.
+     * @return the compiled {@link URLActionDataRequestTemplate request data} of {@link Definition#url},
+     *         {@link Definition#parameters}, {@link Definition#headers} and {@link Definition#cookies}. Compiled once and
+     *         shared with all copies of the action.
+     */
+    public URLActionDataRequestTemplate getRequestTemplate()
+    {
+        final Definition current = definition;
+        URLActionDataRequestTemplate template = current.requestTemplate;
+        if (template == null)
+        {
+            template = new URLActionDataRequestTemplate(current.url,
+                                                        current.parameters,
+                                                        current.headers,
+                                                        current.cookies);
+            current.requestTemplate = template;
+        }
+        return template;
+    }
+
+    /**
+     * @return value of {@link Definition#encodeParameters} after its dynamic interpretation via {@link #interpreter}.
      */
     public Boolean encodeParameters()
     {
         Boolean result = false; // default
-        final String dynamicEncoded = interpreter.processDynamicData(this.encodeParameters);
+        final String dynamicEncoded = interpreter.processDynamicData(definition.encodeParameters);
         if ("true".equals(dynamicEncoded))
         {
             result = true;
@@ -839,14 +849,14 @@ public class URLActionData
     }
 
     /**
-     * @return value of {@link #encodeBody} after its dynamic interpretation via {@link #interpreter}.
+     * @return value of {@link Definition#encodeBody} after its dynamic interpretation via {@link #interpreter}.
      */
     public Boolean encodeBody()
     {
         Boolean result = true; // default
-        if (this.encodeBody != null)
+        if (definition.encodeBody != null)
         {
-            final String dynamicEncoded = interpreter.processDynamicData(this.encodeBody);
+            final String dynamicEncoded = interpreter.processDynamicData(definition.encodeBody);
             if ("true".equals(dynamicEncoded))
             {
                 result = true;
@@ -867,12 +877,12 @@ public class URLActionData
     }
 
     /**
-     * @return true if {@link #type request} is of type {@link #TYPE_STATIC}.
+     * @return true if {@link Definition#type request} is of type {@link #TYPE_STATIC}.
      */
     public boolean isStaticContent()
     {
         Boolean result = false; // default
-        final String dynamicType = interpreter.processDynamicData(this.type);
+        final String dynamicType = interpreter.processDynamicData(definition.type);
         if (TYPE_STATIC.equals(dynamicType))
         {
             result = true;
@@ -893,12 +903,12 @@ public class URLActionData
     }
 
     /**
-     * @return true if {@link #type request} is of type {@link #TYPE_XHR}.
+     * @return true if {@link Definition#type request} is of type {@link #TYPE_XHR}.
      */
     public boolean isXHRAction()
     {
         Boolean result = false; // default
-        final String dynamicType = interpreter.processDynamicData(this.type);
+        final String dynamicType = interpreter.processDynamicData(definition.type);
         if (TYPE_XHR.equals(dynamicType))
         {
             result = true;
@@ -920,12 +930,135 @@ public class URLActionData
     }
 
     /**
-     * @return true if {@link #type request} is of type {@link #TYPE_ACTION}.
+     * @return {@link Definition#parallelGroup}, <code>null</code> if the action is executed sequentially.
+     */
+    @Nullable
+    public String getParallelGroup()
+    {
+        return definition.parallelGroup;
+    }
+
+    /**
+     * @return true if the action is an {@link #isXHRAction() Xhr action} of a {@link Definition#parallelGroup}.
+     */
+    public boolean isParallel()
+    {
+        return definition.parallelGroup != null && isXHRAction();
+    }
+
+    /**
+     * @return {@link Definition#deferrableValidations}
+     */
+    public boolean hasDeferrableValidations()
+    {
+        return definition.deferrableValidations;
+    }
+
+    /**
+     * Sets the result of the {@link URLActionDataDependencies dependency analysis}. Shared with all copies of the
+     * action.
+     * 
+     * @param deferrable
+     *            {@link Definition#deferrableValidations}
+     */
+    void setDeferrableValidations(final boolean deferrable)
+    {
+        definition.deferrableValidations = deferrable;
+    }
+
+    /**
+     * @return <code>true</code> if none of the validations contains dynamic parameters, see
+     *         {@link URLActionDataValidation#isStatic()}.
+     */
+    boolean hasStaticValidations()
+    {
+        for (final URLActionDataValidation validation : definition.validations)
+        {
+            if (!validation.isStatic())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return <code>true</code> if the body of the response is only read by validations, that are decided by the first
+     *         match of a 'Regex' or 'Between' selection, so it can be validated while it is received. Neither a store
+     *         item nor a validation with dynamic parameters may read the body.
+     */
+    public boolean hasStreamableValidations()
+    {
+        final Definition current = definition;
+        for (final URLActionDataValidation validation : current.validations)
+        {
+            if (!validation.isStreamable())
+            {
+                return false;
+            }
+        }
+        for (final URLActionDataStore storeItem : current.store)
+        {
+            if (storeItem.readsBody())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the raw names of the store items, without dynamic interpretation.
+     */
+    List<String> getRawStoreNames()
+    {
+        final List<String> names = new ArrayList<String>(definition.store.size());
+        for (final URLActionDataStore storeItem : definition.store)
+        {
+            names.add(storeItem.getRawName());
+        }
+        return names;
+    }
+
+    /**
+     * Adds the names of the variables, the action may read while its request is built, its response is handled or it
+     * is checked for its type. See {@link URLActionDataDependencies}.
+     * 
+     * @param names
+     *            receives the names
+     */
+    void collectVariableNames(final Set<String> names)
+    {
+        final Definition current = definition;
+        URLActionDataDependencies.collectVariableNames(names,
+                                                       current.name,
+                                                       current.type,
+                                                       current.url,
+                                                       current.method,
+                                                       current.encodeParameters,
+                                                       current.encodeBody,
+                                                       current.httpResponceCode,
+                                                       current.body);
+        URLActionDataDependencies.collectVariableNames(names, current.parameters);
+        URLActionDataDependencies.collectVariableNames(names, current.cookies);
+        URLActionDataDependencies.collectVariableNames(names, current.headers);
+        for (final URLActionDataValidation validation : current.validations)
+        {
+            validation.collectVariableNames(names);
+        }
+        for (final URLActionDataStore storeItem : current.store)
+        {
+            storeItem.collectVariableNames(names);
+        }
+    }
+
+    /**
+     * @return true if {@link Definition#type request} is of type {@link #TYPE_ACTION}.
      */
     public Boolean isAction()
     {
         Boolean result = true; // default
-        final String dynamicType = interpreter.processDynamicData(this.type);
+        final String dynamicType = interpreter.processDynamicData(definition.type);
         if (TYPE_ACTION.equals(dynamicType))
         {
             result = true;
@@ -946,7 +1079,7 @@ public class URLActionData
     }
 
     /**
-     * @return true if {@link #body} is set.
+     * @return true if {@link Definition#body} is set.
      */
     public Boolean hasBody()
     {
@@ -984,13 +1117,12 @@ public class URLActionData
      */
     public void addParameter(final NameValuePair nvp)
     {
-        if (parameters.isEmpty() && nvp != null)
-        {
-            parameters = new ArrayList<NameValuePair>();
-        }
         if (nvp != null)
         {
-            parameters.add(nvp);
+            // copy on write, the list might be shared with copies of this action
+            final Definition modifiable = modifiableDefinition();
+            modifiable.parameters = new ArrayList<NameValuePair>(modifiable.parameters);
+            modifiable.parameters.add(nvp);
             XltLogger.runTimeLogger.debug(getAddedToTag("Parameter"));
         }
     }
@@ -1004,11 +1136,10 @@ public class URLActionData
     {
         if (validation != null)
         {
-            if (!(this.validations.isEmpty()))
-            {
-                validations = new ArrayList<URLActionDataValidation>();
-            }
-            validations.add(validation);
+            // copy on write, the list might be shared with copies of this action
+            final Definition modifiable = modifiableDefinition();
+            modifiable.validations = new ArrayList<URLActionDataValidation>(modifiable.validations);
+            modifiable.validations.add(validation);
             XltLogger.runTimeLogger.debug(getAddedToTag("Validation"));
         }
     }
@@ -1032,7 +1163,7 @@ public class URLActionData
     private String getSetTagToValueMessage(final String tag, final String value)
     {
         final String message = MessageFormat.format("Action: \"{0}\", Set \"{1}\" to value: \"{2}\"",
-                                                    this.name,
+                                                    definition.name,
                                                     tag,
                                                     value);
         return message;
@@ -1046,7 +1177,7 @@ public class URLActionData
     private String getAddedToTag(final String tag)
     {
         final String message = MessageFormat.format("Action: \"{0}\", Added new \"{1}\"",
-                                                    this.name,
+                                                    definition.name,
                                                     tag);
         return message;
     }
@@ -1058,7 +1189,7 @@ public class URLActionData
     private String getSetNewTagMessage(final String tag)
     {
         final String message = MessageFormat.format("Action: \"{0}\", Set new \"{1}\"",
-                                                    this.name,
+                                                    definition.name,
                                                     tag);
         return message;
     }
@@ -1075,10 +1206,228 @@ public class URLActionData
                                                     final String defaultValue)
     {
         final String message = MessageFormat.format(" Action: \"{0}\",  Unsupported value \"{1}\" for \"{2}\", defaulting to \"{3}\"",
-                                                    this.name,
+                                                    definition.name,
                                                     value,
                                                     tag,
                                                     defaultValue);
         return message;
     }
+
+    /**
+     * Makes sure the action does not modify a {@link Definition} that is shared with copies of the action.
+     * 
+     * @return the {@link #definition}, copied before if it was shared.
+     */
+    private Definition modifiableDefinition()
+    {
+        if (definition.shared)
+        {
+            definition = definition.copy();
+        }
+        definition.requestTemplate = null;
+        definition.deferrableValidations = false;
+        boundValidations = null;
+        boundStore = null;
+        return definition;
+    }
+
+    /**
+     * Replaces the strings of the action, its validations and its store items by their canonical representation and
+     * its lists by compact ones. <br>
+     * Used for actions that are shared between users, see {@link URLActionDataListCache}.
+     */
+    void compact()
+    {
+        modifiableDefinition().compact();
+    }
+
+    /**
+     * The raw, uninterpreted data of an action. <br>
+     * Copies of an action share the definition, which is copied on the first modification after it was shared.
+     */
+    private static final class Definition
+    {
+        /**
+         * Http request name.
+         */
+        private String name;
+
+        /**
+         * <p>
+         * Type of request. <br>
+         * Default: {@link #TYPE_ACTION 'A'}. <br>
+         * </p>
+         * See {@link #PERMITTEDTYPES permitted request types}.
+         */
+        private String type;
+
+        /**
+         * Intended type: {@link URL} <br>
+         * The url used for the request. <br>
+         * May be completed with {@link #parameters query parameters}.
+         */
+        private String url;
+
+        /**
+         * <p>
+         * Http request method. <br>
+         * Default : 'GET'. <br>
+         * </p>
+         * See {@link #PERMITTEDMETHODS permitted methods}.
+         */
+        private String method;
+
+        /**
+         * <p>
+         * Intended type: Boolean <br>
+         * Default: 'true'. <br>
+         * </p>
+         * <p>
+         * Allows further encoding of request {@link #parameters} with the declared {@link #encodingType encoding type}.
+         * </p>
+         */
+        private String encodeParameters;
+
+        /**
+         * <p>
+         * Intended type: Boolean <br>
+         * Default: 'true'. <br>
+         * </p>
+         * <p>
+         * Allows further encoding of request {@link #body} with the declared {@link #encodingType encoding type}.
+         * </p>
+         */
+        private String encodeBody;
+
+        /**
+         * Intended type: Integer <br>
+         * Expected HttpResponseCode. <br>
+         * Default : '200'.
+         */
+        private String httpResponceCode;
+
+        /**
+         * <p>
+         * Request Body.
+         * </p>
+         * May be {@link #encodeBody encoded}.
+         */
+        private String body;
+
+        /**
+         * Not implemented yet
+         */
+        @SuppressWarnings("unused")
+    	private String encodingType;
+
+        /**
+         * Data to validate the Http response.
+         */
+        private List<URLActionDataValidation> validations = Collections.emptyList();
+
+        /**
+         * Data, which should be taken out of the Http response and stored for dynamic parameter interpretation.
+         */
+        private List<URLActionDataStore> store = Collections.emptyList();
+
+        /**
+         * Request parameters. <br>
+         * Depends on the {@link #method method}, whether they are GET or POST parameters.
+         */
+        private List<NameValuePair> parameters = Collections.emptyList();
+
+        /**
+         * Additional data for the "Cookie" request header field. <br>
+         * Not implemented yet.
+         */
+        private List<NameValuePair> cookies = Collections.emptyList();
+
+        /**
+         * Request headers.
+         */
+        private List<NameValuePair> headers = Collections.emptyList();
+
+        /**
+         * Name of the parallel group of a {@link #TYPE_XHR Xhr action}. <br>
+         * Consecutive Xhr actions of the same group are fired concurrently, their responses are handled in declaration
+         * order after all of them completed. <br>
+         * Default : <code>null</code>, the action is executed sequentially.
+         */
+        private String parallelGroup;
+
+        /**
+         * Whether the definition is used by more than one action.
+         */
+        private boolean shared;
+
+        /**
+         * The compiled request data, <code>null</code> until it is requested or after a modification.
+         */
+        private volatile URLActionDataRequestTemplate requestTemplate;
+
+        /**
+         * Whether the validations may be evaluated after the next request was fired, since no later action of the
+         * script reads a value stored by this action. Reset on every modification, see
+         * {@link URLActionDataDependencies}.
+         */
+        private boolean deferrableValidations;
+
+        private void markShared()
+        {
+            if (!shared)
+            {
+                shared = true;
+            }
+        }
+
+        private Definition copy()
+        {
+            final Definition result = new Definition();
+            result.name = name;
+            result.type = type;
+            result.url = url;
+            result.method = method;
+            result.encodeParameters = encodeParameters;
+            result.encodeBody = encodeBody;
+            result.httpResponceCode = httpResponceCode;
+            result.body = body;
+            result.encodingType = encodingType;
+            result.validations = validations;
+            result.store = store;
+            result.parameters = parameters;
+            result.cookies = cookies;
+            result.headers = headers;
+            result.parallelGroup = parallelGroup;
+            return result;
+        }
+
+        private void compact()
+        {
+            name = URLActionDataCompaction.intern(name);
+            type = URLActionDataCompaction.intern(type);
+            url = URLActionDataCompaction.intern(url);
+            method = URLActionDataCompaction.intern(method);
+            encodeParameters = URLActionDataCompaction.intern(encodeParameters);
+            encodeBody = URLActionDataCompaction.intern(encodeBody);
+            httpResponceCode = URLActionDataCompaction.intern(httpResponceCode);
+            body = URLActionDataCompaction.intern(body);
+            encodingType = URLActionDataCompaction.intern(encodingType);
+            parallelGroup = URLActionDataCompaction.intern(parallelGroup);
+            parameters = URLActionDataCompaction.compactPairs(parameters);
+            cookies = URLActionDataCompaction.compactPairs(cookies);
+            headers = URLActionDataCompaction.compactPairs(headers);
+
+            for (final URLActionDataValidation validation : validations)
+            {
+                validation.compact();
+            }
+            validations = URLActionDataCompaction.compact(validations);
+
+            for (final URLActionDataStore storeItem : store)
+            {
+                storeItem.compact();
+            }
+            store = URLActionDataCompaction.compact(store);
+        }
+    }
 }
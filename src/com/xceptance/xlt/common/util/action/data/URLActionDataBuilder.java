@@ -52,6 +52,8 @@ public class URLActionDataBuilder
 
     private List<NameValuePair> headers = Collections.emptyList();
 
+    private String parallelGroup;
+
     private String d_name;
 
     private String d_type;
@@ -238,6 +240,7 @@ public class URLActionDataBuilder
             resultAction.setParameters(getParameters());
             resultAction.setValidations(getValidations());
             resultAction.setStore(getStore());
+            resultAction.setParallelGroup(getParallelGroup());
         }
         catch (final IllegalArgumentException e)
         {
@@ -270,10 +273,17 @@ public class URLActionDataBuilder
         this.parameters = Collections.emptyList();
         this.cookies = Collections.emptyList();
         this.headers = Collections.emptyList();
+        this.parallelGroup = null;
         
         XltLogger.runTimeLogger.debug("Resetting stored values!");
     }
 
+    @Nullable
+    public String getParallelGroup()
+    {
+        return this.parallelGroup;
+    }
+
     @Nullable
     public String getName()
     {
@@ -554,6 +564,13 @@ public class URLActionDataBuilder
         XltLogger.runTimeLogger.debug(infoSetTag("headers"));
     }
 
+    public void setParallelGroup(final String parallelGroup)
+    {
+        this.parallelGroup = parallelGroup;
+        XltLogger.runTimeLogger.debug(infoSetTagToValue("parallelGroup",
+                                                        parallelGroup));
+    }
+
     public void setInterpreter(final ParameterInterpreter interpreter)
     {
         this.interpreter = interpreter;
@@ -0,0 +1,70 @@
+package com.xceptance.xlt.common.util.action.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+
+/**
+ * Helpers to shrink the data of actions, that are shared between users. <br>
+ * <ul>
+ * <li>Strings are replaced by their canonical representation, so equal values of different actions and scripts are
+ * kept only once.</li>
+ * <li>Lists are replaced by unmodifiable lists backed by an array of exactly the needed size.</li>
+ * </ul>
+ *
+ * @author matthias mitterreiter
+ */
+final class URLActionDataCompaction
+{
+    private URLActionDataCompaction()
+    {
+    }
+
+    /**
+     * @param value
+     *            the string, may be NULL
+     * @return the canonical representation of the string, NULL if the value is NULL.
+     */
+    static String intern(final String value)
+    {
+        return (value != null) ? value.intern() : null;
+    }
+
+    /**
+     * @param list
+     *            the list to compact
+     * @return an unmodifiable list of exactly the needed size, the shared empty list if the list is empty.
+     */
+    static <T> List<T> compact(final List<T> list)
+    {
+        if (list.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        @SuppressWarnings("unchecked")
+        final T[] array = (T[]) list.toArray();
+        return Collections.unmodifiableList(Arrays.asList(array));
+    }
+
+    /**
+     * @param pairs
+     *            the pairs to compact
+     * @return an unmodifiable list of exactly the needed size, whose pairs consist of canonical strings.
+     */
+    static List<NameValuePair> compactPairs(final List<NameValuePair> pairs)
+    {
+        if (pairs.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        final NameValuePair[] array = new NameValuePair[pairs.size()];
+        for (int i = 0; i < array.length; i++)
+        {
+            final NameValuePair pair = pairs.get(i);
+            array[i] = new NameValuePair(intern(pair.getName()), intern(pair.getValue()));
+        }
+        return Collections.unmodifiableList(Arrays.asList(array));
+    }
+}
@@ -0,0 +1,110 @@
+package com.xceptance.xlt.common.util.action.data;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.xceptance.xlt.common.util.bsh.ParameterTemplate;
+
+/**
+ * Store dependency analysis of a parsed script. <br>
+ * Determines for every action, whether a later action reads one of the variables stored from its response. If not,
+ * the validations of the action may be evaluated while the next request is already in flight, since no request is
+ * built from data of a response that was not validated yet. <br>
+ * The validations of an action are deferrable, if
+ * <ul>
+ * <li>the action has validations,</li>
+ * <li>none of its validations contains dynamic parameters, so they never touch the interpreter of the user,</li>
+ * <li>none of its store items has a dynamic name, so the stored variables are known,</li>
+ * <li>no later action references a stored variable in any of its <code>${...}</code> parameters.</li>
+ * </ul>
+ * See {@link URLActionData#hasDeferrableValidations()}.
+ *
+ * @author matthias mitterreiter
+ */
+final class URLActionDataDependencies
+{
+    private URLActionDataDependencies()
+    {
+    }
+
+    /**
+     * Analyzes the actions and marks the ones, whose validations are deferrable.
+     *
+     * @param actions
+     *            the actions of the script, in the order of execution
+     */
+    static void analyze(final List<URLActionData> actions)
+    {
+        // walk backwards, so the names referenced by all later actions are known at every action
+        final Set<String> referencedLater = new HashSet<String>();
+        for (int i = actions.size() - 1; i >= 0; i--)
+        {
+            final URLActionData action = actions.get(i);
+            action.setDeferrableValidations(isDeferrable(action, referencedLater));
+            action.collectVariableNames(referencedLater);
+        }
+    }
+
+    private static boolean isDeferrable(final URLActionData action, final Set<String> referencedLater)
+    {
+        if (action.getValidations().isEmpty() || !action.hasStaticValidations())
+        {
+            return false;
+        }
+        for (final String storeName : action.getRawStoreNames())
+        {
+            if (!isStatic(storeName) || referencedLater.contains(storeName))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param value
+     *            raw value, may be NULL
+     * @return <code>true</code> if the value does not contain dynamic parameters
+     */
+    static boolean isStatic(final String value)
+    {
+        return value == null || value.indexOf("${") < 0;
+    }
+
+    /**
+     * Adds the names of the variables, the passed raw values may read.
+     *
+     * @param names
+     *            receives the names
+     * @param values
+     *            raw values, may contain NULL
+     */
+    static void collectVariableNames(final Set<String> names, final String... values)
+    {
+        for (final String value : values)
+        {
+            if (!isStatic(value))
+            {
+                ParameterTemplate.compile(value).collectVariableNames(names);
+            }
+        }
+    }
+
+    /**
+     * Adds the names of the variables, the names and values of the passed pairs may read.
+     *
+     * @param names
+     *            receives the names
+     * @param pairs
+     *            raw pairs
+     */
+    static void collectVariableNames(final Set<String> names, final List<NameValuePair> pairs)
+    {
+        for (final NameValuePair pair : pairs)
+        {
+            collectVariableNames(names, pair.getName(), pair.getValue());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.xceptance.xlt.common.util.action.data;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
 import com.xceptance.xlt.api.util.XltLogger;
 import com.xceptance.xlt.common.util.ParameterUtils;
 import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
@@ -31,6 +32,12 @@ public abstract class URLActionDataListBuilder
      * The actual Builder that produces a single URLActionData object.
      */
     protected URLActionDataBuilder actionBuilder;
+
+    /**
+     * Raw, not yet interpreted variables, that were put into the {@link #interpreter} while parsing, in the order of
+     * their declaration.
+     */
+    protected List<NameValuePair> globalStore = new ArrayList<NameValuePair>();
     
     protected URLActionDataListBuilder(final String filePath,
                                    final ParameterInterpreter interpreter,
@@ -47,6 +54,15 @@ public abstract class URLActionDataListBuilder
      */
     abstract protected List<URLActionData> buildURLActionDataList(); 
 
+    /**
+     * @return the raw variables, that were put into the {@link #interpreter} by the last
+     *         {@link #buildURLActionDataList()}
+     */
+    public List<NameValuePair> getGlobalStore()
+    {
+        return globalStore;
+    }
+
     private void setFilePath(final String filePath)
     {
         ParameterUtils.isNotNull(filePath, "filePath");
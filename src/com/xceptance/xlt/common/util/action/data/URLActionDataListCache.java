@@ -0,0 +1,224 @@
+package com.xceptance.xlt.common.util.action.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import bsh.EvalError;
+
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.xceptance.xlt.api.data.GeneralDataProvider;
+import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.api.util.XltProperties;
+import com.xceptance.xlt.common.util.ParameterUtils;
+import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
+
+/**
+ * <p>
+ * Process wide cache of parsed test scripts. <br>
+ * Every script is parsed only once per JVM and handed out to every user as a cheap copy, whose
+ * {@link URLActionData actions} are bound to the {@link ParameterInterpreter} of the user.
+ * </p>
+ * <ul>
+ * <li>The parsed actions are compacted once: their strings are canonical and their lists have exactly the needed size.
+ * A copy only consists of the shared data of the action and the interpreter of the user, validations and store items
+ * are bound when they are used.</li>
+ * <li>The store dependencies of the actions are analyzed once, see {@link URLActionDataDependencies}.</li>
+ * <li>Entries are keyed by the canonical path of the script.</li>
+ * <li>An entry is parsed again, if the last modification time or the length of the file changed.</li>
+ * <li>Variables of the global 'Store' are replayed into the interpreter of every user in the order of their
+ * declaration, so the per user state stays the same as with a fresh parse.</li>
+ * <li>Counts {@link #getHits() hits} and {@link #getMisses() misses}.</li>
+ * </ul>
+ *
+ * @author matthias mitterreiter
+ */
+public final class URLActionDataListCache
+{
+    private static final ConcurrentMap<String, Entry> ENTRIES = new ConcurrentHashMap<String, Entry>();
+
+    private static final AtomicLong HITS = new AtomicLong();
+
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    private URLActionDataListCache()
+    {
+    }
+
+    /**
+     * Parsed script plus the file state it was parsed from.
+     */
+    private static final class Entry
+    {
+        private final long lastModified;
+
+        private final long length;
+
+        private final List<URLActionData> actions;
+
+        private final List<NameValuePair> globalStore;
+
+        private Entry(final long lastModified,
+                      final long length,
+                      final List<URLActionData> actions,
+                      final List<NameValuePair> globalStore)
+        {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.actions = actions;
+            this.globalStore = globalStore;
+        }
+
+        private boolean isUpToDate(final File file)
+        {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+    }
+
+    /**
+     * Returns the actions of the passed file, bound to the passed interpreter. <br>
+     * Parses the file via the builder, that is created by the passed facade, if it is not cached yet or changed on
+     * disk.
+     *
+     * @param filePath
+     *            path to the script
+     * @param interpreter
+     *            the interpreter of the current user
+     * @param facade
+     *            creates the file type specific {@link URLActionDataListBuilder}
+     * @return a new, modifiable List<{@link URLActionData}> owned by the caller
+     */
+    static List<URLActionData> getActions(final String filePath,
+                                          final ParameterInterpreter interpreter,
+                                          final URLActionDataListFacade facade)
+    {
+        ParameterUtils.isNotNull(filePath, "filePath");
+        ParameterUtils.isNotNull(interpreter, "ParameterInterpreter");
+
+        final File file = new File(filePath);
+        final String key = getKey(file);
+
+        Entry entry = ENTRIES.get(key);
+        if (entry != null && entry.isUpToDate(file))
+        {
+            HITS.incrementAndGet();
+        }
+        else
+        {
+            synchronized (ENTRIES)
+            {
+                entry = ENTRIES.get(key);
+                if (entry != null && entry.isUpToDate(file))
+                {
+                    HITS.incrementAndGet();
+                }
+                else
+                {
+                    MISSES.incrementAndGet();
+                    entry = parse(file, facade);
+                    ENTRIES.put(key, entry);
+                }
+            }
+        }
+        return bind(entry, interpreter);
+    }
+
+    /**
+     * Parses the script with an interpreter of its own, so no user state leaks into the cached actions.
+     */
+    private static Entry parse(final File file, final URLActionDataListFacade facade)
+    {
+        // read the file state first, a change while parsing results in a new parse next time
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+
+        final ParameterInterpreter templateInterpreter = new ParameterInterpreter(XltProperties.getInstance(),
+                                                                                  GeneralDataProvider.getInstance());
+        final URLActionDataListBuilder builder = facade.createBuilder(templateInterpreter);
+        final List<URLActionData> actions = builder.buildURLActionDataList();
+        for (final URLActionData action : actions)
+        {
+            action.compact();
+        }
+        URLActionDataDependencies.analyze(actions);
+
+        XltLogger.runTimeLogger.debug(MessageFormat.format("Parsed and cached \"{0}\", {1} actions",
+                                                           file.getPath(),
+                                                           actions.size()));
+
+        return new Entry(lastModified,
+                         length,
+                         URLActionDataCompaction.compact(actions),
+                         URLActionDataCompaction.compactPairs(builder.getGlobalStore()));
+    }
+
+    private static List<URLActionData> bind(final Entry entry, final ParameterInterpreter interpreter)
+    {
+        for (final NameValuePair nvp : entry.globalStore)
+        {
+            final NameValuePair dynamicPair = new NameValuePair(interpreter.processDynamicData(nvp.getName()),
+                                                                interpreter.processDynamicData(nvp.getValue()));
+            try
+            {
+                interpreter.set(dynamicPair);
+            }
+            catch (final EvalError e)
+            {
+                // We just Set Values, so NP
+            }
+        }
+
+        final List<URLActionData> result = new ArrayList<URLActionData>(entry.actions.size());
+        for (final URLActionData action : entry.actions)
+        {
+            result.add(new URLActionData(action, interpreter));
+        }
+        return result;
+    }
+
+    private static String getKey(final File file)
+    {
+        try
+        {
+            return file.getCanonicalPath();
+        }
+        catch (final IOException e)
+        {
+            return file.getAbsolutePath();
+        }
+    }
+
+    /**
+     * @return number of requests, that were served from the cache
+     */
+    public static long getHits()
+    {
+        return HITS.get();
+    }
+
+    /**
+     * @return number of requests, that caused a parse
+     */
+    public static long getMisses()
+    {
+        return MISSES.get();
+    }
+
+    /**
+     * Drops all cached scripts and resets the counters.
+     */
+    public static void clear()
+    {
+        synchronized (ENTRIES)
+        {
+            ENTRIES.clear();
+            HITS.set(0);
+            MISSES.set(0);
+        }
+    }
+}
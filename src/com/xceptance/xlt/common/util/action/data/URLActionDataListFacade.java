@@ -51,32 +51,34 @@ public class URLActionDataListFacade
 
     /**
      * Builds a List<{@link #URLActionData}> from the data in {@link #filePath file}, 
-     * by using an {@link URLActionDataListBuilder}.
+     * by using an {@link URLActionDataListBuilder}. <br>
+     * The file is parsed only once and shared between all users via the {@link URLActionDataListCache}, 
+     * the returned actions are bound to {@link #interpreter}.
      *  @return List<{@link URLActionData}>
      */
     public List<URLActionData> buildUrlActions()
     {
-        final URLActionDataListBuilder builder = createBuilder();
-        return builder.buildURLActionDataList();
+        return URLActionDataListCache.getActions(this.filePath, this.interpreter, this);
     }
 
     /**
      * Created an implementation of the {@link URLActionDataListBuilder}, 
      * depending on the file type.
+     * @param interpreter the interpreter used while parsing
      * @return {@link URLActionDataListBuilder}
      */
-    private URLActionDataListBuilder createBuilder()
+    URLActionDataListBuilder createBuilder(final ParameterInterpreter interpreter)
     {
         final String fileNameExtension = getFileNameExtension(this.filePath);
         final URLActionDataListBuilder resultBuilder;
 
         if (fileNameExtension.equals("yml") || fileNameExtension.equals("yaml"))
         {
-            resultBuilder = createYAMLBuilder();
+            resultBuilder = createYAMLBuilder(interpreter);
         }
         else if (fileNameExtension.equals("csv"))
         {
-            resultBuilder = createCSVBuilder();
+            resultBuilder = createCSVBuilder(interpreter);
         }
         else
         {
@@ -100,14 +102,14 @@ public class URLActionDataListFacade
     /**
      *  Creates the YAML implementation of the {@link URLActionDataListBuilder}
      */
-    private YAMLBasedURLActionDataListBuilder createYAMLBuilder()
+    private YAMLBasedURLActionDataListBuilder createYAMLBuilder(final ParameterInterpreter interpreter)
     {
         final URLActionDataStoreBuilder storeBuilder = new URLActionDataStoreBuilder();
         final URLActionDataBuilder actionBuilder = new URLActionDataBuilder();
         final URLActionDataValidationBuilder validationBuilder = new URLActionDataValidationBuilder();
 
         final YAMLBasedURLActionDataListBuilder yamlBuilder = new YAMLBasedURLActionDataListBuilder(this.filePath,
-                                                                                                    this.interpreter,
+                                                                                                    interpreter,
                                                                                                     actionBuilder,
                                                                                                     validationBuilder,
                                                                                                     storeBuilder);
@@ -117,13 +119,13 @@ public class URLActionDataListFacade
     /**
      *  Creates the CSV implementation of the {@link URLActionDataListBuilder}
      */
-    private CSVBasedURLActionDataListBuilder createCSVBuilder()
+    private CSVBasedURLActionDataListBuilder createCSVBuilder(final ParameterInterpreter interpreter)
     {
 
         final URLActionDataBuilder actionBuilder = new URLActionDataBuilder();
 
         final CSVBasedURLActionDataListBuilder csvBuilder = new CSVBasedURLActionDataListBuilder(this.filePath,
-                                                                                                 this.interpreter,
+                                                                                                 interpreter,
                                                                                                  actionBuilder);
         return csvBuilder;
     }
@@ -0,0 +1,387 @@
+package com.xceptance.xlt.common.util.action.data;
+
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.gargoylesoftware.htmlunit.util.UrlUtils;
+import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
+import com.xceptance.xlt.common.util.bsh.ParameterTemplate;
+
+/**
+ * The request relevant data of an {@link URLActionData}, compiled once per action and shared between all users. <br>
+ * Everything that does not contain dynamic parameters is computed only once:
+ * <ul>
+ * <li>the {@link URL}, as well as the URL used as base for query parameters,</li>
+ * <li>the header list,</li>
+ * <li>the decoded parameters and the query string built from them,</li>
+ * <li>the leading static part of the "Cookie" header.</li>
+ * </ul>
+ * Dynamic values are rendered via their {@link ParameterTemplate} and the {@link ParameterInterpreter} of the user.
+ * <br>
+ * See {@link URLActionData#getRequestTemplate()}.
+ *
+ * @author matthias mitterreiter
+ */
+public final class URLActionDataRequestTemplate
+{
+    private static final String ENCODING = "UTF-8";
+
+    private final ParameterTemplate url;
+
+    private final Pair[] parameters;
+
+    private final Pair[] headers;
+
+    private final Pair[] cookies;
+
+    /**
+     * Number of leading cookies that are contained in {@link #cookiePrefix}.
+     */
+    private final int staticCookies;
+
+    /**
+     * The "Cookie" header of the leading static cookies.
+     */
+    private final String cookiePrefix;
+
+    private final boolean staticParameters;
+
+    private final boolean staticHeaders;
+
+    /**
+     * Lazily computed values of the static parts. Computing them twice in a race is harmless.
+     */
+    private volatile URL staticUrl;
+
+    private volatile URL staticBaseUrl;
+
+    private volatile List<NameValuePair> staticHeaderList;
+
+    /**
+     * Static parameters as they are and decoded.
+     */
+    private final StaticParameters[] staticParameterLists = new StaticParameters[2];
+
+    URLActionDataRequestTemplate(final String url,
+                                 final List<NameValuePair> parameters,
+                                 final List<NameValuePair> headers,
+                                 final List<NameValuePair> cookies)
+    {
+        this.url = ParameterTemplate.compile(url);
+        this.parameters = compilePairs(parameters);
+        this.headers = compilePairs(headers);
+        this.cookies = compilePairs(cookies);
+        this.staticParameters = isStatic(this.parameters);
+        this.staticHeaders = isStatic(this.headers);
+
+        final StringBuilder prefix = new StringBuilder();
+        int count = 0;
+        while (count < this.cookies.length && this.cookies[count].isStatic())
+        {
+            appendCookie(prefix, this.cookies[count].raw);
+            count++;
+        }
+        this.staticCookies = count;
+        this.cookiePrefix = prefix.toString();
+    }
+
+    private static Pair[] compilePairs(final List<NameValuePair> pairs)
+    {
+        final Pair[] result = new Pair[pairs.size()];
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = new Pair(pairs.get(i));
+        }
+        return result;
+    }
+
+    private static boolean isStatic(final Pair[] pairs)
+    {
+        for (final Pair pair : pairs)
+        {
+            if (!pair.isStatic())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param interpreter
+     *            the interpreter of the user
+     * @return the url, after its dynamic interpretation
+     * @throws MalformedURLException
+     *             if the url is invalid
+     */
+    public URL getUrl(final ParameterInterpreter interpreter) throws MalformedURLException
+    {
+        if (!url.isStatic())
+        {
+            return new URL(url.render(interpreter));
+        }
+        URL result = staticUrl;
+        if (result == null)
+        {
+            result = new URL(url.getSource());
+            staticUrl = result;
+        }
+        return result;
+    }
+
+    /**
+     * @param interpreter
+     *            the interpreter of the user
+     * @param decode
+     *            whether the parameters have to be URL-decoded
+     * @return the url, with the parameters appended to its query
+     * @throws MalformedURLException
+     *             if the url is invalid
+     * @throws UnsupportedEncodingException
+     *             if decoding fails
+     */
+    public URL getUrlWithParameters(final ParameterInterpreter interpreter,
+                                    final boolean decode)
+        throws MalformedURLException, UnsupportedEncodingException
+    {
+        if (parameters.length == 0)
+        {
+            return getUrl(interpreter);
+        }
+
+        final URL baseUrl;
+        if (url.isStatic())
+        {
+            URL result = staticBaseUrl;
+            if (result == null)
+            {
+                result = toBaseUrl(url.getSource());
+                staticBaseUrl = result;
+            }
+            baseUrl = result;
+        }
+        else
+        {
+            baseUrl = toBaseUrl(url.render(interpreter));
+        }
+
+        final String query = staticParameters ? getStaticParameters(decode).query
+                                             : buildQuery(getParameters(interpreter, decode));
+        return appendQuery(baseUrl, query);
+    }
+
+    /**
+     * @param interpreter
+     *            the interpreter of the user
+     * @param decode
+     *            whether the parameters have to be URL-decoded
+     * @return the parameters, after their dynamic interpretation.
+     * @throws UnsupportedEncodingException
+     *             if decoding fails
+     */
+    public List<NameValuePair> getParameters(final ParameterInterpreter interpreter,
+                                             final boolean decode)
+        throws UnsupportedEncodingException
+    {
+        if (staticParameters)
+        {
+            return new ArrayList<NameValuePair>(getStaticParameters(decode).pairs);
+        }
+
+        final List<NameValuePair> result = new ArrayList<NameValuePair>(parameters.length);
+        for (final Pair parameter : parameters)
+        {
+            result.add(decode ? parameter.renderDecoded(interpreter) : parameter.render(interpreter));
+        }
+        return result;
+    }
+
+    /**
+     * @param interpreter
+     *            the interpreter of the user
+     * @return the headers, after their dynamic interpretation. Must not be modified.
+     */
+    public List<NameValuePair> getHeaders(final ParameterInterpreter interpreter)
+    {
+        if (!staticHeaders)
+        {
+            return renderPairs(headers, interpreter);
+        }
+        List<NameValuePair> result = staticHeaderList;
+        if (result == null)
+        {
+            result = Collections.unmodifiableList(renderPairs(headers, interpreter));
+            staticHeaderList = result;
+        }
+        return result;
+    }
+
+    /**
+     * @param interpreter
+     *            the interpreter of the user
+     * @return the value of the "Cookie" header, <code>null</code> if there are no cookies.
+     */
+    @Nullable
+    public String getCookieHeader(final ParameterInterpreter interpreter)
+    {
+        if (cookies.length == 0)
+        {
+            return null;
+        }
+        if (staticCookies == cookies.length)
+        {
+            return cookiePrefix;
+        }
+
+        final StringBuilder result = new StringBuilder(cookiePrefix.length() + 32 * (cookies.length - staticCookies));
+        result.append(cookiePrefix);
+        for (int i = staticCookies; i < cookies.length; i++)
+        {
+            appendCookie(result, cookies[i].render(interpreter));
+        }
+        return result.toString();
+    }
+
+    private StaticParameters getStaticParameters(final boolean decode) throws UnsupportedEncodingException
+    {
+        final int index = decode ? 1 : 0;
+        StaticParameters result = staticParameterLists[index];
+        if (result == null)
+        {
+            final List<NameValuePair> pairs = new ArrayList<NameValuePair>(parameters.length);
+            for (final Pair parameter : parameters)
+            {
+                pairs.add(decode ? parameter.decode(parameter.raw) : parameter.raw);
+            }
+            result = new StaticParameters(Collections.unmodifiableList(pairs), buildQuery(pairs));
+            staticParameterLists[index] = result;
+        }
+        return result;
+    }
+
+    private static List<NameValuePair> renderPairs(final Pair[] pairs, final ParameterInterpreter interpreter)
+    {
+        final List<NameValuePair> result = new ArrayList<NameValuePair>(pairs.length);
+        for (final Pair pair : pairs)
+        {
+            result.add(pair.render(interpreter));
+        }
+        return result;
+    }
+
+    private static void appendCookie(final StringBuilder builder, final NameValuePair cookie)
+    {
+        builder.append(cookie.getName()).append('=').append(cookie.getValue()).append(';');
+    }
+
+    /**
+     * Escaped ampersands are not meant to be part of the query, when parameters are appended to it.
+     */
+    private static URL toBaseUrl(final String url) throws MalformedURLException
+    {
+        return new URL(StringUtils.replace(new URL(url).toString(), "&amp;", "&"));
+    }
+
+    private static String buildQuery(final List<NameValuePair> parameters)
+    {
+        final StringBuilder query = new StringBuilder();
+        for (final NameValuePair parameter : parameters)
+        {
+            if (query.length() > 0)
+            {
+                query.append('&');
+            }
+            query.append(parameter.getName()).append('=').append(parameter.getValue());
+        }
+        return query.toString();
+    }
+
+    private static URL appendQuery(final URL baseUrl, final String query) throws MalformedURLException
+    {
+        final String oldQuery = baseUrl.getQuery();
+        final String newQuery = (oldQuery != null && !oldQuery.isEmpty()) ? oldQuery + '&' + query : query;
+        return UrlUtils.getUrlWithNewQuery(baseUrl, newQuery);
+    }
+
+    /**
+     * A compiled name value pair.
+     */
+    private static final class Pair
+    {
+        /**
+         * The raw pair.
+         */
+        private final NameValuePair raw;
+
+        /**
+         * The compiled name, <code>null</code> if the name is null.
+         */
+        private final ParameterTemplate name;
+
+        /**
+         * The compiled value, <code>null</code> if the value is null.
+         */
+        private final ParameterTemplate value;
+
+        private Pair(final NameValuePair raw)
+        {
+            this.raw = raw;
+            this.name = (raw.getName() != null) ? ParameterTemplate.compile(raw.getName()) : null;
+            this.value = (raw.getValue() != null) ? ParameterTemplate.compile(raw.getValue()) : null;
+        }
+
+        private boolean isStatic()
+        {
+            return (name == null || name.isStatic()) && (value == null || value.isStatic());
+        }
+
+        private NameValuePair render(final ParameterInterpreter interpreter)
+        {
+            if (isStatic())
+            {
+                return raw;
+            }
+            return new NameValuePair((name != null) ? name.render(interpreter) : null,
+                                     (value != null) ? value.render(interpreter) : null);
+        }
+
+        private NameValuePair renderDecoded(final ParameterInterpreter interpreter)
+            throws UnsupportedEncodingException
+        {
+            return decode(render(interpreter));
+        }
+
+        private NameValuePair decode(final NameValuePair pair) throws UnsupportedEncodingException
+        {
+            final String decodedName = (pair.getName() != null) ? URLDecoder.decode(pair.getName(), ENCODING) : null;
+            final String decodedValue = (pair.getValue() != null) ? URLDecoder.decode(pair.getValue(), ENCODING)
+                                                                  : null;
+            return new NameValuePair(decodedName, decodedValue);
+        }
+    }
+
+    /**
+     * The parameters and the query string of static parameters.
+     */
+    private static final class StaticParameters
+    {
+        private final List<NameValuePair> pairs;
+
+        private final String query;
+
+        private StaticParameters(final List<NameValuePair> pairs, final String query)
+        {
+            this.pairs = pairs;
+            this.query = query;
+        }
+    }
+}
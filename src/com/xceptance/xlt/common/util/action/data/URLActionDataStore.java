@@ -3,10 +3,13 @@ package com.xceptance.xlt.common.util.action.data;
 import java.text.MessageFormat;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.regex.Pattern;
 
+import org.apache.commons.lang.math.NumberUtils;
 import org.eclipse.jdt.annotation.Nullable;
 
 import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.util.PatternCache;
 import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
 
 /**
@@ -41,16 +44,36 @@ public class URLActionDataStore
 
 	private String subSelectionValue;
 
+	/**
+	 * the right boundary of a {@link #BETWEEN} selection, the
+	 * {@link #selectionContent} is the left one.
+	 */
+	private String rightBoundary;
+
+	/**
+	 * the occurrence of a {@link #BETWEEN} selection, starting at 1.
+	 */
+	private String occurrence;
+
 	/**
 	 * The interpreter for dynamic parameter interpretation.
 	 */
 	private ParameterInterpreter interpreter;
 
+	/**
+	 * {@link #selectionContent} compiled in advance, if it is a static
+	 * regular expression.
+	 */
+	private Pattern selectionPattern;
+
 	/**
 	 * Supported selection modes:
 	 * <ul>
 	 * <li> {@link #XPATH}
 	 * <li> {@link #REGEXP}
+	 * <li> {@link #JSONPATH}
+	 * <li> {@link #CSS}
+	 * <li> {@link #BETWEEN}
 	 * <li> {@link #HEADER}
 	 * <li> {@link #COOKIE}
 	 * </ul>
@@ -61,6 +84,12 @@ public class URLActionDataStore
 
 	public static final String REGEXP = "Regex";
 
+	public static final String JSONPATH = "JSONPath";
+
+	public static final String CSS = "CSS";
+
+	public static final String BETWEEN = "Between";
+
 	public static final String HEADER = "Header";
 
 	public static final String COOKIE = "Cookie";
@@ -69,6 +98,9 @@ public class URLActionDataStore
 	{
 		PERMITTEDSELECTIONMODE.add(XPATH);
 		PERMITTEDSELECTIONMODE.add(REGEXP);
+		PERMITTEDSELECTIONMODE.add(JSONPATH);
+		PERMITTEDSELECTIONMODE.add(CSS);
+		PERMITTEDSELECTIONMODE.add(BETWEEN);
 		PERMITTEDSELECTIONMODE.add(HEADER);
 		PERMITTEDSELECTIONMODE.add(COOKIE);
 	}
@@ -116,6 +148,7 @@ public class URLActionDataStore
 		setSelectionMode(selectionMode);
 		setSelectionContent(selectionContent);
 		setParameterInterpreter(interpreter);
+		compilePattern();
 	}
 
 	public URLActionDataStore(final String name,
@@ -132,6 +165,84 @@ public class URLActionDataStore
 		setSubSelectionMode(subSelectionMode);
 		setSubSelectionValue(subSelectionValue);
 		setParameterInterpreter(interpreter);
+		compilePattern();
+	}
+
+	/**
+	 * Creates a copy of the passed store item, which shares the raw data of
+	 * the template but interprets it via the passed interpreter.
+	 * 
+	 * @param template
+	 *            the store item to copy
+	 * @param interpreter
+	 *            {@link #interpreter}
+	 */
+	public URLActionDataStore(final URLActionDataStore template,
+			final ParameterInterpreter interpreter)
+	{
+		this.name = template.name;
+		this.selectionMode = template.selectionMode;
+		this.selectionContent = template.selectionContent;
+		this.subSelectionMode = template.subSelectionMode;
+		this.subSelectionValue = template.subSelectionValue;
+		this.rightBoundary = template.rightBoundary;
+		this.occurrence = template.occurrence;
+		this.selectionPattern = template.selectionPattern;
+		setParameterInterpreter(interpreter);
+	}
+
+	/**
+	 * Compiles the regular expression of the store item once, if it does not
+	 * contain dynamic parameters.
+	 */
+	private void compilePattern()
+	{
+		if (REGEXP.equals(selectionMode))
+		{
+			selectionPattern = PatternCache.compileIfStatic(selectionContent);
+		}
+	}
+
+	/**
+	 * Replaces the strings of the store item by their canonical representation. <br>
+	 * Used for store items of actions, that are shared between users.
+	 */
+	void compact()
+	{
+		this.name = URLActionDataCompaction.intern(this.name);
+		this.selectionMode = URLActionDataCompaction.intern(this.selectionMode);
+		this.selectionContent = URLActionDataCompaction.intern(this.selectionContent);
+		this.subSelectionMode = URLActionDataCompaction.intern(this.subSelectionMode);
+		this.subSelectionValue = URLActionDataCompaction.intern(this.subSelectionValue);
+		this.rightBoundary = URLActionDataCompaction.intern(this.rightBoundary);
+		this.occurrence = URLActionDataCompaction.intern(this.occurrence);
+	}
+
+	/**
+	 * @return {@link #name} without dynamic interpretation.
+	 */
+	String getRawName()
+	{
+		return name;
+	}
+
+	/**
+	 * @return <code>false</code> if the store item selects from the headers
+	 *         only. A dynamic selection mode might read the body.
+	 */
+	boolean readsBody()
+	{
+		return !(HEADER.equals(selectionMode) || COOKIE.equals(selectionMode));
+	}
+
+	/**
+	 * Adds the names of the variables, the store item may read. See
+	 * {@link URLActionDataDependencies}.
+	 */
+	void collectVariableNames(final Set<String> names)
+	{
+		URLActionDataDependencies.collectVariableNames(names, name, selectionMode, selectionContent,
+				subSelectionMode, subSelectionValue, rightBoundary, occurrence);
 	}
 
 	/**
@@ -211,6 +322,32 @@ public class URLActionDataStore
 		XltLogger.runTimeLogger.debug(MessageFormat.format("Set 'Sub-Selection Value': \"{0}\"",
 				subSelectionValue));
 	}
+	/**
+	 * @param rightBoundary
+	 *            :if NULL throws.
+	 * @throws IllegalArgumentException
+	 */
+	public void setRightBoundary(final String rightBoundary)
+	{
+		this.rightBoundary = (rightBoundary != null) ? rightBoundary
+				: (String) throwIllegalArgumentException(getTagCannotBeNullMessage("Right Boundary"));
+		XltLogger.runTimeLogger.debug(MessageFormat.format("Set 'Right Boundary': \"{0}\"",
+				rightBoundary));
+	}
+
+	/**
+	 * @param occurrence
+	 *            :if NULL throws.
+	 * @throws IllegalArgumentException
+	 */
+	public void setOccurrence(final String occurrence)
+	{
+		this.occurrence = (occurrence != null) ? occurrence
+				: (String) throwIllegalArgumentException(getTagCannotBeNullMessage("Occurrence"));
+		XltLogger.runTimeLogger.debug(MessageFormat.format("Set 'Occurrence': \"{0}\"",
+				occurrence));
+	}
+
 	/**
 	 * @param selectionMode
 	 *            :if NULL throws.
@@ -290,6 +427,16 @@ public class URLActionDataStore
 	{
 		return interpreter.processDynamicData(this.selectionContent);
 	}
+
+	/**
+	 * @return {@link #selectionContent } as compiled regular expression, after
+	 *         its dynamic interpretation via the {@link #interpreter}.
+	 */
+	public Pattern getSelectionContentAsPattern()
+	{
+		return (selectionPattern != null) ? selectionPattern
+				: PatternCache.get(getSelectionContent());
+	}
 	
 	/**
 	 * @return {@link #selectionContent }, after its dynamic interpretation via
@@ -301,6 +448,43 @@ public class URLActionDataStore
 		return interpreter.processDynamicData(this.subSelectionValue);
 	}
 
+	/**
+	 * @return {@link #rightBoundary }, after its dynamic interpretation via
+	 *         the {@link #interpreter}.
+	 * @throws IllegalArgumentException
+	 *             if there is no right boundary.
+	 */
+	public String getRightBoundary()
+	{
+		if (this.rightBoundary == null)
+		{
+			throw new IllegalArgumentException(getTagCannotBeNullMessage("Right Boundary"));
+		}
+		return interpreter.processDynamicData(this.rightBoundary);
+	}
+
+	/**
+	 * @return {@link #occurrence }, after its dynamic interpretation via the
+	 *         {@link #interpreter}, 0 if every occurrence is wanted.
+	 * @throws IllegalArgumentException
+	 *             if the occurrence is not a positive number.
+	 */
+	public int getOccurrence()
+	{
+		if (this.occurrence == null)
+		{
+			return 0;
+		}
+		final String dynamicOccurrence = interpreter.processDynamicData(this.occurrence);
+		final int value = NumberUtils.toInt(dynamicOccurrence.trim(), 0);
+		if (value < 1)
+		{
+			throw new IllegalArgumentException(getIllegalValueForTagMessage(dynamicOccurrence,
+					"Occurrence"));
+		}
+		return value;
+	}
+
 	/**
 	 * @return {@link #interpreter}
 	 */
@@ -26,6 +26,10 @@ public class URLActionDataStoreBuilder
 
 	private String subSelectionContent;
 
+	private String rightBoundary;
+
+	private String occurrence;
+
 	private ParameterInterpreter interpreter;
 
 	/**
@@ -58,6 +62,14 @@ public class URLActionDataStoreBuilder
 						getSubSelectionContent(),
 						getInterpreter());
 			}
+			if (this.rightBoundary != null)
+			{
+				store.setRightBoundary(getRightBoundary());
+			}
+			if (this.occurrence != null)
+			{
+				store.setOccurrence(getOccurrence());
+			}
 		}
 		catch (final IllegalArgumentException e)
 		{
@@ -80,6 +92,8 @@ public class URLActionDataStoreBuilder
 		this.interpreter = null;
 		this.subSelectionMode = null;
 		this.subSelectionContent = null;
+		this.rightBoundary = null;
+		this.occurrence = null;
 		XltLogger.runTimeLogger.debug("Resetting values");
 	}
 
@@ -167,4 +181,28 @@ public class URLActionDataStoreBuilder
 				subSelectionContent));
 	}
 
+	public String getRightBoundary()
+	{
+		return rightBoundary;
+	}
+
+	public void setRightBoundary(final String rightBoundary)
+	{
+		this.rightBoundary = rightBoundary;
+		XltLogger.runTimeLogger.debug(infoSetTagToValue("rightBoundary",
+				rightBoundary));
+	}
+
+	public String getOccurrence()
+	{
+		return occurrence;
+	}
+
+	public void setOccurrence(final String occurrence)
+	{
+		this.occurrence = occurrence;
+		XltLogger.runTimeLogger.debug(infoSetTagToValue("occurrence",
+				occurrence));
+	}
+
 }
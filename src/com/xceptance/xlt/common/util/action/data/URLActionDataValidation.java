@@ -3,10 +3,13 @@ package com.xceptance.xlt.common.util.action.data;
 import java.text.MessageFormat;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.regex.Pattern;
 
+import org.apache.commons.lang.math.NumberUtils;
 import org.eclipse.jdt.annotation.Nullable;
 
 import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.util.PatternCache;
 import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
 
 /**
@@ -33,6 +36,16 @@ public class URLActionDataValidation
      */
     private String selectionContent;
 
+    /**
+     * the right boundary of a {@link #BETWEEN} selection, the {@link #selectionContent} is the left one.
+     */
+    private String rightBoundary;
+
+    /**
+     * the occurrence of a {@link #BETWEEN} selection, starting at 1.
+     */
+    private String occurrence;
+
     /**
      * the way you want to validate the response information. <br>
      * See {@link #PERMITTEDVALIDATIONMODE supported modes}.
@@ -49,11 +62,24 @@ public class URLActionDataValidation
      */
     private ParameterInterpreter interpreter;
 
+    /**
+     * {@link #selectionContent} compiled in advance, if it is a static regular expression.
+     */
+    private Pattern selectionPattern;
+
+    /**
+     * {@link #validationContent} compiled in advance, if it is a static regular expression.
+     */
+    private Pattern validationPattern;
+
     /**
      * Supported selection modes:
      * <ul>
      * <li> {@link #XPATH}
      * <li> {@link #REGEXP}
+     * <li> {@link #JSONPATH}
+     * <li> {@link #CSS}
+     * <li> {@link #BETWEEN}
      * <li> {@link #HEADER}
      * <li> {@link #COOKIE}
      * </ul>
@@ -75,6 +101,12 @@ public class URLActionDataValidation
 
     public static final String REGEXP = "Regex";
 
+    public static final String JSONPATH = "JSONPath";
+
+    public static final String CSS = "CSS";
+
+    public static final String BETWEEN = "Between";
+
     public static final String TEXT = "Text";
 
     public static final String HEADER = "Header";
@@ -91,6 +123,9 @@ public class URLActionDataValidation
     {
         PERMITTEDSELECTIONMODE.add(XPATH);
         PERMITTEDSELECTIONMODE.add(REGEXP);
+        PERMITTEDSELECTIONMODE.add(JSONPATH);
+        PERMITTEDSELECTIONMODE.add(CSS);
+        PERMITTEDSELECTIONMODE.add(BETWEEN);
         PERMITTEDSELECTIONMODE.add(HEADER);
         PERMITTEDSELECTIONMODE.add(COOKIE);
 
@@ -124,7 +159,116 @@ public class URLActionDataValidation
         setValidationMode(validationMode);
         setValidationContent(validationContent);
         setParameterInterpreter(interpreter);
+        compilePatterns();
     }
+
+    /**
+     * Creates a copy of the passed validation, which shares the raw data of the template <br>
+     * but interprets it via the passed interpreter.
+     * 
+     * @param template
+     *            the validation to copy
+     * @param interpreter
+     *            : if NULL throws.
+     */
+    public URLActionDataValidation(final URLActionDataValidation template,
+                                   final ParameterInterpreter interpreter)
+    {
+        this.name = template.name;
+        this.selectionMode = template.selectionMode;
+        this.selectionContent = template.selectionContent;
+        this.rightBoundary = template.rightBoundary;
+        this.occurrence = template.occurrence;
+        this.validationMode = template.validationMode;
+        this.validationContent = template.validationContent;
+        this.selectionPattern = template.selectionPattern;
+        this.validationPattern = template.validationPattern;
+        setParameterInterpreter(interpreter);
+    }
+
+    /**
+     * Compiles the regular expressions of the validation once, if they do not contain dynamic parameters.
+     */
+    private void compilePatterns()
+    {
+        if (REGEXP.equals(selectionMode))
+        {
+            selectionPattern = PatternCache.compileIfStatic(selectionContent);
+        }
+        if (MATCHES.equals(validationMode))
+        {
+            validationPattern = PatternCache.compileIfStatic(validationContent);
+        }
+    }
+
+    /**
+     * Replaces the strings of the validation by their canonical representation. <br>
+     * Used for validations of actions, that are shared between users.
+     */
+    void compact()
+    {
+        this.name = URLActionDataCompaction.intern(this.name);
+        this.selectionMode = URLActionDataCompaction.intern(this.selectionMode);
+        this.selectionContent = URLActionDataCompaction.intern(this.selectionContent);
+        this.rightBoundary = URLActionDataCompaction.intern(this.rightBoundary);
+        this.occurrence = URLActionDataCompaction.intern(this.occurrence);
+        this.validationMode = URLActionDataCompaction.intern(this.validationMode);
+        this.validationContent = URLActionDataCompaction.intern(this.validationContent);
+    }
+
+    /**
+     * @return <code>true</code> if none of the attributes contains dynamic parameters, so the validation does not
+     *         access the {@link #interpreter}.
+     */
+    boolean isStatic()
+    {
+        return URLActionDataDependencies.isStatic(name)
+               && URLActionDataDependencies.isStatic(selectionMode)
+               && URLActionDataDependencies.isStatic(selectionContent)
+               && URLActionDataDependencies.isStatic(rightBoundary)
+               && URLActionDataDependencies.isStatic(occurrence)
+               && URLActionDataDependencies.isStatic(validationMode)
+               && URLActionDataDependencies.isStatic(validationContent);
+    }
+
+    /**
+     * @return <code>true</code> if the validation is {@link #isStatic() static} and either does not read the body or
+     *         is decided by the first match of a 'Regex' or 'Between' selection. See
+     *         {@link URLActionData#hasStreamableValidations()}.
+     */
+    boolean isStreamable()
+    {
+        if (!isStatic())
+        {
+            return false;
+        }
+        if (HEADER.equals(selectionMode) || COOKIE.equals(selectionMode))
+        {
+            return true;
+        }
+        final boolean firstMatch = EXISTS.equals(validationMode) || TEXT.equals(validationMode)
+                                   || MATCHES.equals(validationMode);
+        if (REGEXP.equals(selectionMode))
+        {
+            return firstMatch;
+        }
+        if (BETWEEN.equals(selectionMode))
+        {
+            return firstMatch && selectionContent != null && !selectionContent.isEmpty() && rightBoundary != null
+                   && !rightBoundary.isEmpty() && (occurrence == null || NumberUtils.toInt(occurrence.trim(), 0) == 1);
+        }
+        return false;
+    }
+
+    /**
+     * Adds the names of the variables, the validation may read. See {@link URLActionDataDependencies}.
+     */
+    void collectVariableNames(final Set<String> names)
+    {
+        URLActionDataDependencies.collectVariableNames(names, name, selectionMode, selectionContent, rightBoundary,
+                                                       occurrence, validationMode, validationContent);
+    }
+
     /**
      * For debugging purpose. <br>
      * 'err-streams' the attributes of the object without dynamic interpretation of the return values. <br>
@@ -199,6 +343,28 @@ public class URLActionDataValidation
         XltLogger.runTimeLogger.debug(getSetTagToValueMessage("Selection Content", selectionContent));
     }
 
+    /**
+     * @param rightBoundary :if NULL throws.
+     * @throws IllegalArgumentException
+     */
+    public void setRightBoundary(final String rightBoundary)
+    {
+        this.rightBoundary = (rightBoundary != null) ? rightBoundary
+                                                    : (String) throwIllegalArgumentException(getTagCannotBeNullMessage("Right Boundary"));
+        XltLogger.runTimeLogger.debug(getSetTagToValueMessage("Right Boundary", rightBoundary));
+    }
+
+    /**
+     * @param occurrence :if NULL throws.
+     * @throws IllegalArgumentException
+     */
+    public void setOccurrence(final String occurrence)
+    {
+        this.occurrence = (occurrence != null) ? occurrence
+                                              : (String) throwIllegalArgumentException(getTagCannotBeNullMessage("Occurrence"));
+        XltLogger.runTimeLogger.debug(getSetTagToValueMessage("Occurrence", occurrence));
+    }
+
     /**
      * @param name :if NULL throws.
      * @throws IllegalArgumentException
@@ -239,6 +405,50 @@ public class URLActionDataValidation
         return interpreter.processDynamicData(selectionContent);
     }
 
+    /**
+     * @return {@link #selectionContent} as compiled regular expression, after its dynamic interpretation via the
+     *         {@link #interpreter}.
+     */
+    public Pattern getSelectionContentAsPattern()
+    {
+        return (selectionPattern != null) ? selectionPattern : PatternCache.get(getSelectionContent());
+    }
+
+    /**
+     * @return {@link #rightBoundary}, after its dynamic interpretation via the {@link #interpreter}.
+     * @throws IllegalArgumentException
+     *             if there is no right boundary.
+     */
+    public String getRightBoundary()
+    {
+        if (rightBoundary == null)
+        {
+            throw new IllegalArgumentException(getTagCannotBeNullMessage("Right Boundary"));
+        }
+        return interpreter.processDynamicData(rightBoundary);
+    }
+
+    /**
+     * @return {@link #occurrence}, after its dynamic interpretation via the {@link #interpreter}, 0 if every
+     *         occurrence is wanted.
+     * @throws IllegalArgumentException
+     *             if the occurrence is not a positive number.
+     */
+    public int getOccurrence()
+    {
+        if (occurrence == null)
+        {
+            return 0;
+        }
+        final String dynamicOccurrence = interpreter.processDynamicData(occurrence);
+        final int value = NumberUtils.toInt(dynamicOccurrence.trim(), 0);
+        if (value < 1)
+        {
+            throw new IllegalArgumentException(getIllegalValueForTagMessage(dynamicOccurrence, "Occurrence"));
+        }
+        return value;
+    }
+
     /**
      * @return {@link #validationMode}, after its dynamic interpretation via the {@link #interpreter}.
      */
@@ -260,6 +470,15 @@ public class URLActionDataValidation
         return interpreter.processDynamicData(validationContent);
     }
 
+    /**
+     * @return {@link #validationContent} as compiled regular expression, after its dynamic interpretation via the
+     *         {@link #interpreter}.
+     */
+    public Pattern getValidationContentAsPattern()
+    {
+        return (validationPattern != null) ? validationPattern : PatternCache.get(getValidationContent());
+    }
+
     /**
      * @param selectionMode
      * @return if ({@link #selectionMode} is permitted) ? true : false. 
@@ -21,6 +21,10 @@ public class URLActionDataValidationBuilder
 
     private String selectionContent;
 
+    private String rightBoundary;
+
+    private String occurrence;
+
     private String validationMode;
 
     private String validationContent;
@@ -49,6 +53,14 @@ public class URLActionDataValidationBuilder
                                                      getValidationMode(),
                                                      getValidationContent(),
                                                      getInterpreter());
+            if (this.rightBoundary != null)
+            {
+                validation.setRightBoundary(getRightBoundary());
+            }
+            if (this.occurrence != null)
+            {
+                validation.setOccurrence(getOccurrence());
+            }
         }
         catch (final IllegalArgumentException e)
         {
@@ -69,6 +81,8 @@ public class URLActionDataValidationBuilder
         this.name = null;
         this.selectionMode = null;
         this.selectionContent = null;
+        this.rightBoundary = null;
+        this.occurrence = null;
         this.validationMode = null;
         this.validationContent = null;
         this.interpreter = null;
@@ -109,6 +123,30 @@ public class URLActionDataValidationBuilder
                                                         selectionContent));
     }
 
+    public String getRightBoundary()
+    {
+        return rightBoundary;
+    }
+
+    public void setRightBoundary(final String rightBoundary)
+    {
+        this.rightBoundary = rightBoundary;
+        XltLogger.runTimeLogger.debug(infoSetTagToValue("rightBoundary",
+                                                        rightBoundary));
+    }
+
+    public String getOccurrence()
+    {
+        return occurrence;
+    }
+
+    public void setOccurrence(final String occurrence)
+    {
+        this.occurrence = occurrence;
+        XltLogger.runTimeLogger.debug(infoSetTagToValue("occurrence",
+                                                        occurrence));
+    }
+
     public String getValidationMode()
     {
         return validationMode;
@@ -75,6 +75,8 @@ public class YAMLBasedURLActionDataListBuilder extends URLActionDataListBuilder
 
     private static final String XHR = "Xhr";
 
+    private static final String PARALLEL = "Parallel";
+
     private static final String PARAMETERS = "Parameters";
 
     private static final String HTTPCODE = "Httpcode";
@@ -89,11 +91,24 @@ public class YAMLBasedURLActionDataListBuilder extends URLActionDataListBuilder
 
     private static final String DELETE = "Delete";
 
+    private static final String BETWEEN = "Between";
+
+    private static final String LEFT = "Left";
+
+    private static final String RIGHT = "Right";
+
+    private static final String OCCURRENCE = "Occurrence";
+
     /**
      * Default static URLs
      */
     private List<String> d_static = new ArrayList<String>();
 
+    /**
+     * Number of parallel groups found so far, used to name the groups.
+     */
+    private int parallelGroupCount;
+
     /**
      * @param filePath
      *            : path to the yaml file.
@@ -634,6 +649,7 @@ public class YAMLBasedURLActionDataListBuilder extends URLActionDataListBuilder
                 @SuppressWarnings("unchecked")
 				final LinkedHashMap<Object, Object> lhm = (LinkedHashMap<Object, Object>) object;
                 final NameValuePair nvp = createPairfromLinkedHashMap(lhm);
+                globalStore.add(nvp);
                 final NameValuePair nvp2 = new NameValuePair(interpreter.processDynamicData(nvp.getName()),
                                                              interpreter.processDynamicData(nvp.getValue()));
                 try
@@ -729,6 +745,65 @@ public class YAMLBasedURLActionDataListBuilder extends URLActionDataListBuilder
 			final LinkedHashMap<String, Object> xhrSubrequest = (LinkedHashMap<String, Object>) xhrSubrequestObject;
             handleXhrSubrequests(xhrSubrequest);
         }
+        final Object parallelSubrequestObject = subrequest.get(PARALLEL);
+        if (parallelSubrequestObject != null)
+        {
+            ParameterUtils.isArrayListMessage(parallelSubrequestObject,
+                                              PARALLEL,
+                                              "");
+            @SuppressWarnings("unchecked")
+            final List<Object> parallelSubrequests = (List<Object>) parallelSubrequestObject;
+            handleParallelSubrequests(parallelSubrequests);
+        }
+    }
+
+    /**
+     * Builds the Xhr actions of a parallel group. All of them get the same {@link URLActionData#getParallelGroup()
+     * group name}. <br>
+     * A member of the group may only have static subrequests, because the members are fired all at once.
+     */
+    private void handleParallelSubrequests(final List<Object> parallelSubrequests)
+    {
+        final String parallelGroup = PARALLEL + "-" + (++parallelGroupCount);
+
+        for (final Object parallelItem : parallelSubrequests)
+        {
+            ParameterUtils.isLinkedHashMapMessage(parallelItem, PARALLEL, "");
+            @SuppressWarnings("unchecked")
+            final LinkedHashMap<String, Object> parallelSubrequest = (LinkedHashMap<String, Object>) parallelItem;
+
+            final Object xhrSubrequestObject = parallelSubrequest.get(XHR);
+            if (xhrSubrequestObject == null)
+            {
+                throw new IllegalArgumentException(MessageFormat.format("Only \"{0}\" subrequests are allowed in \"{1}\"",
+                                                                        XHR,
+                                                                        PARALLEL));
+            }
+            ParameterUtils.isLinkedHashMapMessage(xhrSubrequestObject,
+                                                  PARALLEL,
+                                                  "");
+            @SuppressWarnings("unchecked")
+            final LinkedHashMap<String, Object> xhrSubrequest = (LinkedHashMap<String, Object>) xhrSubrequestObject;
+
+            fillURLActionBuilder(xhrSubrequest);
+            actionBuilder.setType(URLActionData.TYPE_XHR);
+            actionBuilder.setParallelGroup(parallelGroup);
+            final URLActionData xhrAction = actionBuilder.build();
+            actions.add(xhrAction);
+
+            final int actionCount = actions.size();
+            handleSubrequests(xhrSubrequest);
+            for (int i = actionCount; i < actions.size(); i++)
+            {
+                if (!actions.get(i).isStaticContent())
+                {
+                    throw new IllegalArgumentException(MessageFormat.format("Xhr \"{0}\" in \"{1}\" can only have \"{2}\" subrequests",
+                                                                            xhrAction.getName(),
+                                                                            PARALLEL,
+                                                                            STATIC));
+                }
+            }
+        }
     }
 
     private void handleXhrSubrequests(final LinkedHashMap<String, Object> xhrSubrequest)
@@ -1085,7 +1160,7 @@ public class YAMLBasedURLActionDataListBuilder extends URLActionDataListBuilder
         final Iterator<?> it = entrySet.iterator();
         Map.Entry<?, ?> entry = (Map.Entry<?, ?>) it.next();
         final String selectionMode = (String) entry.getKey();
-        final String selectionContent = (String) entry.getValue();
+        final Object rawSelectionContent = entry.getValue();
         String validationMode = null;
         String validationContent = null;
 
@@ -1102,7 +1177,17 @@ public class YAMLBasedURLActionDataListBuilder extends URLActionDataListBuilder
         validationBuilder.setSelectionMode(selectionMode);
         validationBuilder.setValidationContent(validationContent);
         validationBuilder.setValidationMode(validationMode);
-        validationBuilder.setSelectionContent(selectionContent);
+
+        if (BETWEEN.equals(selectionMode))
+        {
+            validationBuilder.setSelectionContent(getBetweenTag(rawSelectionContent, LEFT, true));
+            validationBuilder.setRightBoundary(getBetweenTag(rawSelectionContent, RIGHT, true));
+            validationBuilder.setOccurrence(getBetweenTag(rawSelectionContent, OCCURRENCE, false));
+        }
+        else
+        {
+            validationBuilder.setSelectionContent((String) rawSelectionContent);
+        }
     }
 
     private void fillURLActionBuilderWithStoreData(final LinkedHashMap<String, Object> rawResponse)
@@ -1161,7 +1246,7 @@ public class YAMLBasedURLActionDataListBuilder extends URLActionDataListBuilder
         final Iterator<?> it = entrySet.iterator();
         Map.Entry<?, ?> entry = (Map.Entry<?, ?>) it.next();
         final String selectionMode = (String) entry.getKey();
-        final String selectionContent = (String) entry.getValue();
+        final Object rawSelectionContent = entry.getValue();
         String subSelectionMode = null;
         String subSelectionContent = null;
 
@@ -1172,7 +1257,17 @@ public class YAMLBasedURLActionDataListBuilder extends URLActionDataListBuilder
             subSelectionContent = entry.getValue().toString();
         }
         storeBuilder.setSelectionMode(selectionMode);
-        storeBuilder.setSelectionContent(selectionContent);
+
+        if (BETWEEN.equals(selectionMode))
+        {
+            storeBuilder.setSelectionContent(getBetweenTag(rawSelectionContent, LEFT, true));
+            storeBuilder.setRightBoundary(getBetweenTag(rawSelectionContent, RIGHT, true));
+            storeBuilder.setOccurrence(getBetweenTag(rawSelectionContent, OCCURRENCE, false));
+        }
+        else
+        {
+            storeBuilder.setSelectionContent((String) rawSelectionContent);
+        }
         
         if(subSelectionMode != null)
         {
@@ -1181,6 +1276,34 @@ public class YAMLBasedURLActionDataListBuilder extends URLActionDataListBuilder
         }
     }
 
+    /**
+     * Reads a tag of a {@link #BETWEEN} selection, which consists of the boundaries {@link #LEFT} and {@link #RIGHT}
+     * and the optional {@link #OCCURRENCE}.
+     * 
+     * @param rawBetween
+     *            the content of the {@link #BETWEEN} tag.
+     * @param tag
+     *            the name of the wanted tag.
+     * @param mandatory
+     *            whether the tag must be set.
+     * @return the value of the tag, NULL if it is not set.
+     */
+    @Nullable
+    private String getBetweenTag(final Object rawBetween, final String tag, final boolean mandatory)
+    {
+        ParameterUtils.isLinkedHashMapMessage(rawBetween, BETWEEN, "");
+        final Object value = ((LinkedHashMap<?, ?>) rawBetween).get(tag);
+        if (value == null)
+        {
+            if (mandatory)
+            {
+                ParameterUtils.doThrow(BETWEEN, tag, Reason.UNCOMPLETE);
+            }
+            return null;
+        }
+        return value.toString();
+    }
+
     private String determineTagName(final LinkedHashMap<String, Object> tag)
     {
         return getNameOfFirstElementFromLinkedHashMap(tag);
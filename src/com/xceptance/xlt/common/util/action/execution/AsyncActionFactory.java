@@ -0,0 +1,164 @@
+package com.xceptance.xlt.common.util.action.execution;
+
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.actions.AsyncAction;
+import com.xceptance.xlt.common.util.NoCodingPropAdmin;
+import com.xceptance.xlt.common.util.ParameterUtils;
+import com.xceptance.xlt.common.util.action.validation.URLActionDataExecutableResultFactory;
+import com.xceptance.xlt.common.util.async.AsyncHttpClient;
+import com.xceptance.xlt.common.util.async.AsyncHttpEngine;
+
+/**
+ * Factory Class <br>
+ * Produces {@link AsyncAction}s for both, normal requests and XmlHttpRequests. <br>
+ * All actions of the factory share one {@link AsyncHttpClient}, so cookies and keep-alive connections survive from
+ * action to action like in a browser. The client runs on the {@link AsyncHttpEngine} of the agent, whose number of IO
+ * threads is configured via {@link NoCodingPropAdmin#ASYNCIOTHREADS}. Certificate checks and the proxy follow the
+ * settings of XLT, {@link NoCodingPropAdmin#SSLEASYMODE} and {@link NoCodingPropAdmin#PROXY}. <br>
+ * The response is NOT parsed into the dom. The user thread still waits for the response of each action, XLT runs
+ * every user on a thread of its own. Only the static content and the parallel Xhr actions are loaded without a
+ * thread per request. <br>
+ * The actions are not chained, since they share nothing but the client, so an action is released as soon as its
+ * response is handled.
+ */
+public class AsyncActionFactory extends URLActionDataExecutionableFactory
+{
+    private NoCodingPropAdmin propAdmin;
+
+    /**
+     * Whether a page action was created, which an Xhr action requires.
+     */
+    private boolean pageActionCreated;
+
+    private final AsyncHttpClient client;
+
+    private final boolean loadStaticContent;
+
+    private final URLActionDataExecutableResultFactory resultFactory;
+
+    /**
+     * @param propAdmin
+     *            {@link NoCodingPropAdmin} for {@link AsyncHttpClient} configuration.
+     */
+    public AsyncActionFactory(final NoCodingPropAdmin propAdmin)
+    {
+        super();
+        setPropertiesAdmin(propAdmin);
+        this.client = createClient();
+        this.loadStaticContent = propAdmin.getPropertyByKey(NoCodingPropAdmin.LOADSCRIPTSTATICCONTENT,
+                                                            false)
+                                 && propAdmin.getPropertyByKey(NoCodingPropAdmin.LOADSTATICCONTENT,
+                                                               true);
+        this.resultFactory = new URLActionDataExecutableResultFactory();
+        XltLogger.runTimeLogger.debug("Creating new Instance");
+    }
+
+    private void setPropertiesAdmin(final NoCodingPropAdmin propAdmin)
+    {
+        ParameterUtils.isNotNull(propAdmin, "NoCodingPropAdmin");
+        this.propAdmin = propAdmin;
+    }
+
+    private AsyncHttpClient createClient()
+    {
+        final int ioThreads = this.propAdmin.getPropertyByKey(NoCodingPropAdmin.ASYNCIOTHREADS,
+                                                              2);
+        final AsyncHttpClient client = new AsyncHttpClient(AsyncHttpEngine.getInstance(ioThreads));
+
+        client.setTimeout(this.propAdmin.getPropertyByKey(NoCodingPropAdmin.TIMEOUT,
+                                                          30000L));
+        client.setRedirectEnabled(this.propAdmin.getPropertyByKey(NoCodingPropAdmin.REDIRECTENABLED,
+                                                                  true));
+
+        final String tlsVersion = this.propAdmin.getPropertyByKey(NoCodingPropAdmin.TLSVERSION);
+        if (tlsVersion != null)
+        {
+            client.setSslProtocols(new String[]
+                {
+                    tlsVersion
+                });
+        }
+        client.setTrustAllCertificates(this.propAdmin.getPropertyByKey(NoCodingPropAdmin.SSLEASYMODE,
+                                                                       false));
+        if (this.propAdmin.getPropertyByKey(NoCodingPropAdmin.PROXY,
+                                            false))
+        {
+            client.setProxy(this.propAdmin.getPropertyByKey(NoCodingPropAdmin.PROXYHOST,
+                                                            "127.0.0.1"),
+                            this.propAdmin.getPropertyByKey(NoCodingPropAdmin.PROXYPORT,
+                                                            8888),
+                            this.propAdmin.getPropertyByKey(NoCodingPropAdmin.PROXYUSERNAME),
+                            this.propAdmin.getPropertyByKey(NoCodingPropAdmin.PROXYPASSWORD));
+            final String bypassForHosts = this.propAdmin.getPropertyByKey(NoCodingPropAdmin.PROXYBYPASS);
+            if (bypassForHosts != null)
+            {
+                for (final String host : bypassForHosts.trim().split("\\s+"))
+                {
+                    if (!host.isEmpty())
+                    {
+                        client.addProxyBypassHost(host);
+                    }
+                }
+            }
+        }
+        final String userAgent = this.propAdmin.getPropertyByKey(NoCodingPropAdmin.USERAGENT);
+        if (userAgent != null && !userAgent.isEmpty())
+        {
+            client.setDefaultHeader("User-Agent", userAgent);
+        }
+        final String authorization = this.propAdmin.getBasicAuthorization();
+        if (authorization != null)
+        {
+            client.setDefaultHeader("Authorization", authorization);
+        }
+        return client;
+    }
+
+    @Override
+    public URLActionDataExecutionable createPageAction(final String name,
+                                                       final WebRequest request)
+    {
+        ParameterUtils.isNotNull(name, "name");
+        ParameterUtils.isNotNull(request, "WebRequest");
+
+        this.pageActionCreated = true;
+        return new AsyncAction(name,
+                               request,
+                               client,
+                               resultFactory,
+                               loadStaticContent);
+    }
+
+    @Override
+    public URLActionDataExecutionable createXhrPageAction(final String name,
+                                                          final WebRequest request)
+    {
+        ParameterUtils.isNotNull(name, "name");
+        ParameterUtils.isNotNull(request, "WebRequest");
+
+        if (!pageActionCreated)
+        {
+            throw new IllegalArgumentException("Xhr action cannot be the first action");
+        }
+        return createPageAction(name, request);
+    }
+
+    /**
+     * The actions only share the {@link AsyncHttpClient}, which handles concurrent requests.
+     */
+    @Override
+    public boolean isConcurrencySupported()
+    {
+        return true;
+    }
+
+    /**
+     * Closes the idle connections of the user.
+     */
+    @Override
+    public void close()
+    {
+        this.client.close();
+    }
+}
@@ -31,7 +31,11 @@ public class HtmlPageActionFactory extends URLActionDataExecutionableFactory
 {
     private NoCodingPropAdmin propAdmin;
 
-    private HtmlPageAction previousAction;
+    /**
+     * The first action of the user, which created the web client. It is the previous action of all following actions,
+     * so they share the web client and its cookies, but do not keep each other and their pages reachable.
+     */
+    private HtmlPageAction sessionAction;
 
     private final URLActionDataExecutableResultFactory resultFactory;
 
@@ -72,10 +76,10 @@ public class HtmlPageActionFactory extends URLActionDataExecutionableFactory
         ParameterUtils.isNotNull(name, "name");
         ParameterUtils.isNotNull(request, "WebRequest");
 
-        if (this.previousAction == null)
+        if (this.sessionAction == null)
         {
             action = new HtmlPageAction(name, request, resultFactory);
-            this.previousAction = action;
+            this.sessionAction = action;
 
             // bad design createDownloader() depends on action
 
@@ -88,30 +92,19 @@ public class HtmlPageActionFactory extends URLActionDataExecutionableFactory
         }
         else
         {
-            action = new HtmlPageAction(previousAction,
+            action = new HtmlPageAction(sessionAction,
                                         name,
                                         request,
                                         createDownloader(),
                                         resultFactory);
         }
-        this.previousAction = action;
         return action;
 
     }
 
     private Downloader createDownloader()
     {
-        final Boolean userAgentUID = this.propAdmin.getPropertyByKey(NoCodingPropAdmin.USERAGENTUID,
-                                                                     false);
-        final int threadCount = this.propAdmin.getPropertyByKey(NoCodingPropAdmin.DOWNLOADTHREADS,
-                                                                1);
-
-        final Downloader downloader = new Downloader((XltWebClient) previousAction.getWebClient(),
-                                                     threadCount,
-                                                     userAgentUID);
-
-        return downloader;
-
+        return Downloader.create((XltWebClient) sessionAction.getWebClient(), this.propAdmin);
     }
 
     private void configureWebClient(final XltWebClient webClient)
@@ -138,16 +131,15 @@ public class HtmlPageActionFactory extends URLActionDataExecutionableFactory
         ParameterUtils.isNotNull(name, "name");
         ParameterUtils.isNotNull(request, "WebRequest");
 
-        if (previousAction == null)
+        if (sessionAction == null)
         {
             throw new IllegalArgumentException("Xhr action cannot be the first action");
         }
-        final XhrHtmlPageAction xhrAction = new XhrHtmlPageAction(previousAction,
+        final XhrHtmlPageAction xhrAction = new XhrHtmlPageAction(sessionAction,
                                                                   name,
                                                                   request,
                                                                   createDownloader(),
                                                                   resultFactory);
-        previousAction = xhrAction;
 
         return xhrAction;
 
@@ -32,7 +32,11 @@ public class LightWeightPageActionFactory extends
 {
     private NoCodingPropAdmin propAdmin;
 
-    private LightWeightPageAction previousAction;
+    /**
+     * The first action of the user, which created the web client. It is the previous action of all following actions,
+     * so they share the web client and its cookies, but do not keep each other and their pages reachable.
+     */
+    private LightWeightPageAction sessionAction;
 
     private final URLActionDataExecutableResultFactory resultFactory;
 
@@ -63,38 +67,27 @@ public class LightWeightPageActionFactory extends
 
         LightWeightPageAction action;
 
-        if (this.previousAction == null)
+        if (this.sessionAction == null)
         {
             action = new LightWeightPageAction(name, request, resultFactory);
-            previousAction = action;
+            this.sessionAction = action;
             action.setDownloader(createDownloader());
             configureWebClient((XltWebClient) action.getWebClient());
         }
         else
         {
-            action = new LightWeightPageAction(previousAction,
+            action = new LightWeightPageAction(sessionAction,
                                                name,
                                                request,
                                                createDownloader(),
                                                resultFactory);
         }
-        this.previousAction = action;
         return action;
     }
 
     private Downloader createDownloader()
     {
-        final Boolean userAgentUID = this.propAdmin.getPropertyByKey(NoCodingPropAdmin.USERAGENTUID,
-                                                                     false);
-        final int threadCount = this.propAdmin.getPropertyByKey(NoCodingPropAdmin.DOWNLOADTHREADS,
-                                                                1);
-
-        final Downloader downloader = new Downloader((XltWebClient) previousAction.getWebClient(),
-                                                     threadCount,
-                                                     userAgentUID);
-
-        return downloader;
-
+        return Downloader.create((XltWebClient) sessionAction.getWebClient(), this.propAdmin);
     }
 
     private void configureWebClient(final XltWebClient webClient)
@@ -109,17 +102,16 @@ public class LightWeightPageActionFactory extends
         ParameterUtils.isNotNull(name, "name");
         ParameterUtils.isNotNull(request, "WebRequest");
 
-        if (previousAction == null)
+        if (sessionAction == null)
         {
             throw new IllegalArgumentException("Xhr action cannot be the first action");
         }
-        final XhrLightWeightPageAction xhrAction = new XhrLightWeightPageAction(previousAction,
+        final XhrLightWeightPageAction xhrAction = new XhrLightWeightPageAction(sessionAction,
                                                                                 name,
                                                                                 request,
                                                                                 createDownloader(),
                                                                                 resultFactory);
 
-        previousAction = xhrAction;
         return xhrAction;
     }
 }
@@ -2,7 +2,10 @@ package com.xceptance.xlt.common.util.action.execution;
 
 import java.net.URL;
 
+import org.eclipse.jdt.annotation.Nullable;
+
 import com.xceptance.xlt.common.util.action.data.URLActionData;
+import com.xceptance.xlt.common.util.action.validation.StreamingValidation;
 import com.xceptance.xlt.common.util.action.validation.URLActionDataExecutableResult;
 
 /**
@@ -18,12 +21,27 @@ public interface URLActionDataExecutionable
      */
     public URLActionDataExecutableResult getResult();
 
+    /**
+     * Drops the {@link URLActionDataExecutableResult response} and the page, once the response was handled. <br>
+     * Afterwards only the session state, such as the web client and the {@link #getUrl() url}, is kept.
+     */
+    public void releaseResult();
+
     /**
      * executes an {@link URLActionData}, which means it fires the resulting request 
      * and creates the {@link URLActionDataExecutableResult}.
      */
     public void executeAction();
 
+    /**
+     * Lets the body of the response be validated while it is received, instead of keeping it. Must be called before
+     * {@link #executeAction()}. Executionables, that receive the body via a web client, ignore it.
+     * 
+     * @param streamingValidation
+     *            validates the body, <code>null</code> to keep the body
+     */
+    public void setStreamingValidation(@Nullable final StreamingValidation streamingValidation);
+
     /**
      * Adds {@link URLActionData} of type STATIC, which will be executes automatically.
      * @param url 
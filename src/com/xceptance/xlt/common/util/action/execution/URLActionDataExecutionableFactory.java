@@ -1,6 +1,9 @@
 package com.xceptance.xlt.common.util.action.execution;
 
+import java.util.List;
+
 import com.gargoylesoftware.htmlunit.WebRequest;
+import com.xceptance.xlt.common.util.action.data.URLActionData;
 
 public abstract class URLActionDataExecutionableFactory
 {
@@ -9,4 +12,46 @@ public abstract class URLActionDataExecutionableFactory
 
     abstract public URLActionDataExecutionable createXhrPageAction(final String name, WebRequest request);
 
+    /**
+     * @return <code>true</code> if actions of this factory may be executed concurrently by the same user. Actions,
+     *         that share the web client of the user, must not.
+     */
+    public boolean isConcurrencySupported()
+    {
+        return false;
+    }
+
+    /**
+     * Makes sure the actions can be executed by actions of this factory. Parallel groups are rejected, unless
+     * {@link #isConcurrencySupported() concurrency is supported}, instead of running them one after the other.
+     * 
+     * @param actions
+     *            the actions of the script
+     * @throws IllegalArgumentException
+     *             if an action belongs to a parallel group, that cannot be executed concurrently
+     */
+    public void checkActions(final List<URLActionData> actions)
+    {
+        if (isConcurrencySupported())
+        {
+            return;
+        }
+        for (final URLActionData action : actions)
+        {
+            if (action.isParallel())
+            {
+                throw new IllegalArgumentException("Parallel group \"" + action.getParallelGroup() + "\" of action \""
+                                                   + action.getName() + "\" is only supported in mode: "
+                                                   + URLActionDataExecutionbleFactoryBuilder.MODE_ASYNC);
+            }
+        }
+    }
+
+    /**
+     * Releases the resources held for the current user, e.g. connections. Called after the test case.
+     */
+    public void close()
+    {
+    }
+
 }
@@ -0,0 +1,211 @@
+package com.xceptance.xlt.common.util.action.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.xceptance.common.util.Getter;
+import com.xceptance.common.util.concurrent.DaemonThreadFactory;
+import com.xceptance.xlt.api.engine.Session;
+import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.util.ParameterUtils;
+
+/**
+ * A group of {@link URLActionDataExecutionable}s, that are executed concurrently. <br>
+ * The first member runs in the calling thread, the others run in threads of the current user, so they share the
+ * session of the user. {@link #executeAll()} returns, when all members completed. <br>
+ * The threads are taken from a long-lived executor per user, idle threads are released after
+ * {@link #KEEP_ALIVE_SECONDS}. <br>
+ * The members must support concurrent execution, see {@link URLActionDataExecutionableFactory#isConcurrencySupported()}.
+ */
+public class URLActionDataExecutionableGroup
+{
+    /**
+     * Time idle threads are kept before they terminate.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * The executors, keyed by user ID.
+     */
+    private static final ConcurrentMap<String, ThreadPoolExecutor> EXECUTORS = new ConcurrentHashMap<String, ThreadPoolExecutor>();
+
+    private final List<URLActionDataExecutionable> executionables = new ArrayList<URLActionDataExecutionable>();
+
+    public URLActionDataExecutionableGroup()
+    {
+        XltLogger.runTimeLogger.debug("Creating new Instance");
+    }
+
+    /**
+     * Adds a member to the group.
+     *
+     * @param executionable
+     *            the member
+     */
+    public void add(final URLActionDataExecutionable executionable)
+    {
+        ParameterUtils.isNotNull(executionable, "URLActionDataExecutionable");
+        this.executionables.add(executionable);
+    }
+
+    /**
+     * @return the members in the order they were added.
+     */
+    public List<URLActionDataExecutionable> getExecutionables()
+    {
+        return this.executionables;
+    }
+
+    /**
+     * Executes all members and waits for all of them, even if one fails. <br>
+     * If members failed, the failure of the first of them in the order they were added is rethrown.
+     */
+    public void executeAll()
+    {
+        if (executionables.isEmpty())
+        {
+            return;
+        }
+        final ThreadPoolExecutor executor = getExecutor();
+        final List<Future<?>> futures = new ArrayList<Future<?>>(executionables.size() - 1);
+        for (int i = 1; i < executionables.size(); i++)
+        {
+            final URLActionDataExecutionable executionable = executionables.get(i);
+            futures.add(executor.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    executionable.executeAction();
+                }
+            }));
+        }
+
+        Throwable failure = null;
+        try
+        {
+            executionables.get(0).executeAction();
+        }
+        catch (final Throwable t)
+        {
+            failure = t;
+        }
+
+        for (final Future<?> future : futures)
+        {
+            final Throwable t = await(future);
+            if (failure == null)
+            {
+                failure = t;
+            }
+        }
+
+        rethrow(failure);
+    }
+
+    private static void rethrow(final Throwable failure)
+    {
+        if (failure instanceof RuntimeException)
+        {
+            throw (RuntimeException) failure;
+        }
+        else if (failure instanceof Error)
+        {
+            throw (Error) failure;
+        }
+        else if (failure != null)
+        {
+            throw new IllegalStateException(failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Waits for the future.
+     *
+     * @return the failure of the member, <code>null</code> if it succeeded
+     */
+    private Throwable await(final Future<?> future)
+    {
+        boolean interrupted = false;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    future.get();
+                    return null;
+                }
+                catch (final ExecutionException e)
+                {
+                    return e.getCause();
+                }
+                catch (final InterruptedException e)
+                {
+                    // the member may still use the session, so wait for it anyway
+                    interrupted = true;
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns the executor of the current user and creates it on first use. The executor starts a new thread, if no
+     * idle one is available.
+     */
+    private static ThreadPoolExecutor getExecutor()
+    {
+        final String userID = Session.getCurrent().getUserID();
+
+        ThreadPoolExecutor executor = EXECUTORS.get(userID);
+        if (executor == null)
+        {
+            final ThreadPoolExecutor newExecutor = createExecutor(userID);
+            executor = EXECUTORS.putIfAbsent(userID, newExecutor);
+            if (executor == null)
+            {
+                XltLogger.runTimeLogger.debug("Creating parallel action executor");
+                executor = newExecutor;
+            }
+            else
+            {
+                newExecutor.shutdown();
+            }
+        }
+        return executor;
+    }
+
+    private static ThreadPoolExecutor createExecutor(final String userID)
+    {
+        final ThreadFactory threadFactory = new DaemonThreadFactory(new Getter<String>()
+        {
+            @Override
+            public String get()
+            {
+                return userID + "-parallel-";
+            }
+        });
+
+        return new ThreadPoolExecutor(0,
+                                      Integer.MAX_VALUE,
+                                      KEEP_ALIVE_SECONDS,
+                                      TimeUnit.SECONDS,
+                                      new SynchronousQueue<Runnable>(),
+                                      threadFactory);
+    }
+}
@@ -29,12 +29,15 @@ public class URLActionDataExecutionbleFactoryBuilder
 
     public static final String MODE_LIGHT = "light";
 
+    public static final String MODE_ASYNC = "async";
+
     public static final Set<String> PERMITTEDMODES = new HashSet<String>();
 
     static
     {
         PERMITTEDMODES.add(MODE_DOM);
         PERMITTEDMODES.add(MODE_LIGHT);
+        PERMITTEDMODES.add(MODE_ASYNC);
     }
 
     /**
@@ -93,6 +96,10 @@ public class URLActionDataExecutionbleFactoryBuilder
         {
             resultFactory = createLightWeightPageActionFactory();
         }
+        else if (this.mode.equals(MODE_ASYNC))
+        {
+            resultFactory = createAsyncActionFactory();
+        }
         else
         {
             throw new IllegalArgumentException("THIS WILL NEVER HAPPEN :D");
@@ -110,6 +117,11 @@ public class URLActionDataExecutionbleFactoryBuilder
         return new LightWeightPageActionFactory(this.propAdmin);
     }
 
+    private AsyncActionFactory createAsyncActionFactory()
+    {
+        return new AsyncActionFactory(this.propAdmin);
+    }
+
     private boolean isPermittedMode(final String item)
     {
         return PERMITTEDMODES.contains(item);
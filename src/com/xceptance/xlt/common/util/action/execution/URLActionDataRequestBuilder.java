@@ -15,11 +15,11 @@ import com.gargoylesoftware.htmlunit.FormEncodingType;
 import com.gargoylesoftware.htmlunit.HttpMethod;
 import com.gargoylesoftware.htmlunit.WebRequest;
 import com.gargoylesoftware.htmlunit.util.NameValuePair;
-import com.gargoylesoftware.htmlunit.util.UrlUtils;
-import com.xceptance.common.lang.StringUtils;
 import com.xceptance.xlt.api.util.XltLogger;
 import com.xceptance.xlt.common.util.ParameterUtils;
 import com.xceptance.xlt.common.util.action.data.URLActionData;
+import com.xceptance.xlt.common.util.action.data.URLActionDataRequestTemplate;
+import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
 
 /**
  * Builder <br>
@@ -29,6 +29,7 @@ import com.xceptance.xlt.common.util.action.data.URLActionData;
  * <li>General WebRequest: -> {@link #buildRequest(URLActionData)}
  * <li>XmlHttpRequest: -> {@link #buildXhrRequest(URLActionData, URL)}
  * </ul>
+ * Static parts of the request are computed only once per action, see {@link URLActionDataRequestTemplate}.
  * 
  * @author matthias mitterreiter
  */
@@ -78,23 +79,56 @@ public class URLActionDataRequestBuilder
     private WebRequest createWebRequestFromURLAction(final URLActionData action)
         throws MalformedURLException, UnsupportedEncodingException
     {
+        return createWebRequestFromURLAction(action, null);
+    }
 
-        final WebRequest resultRequest;
-
-        resultRequest = createWebRequestFromUrl(action.getUrl());
-        fillWebRequestWithMethod(resultRequest, action.getMethod());
-        if (action.hasBody())
+    /**
+     * Builds the request from the {@link URLActionDataRequestTemplate} of the action, which holds the static parts
+     * precomputed, so only dynamic values have to be interpreted, decoded and concatenated.
+     * 
+     * @param refererUrl
+     *            the referer of a XmlHttpRequest, <code>null</code> for a general request.
+     */
+    private WebRequest createWebRequestFromURLAction(final URLActionData action,
+                                                     final URL refererUrl)
+        throws MalformedURLException, UnsupportedEncodingException
+    {
+        final URLActionDataRequestTemplate template = action.getRequestTemplate();
+        final ParameterInterpreter interpreter = action.getInterpreter();
+        final HttpMethod method = action.getMethod();
+
+        final String body = getRequestBody(action, method);
+        final List<NameValuePair> parameters = template.getParameters(interpreter, false);
+        final boolean parametersInUrl = !parameters.isEmpty()
+                                        && (!method.equals(HttpMethod.POST) || body != null);
+        final boolean decodeParameters = !parameters.isEmpty() && !action.encodeParameters();
+
+        final WebRequest resultRequest = createWebRequestFromUrl(parametersInUrl ? template.getUrlWithParameters(interpreter,
+                                                                                                                 decodeParameters)
+                                                                                 : template.getUrl(interpreter));
+        fillWebRequestWithMethod(resultRequest, method);
+        if (body != null)
+        {
+            resultRequest.setRequestBody(body);
+        }
+        fillWebRequestWithHeaders(resultRequest, template.getHeaders(interpreter));
+        if (refererUrl != null)
+        {
+            resultRequest.setAdditionalHeader("X-Requested-With",
+                                              "XMLHttpRequest");
+            resultRequest.setAdditionalHeader("Referer",
+                                              refererUrl.toExternalForm());
+        }
+        final String cookieHeader = template.getCookieHeader(interpreter);
+        if (cookieHeader != null)
+        {
+            resultRequest.setAdditionalHeader("Cookie", cookieHeader);
+        }
+        if (!parameters.isEmpty() && !parametersInUrl)
         {
-            fillWebRequestWithBody(resultRequest,
-                                   action.getBody(),
-                                   action.encodeBody());
+            resultRequest.setRequestParameters(decodeParameters ? template.getParameters(interpreter, true)
+                                                                : parameters);
         }
-        fillWebRequestWithHeaders(resultRequest, action.getHeaders());
-        fillWebRequestWithCookies(resultRequest, action.getCookies());
-        fillWebRequestWithParameters(resultRequest,
-                                     action.getParameters(),
-                                     action.encodeParameters(),
-                                     action.getMethod());
         return resultRequest;
     }
 
@@ -136,24 +170,8 @@ public class URLActionDataRequestBuilder
                                                         final URL refererUrl)
         throws UnsupportedEncodingException, MalformedURLException
     {
-        final WebRequest resultXhrRequest = createWebRequestFromUrl(action.getUrl());
-        fillWebRequestWithMethod(resultXhrRequest, action.getMethod());
-        if (action.hasBody())
-        {
-            fillWebRequestWithBody(resultXhrRequest,
-                                   action.getBody(),
-                                   action.encodeBody());
-        }
-        fillWebRequestWithHeaders(resultXhrRequest, action.getHeaders());
-        resultXhrRequest.setAdditionalHeader("X-Requested-With",
-                                             "XMLHttpRequest");
-        resultXhrRequest.setAdditionalHeader("Referer",
-                                             refererUrl.toExternalForm());
-        fillWebRequestWithCookies(resultXhrRequest, action.getCookies());
-        fillWebRequestWithParameters(resultXhrRequest,
-                                     action.getParameters(),
-                                     action.encodeParameters(),
-                                     action.getMethod());
+        final WebRequest resultXhrRequest = createWebRequestFromURLAction(action,
+                                                                          refererUrl);
         logWebRequest(resultXhrRequest);
         return resultXhrRequest;
     }
@@ -170,21 +188,6 @@ public class URLActionDataRequestBuilder
         }
     }
 
-    private void fillWebRequestWithCookies(final WebRequest request,
-                                           final List<NameValuePair> cookies)
-    {
-        if (!cookies.isEmpty())
-        {
-            String cookieString = "";
-            for (final NameValuePair cookie : cookies)
-            {
-                cookieString = cookieString + cookie.getName() + "="
-                               + cookie.getValue() + ";";
-            }
-            request.setAdditionalHeader("Cookie", cookieString);
-        }
-    }
-
     private void fillWebRequestWithMethod(final WebRequest request,
                                           final HttpMethod method)
     {
@@ -196,84 +199,24 @@ public class URLActionDataRequestBuilder
         return new WebRequest(url);
     }
 
-    private void fillWebRequestWithBody(final WebRequest request,
-                                        final String body,
-                                        final Boolean encodeBody)
+    /**
+     * @return the body of POST and PUT requests, decoded if it should not be encoded, <code>null</code> for other
+     *         methods or if there is no body.
+     */
+    private String getRequestBody(final URLActionData action,
+                                  final HttpMethod method)
         throws UnsupportedEncodingException
     {
-        String resultBody = body;
-        if (!encodeBody)
-        {
-            resultBody = decodeRequestBody(body);
-        }
-        if (request.getHttpMethod().equals(HttpMethod.POST)
-            || request.getHttpMethod().equals(HttpMethod.PUT))
-        {
-            request.setRequestBody(resultBody);
-        }
-    }
-
-    private void fillWebRequestWithParameters(final WebRequest request,
-                                              final List<NameValuePair> parameters,
-                                              final boolean encodeParameters,
-                                              final HttpMethod httpMethod)
-        throws UnsupportedEncodingException, MalformedURLException
-    {
-        if (!parameters.isEmpty())
+        if (!method.equals(HttpMethod.POST) && !method.equals(HttpMethod.PUT))
         {
-            List<NameValuePair> resultParameters = new ArrayList<NameValuePair>(parameters);
-            if (!encodeParameters)
-            {
-                resultParameters = decodeRequestParameters(resultParameters);
-            }
-            if (!httpMethod.equals(HttpMethod.POST)
-                || request.getRequestBody() != null)
-            {
-                addParametersToUrl(request, resultParameters);
-            }
-            else
-            {
-                request.setRequestParameters(resultParameters);
-            }
+            return null;
         }
-
-    }
-
-    private void addParametersToUrl(final WebRequest request,
-                                    final List<NameValuePair> parameters)
-        throws MalformedURLException
-    {
-        String urlString = request.getUrl().toString();
-        urlString = StringUtils.replace(urlString, "&amp;", "&");
-        final URL newUrl = new URL(urlString);
-        final String oldQueryString = newUrl.getQuery();
-        final StringBuilder newQueryString = new StringBuilder();
-
-        final boolean insertLeadingAmp = oldQueryString != null
-                                         && !oldQueryString.isEmpty();
-
-        if (insertLeadingAmp)
+        final String body = action.getBody();
+        if (body == null)
         {
-            newQueryString.append(oldQueryString);
+            return null;
         }
-        for (int index = 0; index < parameters.size(); index++)
-        {
-            final NameValuePair nameValuePair = parameters.get(index);
-            /*
-             * For each pair except the first, an & has to be appended. For the first pair it depends
-             *  on whether there is already a query (in which case insertLeadingAmp is true).
-             */
-            if (index > 0 || insertLeadingAmp)
-            {
-                newQueryString.append('&');
-            }
-            newQueryString.append(nameValuePair.getName()).append('=')
-                          .append(nameValuePair.getValue());
-        }
-
-        final URL newNewUrl = UrlUtils.getUrlWithNewQuery(newUrl,
-                                                          newQueryString.toString());
-        request.setUrl(newNewUrl);
+        return action.encodeBody() ? body : decodeRequestBody(body);
     }
 
     private String decodeRequestBody(final String body)
@@ -314,28 +257,6 @@ public class URLActionDataRequestBuilder
         return encodedParameters;
     }
 
-    private List<NameValuePair> decodeRequestParameters(final List<NameValuePair> parameters)
-        throws UnsupportedEncodingException
-    {
-        final List<NameValuePair> decodedParameters = new ArrayList<NameValuePair>();
-        for (final NameValuePair parameter : parameters)
-        {
-            final String decodedName = parameter.getName() != null ? URLDecoder.decode(parameter.getName(),
-                                                                                       "UTF-8")
-                                                                  : null;
-            final String decodedValue = parameter.getValue() != null ? URLDecoder.decode(parameter.getValue(),
-                                                                                         "UTF-8")
-                                                                    : null;
-
-            final NameValuePair decodedParameter = new NameValuePair(decodedName,
-                                                                     decodedValue);
-
-            decodedParameters.add(decodedParameter);
-
-        }
-        return decodedParameters;
-    }
-
     /**
      * For debugging purpose. <br>
      * 'err-streams' the attributes of the WebRequest. <br>
@@ -0,0 +1,802 @@
+package com.xceptance.xlt.common.util.action.validation;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.util.ParameterUtils;
+
+/**
+ * <p>
+ * Selects elements of HTML content by a CSS selector, without building a
+ * {@link com.gargoylesoftware.htmlunit.html.HtmlPage HtmlPage}. <br>
+ * The content is parsed only once and only when needed into the lightweight tree of {@link LightWeightHtmlParser}.
+ * All selections on the same content walk the same tree. Compiled selectors are shared by all users.
+ * </p>
+ * Supported syntax:
+ * <ul>
+ * <li><code>div</code>, <code>*</code>, <code>#id</code>, <code>.class</code>
+ * <li><code>[attr]</code>, <code>[attr=value]</code> as well as <code>~=</code>, <code>|=</code>, <code>^=</code>,
+ * <code>$=</code> and <code>*=</code>
+ * <li><code>:first-child</code>, <code>:last-child</code>, <code>:only-child</code>, <code>:nth-child(an+b)</code>,
+ * <code>:nth-last-child(an+b)</code>, <code>:empty</code> and <code>:not(...)</code>
+ * <li>the combinators descendant (space), child (<code>&gt;</code>), adjacent sibling (<code>+</code>) and general
+ * sibling (<code>~</code>)
+ * <li>groups of selectors separated by <code>,</code>
+ * <li><code>::attr(name)</code> at the end of a selector returns the value of the attribute instead of the text
+ * </ul>
+ * The elements are returned in document order as their text content, like for the xpath selection.
+ */
+public class CSSSelectorWithContent
+{
+    /**
+     * Maximum number of compiled selectors to keep.
+     */
+    private static final int MAX_CACHED_SELECTORS = 10000;
+
+    /**
+     * The compiled selectors, shared by all users.
+     */
+    private static final ConcurrentMap<String, List<ComplexSelector>> SELECTORS = new ConcurrentHashMap<String, List<ComplexSelector>>();
+
+    private String content;
+
+    /**
+     * The parsed content, <code>null</code> if not parsed yet.
+     */
+    private Document document;
+
+    /**
+     * @param content
+     *            the HTML content
+     */
+    public CSSSelectorWithContent(final String content)
+    {
+        XltLogger.runTimeLogger.debug("Creating new Instance");
+        setContent(content);
+    }
+
+    private void setContent(final String content)
+    {
+        ParameterUtils.isNotNull(content, "Content");
+        this.content = content;
+    }
+
+    /**
+     * Parses the content if necessary and selects the elements described by the selector.
+     *
+     * @param css
+     *            the CSS selector
+     * @return list of all the found elements in 'String' representation.
+     * @throws IllegalArgumentException
+     *             if the selector is malformed or the content cannot be parsed.
+     */
+    public List<String> getByCSS(final String css)
+    {
+        XltLogger.runTimeLogger.debug("Getting Elements by CSS: " + css);
+        final List<ComplexSelector> selectors = compile(css);
+        final List<String> resultList = new ArrayList<String>();
+        final Element root = getDocument().getDocumentElement();
+        if (root != null)
+        {
+            select(root, selectors, resultList);
+        }
+        return resultList;
+    }
+
+    private Document getDocument()
+    {
+        if (document == null)
+        {
+            XltLogger.runTimeLogger.debug("Parsing HTML Content");
+            try
+            {
+                document = LightWeightHtmlParser.parse(content);
+            }
+            catch (final Exception e)
+            {
+                throw new IllegalArgumentException("Failed to parse content as HTML: " + e.getMessage(), e);
+            }
+            // the tree holds everything we need
+            content = null;
+        }
+        return document;
+    }
+
+    /**
+     * Walks the tree in document order and adds every element, that matches one of the selectors.
+     */
+    private static void select(final Element element, final List<ComplexSelector> selectors,
+                               final List<String> result)
+    {
+        for (final ComplexSelector selector : selectors)
+        {
+            if (selector.matches(element, selector.compounds.length - 1))
+            {
+                if (selector.attribute == null)
+                {
+                    result.add(element.getTextContent());
+                }
+                else if (element.hasAttribute(selector.attribute))
+                {
+                    result.add(element.getAttribute(selector.attribute));
+                }
+                break;
+            }
+        }
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling())
+        {
+            if (child instanceof Element)
+            {
+                select((Element) child, selectors, result);
+            }
+        }
+    }
+
+    private static Element parent(final Element element)
+    {
+        final Node parent = element.getParentNode();
+        return parent instanceof Element ? (Element) parent : null;
+    }
+
+    private static Element previousSibling(final Element element)
+    {
+        Node sibling = element.getPreviousSibling();
+        while (sibling != null && !(sibling instanceof Element))
+        {
+            sibling = sibling.getPreviousSibling();
+        }
+        return (Element) sibling;
+    }
+
+    private static Element nextSibling(final Element element)
+    {
+        Node sibling = element.getNextSibling();
+        while (sibling != null && !(sibling instanceof Element))
+        {
+            sibling = sibling.getNextSibling();
+        }
+        return (Element) sibling;
+    }
+
+    /**
+     * A chain of compound selectors, joined by combinators.
+     */
+    private static final class ComplexSelector
+    {
+        private final Compound[] compounds;
+
+        /**
+         * The combinator in front of the compound with the same index, the first one is unused.
+         */
+        private final char[] combinators;
+
+        /**
+         * The attribute to return, <code>null</code> for the text.
+         */
+        private final String attribute;
+
+        private ComplexSelector(final List<Compound> compounds, final List<Character> combinators,
+                                final String attribute)
+        {
+            this.compounds = compounds.toArray(new Compound[compounds.size()]);
+            this.combinators = new char[combinators.size()];
+            for (int i = 0; i < this.combinators.length; i++)
+            {
+                this.combinators[i] = combinators.get(i);
+            }
+            this.attribute = attribute;
+        }
+
+        /**
+         * Matches from right to left, starting at the compound with the passed index.
+         */
+        private boolean matches(final Element element, final int index)
+        {
+            if (!compounds[index].matches(element))
+            {
+                return false;
+            }
+            if (index == 0)
+            {
+                return true;
+            }
+            switch (combinators[index])
+            {
+                case '>':
+                {
+                    final Element parent = parent(element);
+                    return parent != null && matches(parent, index - 1);
+                }
+                case '+':
+                {
+                    final Element sibling = previousSibling(element);
+                    return sibling != null && matches(sibling, index - 1);
+                }
+                case '~':
+                {
+                    for (Element sibling = previousSibling(element); sibling != null; sibling = previousSibling(sibling))
+                    {
+                        if (matches(sibling, index - 1))
+                        {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                default:
+                {
+                    for (Element ancestor = parent(element); ancestor != null; ancestor = parent(ancestor))
+                    {
+                        if (matches(ancestor, index - 1))
+                        {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * A type selector with its conditions, e.g. <code>input.large[name=q]</code>.
+     */
+    private static final class Compound
+    {
+        /**
+         * The tag name, <code>null</code> for any element.
+         */
+        private String tagName;
+
+        private final List<Condition> conditions = new ArrayList<Condition>();
+
+        private boolean matches(final Element element)
+        {
+            if (tagName != null && !tagName.equals(element.getNodeName()))
+            {
+                return false;
+            }
+            for (final Condition condition : conditions)
+            {
+                if (!condition.matches(element))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static abstract class Condition
+    {
+        abstract boolean matches(Element element);
+    }
+
+    private static final class AttributeCondition extends Condition
+    {
+        private final String name;
+
+        /**
+         * The operator, e.g. '=' or '^', 0 if the attribute only has to exist.
+         */
+        private final char operator;
+
+        private final String value;
+
+        private AttributeCondition(final String name, final char operator, final String value)
+        {
+            this.name = name;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        boolean matches(final Element element)
+        {
+            if (!element.hasAttribute(name))
+            {
+                return false;
+            }
+            final String actual = element.getAttribute(name);
+            switch (operator)
+            {
+                case 0:
+                    return true;
+                case '=':
+                    return actual.equals(value);
+                case '~':
+                    return containsWord(actual, value);
+                case '|':
+                    return actual.equals(value) || actual.startsWith(value + "-");
+                case '^':
+                    return !value.isEmpty() && actual.startsWith(value);
+                case '$':
+                    return !value.isEmpty() && actual.endsWith(value);
+                case '*':
+                    return !value.isEmpty() && actual.contains(value);
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * :nth-child(an+b) and its variants. Positions start at 1.
+     */
+    private static final class NthChildCondition extends Condition
+    {
+        private final int a;
+
+        private final int b;
+
+        private final boolean fromEnd;
+
+        private NthChildCondition(final int a, final int b, final boolean fromEnd)
+        {
+            this.a = a;
+            this.b = b;
+            this.fromEnd = fromEnd;
+        }
+
+        @Override
+        boolean matches(final Element element)
+        {
+            if (parent(element) == null)
+            {
+                return false;
+            }
+            int position = 1;
+            for (Element sibling = fromEnd ? nextSibling(element) : previousSibling(element); sibling != null; sibling = fromEnd ? nextSibling(sibling)
+                                                                                                                                    : previousSibling(sibling))
+            {
+                position++;
+            }
+            if (a == 0)
+            {
+                return position == b;
+            }
+            final int diff = position - b;
+            return diff / a >= 0 && diff % a == 0;
+        }
+    }
+
+    private static final class OnlyChildCondition extends Condition
+    {
+        @Override
+        boolean matches(final Element element)
+        {
+            return parent(element) != null && previousSibling(element) == null && nextSibling(element) == null;
+        }
+    }
+
+    private static final class EmptyCondition extends Condition
+    {
+        @Override
+        boolean matches(final Element element)
+        {
+            for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling())
+            {
+                if (child.getNodeType() == Node.ELEMENT_NODE || child.getNodeType() == Node.TEXT_NODE)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class NotCondition extends Condition
+    {
+        private final Compound compound;
+
+        private NotCondition(final Compound compound)
+        {
+            this.compound = compound;
+        }
+
+        @Override
+        boolean matches(final Element element)
+        {
+            return !compound.matches(element);
+        }
+    }
+
+    private static boolean containsWord(final String words, final String word)
+    {
+        if (word.isEmpty())
+        {
+            return false;
+        }
+        int start = 0;
+        final int length = words.length();
+        while (start < length)
+        {
+            while (start < length && Character.isWhitespace(words.charAt(start)))
+            {
+                start++;
+            }
+            int end = start;
+            while (end < length && !Character.isWhitespace(words.charAt(end)))
+            {
+                end++;
+            }
+            if (end - start == word.length() && words.startsWith(word, start))
+            {
+                return true;
+            }
+            start = end;
+        }
+        return false;
+    }
+
+    /**
+     * Compiles the selector once, later calls reuse it.
+     */
+    private static List<ComplexSelector> compile(final String css)
+    {
+        ParameterUtils.isNotNull(css, "CSS");
+        List<ComplexSelector> selectors = SELECTORS.get(css);
+        if (selectors == null)
+        {
+            selectors = new Parser(css).parse();
+            if (SELECTORS.size() < MAX_CACHED_SELECTORS)
+            {
+                SELECTORS.putIfAbsent(css, selectors);
+            }
+        }
+        return selectors;
+    }
+
+    /**
+     * Parses a selector string into {@link ComplexSelector}s.
+     */
+    private static final class Parser
+    {
+        private final String css;
+
+        private final int length;
+
+        private int pos;
+
+        private Parser(final String css)
+        {
+            this.css = css;
+            this.length = css.length();
+        }
+
+        private List<ComplexSelector> parse()
+        {
+            final List<ComplexSelector> selectors = new ArrayList<ComplexSelector>();
+            while (true)
+            {
+                skipWhitespace();
+                selectors.add(parseComplex());
+                skipWhitespace();
+                if (pos >= length)
+                {
+                    return selectors;
+                }
+                expect(',');
+            }
+        }
+
+        private ComplexSelector parseComplex()
+        {
+            final List<Compound> compounds = new ArrayList<Compound>();
+            final List<Character> combinators = new ArrayList<Character>();
+            String attribute = null;
+
+            combinators.add(' ');
+            compounds.add(parseCompound());
+            while (true)
+            {
+                final boolean whitespace = skipWhitespace();
+                if (pos >= length || css.charAt(pos) == ',')
+                {
+                    break;
+                }
+                final char c = css.charAt(pos);
+                if (css.startsWith("::", pos))
+                {
+                    attribute = parseAttributeSelection();
+                    skipWhitespace();
+                    if (pos < length && css.charAt(pos) != ',')
+                    {
+                        throw malformed();
+                    }
+                    break;
+                }
+                if (c == '>' || c == '+' || c == '~')
+                {
+                    pos++;
+                    skipWhitespace();
+                    combinators.add(c);
+                }
+                else if (whitespace)
+                {
+                    combinators.add(' ');
+                }
+                else
+                {
+                    throw malformed();
+                }
+                compounds.add(parseCompound());
+            }
+            return new ComplexSelector(compounds, combinators, attribute);
+        }
+
+        /**
+         * Parses <code>::attr(name)</code> or <code>::text</code>.
+         *
+         * @return the attribute name, <code>null</code> for the text
+         */
+        private String parseAttributeSelection()
+        {
+            pos += 2;
+            final String name = parseIdentifier().toLowerCase(Locale.ENGLISH);
+            if ("text".equals(name))
+            {
+                return null;
+            }
+            if (!"attr".equals(name))
+            {
+                throw malformed();
+            }
+            expect('(');
+            skipWhitespace();
+            final String attribute = parseIdentifier().toLowerCase(Locale.ENGLISH);
+            skipWhitespace();
+            expect(')');
+            return attribute;
+        }
+
+        private Compound parseCompound()
+        {
+            final Compound compound = new Compound();
+            boolean universal = false;
+            if (pos < length && css.charAt(pos) == '*')
+            {
+                universal = true;
+                pos++;
+            }
+            else if (pos < length && isIdentifierChar(css.charAt(pos)))
+            {
+                compound.tagName = parseIdentifier().toLowerCase(Locale.ENGLISH);
+            }
+
+            final int start = pos;
+            while (pos < length)
+            {
+                final char c = css.charAt(pos);
+                if (c == '#')
+                {
+                    pos++;
+                    compound.conditions.add(new AttributeCondition("id", '=', parseIdentifier()));
+                }
+                else if (c == '.')
+                {
+                    pos++;
+                    compound.conditions.add(new AttributeCondition("class", '~', parseIdentifier()));
+                }
+                else if (c == '[')
+                {
+                    compound.conditions.add(parseAttributeCondition());
+                }
+                else if (c == ':' && !css.startsWith("::", pos))
+                {
+                    compound.conditions.add(parsePseudoClass());
+                }
+                else
+                {
+                    break;
+                }
+            }
+            if (compound.tagName == null && !universal && pos == start)
+            {
+                throw malformed();
+            }
+            return compound;
+        }
+
+        private Condition parseAttributeCondition()
+        {
+            expect('[');
+            skipWhitespace();
+            final String name = parseIdentifier().toLowerCase(Locale.ENGLISH);
+            skipWhitespace();
+            if (pos < length && css.charAt(pos) == ']')
+            {
+                pos++;
+                return new AttributeCondition(name, (char) 0, null);
+            }
+
+            char operator = pos < length ? css.charAt(pos) : 0;
+            if (operator == '=')
+            {
+                pos++;
+            }
+            else if ("~|^$*".indexOf(operator) >= 0 && operator != 0)
+            {
+                pos++;
+                expect('=');
+            }
+            else
+            {
+                throw malformed();
+            }
+            skipWhitespace();
+            final String value = parseValue();
+            skipWhitespace();
+            expect(']');
+            return new AttributeCondition(name, operator, value);
+        }
+
+        private Condition parsePseudoClass()
+        {
+            expect(':');
+            final String name = parseIdentifier().toLowerCase(Locale.ENGLISH);
+            if ("first-child".equals(name))
+            {
+                return new NthChildCondition(0, 1, false);
+            }
+            if ("last-child".equals(name))
+            {
+                return new NthChildCondition(0, 1, true);
+            }
+            if ("only-child".equals(name))
+            {
+                return new OnlyChildCondition();
+            }
+            if ("empty".equals(name))
+            {
+                return new EmptyCondition();
+            }
+            if ("nth-child".equals(name) || "nth-last-child".equals(name))
+            {
+                expect('(');
+                final int close = css.indexOf(')', pos);
+                if (close < 0)
+                {
+                    throw malformed();
+                }
+                final Condition condition = parseNth(css.substring(pos, close), "nth-last-child".equals(name));
+                pos = close + 1;
+                return condition;
+            }
+            if ("not".equals(name))
+            {
+                expect('(');
+                skipWhitespace();
+                final Compound compound = parseCompound();
+                skipWhitespace();
+                expect(')');
+                return new NotCondition(compound);
+            }
+            throw new IllegalArgumentException(MessageFormat.format("Unsupported pseudo class \":{0}\" in CSS selector: \"{1}\"",
+                                                                    name, css));
+        }
+
+        private Condition parseNth(final String expression, final boolean fromEnd)
+        {
+            final String nth = expression.replaceAll("\\s", "").toLowerCase(Locale.ENGLISH);
+            try
+            {
+                if ("odd".equals(nth))
+                {
+                    return new NthChildCondition(2, 1, fromEnd);
+                }
+                if ("even".equals(nth))
+                {
+                    return new NthChildCondition(2, 0, fromEnd);
+                }
+                final int n = nth.indexOf('n');
+                if (n < 0)
+                {
+                    return new NthChildCondition(0, Integer.parseInt(stripPlus(nth)), fromEnd);
+                }
+                final String aPart = stripPlus(nth.substring(0, n));
+                final int a = aPart.isEmpty() ? 1 : "-".equals(aPart) ? -1 : Integer.parseInt(aPart);
+                final String bPart = stripPlus(nth.substring(n + 1));
+                final int b = bPart.isEmpty() ? 0 : Integer.parseInt(bPart);
+                return new NthChildCondition(a, b, fromEnd);
+            }
+            catch (final NumberFormatException e)
+            {
+                throw malformed();
+            }
+        }
+
+        private String stripPlus(final String number)
+        {
+            return number.startsWith("+") ? number.substring(1) : number;
+        }
+
+        private String parseValue()
+        {
+            if (pos < length && (css.charAt(pos) == '"' || css.charAt(pos) == '\''))
+            {
+                final char quote = css.charAt(pos);
+                final StringBuilder value = new StringBuilder();
+                pos++;
+                while (pos < length && css.charAt(pos) != quote)
+                {
+                    if (css.charAt(pos) == '\\' && pos + 1 < length)
+                    {
+                        pos++;
+                    }
+                    value.append(css.charAt(pos));
+                    pos++;
+                }
+                expect(quote);
+                return value.toString();
+            }
+            return parseIdentifier();
+        }
+
+        private String parseIdentifier()
+        {
+            final StringBuilder identifier = new StringBuilder();
+            while (pos < length)
+            {
+                final char c = css.charAt(pos);
+                if (c == '\\' && pos + 1 < length)
+                {
+                    identifier.append(css.charAt(pos + 1));
+                    pos += 2;
+                }
+                else if (isIdentifierChar(c))
+                {
+                    identifier.append(c);
+                    pos++;
+                }
+                else
+                {
+                    break;
+                }
+            }
+            if (identifier.length() == 0)
+            {
+                throw malformed();
+            }
+            return identifier.toString();
+        }
+
+        private boolean isIdentifierChar(final char c)
+        {
+            return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c > 127;
+        }
+
+        private boolean skipWhitespace()
+        {
+            final int start = pos;
+            while (pos < length && Character.isWhitespace(css.charAt(pos)))
+            {
+                pos++;
+            }
+            return pos > start;
+        }
+
+        private void expect(final char c)
+        {
+            if (pos >= length || css.charAt(pos) != c)
+            {
+                throw malformed();
+            }
+            pos++;
+        }
+
+        private IllegalArgumentException malformed()
+        {
+            return new IllegalArgumentException(MessageFormat.format("Malformed CSS selector: \"{0}\"", css));
+        }
+    }
+}
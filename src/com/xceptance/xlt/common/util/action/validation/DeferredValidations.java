@@ -0,0 +1,204 @@
+package com.xceptance.xlt.common.util.action.validation;
+
+import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.util.SharedThreadFactory;
+
+/**
+ * Validations of a single user, that are evaluated on a small worker pool while the next request is already in
+ * flight. <br>
+ * <ul>
+ * <li>The pool is shared by all users of the agent. Its size is fixed by the first call of
+ * {@link #getExecutor(int)}. Its threads do not belong to any user, see {@link SharedThreadFactory}.</li>
+ * <li>The validations of an action are submitted as one task, so they are evaluated in their declared order and a
+ * response is never read by two threads at once.</li>
+ * <li>A failure is rethrown by the user thread on the next {@link #checkFailures()} or {@link #awaitAll()}, attributed
+ * to the action, whose validation failed. Failures are reported in the order the actions were executed.</li>
+ * </ul>
+ * Not thread safe, every user owns its own instance.
+ *
+ * @author matthias mitterreiter
+ */
+public class DeferredValidations
+{
+    /**
+     * Time idle threads are kept before they terminate.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final Object LOCK = new Object();
+
+    private static ThreadPoolExecutor executor;
+
+    private final ThreadPoolExecutor pool;
+
+    /**
+     * The not yet checked tasks, in the order of submission.
+     */
+    private final Deque<Pending> pending = new ArrayDeque<Pending>();
+
+    /**
+     * @param threadCount
+     *            size of the shared pool, see {@link #getExecutor(int)}
+     */
+    public DeferredValidations(final int threadCount)
+    {
+        XltLogger.runTimeLogger.debug("Creating new Instance");
+        this.pool = getExecutor(threadCount);
+    }
+
+    /**
+     * Returns the pool, that evaluates the deferred validations of all users. Creates it on first use.
+     *
+     * @param threadCount
+     *            the number of threads, only used by the first call
+     * @return the pool
+     */
+    public static ThreadPoolExecutor getExecutor(final int threadCount)
+    {
+        synchronized (LOCK)
+        {
+            if (executor == null)
+            {
+                final int size = Math.max(1, threadCount);
+                executor = new ThreadPoolExecutor(size,
+                                                  size,
+                                                  KEEP_ALIVE_SECONDS,
+                                                  TimeUnit.SECONDS,
+                                                  new LinkedBlockingQueue<Runnable>(),
+                                                  new SharedThreadFactory("DeferredValidation-"));
+                executor.allowCoreThreadTimeOut(true);
+                XltLogger.runTimeLogger.debug("Creating deferred validation executor with " + size + " threads");
+            }
+            return executor;
+        }
+    }
+
+    /**
+     * Submits the validations of an action.
+     *
+     * @param actionName
+     *            the name of the action, failures are attributed to
+     * @param validations
+     *            evaluates the validations
+     */
+    public void submit(final String actionName, final Runnable validations)
+    {
+        pending.add(new Pending(actionName, pool.submit(validations)));
+    }
+
+    /**
+     * @return the number of submitted tasks, that were not checked yet
+     */
+    public int getPendingCount()
+    {
+        return pending.size();
+    }
+
+    /**
+     * Rethrows the first failure of the tasks, that already completed. Does not wait for running tasks.
+     *
+     * @throws AssertionError
+     *             if a validation failed
+     * @throws IllegalArgumentException
+     *             if a validation could not be evaluated
+     */
+    public void checkFailures()
+    {
+        while (!pending.isEmpty() && pending.peek().future.isDone())
+        {
+            check(pending.poll());
+        }
+    }
+
+    /**
+     * Waits for all tasks and rethrows the first failure.
+     *
+     * @throws AssertionError
+     *             if a validation failed
+     * @throws IllegalArgumentException
+     *             if a validation could not be evaluated
+     */
+    public void awaitAll()
+    {
+        while (!pending.isEmpty())
+        {
+            check(pending.poll());
+        }
+    }
+
+    /**
+     * Cancels the tasks, that did not start yet, and forgets about all of them. Used, if the iteration failed anyway.
+     */
+    public void cancel()
+    {
+        for (final Pending task : pending)
+        {
+            task.future.cancel(false);
+        }
+        pending.clear();
+    }
+
+    private void check(final Pending task)
+    {
+        try
+        {
+            task.future.get();
+        }
+        catch (final ExecutionException e)
+        {
+            cancel();
+            rethrow(task.actionName, e.getCause());
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new IllegalStateException("Interrupted while waiting for the validations of action: \""
+                                            + task.actionName + "\"", e);
+        }
+    }
+
+    /**
+     * Keeps the kind of the failure, so a failed assertion is still reported as such.
+     */
+    private static void rethrow(final String actionName, final Throwable failure)
+    {
+        final String message = MessageFormat.format("Deferred validation of action \"{0}\" failed: {1}",
+                                                    actionName,
+                                                    failure.getMessage());
+        if (failure instanceof AssertionError)
+        {
+            throw new AssertionError(message, failure);
+        }
+        if (failure instanceof Error)
+        {
+            throw (Error) failure;
+        }
+        throw new IllegalArgumentException(message, failure);
+    }
+
+    /**
+     * A submitted task and the action it belongs to.
+     */
+    private static final class Pending
+    {
+        private final String actionName;
+
+        private final Future<?> future;
+
+        private Pending(final String actionName, final Future<?> future)
+        {
+            this.actionName = actionName;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.xceptance.xlt.common.util.action.validation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.util.ParameterUtils;
+
+/**
+ * <p>
+ * Selects elements of a JSON {@link WebResponse} by a JSONPath like expression, without converting the content to XML.
+ * <br>
+ * The body is parsed only once, directly from the content stream, and only when needed. All selections on the same
+ * response walk the same parsed tree.
+ * </p>
+ * Supported syntax:
+ * <ul>
+ * <li><code>$</code> the root element, optional
+ * <li><code>.name</code> or <code>['name']</code> a member of an object
+ * <li><code>[2]</code> an element of an array, negative indexes count from the end
+ * <li><code>.*</code> or <code>[*]</code> all members of an object or all elements of an array
+ * <li><code>..name</code> or <code>..*</code> recursive descent
+ * </ul>
+ * Strings are returned as is, numbers, booleans and null in their JSON representation and objects and arrays as JSON.
+ */
+public class JSONPathWithWebResponse
+{
+    /**
+     * Maximum number of compiled paths to keep.
+     */
+    private static final int MAX_CACHED_PATHS = 10000;
+
+    /**
+     * The compiled paths, shared by all users.
+     */
+    private static final ConcurrentMap<String, List<Step>> PATHS = new ConcurrentHashMap<String, List<Step>>();
+
+    private WebResponse webResponse;
+
+    /**
+     * The parsed content, <code>null</code> if not parsed yet.
+     */
+    private Object root;
+
+    /**
+     * A single step of a compiled path.
+     */
+    private static final class Step
+    {
+        /**
+         * Member name or <code>null</code> for all members.
+         */
+        private final String name;
+
+        /**
+         * Array index, only used if {@link #isIndex} is set.
+         */
+        private final int index;
+
+        private final boolean isIndex;
+
+        private final boolean recursive;
+
+        private Step(final String name, final int index, final boolean isIndex, final boolean recursive)
+        {
+            this.name = name;
+            this.index = index;
+            this.isIndex = isIndex;
+            this.recursive = recursive;
+        }
+    }
+
+    public JSONPathWithWebResponse(final WebResponse webResponse)
+    {
+        XltLogger.runTimeLogger.debug("Creating new Instance");
+        setWebResponse(webResponse);
+    }
+
+    private void setWebResponse(final WebResponse webResponse)
+    {
+        ParameterUtils.isNotNull(webResponse, "WebResponse");
+        this.webResponse = webResponse;
+    }
+
+    /**
+     * Parses the {@link WebResponse} if necessary and selects the elements described by the path.
+     *
+     * @param jsonPath
+     *            the JSONPath like expression
+     * @return list of all the found elements in 'String' representation.
+     * @throws IllegalArgumentException
+     *             if the content is not JSON or the path is malformed.
+     */
+    public List<String> getByJSONPath(final String jsonPath)
+    {
+        XltLogger.runTimeLogger.debug("Getting Elements by JSONPath: " + jsonPath);
+        final List<Step> steps = compile(jsonPath);
+        List<Object> nodes = Collections.singletonList(getRoot());
+        for (final Step step : steps)
+        {
+            final List<Object> nextNodes = new ArrayList<Object>();
+            for (final Object node : nodes)
+            {
+                select(node, step, nextNodes);
+            }
+            nodes = nextNodes;
+        }
+
+        final List<String> resultList = new ArrayList<String>(nodes.size());
+        for (final Object node : nodes)
+        {
+            resultList.add(node.toString());
+        }
+        return resultList;
+    }
+
+    private Object getRoot()
+    {
+        if (root == null)
+        {
+            root = parse();
+        }
+        return root;
+    }
+
+    private Object parse()
+    {
+        XltLogger.runTimeLogger.debug("Parsing Json Content");
+        try
+        {
+            final InputStream content = webResponse.getContentAsStream();
+            try
+            {
+                final Reader reader = new InputStreamReader(content, getCharset());
+                return new JSONTokener(reader).nextValue();
+            }
+            finally
+            {
+                content.close();
+            }
+        }
+        catch (final IOException e)
+        {
+            throw new IllegalArgumentException("Failed to read content: " + e.getMessage(), e);
+        }
+        catch (final RuntimeException e)
+        {
+            throw new IllegalArgumentException("Failed to parse content as JSON: " + e.getMessage(), e);
+        }
+    }
+
+    private Charset getCharset()
+    {
+        try
+        {
+            return Charset.forName(webResponse.getContentCharset());
+        }
+        catch (final Exception e)
+        {
+            return Charset.forName("UTF-8");
+        }
+    }
+
+    private static void select(final Object node, final Step step, final List<Object> result)
+    {
+        if (node instanceof JSONObject)
+        {
+            final JSONObject object = (JSONObject) node;
+            final String[] names = JSONObject.getNames(object);
+            if (names != null)
+            {
+                for (final String name : names)
+                {
+                    final Object child = object.opt(name);
+                    if (!step.isIndex && (step.name == null || step.name.equals(name)))
+                    {
+                        result.add(child);
+                    }
+                    if (step.recursive)
+                    {
+                        select(child, step, result);
+                    }
+                }
+            }
+        }
+        else if (node instanceof JSONArray)
+        {
+            final JSONArray array = (JSONArray) node;
+            final int length = array.length();
+            if (step.isIndex)
+            {
+                final int index = step.index < 0 ? length + step.index : step.index;
+                if (index >= 0 && index < length)
+                {
+                    result.add(array.opt(index));
+                }
+            }
+            for (int i = 0; i < length; i++)
+            {
+                final Object child = array.opt(i);
+                if (!step.isIndex && step.name == null && !step.recursive)
+                {
+                    result.add(child);
+                }
+                if (step.recursive)
+                {
+                    if (step.name == null)
+                    {
+                        result.add(child);
+                    }
+                    select(child, step, result);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compiles the path once, later calls reuse the steps.
+     */
+    private static List<Step> compile(final String jsonPath)
+    {
+        ParameterUtils.isNotNull(jsonPath, "JSONPath");
+        List<Step> steps = PATHS.get(jsonPath);
+        if (steps == null)
+        {
+            steps = parsePath(jsonPath);
+            if (PATHS.size() < MAX_CACHED_PATHS)
+            {
+                PATHS.putIfAbsent(jsonPath, steps);
+            }
+        }
+        return steps;
+    }
+
+    private static List<Step> parsePath(final String jsonPath)
+    {
+        final String path = jsonPath.trim();
+        final List<Step> steps = new ArrayList<Step>();
+        final int length = path.length();
+        int pos = path.startsWith("$") ? 1 : 0;
+
+        while (pos < length)
+        {
+            final char c = path.charAt(pos);
+            if (c == '.')
+            {
+                boolean recursive = false;
+                pos++;
+                if (pos < length && path.charAt(pos) == '.')
+                {
+                    recursive = true;
+                    pos++;
+                }
+                if (pos < length && path.charAt(pos) == '[')
+                {
+                    if (!recursive)
+                    {
+                        throw malformed(jsonPath);
+                    }
+                    pos = parseBracket(jsonPath, path, pos, true, steps);
+                    continue;
+                }
+                int end = pos;
+                while (end < length && path.charAt(end) != '.' && path.charAt(end) != '[')
+                {
+                    end++;
+                }
+                final String name = path.substring(pos, end).trim();
+                if (name.isEmpty())
+                {
+                    throw malformed(jsonPath);
+                }
+                steps.add(new Step("*".equals(name) ? null : name, 0, false, recursive));
+                pos = end;
+            }
+            else if (c == '[')
+            {
+                pos = parseBracket(jsonPath, path, pos, false, steps);
+            }
+            else if (steps.isEmpty() && pos == 0)
+            {
+                // a leading member name without '$.'
+                int end = pos;
+                while (end < length && path.charAt(end) != '.' && path.charAt(end) != '[')
+                {
+                    end++;
+                }
+                steps.add(new Step(path.substring(pos, end).trim(), 0, false, false));
+                pos = end;
+            }
+            else
+            {
+                throw malformed(jsonPath);
+            }
+        }
+        return steps;
+    }
+
+    private static int parseBracket(final String jsonPath, final String path, final int start, final boolean recursive,
+                                    final List<Step> steps)
+    {
+        final char first = start + 1 < path.length() ? path.charAt(start + 1) : 0;
+        final int end;
+        if (first == '\'' || first == '"')
+        {
+            final int close = path.indexOf(first, start + 2);
+            if (close < 0 || close + 1 >= path.length() || path.charAt(close + 1) != ']')
+            {
+                throw malformed(jsonPath);
+            }
+            steps.add(new Step(path.substring(start + 2, close), 0, false, recursive));
+            end = close + 2;
+        }
+        else
+        {
+            final int close = path.indexOf(']', start);
+            if (close < 0)
+            {
+                throw malformed(jsonPath);
+            }
+            final String content = path.substring(start + 1, close).trim();
+            if ("*".equals(content))
+            {
+                steps.add(new Step(null, 0, false, recursive));
+            }
+            else
+            {
+                try
+                {
+                    steps.add(new Step(null, Integer.parseInt(content), true, recursive));
+                }
+                catch (final NumberFormatException e)
+                {
+                    throw malformed(jsonPath);
+                }
+            }
+            end = close + 1;
+        }
+        return end;
+    }
+
+    private static IllegalArgumentException malformed(final String jsonPath)
+    {
+        return new IllegalArgumentException(MessageFormat.format("Malformed JSONPath: \"{0}\"", jsonPath));
+    }
+}
@@ -0,0 +1,721 @@
+package com.xceptance.xlt.common.util.action.validation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.lang.StringEscapeUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+/**
+ * A fast and forgiving HTML parser, that turns markup into a plain {@link Document}, so elements can be selected by
+ * xpath without building a {@link com.gargoylesoftware.htmlunit.html.HtmlPage HtmlPage}. <br>
+ * The tree contains elements, attributes, text and comments only. There is no CSS, no JavaScript and no event model.
+ * Broken markup is repaired in the way browsers do it for the common cases:
+ * <ul>
+ * <li>the html, head and body elements are always present, head-only elements before the body go into the head.
+ * <li>tag and attribute names are lower-cased, the first of duplicate attributes wins.
+ * <li>void elements (e.g. br, img, input) never have children.
+ * <li>optional end tags (e.g. p, li, td, tr, option) are implied.
+ * <li>end tags without matching start tag are ignored.
+ * <li>the content of script, style, textarea and title is not parsed as markup.
+ * <li>character references are resolved.
+ * </ul>
+ * The value of an id attribute is registered as id, so the xpath function id() works.
+ */
+public final class LightWeightHtmlParser
+{
+    private static final Set<String> VOID_ELEMENTS = set("area", "base", "basefont", "bgsound", "br", "col", "command",
+                                                         "embed", "frame", "hr", "img", "input", "isindex", "keygen",
+                                                         "link", "meta", "param", "source", "track", "wbr");
+
+    private static final Set<String> RAW_TEXT_ELEMENTS = set("script", "style", "textarea", "title", "xmp", "iframe",
+                                                             "noembed", "noframes", "plaintext");
+
+    /**
+     * Raw text elements, whose content may contain character references.
+     */
+    private static final Set<String> ESCAPABLE_RAW_TEXT_ELEMENTS = set("textarea", "title");
+
+    private static final Set<String> HEAD_ELEMENTS = set("base", "basefont", "bgsound", "link", "meta", "noscript",
+                                                         "script", "style", "title");
+
+    /**
+     * Elements, whose start tag closes an open p element.
+     */
+    private static final Set<String> CLOSING_P = set("address", "article", "aside", "blockquote", "center", "details",
+                                                     "dialog", "dir", "div", "dl", "fieldset", "figcaption", "figure",
+                                                     "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header",
+                                                     "hgroup", "hr", "li", "dd", "dt", "listing", "main", "menu", "nav",
+                                                     "ol", "p", "pre", "section", "summary", "table", "ul", "xmp",
+                                                     "plaintext");
+
+    private static final Set<String> HEADINGS = set("h1", "h2", "h3", "h4", "h5", "h6");
+
+    private static final Set<String> TABLE_SECTIONS = set("tbody", "thead", "tfoot", "caption", "colgroup");
+
+    /**
+     * Elements, that end tags and implied end tags do not cross.
+     */
+    private static final Set<String> SCOPE_BOUNDARIES = set("table", "td", "th", "caption", "applet", "marquee",
+                                                            "object", "template", "html", "body");
+
+    private static final Set<String> DOCUMENT_BOUNDARIES = set("html", "body");
+
+    private static final Set<String> TABLE_BOUNDARY = set("table", "html", "body");
+
+    private static final Set<String> LIST_BOUNDARIES = set("ul", "ol", "table", "td", "th", "html", "body");
+
+    private static final Set<String> DEFINITION_BOUNDARIES = set("dl", "table", "td", "th", "html", "body");
+
+    private static final Set<String> ROW_BOUNDARIES = set("tr", "table", "html", "body");
+
+    private final String html;
+
+    private final int length;
+
+    private int pos;
+
+    private final Document document;
+
+    private Element htmlElement;
+
+    private Element headElement;
+
+    private Element bodyElement;
+
+    /**
+     * The open elements, the last one is the current node.
+     */
+    private final List<Element> openElements = new ArrayList<Element>();
+
+    /**
+     * Number of open svg and math elements. Within them, self-closing tags are honored.
+     */
+    private int foreignDepth;
+
+    /**
+     * Parses the passed markup.
+     *
+     * @param html
+     *            the markup, may be broken
+     * @return the document, which contains at least the html, head and body elements
+     * @throws ParserConfigurationException
+     *             if no document can be created
+     */
+    public static Document parse(final String html) throws ParserConfigurationException
+    {
+        final LightWeightHtmlParser parser = new LightWeightHtmlParser(html != null ? html : "");
+        parser.parse();
+        return parser.document;
+    }
+
+    private LightWeightHtmlParser(final String html) throws ParserConfigurationException
+    {
+        this.html = html;
+        this.length = html.length();
+        this.document = XPathCache.getDocumentBuilder().newDocument();
+        // names are taken as they are, browsers accept almost anything
+        this.document.setStrictErrorChecking(false);
+    }
+
+    private void parse()
+    {
+        while (pos < length)
+        {
+            final int lt = html.indexOf('<', pos);
+            if (lt < 0)
+            {
+                text(pos, length);
+                break;
+            }
+            if (lt > pos)
+            {
+                text(pos, lt);
+            }
+            pos = lt;
+
+            if (html.startsWith("<!--", pos))
+            {
+                comment();
+            }
+            else if (html.startsWith("<![CDATA[", pos))
+            {
+                cdata();
+            }
+            else if (html.startsWith("<!", pos) || html.startsWith("<?", pos))
+            {
+                // doctype or processing instruction
+                skipTo('>');
+            }
+            else if (html.startsWith("</", pos) && pos + 2 < length && isLetter(html.charAt(pos + 2)))
+            {
+                endTag();
+            }
+            else if (pos + 1 < length && isLetter(html.charAt(pos + 1)))
+            {
+                startTag();
+            }
+            else
+            {
+                text(pos, pos + 1);
+                pos++;
+            }
+        }
+        ensureBody();
+    }
+
+    private void comment()
+    {
+        final int end = html.indexOf("-->", pos + 4);
+        final int contentEnd = end < 0 ? length : end;
+        current().appendChild(document.createComment(html.substring(pos + 4, contentEnd)));
+        pos = end < 0 ? length : end + 3;
+    }
+
+    private void cdata()
+    {
+        final int end = html.indexOf("]]>", pos + 9);
+        final int contentEnd = end < 0 ? length : end;
+        appendText(html.substring(pos + 9, contentEnd));
+        pos = end < 0 ? length : end + 3;
+    }
+
+    private void skipTo(final char c)
+    {
+        final int end = html.indexOf(c, pos);
+        pos = end < 0 ? length : end + 1;
+    }
+
+    private void endTag()
+    {
+        pos += 2;
+        final String name = readName();
+        skipTo('>');
+        closeElement(name);
+    }
+
+    private void startTag()
+    {
+        pos++;
+        final String name = readName();
+        final List<String> attributes = new ArrayList<String>();
+        boolean selfClosing = false;
+
+        while (pos < length)
+        {
+            final char c = html.charAt(pos);
+            if (c == '>')
+            {
+                pos++;
+                break;
+            }
+            else if (c == '/')
+            {
+                pos++;
+                selfClosing = pos < length && html.charAt(pos) == '>';
+            }
+            else if (isWhitespace(c))
+            {
+                pos++;
+            }
+            else
+            {
+                selfClosing = false;
+                readAttribute(attributes);
+            }
+        }
+
+        final Element element = openElement(name, attributes);
+        if (element == null)
+        {
+            return;
+        }
+        if (VOID_ELEMENTS.contains(name) || (selfClosing && foreignDepth > 0))
+        {
+            popTo(element);
+        }
+        else if (RAW_TEXT_ELEMENTS.contains(name))
+        {
+            rawText(name);
+        }
+    }
+
+    /**
+     * Reads the content of a raw text element up to its end tag.
+     */
+    private void rawText(final String name)
+    {
+        int end = "plaintext".equals(name) ? length : findEndTag(name);
+        if (end < 0)
+        {
+            end = length;
+        }
+        if (end > pos)
+        {
+            final String content = html.substring(pos, end);
+            appendText(ESCAPABLE_RAW_TEXT_ELEMENTS.contains(name) ? unescape(content) : content);
+        }
+        pos = end;
+        if (pos >= length)
+        {
+            closeElement(name);
+        }
+    }
+
+    private int findEndTag(final String name)
+    {
+        int i = pos;
+        while ((i = html.indexOf("</", i)) >= 0)
+        {
+            final int nameEnd = i + 2 + name.length();
+            if (html.regionMatches(true, i + 2, name, 0, name.length())
+                && (nameEnd >= length || !isNameChar(html.charAt(nameEnd))))
+            {
+                return i;
+            }
+            i += 2;
+        }
+        return -1;
+    }
+
+    private String readName()
+    {
+        final int start = pos;
+        while (pos < length && isNameChar(html.charAt(pos)))
+        {
+            pos++;
+        }
+        return html.substring(start, pos).toLowerCase(Locale.ENGLISH);
+    }
+
+    private void readAttribute(final List<String> attributes)
+    {
+        final int start = pos;
+        // the first character is taken in any case, e.g. for '=' or quotes without name
+        pos++;
+        while (pos < length)
+        {
+            final char c = html.charAt(pos);
+            if (isWhitespace(c) || c == '=' || c == '>' || c == '/')
+            {
+                break;
+            }
+            pos++;
+        }
+        final String name = html.substring(start, pos).toLowerCase(Locale.ENGLISH);
+
+        skipWhitespace();
+        String value = "";
+        if (pos < length && html.charAt(pos) == '=')
+        {
+            pos++;
+            skipWhitespace();
+            value = readAttributeValue();
+        }
+        attributes.add(name);
+        attributes.add(value);
+    }
+
+    private String readAttributeValue()
+    {
+        if (pos >= length)
+        {
+            return "";
+        }
+        final char quote = html.charAt(pos);
+        final int start;
+        final int end;
+        if (quote == '"' || quote == '\'')
+        {
+            start = pos + 1;
+            final int close = html.indexOf(quote, start);
+            end = close < 0 ? length : close;
+            pos = close < 0 ? length : close + 1;
+        }
+        else
+        {
+            start = pos;
+            while (pos < length && !isWhitespace(html.charAt(pos)) && html.charAt(pos) != '>')
+            {
+                pos++;
+            }
+            end = pos;
+        }
+        return unescape(html.substring(start, end));
+    }
+
+    private void skipWhitespace()
+    {
+        while (pos < length && isWhitespace(html.charAt(pos)))
+        {
+            pos++;
+        }
+    }
+
+    private void text(final int start, final int end)
+    {
+        appendText(unescape(html.substring(start, end)));
+    }
+
+    private void appendText(final String text)
+    {
+        if (bodyElement == null && (openElements.isEmpty() || current() == headElement))
+        {
+            if (isWhitespace(text))
+            {
+                return;
+            }
+            ensureBody();
+        }
+        final Element parent = current();
+        final Node last = parent.getLastChild();
+        if (last instanceof Text)
+        {
+            ((Text) last).appendData(text);
+        }
+        else
+        {
+            parent.appendChild(document.createTextNode(text));
+        }
+    }
+
+    /**
+     * Creates the element and makes it the current node.
+     *
+     * @return the element, <code>null</code> if the tag was merged into an existing html, head or body element
+     */
+    private Element openElement(final String name, final List<String> attributes)
+    {
+        if ("html".equals(name))
+        {
+            ensureHtml();
+            setAttributes(htmlElement, attributes);
+            return null;
+        }
+        if ("head".equals(name))
+        {
+            if (headElement == null && bodyElement == null)
+            {
+                ensureHead();
+                setAttributes(headElement, attributes);
+            }
+            return null;
+        }
+        if ("body".equals(name))
+        {
+            ensureBody();
+            setAttributes(bodyElement, attributes);
+            return null;
+        }
+
+        if (bodyElement == null && HEAD_ELEMENTS.contains(name))
+        {
+            ensureHead();
+        }
+        else
+        {
+            ensureBody();
+            closeImplied(name);
+        }
+
+        final Element element = document.createElement(name);
+        setAttributes(element, attributes);
+        current().appendChild(element);
+        push(element);
+        return element;
+    }
+
+    private void setAttributes(final Element element, final List<String> attributes)
+    {
+        for (int i = 0; i < attributes.size(); i += 2)
+        {
+            final String name = attributes.get(i);
+            if (!element.hasAttribute(name))
+            {
+                element.setAttribute(name, attributes.get(i + 1));
+                if ("id".equals(name))
+                {
+                    element.setIdAttribute(name, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the elements, whose end tag is implied by the start tag of the passed element.
+     */
+    private void closeImplied(final String name)
+    {
+        if (CLOSING_P.contains(name))
+        {
+            closeInScope("p", SCOPE_BOUNDARIES);
+        }
+
+        if ("li".equals(name))
+        {
+            closeInScope("li", LIST_BOUNDARIES);
+        }
+        else if ("dt".equals(name) || "dd".equals(name))
+        {
+            closeInScope("dt", DEFINITION_BOUNDARIES);
+            closeInScope("dd", DEFINITION_BOUNDARIES);
+        }
+        else if (HEADINGS.contains(name))
+        {
+            if (HEADINGS.contains(current().getNodeName()))
+            {
+                popTo(current());
+            }
+        }
+        else if ("option".equals(name))
+        {
+            closeCurrent("option");
+        }
+        else if ("optgroup".equals(name))
+        {
+            closeCurrent("option");
+            closeCurrent("optgroup");
+        }
+        else if ("a".equals(name))
+        {
+            closeInScope("a", SCOPE_BOUNDARIES);
+        }
+        else if ("td".equals(name) || "th".equals(name))
+        {
+            closeInScope("td", ROW_BOUNDARIES);
+            closeInScope("th", ROW_BOUNDARIES);
+        }
+        else if ("tr".equals(name))
+        {
+            closeInScope("tr", TABLE_BOUNDARY);
+        }
+        else if (TABLE_SECTIONS.contains(name))
+        {
+            final int table = indexOf("table", TABLE_BOUNDARY);
+            if (table >= 0 && table < openElements.size() - 1)
+            {
+                popTo(openElements.get(table + 1));
+            }
+        }
+    }
+
+    private void closeCurrent(final String name)
+    {
+        if (name.equals(current().getNodeName()))
+        {
+            popTo(current());
+        }
+    }
+
+    private void closeInScope(final String name, final Set<String> boundaries)
+    {
+        final int index = indexOf(name, boundaries);
+        if (index >= 0)
+        {
+            popTo(openElements.get(index));
+        }
+    }
+
+    /**
+     * Handles an end tag.
+     */
+    private void closeElement(final String name)
+    {
+        if ("head".equals(name))
+        {
+            if (headElement != null && openElements.contains(headElement))
+            {
+                popTo(headElement);
+            }
+            return;
+        }
+        if ("html".equals(name) || "body".equals(name))
+        {
+            // trailing content still belongs to the body
+            return;
+        }
+
+        final Set<String> boundaries;
+        if ("table".equals(name))
+        {
+            boundaries = DOCUMENT_BOUNDARIES;
+        }
+        else if ("tr".equals(name) || "td".equals(name) || "th".equals(name) || TABLE_SECTIONS.contains(name))
+        {
+            boundaries = TABLE_BOUNDARY;
+        }
+        else if ("li".equals(name))
+        {
+            boundaries = LIST_BOUNDARIES;
+        }
+        else
+        {
+            boundaries = SCOPE_BOUNDARIES;
+        }
+        closeInScope(name, boundaries);
+    }
+
+    /**
+     * @return the index of the nearest open element with the passed name, -1 if there is none or a boundary comes
+     *         first
+     */
+    private int indexOf(final String name, final Set<String> boundaries)
+    {
+        for (int i = openElements.size() - 1; i >= 0; i--)
+        {
+            final String openName = openElements.get(i).getNodeName();
+            if (name.equals(openName))
+            {
+                return i;
+            }
+            if (boundaries.contains(openName))
+            {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private Element current()
+    {
+        if (openElements.isEmpty())
+        {
+            ensureHtml();
+        }
+        return openElements.get(openElements.size() - 1);
+    }
+
+    private void push(final Element element)
+    {
+        openElements.add(element);
+        if (isForeign(element))
+        {
+            foreignDepth++;
+        }
+    }
+
+    /**
+     * Closes the passed element and all elements opened after it.
+     */
+    private void popTo(final Element element)
+    {
+        popTo(element, true);
+    }
+
+    /**
+     * Closes the elements opened after the passed element and optionally the element itself.
+     */
+    private void popTo(final Element element, final boolean inclusive)
+    {
+        while (!openElements.isEmpty())
+        {
+            final Element last = openElements.get(openElements.size() - 1);
+            if (last == element && !inclusive)
+            {
+                return;
+            }
+            openElements.remove(openElements.size() - 1);
+            if (isForeign(last))
+            {
+                foreignDepth--;
+            }
+            if (last == element)
+            {
+                return;
+            }
+        }
+    }
+
+    private boolean isForeign(final Element element)
+    {
+        final String name = element.getNodeName();
+        return "svg".equals(name) || "math".equals(name);
+    }
+
+    private void ensureHtml()
+    {
+        if (htmlElement == null)
+        {
+            htmlElement = document.createElement("html");
+            document.appendChild(htmlElement);
+            openElements.add(htmlElement);
+        }
+    }
+
+    /**
+     * Makes the head the current node, creates it on first use.
+     */
+    private void ensureHead()
+    {
+        ensureHtml();
+        if (headElement == null)
+        {
+            headElement = document.createElement("head");
+            htmlElement.appendChild(headElement);
+        }
+        if (!openElements.contains(headElement))
+        {
+            popTo(htmlElement, false);
+            openElements.add(headElement);
+        }
+    }
+
+    private void ensureBody()
+    {
+        if (bodyElement == null)
+        {
+            ensureHead();
+            // everything, that is still open, belongs to the head
+            popTo(headElement);
+            bodyElement = document.createElement("body");
+            htmlElement.appendChild(bodyElement);
+            openElements.add(bodyElement);
+        }
+    }
+
+    private static String unescape(final String text)
+    {
+        return text.indexOf('&') < 0 ? text : StringEscapeUtils.unescapeHtml(text);
+    }
+
+    private static boolean isLetter(final char c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isNameChar(final char c)
+    {
+        return !isWhitespace(c) && c != '/' && c != '>';
+    }
+
+    private static boolean isWhitespace(final char c)
+    {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f';
+    }
+
+    private static boolean isWhitespace(final String text)
+    {
+        for (int i = 0; i < text.length(); i++)
+        {
+            if (!isWhitespace(text.charAt(i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> set(final String... names)
+    {
+        return new HashSet<String>(Arrays.asList(names));
+    }
+}
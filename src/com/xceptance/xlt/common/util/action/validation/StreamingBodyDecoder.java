@@ -0,0 +1,313 @@
+package com.xceptance.xlt.common.util.action.validation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+
+/**
+ * Decodes the parts of a response body one after another, as they arrive. <br>
+ * Supports the content encodings 'gzip' and 'deflate' and every charset of the JVM. The charset is taken from the
+ * 'Content-Type' header and defaults to ISO-8859-1, like the one of a {@link com.gargoylesoftware.htmlunit.WebResponse
+ * WebResponse} without declared charset. Malformed input is replaced, as done by {@link String#String(byte[], Charset)}.
+ */
+final class StreamingBodyDecoder
+{
+    private static final Charset DEFAULT_CHARSET = Charset.forName("ISO-8859-1");
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final int GZIP_HEADER_LENGTH = 10;
+
+    private static final int GZIP_FEXTRA = 4;
+
+    private static final int GZIP_FNAME = 8;
+
+    private static final int GZIP_FCOMMENT = 16;
+
+    private static final int GZIP_FHCRC = 2;
+
+    /**
+     * Inflates the body, <code>null</code> if the body is not compressed.
+     */
+    private final Inflater inflater;
+
+    private final CharsetDecoder charsetDecoder;
+
+    /**
+     * Number of bytes of the fixed part of the gzip header, that were read. The header is consumed byte by byte, since
+     * it may be split across parts.
+     */
+    private int gzipPosition;
+
+    /**
+     * The optional parts of the gzip header, that were not skipped yet.
+     */
+    private int gzipFlags;
+
+    /**
+     * Number of bytes of the current optional part, that still have to be skipped.
+     */
+    private int gzipSkip;
+
+    /**
+     * The low byte of the length of the FEXTRA part, -1 if not read yet.
+     */
+    private int gzipExtraLength = -1;
+
+    private final byte[] inflated = new byte[BUFFER_SIZE];
+
+    /**
+     * Decoded bytes, that did not form a complete character yet. Read mode.
+     */
+    private ByteBuffer pending = ByteBuffer.allocate(0);
+
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+    private StreamingBodyDecoder(final Inflater inflater, final boolean gzip, final Charset charset)
+    {
+        this.inflater = inflater;
+        this.gzipPosition = gzip ? 0 : GZIP_HEADER_LENGTH;
+        this.charsetDecoder = charset.newDecoder()
+                                     .onMalformedInput(CodingErrorAction.REPLACE)
+                                     .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * @param headers
+     *            the headers of the response
+     * @return the decoder, <code>null</code> if the content encoding or the charset is not supported
+     */
+    static StreamingBodyDecoder create(final List<NameValuePair> headers)
+    {
+        final String contentEncoding = getHeader(headers, "Content-Encoding");
+        final Charset charset = getCharset(getHeader(headers, "Content-Type"));
+        if (charset == null)
+        {
+            return null;
+        }
+        if (contentEncoding == null || contentEncoding.trim().isEmpty()
+            || contentEncoding.trim().equalsIgnoreCase("identity"))
+        {
+            return new StreamingBodyDecoder(null, false, charset);
+        }
+        final String encoding = contentEncoding.trim().toLowerCase();
+        if (encoding.equals("gzip") || encoding.equals("x-gzip"))
+        {
+            return new StreamingBodyDecoder(new Inflater(true), true, charset);
+        }
+        if (encoding.equals("deflate"))
+        {
+            return new StreamingBodyDecoder(new Inflater(), false, charset);
+        }
+        return null;
+    }
+
+    /**
+     * Decodes the next part of the body.
+     *
+     * @param data
+     *            the part, as received
+     * @param text
+     *            receives the decoded characters
+     * @throws IOException
+     *             if the compressed data is malformed
+     */
+    void decode(final ByteBuffer data, final StringBuilder text) throws IOException
+    {
+        if (inflater == null)
+        {
+            decodeChars(data, text, false);
+            return;
+        }
+        skipGzipHeader(data);
+        if (!data.hasRemaining() || inflater.finished())
+        {
+            // still in the header or behind the compressed data, i.e. in the gzip trailer
+            return;
+        }
+        final byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        inflater.setInput(bytes);
+        try
+        {
+            int length;
+            while ((length = inflater.inflate(inflated)) > 0)
+            {
+                decodeChars(ByteBuffer.wrap(inflated, 0, length), text, false);
+            }
+        }
+        catch (final DataFormatException e)
+        {
+            throw new IOException("Malformed compressed response body: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes the characters, that were held back, since the body might have continued them.
+     *
+     * @param text
+     *            receives the decoded characters
+     */
+    void finish(final StringBuilder text)
+    {
+        decodeChars(ByteBuffer.allocate(0), text, true);
+        charsetDecoder.flush(chars);
+        drainChars(text);
+    }
+
+    /**
+     * Releases the native resources of the decoder.
+     */
+    void close()
+    {
+        if (inflater != null)
+        {
+            inflater.end();
+        }
+    }
+
+    private void decodeChars(final ByteBuffer data, final StringBuilder text, final boolean endOfInput)
+    {
+        ByteBuffer input = data;
+        if (pending.hasRemaining())
+        {
+            input = ByteBuffer.allocate(pending.remaining() + data.remaining());
+            input.put(pending).put(data);
+            input.flip();
+        }
+        while (true)
+        {
+            final boolean overflow = charsetDecoder.decode(input, chars, endOfInput).isOverflow();
+            drainChars(text);
+            if (!overflow)
+            {
+                break;
+            }
+        }
+        // an incomplete character at the end is completed by the next part
+        pending = ByteBuffer.allocate(input.remaining());
+        pending.put(input);
+        pending.flip();
+    }
+
+    private void drainChars(final StringBuilder text)
+    {
+        chars.flip();
+        text.append(chars);
+        chars.clear();
+    }
+
+    /**
+     * Skips the gzip header, see RFC 1952.
+     */
+    private void skipGzipHeader(final ByteBuffer data) throws IOException
+    {
+        while (data.hasRemaining() && !isGzipHeaderSkipped())
+        {
+            final int b = data.get() & 0xff;
+            if (gzipPosition < GZIP_HEADER_LENGTH)
+            {
+                if ((gzipPosition == 0 && b != 0x1f) || (gzipPosition == 1 && b != 0x8b)
+                    || (gzipPosition == 2 && b != 8))
+                {
+                    throw new IOException("Malformed gzip header");
+                }
+                if (gzipPosition == 3)
+                {
+                    gzipFlags = b & (GZIP_FEXTRA | GZIP_FNAME | GZIP_FCOMMENT | GZIP_FHCRC);
+                }
+                gzipPosition++;
+            }
+            else if (gzipSkip > 0)
+            {
+                gzipSkip--;
+            }
+            else if ((gzipFlags & GZIP_FEXTRA) != 0)
+            {
+                if (gzipExtraLength < 0)
+                {
+                    gzipExtraLength = b;
+                }
+                else
+                {
+                    gzipSkip = gzipExtraLength | (b << 8);
+                    gzipFlags &= ~GZIP_FEXTRA;
+                }
+            }
+            else if ((gzipFlags & GZIP_FNAME) != 0)
+            {
+                if (b == 0)
+                {
+                    gzipFlags &= ~GZIP_FNAME;
+                }
+            }
+            else if ((gzipFlags & GZIP_FCOMMENT) != 0)
+            {
+                if (b == 0)
+                {
+                    gzipFlags &= ~GZIP_FCOMMENT;
+                }
+            }
+            else
+            {
+                // the first of the two bytes of the header checksum
+                gzipSkip = 1;
+                gzipFlags &= ~GZIP_FHCRC;
+            }
+        }
+    }
+
+    private boolean isGzipHeaderSkipped()
+    {
+        return gzipPosition == GZIP_HEADER_LENGTH && gzipFlags == 0 && gzipSkip == 0;
+    }
+
+    private static String getHeader(final List<NameValuePair> headers, final String name)
+    {
+        for (final NameValuePair header : headers)
+        {
+            if (header.getName().equalsIgnoreCase(name))
+            {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the charset of the content type, the default charset if none is declared, <code>null</code> if the
+     *         declared one is not supported
+     */
+    private static Charset getCharset(final String contentType)
+    {
+        if (contentType == null)
+        {
+            return DEFAULT_CHARSET;
+        }
+        for (final String parameter : contentType.split(";"))
+        {
+            final int equals = parameter.indexOf('=');
+            if (equals > 0 && parameter.substring(0, equals).trim().equalsIgnoreCase("charset"))
+            {
+                final String name = parameter.substring(equals + 1).trim().replace("\"", "");
+                try
+                {
+                    return Charset.forName(name);
+                }
+                catch (final IllegalArgumentException e)
+                {
+                    return null;
+                }
+            }
+        }
+        return DEFAULT_CHARSET;
+    }
+}
@@ -0,0 +1,352 @@
+package com.xceptance.xlt.common.util.action.validation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.util.ParameterUtils;
+import com.xceptance.xlt.common.util.action.data.URLActionData;
+import com.xceptance.xlt.common.util.action.data.URLActionDataValidation;
+import com.xceptance.xlt.common.util.async.AsyncHttpBodyConsumer;
+
+/**
+ * Decides the body validations of an action while the response body arrives, so the body is never kept as a whole.
+ * <br>
+ * Used for actions, whose body is only read by validations, that can be decided by the first match, see
+ * {@link URLActionData#hasStreamableValidations()}:
+ * <ul>
+ * <li>A response with an unexpected status code fails anyway, so its body is dropped right away.</li>
+ * <li>The body is decoded part by part. The regular expressions of 'Regex' validations and the boundaries of
+ * 'Between' validations are matched against a window of the decoded text, which keeps the last
+ * {@link #getMaxMatchLength() maxMatchLength} characters only. Longer matches are not found.</li>
+ * <li>Once every validation found its first match, the rest of the body is only counted.</li>
+ * </ul>
+ * The validations themselves are still evaluated by the {@link URLActionDataValidationResponseHandler}, which selects
+ * the first match via {@link #getSelection(URLActionDataValidation)}. If the content encoding or the charset of the
+ * response is not supported, the body is kept and the validations select from it as usual. <br>
+ * Fed by the event loop thread of the {@link com.xceptance.xlt.common.util.async.AsyncHttpClient AsyncHttpClient},
+ * read by the user thread after the response was received.
+ *
+ * @author matthias mitterreiter
+ */
+public class StreamingValidation implements AsyncHttpBodyConsumer
+{
+    /**
+     * Number of characters in front of the scanned part of the window, that are kept for look-behinds.
+     */
+    private static final int LOOK_BEHIND = 1024;
+
+    private final int expectedStatusCode;
+
+    private final int maxMatchLength;
+
+    /**
+     * The body selections by {@link #getKey(URLActionDataValidation) key}. Validations with the same selection share
+     * it.
+     */
+    private final Map<String, Selection> selections = new HashMap<String, Selection>();
+
+    /**
+     * Whether the body was taken over.
+     */
+    private boolean applied;
+
+    private StreamingBodyDecoder decoder;
+
+    /**
+     * The decoded characters, that may still be part of a match.
+     */
+    private final StringBuilder window = new StringBuilder();
+
+    /**
+     * Position of the first character of the {@link #window} within the decoded body.
+     */
+    private long offset;
+
+    /**
+     * Why the body could not be decoded, <code>null</code> if it could.
+     */
+    private String failure;
+
+    private boolean finished;
+
+    /**
+     * @param action
+     *            the action, whose body validations are decided, must {@link URLActionData#hasStreamableValidations()
+     *            have streamable validations}
+     * @param maxMatchLength
+     *            the maximum length of a match in characters
+     */
+    public StreamingValidation(final URLActionData action, final int maxMatchLength)
+    {
+        XltLogger.runTimeLogger.debug("Creating new Instance");
+        ParameterUtils.isNotNull(action, "URLActionData");
+        if (maxMatchLength <= 0)
+        {
+            throw new IllegalArgumentException("Maximum match length must be positive: " + maxMatchLength);
+        }
+        this.expectedStatusCode = action.getHttpResponseCode();
+        this.maxMatchLength = maxMatchLength;
+        for (final URLActionDataValidation validation : action.getValidations())
+        {
+            final String key = getKey(validation);
+            if (!selections.containsKey(key))
+            {
+                final Selection selection = createSelection(validation);
+                if (selection != null)
+                {
+                    selections.put(key, selection);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the key of the selection of the validation. The validations of every copy of the action yield the same
+     *         keys.
+     */
+    private static String getKey(final URLActionDataValidation validation)
+    {
+        final String selectionMode = validation.getSelectionMode();
+        final String key = selectionMode + '\n' + validation.getSelectionContent();
+        return URLActionDataValidation.BETWEEN.equals(selectionMode) ? key + '\n' + validation.getRightBoundary()
+                                                                     : key;
+    }
+
+    private static Selection createSelection(final URLActionDataValidation validation)
+    {
+        final String selectionMode = validation.getSelectionMode();
+        try
+        {
+            if (URLActionDataValidation.REGEXP.equals(selectionMode))
+            {
+                return new Selection(validation.getSelectionContentAsPattern(), 0);
+            }
+            if (URLActionDataValidation.BETWEEN.equals(selectionMode))
+            {
+                // the text up to the first right boundary behind the first left one, like
+                // URLActionDataExecutableResult.getByBoundaries()
+                final Pattern pattern = Pattern.compile(Pattern.quote(validation.getSelectionContent()) + "(.*?)"
+                                                        + Pattern.quote(validation.getRightBoundary()),
+                                                        Pattern.DOTALL);
+                return new Selection(pattern, 1);
+            }
+        }
+        catch (final RuntimeException e)
+        {
+            // reported by the validation itself
+            return new Selection(e);
+        }
+        return null;
+    }
+
+    public int getMaxMatchLength()
+    {
+        return maxMatchLength;
+    }
+
+    /**
+     * @return whether the body was taken over, i.e. the body validations must select via
+     *         {@link #getSelection(URLActionDataValidation)}.
+     */
+    public boolean isApplied()
+    {
+        return applied;
+    }
+
+    @Override
+    public boolean headersReceived(final int statusCode, final List<NameValuePair> headers)
+    {
+        if (statusCode != expectedStatusCode || selections.isEmpty())
+        {
+            // either the validation of the status code fails, before any body validation is evaluated, or the body
+            // is not read at all
+            applied = true;
+            finished = true;
+            return true;
+        }
+        decoder = StreamingBodyDecoder.create(headers);
+        applied = (decoder != null);
+        return applied;
+    }
+
+    @Override
+    public boolean bodyReceived(final ByteBuffer data)
+    {
+        if (finished || failure != null)
+        {
+            return false;
+        }
+        try
+        {
+            decoder.decode(data, window);
+        }
+        catch (final IOException e)
+        {
+            failure = e.getMessage();
+            release();
+            return false;
+        }
+        if (scan(false))
+        {
+            release();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the first match of a body validation.
+     *
+     * @param validation
+     *            a 'Regex' or 'Between' validation of the action
+     * @return the selected text of the first match, an empty list if there is none
+     * @throws IllegalArgumentException
+     *             if the body could not be decoded
+     */
+    public List<String> getSelection(final URLActionDataValidation validation)
+    {
+        final Selection selection = selections.get(getKey(validation));
+        if (selection == null)
+        {
+            throw new IllegalArgumentException("Validation \"" + validation.getName()
+                                               + "\" was not evaluated while the response was received");
+        }
+        if (selection.invalid != null)
+        {
+            throw selection.invalid;
+        }
+        finish();
+        if (failure != null)
+        {
+            throw new IllegalArgumentException(failure);
+        }
+        final List<String> result = new ArrayList<String>(1);
+        if (selection.value != null)
+        {
+            result.add(selection.value);
+        }
+        return result;
+    }
+
+    /**
+     * Decides the selections, that are still open, at the end of the body.
+     */
+    private void finish()
+    {
+        if (!finished)
+        {
+            decoder.finish(window);
+            scan(true);
+            release();
+        }
+    }
+
+    /**
+     * Drops the window and the decoder, once the selections are decided.
+     */
+    private void release()
+    {
+        finished = true;
+        window.setLength(0);
+        window.trimToSize();
+        if (decoder != null)
+        {
+            decoder.close();
+        }
+    }
+
+    /**
+     * Matches the open selections against the window and drops the characters, no open selection can match anymore.
+     *
+     * @param endOfBody
+     *            whether the window ends with the body, so a match is final, even if it touches the end
+     * @return <code>true</code> if every selection found its first match
+     */
+    private boolean scan(final boolean endOfBody)
+    {
+        final long end = offset + window.length();
+        long keepFrom = end;
+        boolean open = false;
+        for (final Selection selection : selections.values())
+        {
+            if (selection.found || selection.invalid != null)
+            {
+                continue;
+            }
+            final Matcher matcher = selection.pattern.matcher(window);
+            matcher.useTransparentBounds(true);
+            matcher.useAnchoringBounds(false);
+            matcher.region((int) (selection.scanFrom - offset), window.length());
+
+            // a match, that touches the end, might turn out differently once more of the body arrived
+            if (matcher.find() && (endOfBody || !matcher.hitEnd()))
+            {
+                selection.value = matcher.group(selection.group);
+                selection.found = true;
+                continue;
+            }
+            selection.scanFrom = Math.max(selection.scanFrom, end - maxMatchLength);
+            keepFrom = Math.min(keepFrom, selection.scanFrom);
+            open = true;
+        }
+        if (!open)
+        {
+            return true;
+        }
+
+        // the scanned part never starts at the beginning of the window, so '^' matches the start of the body only
+        final long newOffset = Math.max(offset, keepFrom - LOOK_BEHIND);
+        if (newOffset > offset)
+        {
+            window.delete(0, (int) (newOffset - offset));
+            offset = newOffset;
+        }
+        return false;
+    }
+
+    /**
+     * The first match of a body validation.
+     */
+    private static final class Selection
+    {
+        private final Pattern pattern;
+
+        private final int group;
+
+        /**
+         * Position within the decoded body, the next scan starts at.
+         */
+        private long scanFrom;
+
+        private boolean found;
+
+        private String value;
+
+        /**
+         * Why the selection could not be created, <code>null</code> if it could.
+         */
+        private final RuntimeException invalid;
+
+        private Selection(final Pattern pattern, final int group)
+        {
+            this.pattern = pattern;
+            this.group = group;
+            this.invalid = null;
+        }
+
+        private Selection(final RuntimeException invalid)
+        {
+            this.pattern = null;
+            this.group = 0;
+            this.invalid = invalid;
+        }
+    }
+}
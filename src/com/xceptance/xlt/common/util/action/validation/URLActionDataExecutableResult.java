@@ -2,14 +2,21 @@ package com.xceptance.xlt.common.util.action.validation;
 
 import java.net.HttpCookie;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.eclipse.jdt.annotation.Nullable;
+
 import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import com.gargoylesoftware.htmlunit.util.NameValuePair;
 import com.xceptance.xlt.api.util.XltLogger;
 import com.xceptance.xlt.common.util.ParameterUtils;
+import com.xceptance.xlt.common.util.PatternCache;
 
 /**
  * Offers a gentle way and various methods to access data of a {@link WebRespone}.<br>
@@ -23,9 +30,15 @@ import com.xceptance.xlt.common.util.ParameterUtils;
  * <ul>
  * <li> {@link #getByRegEx(String)}
  * <li> {@link #getByXPath(String)}
+ * <li> {@link #getByJSONPath(String)}
+ * <li> {@link #getByCSS(String)}
+ * <li> {@link #getByBoundaries(String, String, int)}
  * </ul>
  * Get response code: {@link #getHttpResponseCode()} <br>
- * Get RAW response {@link #getWebResponse()}
+ * Get RAW response {@link #getWebResponse()} <br>
+ * The body is decoded only once, headers and cookies are parsed only once into indexed maps and every regular
+ * expression scans the body only once, no matter how many validations and store items select from the response. <br>
+ * If the body was validated while it was received, it is not kept, see {@link #getStreamingValidation()}.
  * 
  * @author matthias mitterreiter
  */
@@ -35,6 +48,48 @@ public class URLActionDataExecutableResult
 
     private WebResponse webResponse;
 
+    /**
+     * Parsed JSON content, created on first use.
+     */
+    private JSONPathWithWebResponse jsonPathGetable;
+
+    /**
+     * Parsed HTML content, created on first use.
+     */
+    private CSSSelectorWithContent cssGetable;
+
+    /**
+     * Decoded body, loaded on first use.
+     */
+    private String content;
+
+    private boolean contentLoaded;
+
+    /**
+     * Header values by header name, created on first use.
+     */
+    private Map<String, List<String>> headersByName;
+
+    /**
+     * Cookies of all the "Set-Cookie" headers, parsed on first use.
+     */
+    private List<HttpCookie> cookies;
+
+    /**
+     * Cookies by cookie name, created on first use.
+     */
+    private Map<String, List<NameValuePair>> cookiesByName;
+
+    /**
+     * All groups of all matches, by regular expression.
+     */
+    private final Map<String, List<String[]>> regexMatches = new HashMap<String, List<String[]>>();
+
+    /**
+     * Decided the body validations, while the body was received, <code>null</code> if the body was kept.
+     */
+    private StreamingValidation streamingValidation;
+
     /**
      * @param webResponse
      *            the {@link WebResponse}.
@@ -61,6 +116,28 @@ public class URLActionDataExecutableResult
         this.xPathGetable = xPathGetable;
     }
 
+    /**
+     * @param streamingValidation
+     *            the streaming validation of the request, <code>null</code> or not applied if the body was kept
+     */
+    void setStreamingValidation(@Nullable final StreamingValidation streamingValidation)
+    {
+        if (streamingValidation != null && streamingValidation.isApplied())
+        {
+            this.streamingValidation = streamingValidation;
+        }
+    }
+
+    /**
+     * @return the {@link StreamingValidation}, that decided the body validations while the body was received. The
+     *         body is not kept then. <code>null</code> if the body was kept.
+     */
+    @Nullable
+    public StreamingValidation getStreamingValidation()
+    {
+        return streamingValidation;
+    }
+
     /**
      * See {@link XPathGetable}.
      * 
@@ -74,7 +151,98 @@ public class URLActionDataExecutableResult
     }
 
     /**
-     * Compiles the pattern and scans the request body for matches.
+     * @return <code>true</code> if XPath selections run on the {@link HtmlPage} of the web client, which must only be
+     *         touched by the thread of the user. Otherwise the result may be handed over to another thread.
+     */
+    public boolean wrapsLivePage()
+    {
+        return xPathGetable instanceof XPathWithHtmlPage;
+    }
+
+    /**
+     * See {@link JSONPathWithWebResponse}. The body is parsed only once for all selections.
+     * 
+     * @param jsonPath
+     *            a JSONPath like expression
+     * @return list of all the found elements in 'String' representation.
+     */
+    public List<String> getByJSONPath(final String jsonPath)
+    {
+        if (jsonPathGetable == null)
+        {
+            jsonPathGetable = new JSONPathWithWebResponse(webResponse);
+        }
+        return jsonPathGetable.getByJSONPath(jsonPath);
+    }
+
+    /**
+     * See {@link CSSSelectorWithContent}. The body is parsed only once for all selections, no {@link HtmlPage} is
+     * built.
+     * 
+     * @param css
+     *            a CSS selector
+     * @return list of all the found elements in 'String' representation.
+     */
+    public List<String> getByCSS(final String css)
+    {
+        if (cssGetable == null)
+        {
+            cssGetable = new CSSSelectorWithContent(getContent());
+        }
+        return cssGetable.getByCSS(css);
+    }
+
+    /**
+     * Selects the text between the left and the right boundary by plain substring search, without any regular
+     * expression. The search goes on behind the right boundary of a match, so occurrences never overlap.
+     * 
+     * @param left
+     *            the text in front of the selection.
+     * @param right
+     *            the text behind the selection.
+     * @param occurrence
+     *            the occurrence to return, starting at 1, or 0 for all of them.
+     * @return list of the found texts.
+     */
+    public List<String> getByBoundaries(final String left, final String right, final int occurrence)
+    {
+        if (left == null || left.isEmpty() || right == null || right.isEmpty())
+        {
+            throw new IllegalArgumentException("Boundaries must not be empty");
+        }
+        if (occurrence < 0)
+        {
+            throw new IllegalArgumentException("Occurrence must not be negative: " + occurrence);
+        }
+
+        final String body = getContent();
+        final List<String> resultList = new ArrayList<String>(occurrence > 0 ? 1 : 4);
+        int count = 0;
+        int start = body.indexOf(left);
+        while (start >= 0)
+        {
+            final int begin = start + left.length();
+            final int end = body.indexOf(right, begin);
+            if (end < 0)
+            {
+                break;
+            }
+            count++;
+            if (occurrence == 0 || occurrence == count)
+            {
+                resultList.add(body.substring(begin, end));
+                if (occurrence > 0)
+                {
+                    break;
+                }
+            }
+            start = body.indexOf(left, end + right.length());
+        }
+        return resultList;
+    }
+
+    /**
+     * Compiles the pattern, if not cached yet, and scans the request body for matches.
      * 
      * @param regex
      *            the regex pattern.
@@ -82,17 +250,23 @@ public class URLActionDataExecutableResult
      */
     public List<String> getByRegEx(final String regex)
     {
-        final List<String> resultList = new ArrayList<String>();
-        final Pattern pattern = Pattern.compile(regex);
-        final Matcher matcher = pattern.matcher(webResponse.getContentAsString());
-        while (matcher.find())
-        {
-            resultList.add(matcher.group());
-        }
-        return resultList;
+        return getByRegEx(PatternCache.get(regex));
     }
+
     /**
-     * Compiles the pattern and scans the request body for matches.
+     * Scans the request body for matches.
+     * 
+     * @param pattern
+     *            the compiled regex pattern.
+     * @return list of all the matches.
+     */
+    public List<String> getByRegEx(final Pattern pattern)
+    {
+        return getByRegExGroup(pattern, 0);
+    }
+
+    /**
+     * Compiles the pattern, if not cached yet, and scans the request body for matches.
      * 
      * @param regex
      *            the regex pattern.
@@ -100,16 +274,71 @@ public class URLActionDataExecutableResult
      */
     public List<String> getByRegExGroup(final String regex, final int group)
     {
-        final List<String> resultList = new ArrayList<String>();
-        final Pattern pattern = Pattern.compile(regex);
-        final Matcher matcher = pattern.matcher(webResponse.getContentAsString());
-        while (matcher.find())
+        return getByRegExGroup(PatternCache.get(regex), group);
+    }
+
+    /**
+     * Scans the request body for matches.
+     * 
+     * @param pattern
+     *            the compiled regex pattern.
+     * @param group
+     *            the capturing group to return.
+     * @return list of the capturing group of all the matches.
+     */
+    public List<String> getByRegExGroup(final Pattern pattern, final int group)
+    {
+        final List<String[]> matches = scanRegEx(pattern);
+        final List<String> resultList = new ArrayList<String>(matches.size());
+        for (final String[] groups : matches)
         {
-            resultList.add(matcher.group(group));
+            if (group < 0 || group >= groups.length)
+            {
+                throw new IndexOutOfBoundsException("No group " + group);
+            }
+            resultList.add(groups[group]);
         }
         return resultList;
     }
 
+    /**
+     * Scans the body for the pattern only once and keeps all groups of all matches.
+     */
+    private List<String[]> scanRegEx(final Pattern pattern)
+    {
+        List<String[]> matches = regexMatches.get(pattern.pattern());
+        if (matches == null)
+        {
+            matches = new ArrayList<String[]>();
+            final Matcher matcher = pattern.matcher(getContent());
+            final int groupCount = matcher.groupCount();
+            while (matcher.find())
+            {
+                final String[] groups = new String[groupCount + 1];
+                for (int i = 0; i <= groupCount; i++)
+                {
+                    groups[i] = matcher.group(i);
+                }
+                matches.add(groups);
+            }
+            regexMatches.put(pattern.pattern(), matches);
+        }
+        return matches;
+    }
+
+    /**
+     * @return the body of the response, decoded only once.
+     */
+    public String getContent()
+    {
+        if (!contentLoaded)
+        {
+            content = webResponse.getContentAsString();
+            contentLoaded = true;
+        }
+        return content;
+    }
+
     /**
      * @param headerName
      *            the name of the header
@@ -117,16 +346,31 @@ public class URLActionDataExecutableResult
      */
     public List<String> getHeaderByName(final String headerName)
     {
-        final List<String> resultList = new ArrayList<String>();
-        final List<NameValuePair> headers = this.webResponse.getResponseHeaders();
-        for (final NameValuePair header : headers)
+        if (headersByName == null)
         {
-            if (header.getName().equals(headerName))
+            headersByName = new HashMap<String, List<String>>();
+            for (final NameValuePair header : this.webResponse.getResponseHeaders())
             {
-                resultList.add(header.getValue());
+                getOrCreate(headersByName, header.getName()).add(header.getValue());
             }
         }
-        return resultList;
+        return copyOf(headersByName.get(headerName));
+    }
+
+    private static <T> List<T> getOrCreate(final Map<String, List<T>> map, final String key)
+    {
+        List<T> list = map.get(key);
+        if (list == null)
+        {
+            list = new ArrayList<T>(1);
+            map.put(key, list);
+        }
+        return list;
+    }
+
+    private static <T> List<T> copyOf(final List<T> list)
+    {
+        return (list == null) ? new ArrayList<T>() : new ArrayList<T>(list);
     }
 
     public List<NameValuePair> getHeaders()
@@ -158,19 +402,16 @@ public class URLActionDataExecutableResult
      */
     public List<NameValuePair> getCookieByName(final String cookieName)
     {
-        final List<HttpCookie> cookies = getSetCookiesFromHeaders();
-
-        final List<NameValuePair> resultCookies = new ArrayList<NameValuePair>();
-
-        for (final HttpCookie cookie : cookies)
+        if (cookiesByName == null)
         {
-            if (cookie.getName().equals(cookieName))
+            cookiesByName = new HashMap<String, List<NameValuePair>>();
+            for (final HttpCookie cookie : getSetCookiesFromHeaders())
             {
-                resultCookies.add(new NameValuePair(cookie.getName(),
-                                                    cookie.getValue()));
+                getOrCreate(cookiesByName, cookie.getName()).add(new NameValuePair(cookie.getName(),
+                                                                                   cookie.getValue()));
             }
         }
-        return resultCookies;
+        return copyOf(cookiesByName.get(cookieName));
     }
 
     /**
@@ -210,15 +451,17 @@ public class URLActionDataExecutableResult
 
     private List<HttpCookie> getSetCookiesFromHeaders()
     {
-        final List<NameValuePair> headers = this.getHeaders();
-
-        final List<HttpCookie> cookies = new ArrayList<HttpCookie>();
-        for (final NameValuePair header : headers)
+        if (cookies == null)
         {
-            if (header.getName().equalsIgnoreCase("Set-Cookie"))
+            final List<HttpCookie> parsedCookies = new ArrayList<HttpCookie>();
+            for (final NameValuePair header : this.getHeaders())
             {
-                cookies.addAll(HttpCookie.parse(header.getValue()));
+                if (header.getName().equalsIgnoreCase("Set-Cookie"))
+                {
+                    parsedCookies.addAll(HttpCookie.parse(header.getValue()));
+                }
             }
+            cookies = Collections.unmodifiableList(parsedCookies);
         }
         return cookies;
     }
@@ -231,8 +474,7 @@ public class URLActionDataExecutableResult
      */
     public List<HttpCookie> getHttpCookies()
     {
-        final List<HttpCookie> cookies = getSetCookiesFromHeaders();
-        return cookies;
+        return new ArrayList<HttpCookie>(getSetCookiesFromHeaders());
     }
 
 }
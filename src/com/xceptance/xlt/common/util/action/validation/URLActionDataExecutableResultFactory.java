@@ -1,5 +1,7 @@
 package com.xceptance.xlt.common.util.action.validation;
 
+import org.eclipse.jdt.annotation.Nullable;
+
 import com.gargoylesoftware.htmlunit.WebResponse;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import com.xceptance.xlt.api.htmlunit.LightWeightPage;
@@ -63,9 +65,18 @@ public class URLActionDataExecutableResultFactory
                                                                           final LightWeightPage lightWeightPage)
     {
         final WebResponse webResponse = lightWeightPage.getWebResponse();
-        final XPathWithLightWeightPage xPathWithLightWeightPage = new XPathWithLightWeightPage();
+        final XPathGetable xPathGetable;
+        if (XPathWithNonParseableWebResponse.isWebResponseXPathable(webResponse))
+        {
+            // e.g. JSON or XML content, that was loaded as page
+            xPathGetable = new XPathWithNonParseableWebResponse(webResponse);
+        }
+        else
+        {
+            xPathGetable = new XPathWithLightWeightPage(lightWeightPage);
+        }
         final URLActionDataExecutableResult result = new URLActionDataExecutableResult(webResponse,
-                                                                                       xPathWithLightWeightPage);
+                                                                                       xPathGetable);
         return result;
     }
 
@@ -83,6 +94,23 @@ public class URLActionDataExecutableResultFactory
         return result;
     }
 
+    /**
+     * 
+     * @param webResponse
+     * @param streamingValidation
+     *            validated the body while it was received, may be <code>null</code>
+     * @return
+     *  a wrapper for a {@link WebResponse}, whose body was possibly not kept.
+     */
+    public URLActionDataExecutableResult getResult(final WebResponse webResponse,
+                                                   @Nullable final StreamingValidation streamingValidation)
+    {
+        final URLActionDataExecutableResult result = getResult(webResponse);
+        result.setStreamingValidation(streamingValidation);
+
+        return result;
+    }
+
     private URLActionDataExecutableResult createResultFromWebResponse(
                                                                       final WebResponse webResponse)
     {
@@ -101,10 +129,14 @@ public class URLActionDataExecutableResultFactory
         {
             xPathGetble = new XPathWithParseableWebResponse(webResponse);
         }
-        else
+        else if (XPathWithNonParseableWebResponse.isWebResponseXPathable(webResponse))
         {
             xPathGetble = new XPathWithNonParseableWebResponse(webResponse);
         }
+        else
+        {
+            xPathGetble = new XPathWithUnsupportedWebResponse(webResponse.getContentType());
+        }
         return xPathGetble;
     }
 }
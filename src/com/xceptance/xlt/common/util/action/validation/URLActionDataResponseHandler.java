@@ -2,10 +2,14 @@ package com.xceptance.xlt.common.util.action.validation;
 
 import java.util.List;
 
+import org.eclipse.jdt.annotation.Nullable;
 import org.junit.Assert;
 
 import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.util.NoCodingEvents;
 import com.xceptance.xlt.common.util.ParameterUtils;
+import com.xceptance.xlt.common.util.StageTimers;
+import com.xceptance.xlt.common.util.StageTimers.Stage;
 import com.xceptance.xlt.common.util.action.data.URLActionData;
 import com.xceptance.xlt.common.util.action.data.URLActionDataStore;
 import com.xceptance.xlt.common.util.action.data.URLActionDataValidation;
@@ -26,6 +30,20 @@ public class URLActionDataResponseHandler
 
     private URLActionDataValidationResponseHandler validationHandler;
 
+    private StageTimers stageTimers;
+
+    /**
+     * Evaluates the {@link URLActionData#hasDeferrableValidations() deferrable validations}, <code>null</code> if they
+     * are evaluated right away.
+     */
+    private DeferredValidations deferredValidations;
+
+    /**
+     * The maximum length of a match of a {@link StreamingValidation}, <code>0</code> if bodies are not validated
+     * while they are received.
+     */
+    private int streamingMaxMatchLength;
+
     /**
      * 
      * @param storeHandler : for selecting elements of the response for dynamic 
@@ -38,6 +56,78 @@ public class URLActionDataResponseHandler
         XltLogger.runTimeLogger.debug("Creating new Instance");
         setStoreHandler(storeHandler);
         setValidationHandler(validationHandler);
+        this.stageTimers = new StageTimers(false);
+    }
+
+    /**
+     * @param stageTimers : measures the validations and the store items of the actions, as well as every single
+     * validation.
+     */
+    public void setStageTimers(final StageTimers stageTimers)
+    {
+        ParameterUtils.isNotNull(stageTimers, "StageTimers");
+        this.stageTimers = stageTimers;
+    }
+
+    /**
+     * @param deferredValidations : evaluates the validations of actions, that no later action depends on, while the
+     * next request is in flight. <code>null</code> to evaluate all validations right away.
+     */
+    public void setDeferredValidations(@Nullable final DeferredValidations deferredValidations)
+    {
+        this.deferredValidations = deferredValidations;
+    }
+
+    /**
+     * Lets the bodies of the actions, that {@link URLActionData#hasStreamableValidations() have streamable
+     * validations}, be validated while they are received.
+     * 
+     * @param maxMatchLength : the maximum length of a match in characters, see {@link StreamingValidation}.
+     */
+    public void enableStreamingValidation(final int maxMatchLength)
+    {
+        if (maxMatchLength <= 0)
+        {
+            throw new IllegalArgumentException("Maximum match length must be positive: " + maxMatchLength);
+        }
+        this.streamingMaxMatchLength = maxMatchLength;
+    }
+
+    /**
+     * @param action : the action, whose request is about to be executed.
+     * @return the {@link StreamingValidation} for the response of the action, <code>null</code> if the body must be
+     * kept or streaming validation is not enabled.
+     */
+    @Nullable
+    public StreamingValidation createStreamingValidation(final URLActionData action)
+    {
+        if (streamingMaxMatchLength > 0 && action.hasStreamableValidations())
+        {
+            return new StreamingValidation(action, streamingMaxMatchLength);
+        }
+        return null;
+    }
+
+    /**
+     * Waits for the deferred validations and rethrows the first failure, attributed to its action.
+     */
+    public void awaitDeferredValidations()
+    {
+        if (deferredValidations != null)
+        {
+            deferredValidations.awaitAll();
+        }
+    }
+
+    /**
+     * Drops the deferred validations, that did not start yet.
+     */
+    public void cancelDeferredValidations()
+    {
+        if (deferredValidations != null)
+        {
+            deferredValidations.cancel();
+        }
     }
 
     private void setStoreHandler(final URLActionDataStoreResponseHandler storeHandler)
@@ -60,6 +150,10 @@ public class URLActionDataResponseHandler
      * <li> validates the response content via the {@link URLActionDataStoreResponseHandler store handler}.
      * <li> Validates the response content via the {@link URLActionDataValidationResponseHandler validation handle}.
      * </ul>
+     * If the validations of the action are {@link URLActionData#hasDeferrableValidations() deferrable} and the result
+     * does not {@link URLActionDataExecutableResult#wrapsLivePage() wrap the page of the web client}, the store items
+     * are handled first and the validations are handed over to the {@link DeferredValidations}. Failures of previously
+     * deferred validations are rethrown before.
      * @param action : the {@link URLActionData}, that describes the request.
      * @param result : the {@link URLActionDataExecutableResult}, that holds the response data.
      */
@@ -70,6 +164,10 @@ public class URLActionDataResponseHandler
         ParameterUtils.isNotNull(result, "URLActionDataResult");
         XltLogger.runTimeLogger.debug("Handling Response for URLActionData: "
                                       + action.getName());
+        if (deferredValidations != null)
+        {
+            deferredValidations.checkFailures();
+        }
         handleResponse(action, result);
 
     }
@@ -78,28 +176,127 @@ public class URLActionDataResponseHandler
                                 final URLActionDataExecutableResult result)
     {
         validateResponseCode(action, result);
-        handleValidations(action, result);
+        if (deferredValidations != null && action.hasDeferrableValidations() && !result.wrapsLivePage())
+        {
+            handleStore(action, result);
+            deferValidations(action, result);
+            return;
+        }
+        handleValidations(action.getValidations(), result);
         handleStore(action, result);
     }
 
+    /**
+     * The store items were handled before and the user thread drops the result right after, so from now on the result
+     * is read by the worker only. It does not wrap the page of the web client, so the worker does not touch anything the
+     * user thread still uses. The validations are static and do not touch the interpreter. They are not part of the
+     * {@link StageTimers}, which belong to the user thread.
+     */
+    private void deferValidations(final URLActionData action,
+                                  final URLActionDataExecutableResult result)
+    {
+        final List<URLActionDataValidation> validations = action.getValidations();
+        deferredValidations.submit(action.getName(), new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (final URLActionDataValidation validation : validations)
+                {
+                    validate(validation, result);
+                }
+            }
+        });
+    }
+
     private void handleStore(final URLActionData action,
                              final URLActionDataExecutableResult result)
     {
+        final long start = stageTimers.start();
         final List<URLActionDataStore> store = action.getStore();
         for (final URLActionDataStore storeItem : store)
         {
-            storeHandler.handleStore(storeItem, result);
+            final NoCodingEvents.Event event = NoCodingEvents.begin(NoCodingEvents.STORE);
+            try
+            {
+                storeHandler.handleStore(storeItem, result);
+            }
+            finally
+            {
+                if (event != null)
+                {
+                    commitStoreEvent(event, storeItem);
+                }
+            }
         }
+        stageTimers.stop(Stage.STORE, start);
     }
 
-    private void handleValidations(final URLActionData action,
+    private void handleValidations(final List<URLActionDataValidation> validations,
                                    final URLActionDataExecutableResult result)
     {
-        final List<URLActionDataValidation> validations = action.getValidations();
         for (final URLActionDataValidation validation : validations)
+        {
+            final long start = stageTimers.start();
+            validate(validation, result);
+            if (stageTimers.isEnabled())
+            {
+                stageTimers.stopValidation(validation.getName(), start);
+            }
+        }
+    }
+
+    private void validate(final URLActionDataValidation validation,
+                          final URLActionDataExecutableResult result)
+    {
+        final NoCodingEvents.Event event = NoCodingEvents.begin(NoCodingEvents.VALIDATION);
+        try
         {
             validationHandler.validate(validation, result);
         }
+        finally
+        {
+            if (event != null)
+            {
+                commitValidationEvent(event, validation);
+            }
+        }
+    }
+
+    /**
+     * Invalid data is reported by the validation itself, the event must not hide that.
+     */
+    private void commitValidationEvent(final NoCodingEvents.Event event,
+                                       final URLActionDataValidation validation)
+    {
+        try
+        {
+            event.commit(validation.getName(),
+                         validation.getSelectionMode(),
+                         validation.getSelectionContent());
+        }
+        catch (final RuntimeException e)
+        {
+            event.commit(validation.getName());
+        }
+    }
+
+    /**
+     * Invalid data is reported by the store item itself, the event must not hide that.
+     */
+    private void commitStoreEvent(final NoCodingEvents.Event event,
+                                  final URLActionDataStore storeItem)
+    {
+        try
+        {
+            event.commit(storeItem.getName(),
+                         storeItem.getSelectionMode(),
+                         storeItem.getSelectionContent());
+        }
+        catch (final RuntimeException e)
+        {
+            event.commit(storeItem.getName());
+        }
     }
 
     private void validateResponseCode(final URLActionData action,
@@ -70,6 +70,15 @@ public class URLActionDataStoreResponseHandler
 		case URLActionDataStore.REGEXP:
 			handleRegExStoreItem(storeItem, result);
 			break;
+		case URLActionDataStore.JSONPATH:
+			handleJSONPathStoreItem(storeItem, result);
+			break;
+		case URLActionDataStore.CSS:
+			handleCSSStoreItem(storeItem, result);
+			break;
+		case URLActionDataStore.BETWEEN:
+			handleBetweenStoreItem(storeItem, result);
+			break;
 		case URLActionDataStore.HEADER:
 			handleHeaderStoreItem(storeItem, result);
 			break;
@@ -121,6 +130,50 @@ public class URLActionDataStoreResponseHandler
 
 	}
 
+	private void handleJSONPathStoreItem(final URLActionDataStore storeItem,
+			final URLActionDataExecutableResult result) throws EvalError
+	{
+		final List<String> jsonList = result.getByJSONPath(storeItem.getSelectionContent());
+		if (!(jsonList.isEmpty()))
+		{
+			storeContentInterpreter(storeItem, jsonList.get(0));
+		}
+		else
+		{
+			throwExceptionBecauseNothingWasFound(storeItem);
+		}
+	}
+
+	private void handleCSSStoreItem(final URLActionDataStore storeItem,
+			final URLActionDataExecutableResult result) throws EvalError
+	{
+		final List<String> cssList = result.getByCSS(storeItem.getSelectionContent());
+		if (!(cssList.isEmpty()))
+		{
+			storeContentInterpreter(storeItem, cssList.get(0));
+		}
+		else
+		{
+			throwExceptionBecauseNothingWasFound(storeItem);
+		}
+	}
+
+	private void handleBetweenStoreItem(final URLActionDataStore storeItem,
+			final URLActionDataExecutableResult result) throws EvalError
+	{
+		final List<String> betweenList = result.getByBoundaries(storeItem.getSelectionContent(),
+				storeItem.getRightBoundary(),
+				storeItem.getOccurrence());
+		if (!(betweenList.isEmpty()))
+		{
+			storeContentInterpreter(storeItem, betweenList.get(0));
+		}
+		else
+		{
+			throwExceptionBecauseNothingWasFound(storeItem);
+		}
+	}
+
 	private void handleRegExStoreItem(final URLActionDataStore storeItem,
 			final URLActionDataExecutableResult result) throws EvalError
 	{
@@ -138,7 +191,7 @@ public class URLActionDataStoreResponseHandler
 			handleRegExStoreItemWithoutSubSelection(final URLActionDataStore storeItem,
 					final URLActionDataExecutableResult result) throws EvalError
 	{
-		final List<String> regexList = result.getByRegEx(storeItem.getSelectionContent());
+		final List<String> regexList = result.getByRegEx(storeItem.getSelectionContentAsPattern());
 		if (!(regexList.isEmpty()))
 		{
 			storeContentInterpreter(storeItem, regexList.get(0));
@@ -155,7 +208,7 @@ public class URLActionDataStoreResponseHandler
 	{
 		if (URLActionDataStore.REGEXGROUP.equals(storeItem.getSubSelectionMode()))
 		{
-			final List<String> regexList = result.getByRegExGroup(storeItem.getSelectionContent(),
+			final List<String> regexList = result.getByRegExGroup(storeItem.getSelectionContentAsPattern(),
 					Integer.valueOf(storeItem.getSubSelectionContent()));
 			if (!(regexList.isEmpty()))
 			{
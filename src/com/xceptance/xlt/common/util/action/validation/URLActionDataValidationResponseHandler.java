@@ -20,6 +20,8 @@ import com.xceptance.xlt.common.util.action.data.URLActionDataValidation;
  * <li>Validates the result of the selection with the described validationMode & validationContent in
  * {@link URLActionDataStore}.
  * <li>For this use {@link #validate(URLActionDataValidation, URLActionDataExecutableResult) validate()}.
+ * <li>If the body was validated while it was received, 'Regex' and 'Between' selections yield the first match of the
+ * {@link StreamingValidation}.
  * </ul>
  * 
  * @author matthias mitterreiter
@@ -88,6 +90,15 @@ public class URLActionDataValidationResponseHandler
             case URLActionDataValidation.REGEXP:
                 resultSelection = handleRegExValidationItem(validation, result);
                 break;
+            case URLActionDataValidation.JSONPATH:
+                resultSelection = handleJSONPathValidationItem(validation, result);
+                break;
+            case URLActionDataValidation.CSS:
+                resultSelection = handleCSSValidationItem(validation, result);
+                break;
+            case URLActionDataValidation.BETWEEN:
+                resultSelection = handleBetweenValidationItem(validation, result);
+                break;
             case URLActionDataValidation.HEADER:
                 resultSelection = handleHeaderValidationItem(validation, result);
                 break;
@@ -162,13 +173,12 @@ public class URLActionDataValidationResponseHandler
         validateExists(resultSelection, validation);
 
         final String matcherString = resultSelection.get(0);
-        final String patternString = validation.getValidationContent();
+        final Pattern pattern = validation.getValidationContentAsPattern();
 
         XltLogger.runTimeLogger.debug("Validating  \"" + validation.getName()
                                       + "\": MATCHES: \"" + matcherString
-                                      + "\" matches \"" + patternString + "\"");
+                                      + "\" matches \"" + pattern.pattern() + "\"");
 
-        final Pattern pattern = Pattern.compile(patternString);
         final Matcher matcher = pattern.matcher(matcherString);
 
         Assert.assertTrue(getFailMessage(validation), matcher.find());
@@ -192,6 +202,31 @@ public class URLActionDataValidationResponseHandler
                             actualText);
     }
 
+    private List<String> handleJSONPathValidationItem(final URLActionDataValidation validation,
+                                                      final URLActionDataExecutableResult result)
+    {
+        return result.getByJSONPath(validation.getSelectionContent());
+    }
+
+    private List<String> handleCSSValidationItem(final URLActionDataValidation validation,
+                                                 final URLActionDataExecutableResult result)
+    {
+        return result.getByCSS(validation.getSelectionContent());
+    }
+
+    private List<String> handleBetweenValidationItem(final URLActionDataValidation validation,
+                                                     final URLActionDataExecutableResult result)
+    {
+        final StreamingValidation streamingValidation = result.getStreamingValidation();
+        if (streamingValidation != null)
+        {
+            return streamingValidation.getSelection(validation);
+        }
+        return result.getByBoundaries(validation.getSelectionContent(),
+                                      validation.getRightBoundary(),
+                                      validation.getOccurrence());
+    }
+
     private List<String> handleCookieValidationItem(final URLActionDataValidation validation,
                                                     final URLActionDataExecutableResult result)
     {
@@ -208,7 +243,12 @@ public class URLActionDataValidationResponseHandler
     private List<String> handleRegExValidationItem(final URLActionDataValidation validation,
                                                    final URLActionDataExecutableResult result)
     {
-        return result.getByRegEx(validation.getSelectionContent());
+        final StreamingValidation streamingValidation = result.getStreamingValidation();
+        if (streamingValidation != null)
+        {
+            return streamingValidation.getSelection(validation);
+        }
+        return result.getByRegEx(validation.getSelectionContentAsPattern());
 
     }
 
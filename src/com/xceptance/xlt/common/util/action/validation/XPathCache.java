@@ -0,0 +1,110 @@
+package com.xceptance.xlt.common.util.action.validation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import com.xceptance.xlt.api.util.XltLogger;
+
+/**
+ * Caches the JAXP objects, that are needed to select elements of XML and JSON responses by xpath. <br>
+ * Looking up the factories and compiling the expressions is expensive, but the JAXP objects are not thread safe.
+ * Therefore every thread keeps its own instances:
+ * <ul>
+ * <li>one {@link XPath} and the {@link XPathExpression}s it compiled, keyed by the expression string. The least
+ * recently used expressions are dropped, as soon as {@link #MAX_EXPRESSIONS} is exceeded.
+ * <li>one {@link DocumentBuilder}, which is reset before every use.
+ * </ul>
+ */
+public final class XPathCache
+{
+    /**
+     * Maximum number of compiled expressions per thread.
+     */
+    static final int MAX_EXPRESSIONS = 1000;
+
+    private static final ThreadLocal<XPath> XPATHS = new ThreadLocal<XPath>()
+    {
+        @Override
+        protected XPath initialValue()
+        {
+            XltLogger.runTimeLogger.debug("Creating new XPath");
+            return XPathFactory.newInstance().newXPath();
+        }
+    };
+
+    private static final ThreadLocal<Map<String, XPathExpression>> EXPRESSIONS = new ThreadLocal<Map<String, XPathExpression>>()
+    {
+        @Override
+        protected Map<String, XPathExpression> initialValue()
+        {
+            return new LinkedHashMap<String, XPathExpression>(64, 0.75f, true)
+            {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, XPathExpression> eldest)
+                {
+                    return size() > MAX_EXPRESSIONS;
+                }
+            };
+        }
+    };
+
+    private static final ThreadLocal<DocumentBuilder> DOCUMENTBUILDERS = new ThreadLocal<DocumentBuilder>();
+
+    private XPathCache()
+    {
+    }
+
+    /**
+     * Returns the compiled expression of the current thread, compiles it on first use.
+     *
+     * @param xPath
+     *            the xpath
+     * @return the compiled expression
+     * @throws XPathExpressionException
+     *             if the xpath cannot be compiled
+     */
+    public static XPathExpression getExpression(final String xPath) throws XPathExpressionException
+    {
+        final Map<String, XPathExpression> expressions = EXPRESSIONS.get();
+        XPathExpression expression = expressions.get(xPath);
+        if (expression == null)
+        {
+            expression = XPATHS.get().compile(xPath);
+            expressions.put(xPath, expression);
+        }
+        return expression;
+    }
+
+    /**
+     * Returns the document builder of the current thread in its initial state, creates it on first use.
+     *
+     * @return the document builder
+     * @throws ParserConfigurationException
+     *             if no document builder can be created
+     */
+    public static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException
+    {
+        DocumentBuilder documentBuilder = DOCUMENTBUILDERS.get();
+        if (documentBuilder == null)
+        {
+            XltLogger.runTimeLogger.debug("Creating new DocumentBuilder");
+            documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            DOCUMENTBUILDERS.set(documentBuilder);
+        }
+        else
+        {
+            documentBuilder.reset();
+        }
+        return documentBuilder;
+    }
+}
@@ -1,36 +1,104 @@
 package com.xceptance.xlt.common.util.action.validation;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import javax.xml.xpath.XPathConstants;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
 import com.xceptance.xlt.api.htmlunit.LightWeightPage;
 import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.util.ParameterUtils;
 
 /**
  * Implementation of {@link XPathGetable}. <br>
- * Offers a simple way to throw a IllegalArgumentException.<br>
  * Objects of the class {@link LightWeightPage} are not parsed into the DOM. <br>
- * Therefore its is impossible to select anything by XPath.
- * {@link #getByXPath(String)}.
- * 
+ * To select elements by xpath anyway, the content of the page is parsed into a lightweight tree via
+ * {@link LightWeightHtmlParser}, which knows neither CSS nor JavaScript.
+ * <ul>
+ * <li>Parses automatically, only when needed and only once via {@link #getByXPath(String)}.
+ * <li>Compiled xpaths are reused via {@link XPathCache}.
+ * <li>The elements get parsed to Strings via getTextContent(), like for the {@link XPathWithHtmlPage}.
+ * </ul>
+ *
  * @author matthias mitterreiter
  */
 public class XPathWithLightWeightPage implements XPathGetable
 {
-    public XPathWithLightWeightPage()
+    private LightWeightPage lightWeightPage;
+
+    private Document document;
+
+    /**
+     * @param lightWeightPage
+     *            the page whose content should be parsed.
+     */
+    public XPathWithLightWeightPage(final LightWeightPage lightWeightPage)
     {
         XltLogger.runTimeLogger.debug("Creating new Instance");
+        setLightWeightPage(lightWeightPage);
+    }
+
+    private void setLightWeightPage(final LightWeightPage lightWeightPage)
+    {
+        ParameterUtils.isNotNull(lightWeightPage, "LightWeightPage");
+        this.lightWeightPage = lightWeightPage;
     }
 
     /**
-     * Alway throws.
-     * 
+     * Parses the content of the {@link LightWeightPage} only if necessary and only once. <br>
+     *
      * @throws IllegalArgumentException
+     *             if the xpath is invalid or does not select nodes.
      */
     @Override
     public List<String> getByXPath(final String xPath)
     {
-        XltLogger.runTimeLogger.error("It is not possible to get elements by xpath from a LightWeightPage!");
-        throw new IllegalArgumentException("It is not possible to get elements by xpath from a LightWeightPage!");
+        loadDocumentIfNecessary();
+
+        XltLogger.runTimeLogger.debug("Getting Elements by XPath: " + xPath);
+        final NodeList nodeList;
+        try
+        {
+            nodeList = (NodeList) XPathCache.getExpression(xPath).evaluate(this.document,
+                                                                            XPathConstants.NODESET);
+        }
+        catch (final Exception e)
+        {
+            throw new IllegalArgumentException("Failed to get Elements by XPath: "
+                                               + xPath
+                                               + ", Because: "
+                                               + e.getMessage());
+        }
+
+        final List<String> resultList = new ArrayList<String>(nodeList.getLength());
+        for (int i = 0; i < nodeList.getLength(); i++)
+        {
+            final Node node = nodeList.item(i);
+            final String elementAsString = node.getTextContent();
+            XltLogger.runTimeLogger.debug("Found Element: " + elementAsString);
+            resultList.add(elementAsString);
+        }
+        return resultList;
     }
 
+    private void loadDocumentIfNecessary()
+    {
+        if (this.document == null)
+        {
+            XltLogger.runTimeLogger.debug("Parsing LightWeightPage");
+            try
+            {
+                this.document = LightWeightHtmlParser.parse(this.lightWeightPage.getContent());
+            }
+            catch (final Exception e)
+            {
+                throw new IllegalArgumentException("Failed to parse LightWeightPage, because: "
+                                                   + e.getMessage(), e);
+            }
+        }
+    }
 }
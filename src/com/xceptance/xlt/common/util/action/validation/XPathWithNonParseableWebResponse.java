@@ -6,13 +6,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.json.JSONObject;
 import org.w3c.dom.Document;
@@ -44,6 +40,7 @@ import com.xceptance.xlt.common.util.ParameterUtils;
  * <li>Parses automatically and only when needed via {@link #getByXPath(String)}.
  * <li>If the content of a WebResponse is not parsable, but the method {@link #getByXPath(String)} is not calles,
  * nothing happens.
+ * <li>Compiled xpaths and document builders are reused via {@link XPathCache}.
  * </ul>
  * 
  * @author matthias mitterreiter
@@ -52,8 +49,6 @@ public class XPathWithNonParseableWebResponse implements XPathGetable
 {
     private WebResponse webResponse;
 
-    private XPath xPath;
-
     private Document xmlInputSource;
 
     static final HashMap<String, String> SUPPORTEDHEADERCONTENTTYPES = new HashMap<String, String>();
@@ -135,7 +130,6 @@ public class XPathWithNonParseableWebResponse implements XPathGetable
         throws ParserConfigurationException, SAXException, IOException
     {
         loadXMLSourceFromWebResponseIfNecessary();
-        createXPathIfNecessary();
     }
 
     private void loadXMLSourceFromWebResponseIfNecessary()
@@ -147,14 +141,6 @@ public class XPathWithNonParseableWebResponse implements XPathGetable
         }
     }
 
-    private void createXPathIfNecessary()
-    {
-        if (this.xPath == null)
-        {
-            createXPath();
-        }
-    }
-
     private List<String> createStringListFromNodeList(final NodeList nodeList)
     {
         final List<String> resultList = new ArrayList<String>();
@@ -174,7 +160,7 @@ public class XPathWithNonParseableWebResponse implements XPathGetable
         NodeList list = new ConcreteNodeList();
         try
         {
-            list = (NodeList) this.xPath.compile(xPath)
+            list = (NodeList) XPathCache.getExpression(xPath)
                                         .evaluate(this.xmlInputSource,
                                                   XPathConstants.NODESET);
         }
@@ -186,13 +172,6 @@ public class XPathWithNonParseableWebResponse implements XPathGetable
         return list;
     }
 
-    private void createXPath()
-    {
-        XltLogger.runTimeLogger.debug("Creating new XPath");
-        final XPathFactory xpathFactory = XPathFactory.newInstance();
-        this.xPath = xpathFactory.newXPath();
-    }
-
     private void createXMLSourceFromWebResponseContent()
         throws ParserConfigurationException, SAXException, IOException
     {
@@ -240,9 +219,7 @@ public class XPathWithNonParseableWebResponse implements XPathGetable
         throws SAXException, IOException, ParserConfigurationException
     {
         final InputSource source = new InputSource(new StringReader(xmlString));
-        final DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        final DocumentBuilder db = dbf.newDocumentBuilder();
-        final Document document = db.parse(source);
+        final Document document = XPathCache.getDocumentBuilder().parse(source);
         return document;
     }
 
@@ -253,6 +230,15 @@ public class XPathWithNonParseableWebResponse implements XPathGetable
         return document;
     }
 
+    /**
+     * @param webResponse
+     * @return true only if the content of the webResponse can be parsed so that elements can be selected by xpath.
+     */
+    public static boolean isWebResponseXPathable(final WebResponse webResponse)
+    {
+        return SUPPORTEDHEADERCONTENTTYPES.containsKey(webResponse.getContentType());
+    }
+
     /**
      * 
      * @param contentType mime-type of the WebResponse
@@ -0,0 +1,38 @@
+package com.xceptance.xlt.common.util.action.validation;
+
+import java.util.List;
+
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.xceptance.xlt.api.util.XltLogger;
+
+/**
+ * Implementation of {@link XPathGetable}. <br>
+ * Stands in for {@link WebResponse} objects, whose content type can neither be parsed into the DOM nor into XML, e.g.
+ * plain text or images. The response is still usable for regular expressions, headers and cookies, but
+ * {@link #getByXPath(String)} always throws an IllegalArgumentException.
+ */
+public class XPathWithUnsupportedWebResponse implements XPathGetable
+{
+    private final String contentType;
+
+    /**
+     * @param contentType
+     *            mime-type of the WebResponse
+     */
+    public XPathWithUnsupportedWebResponse(final String contentType)
+    {
+        XltLogger.runTimeLogger.debug("Creating new Instance");
+        this.contentType = contentType;
+    }
+
+    /**
+     * Alway throws.
+     * 
+     * @throws IllegalArgumentException
+     */
+    @Override
+    public List<String> getByXPath(final String xPath)
+    {
+        throw new IllegalArgumentException("Parsing content of type: '" + contentType + "' is not supported");
+    }
+}
@@ -0,0 +1,37 @@
+package com.xceptance.xlt.common.util.async;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+
+/**
+ * Receives the body of a response while it arrives, instead of the body being kept for the {@link AsyncHttpFuture
+ * response}. <br>
+ * The methods are called by the event loop thread, so they must neither block nor throw. The thread, that waits for the
+ * response via {@link AsyncHttpFuture#get()}, sees everything the consumer did before.
+ */
+public interface AsyncHttpBodyConsumer
+{
+    /**
+     * Called once the headers of the final response are complete, i.e. neither for interim responses nor for
+     * redirects.
+     *
+     * @param statusCode
+     *            the status code of the response
+     * @param headers
+     *            the headers of the response
+     * @return <code>true</code> to take over the body, which is not kept for the response then. <code>false</code> to
+     *         keep the body as usual, the consumer is not called again.
+     */
+    public boolean headersReceived(final int statusCode, final List<NameValuePair> headers);
+
+    /**
+     * Called for every part of the body, that arrives, if the consumer took over the body.
+     *
+     * @param data
+     *            the next part of the body, as received, i.e. still content encoded. Must not be kept.
+     * @return whether further parts are needed. If not, the rest of the body is only counted.
+     */
+    public boolean bodyReceived(final ByteBuffer data);
+}
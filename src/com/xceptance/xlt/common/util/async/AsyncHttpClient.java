@@ -0,0 +1,729 @@
+package com.xceptance.xlt.common.util.async;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.message.BasicNameValuePair;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.util.ParameterUtils;
+import com.xceptance.xlt.common.util.async.AsyncHttpEngine.EventLoop;
+
+/**
+ * Executes {@link WebRequest}s on the {@link AsyncHttpEngine} and delivers {@link WebResponse}s, without blocking a
+ * thread while waiting for the network. <br>
+ * A client belongs to a single virtual user. Like a browser, it keeps
+ * <ul>
+ * <li>the cookies, that were set by the server,
+ * <li>a pool of keep-alive connections per origin,
+ * <li>default headers, that are sent with every request, unless the request sets them itself.
+ * </ul>
+ * The host name is resolved by the thread, that calls {@link #execute(WebRequest, boolean)}. Certificates are verified
+ * against the trust store of the JVM, unless {@link #setTrustAllCertificates(boolean) all certificates are trusted}.
+ * Requests may go through an {@link #setProxy(String, int, String, String) HTTP proxy}, secure ones are tunneled via
+ * CONNECT. <br>
+ * The client speaks plain HTTP/1.1 only. It does not support HTTP/2, authentication schemes other than basic, or
+ * proxies other than HTTP proxies.
+ */
+public class AsyncHttpClient
+{
+    /**
+     * Maximum number of redirects followed for a single request.
+     */
+    public static final int MAX_REDIRECTS = 10;
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private final EventLoop loop;
+
+    private final CookieManager cookieManager = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+
+    private final Map<String, String> defaultHeaders = new LinkedHashMap<String, String>();
+
+    /**
+     * Idle keep-alive connections by origin. Only accessed by the loop thread.
+     */
+    private final Map<String, ArrayDeque<AsyncHttpConnection>> idleConnections = new HashMap<String, ArrayDeque<AsyncHttpConnection>>();
+
+    private long timeout = 30000;
+
+    private boolean redirectEnabled = true;
+
+    private String[] sslProtocols;
+
+    private SSLContext sslContext;
+
+    private boolean trustAllCertificates;
+
+    /**
+     * Host of the HTTP proxy, <code>null</code> to connect directly.
+     */
+    private String proxyHost;
+
+    private int proxyPort;
+
+    /**
+     * The 'Proxy-Authorization' header, <code>null</code> if the proxy needs no credentials.
+     */
+    private String proxyAuthorization;
+
+    /**
+     * Hosts, that are connected directly, even if there is a proxy.
+     */
+    private final List<Pattern> proxyBypassHosts = new ArrayList<Pattern>();
+
+    private volatile boolean closed;
+
+    /**
+     * @param engine
+     *            the engine, that carries the requests of this client
+     */
+    public AsyncHttpClient(final AsyncHttpEngine engine)
+    {
+        ParameterUtils.isNotNull(engine, "AsyncHttpEngine");
+        this.loop = engine.nextLoop();
+        setDefaultHeader("Accept-Encoding", "gzip, deflate");
+        XltLogger.runTimeLogger.debug("Creating new Instance");
+    }
+
+    /**
+     * @param timeout
+     *            the maximum time for a single request on the wire, including connecting, in milliseconds
+     */
+    public void setTimeout(final long timeout)
+    {
+        if (timeout <= 0)
+        {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+        }
+        this.timeout = timeout;
+    }
+
+    public void setRedirectEnabled(final boolean redirectEnabled)
+    {
+        this.redirectEnabled = redirectEnabled;
+    }
+
+    /**
+     * Sets a header, that is sent with every request, unless the request sets it itself.
+     */
+    public void setDefaultHeader(final String name, final String value)
+    {
+        ParameterUtils.isNotNull(name, "name");
+        ParameterUtils.isNotNull(value, "value");
+        defaultHeaders.put(name, value);
+    }
+
+    /**
+     * @param sslProtocols
+     *            the enabled TLS protocols, <code>null</code> for the defaults of the JVM
+     */
+    public void setSslProtocols(final String[] sslProtocols)
+    {
+        this.sslProtocols = sslProtocols;
+    }
+
+    /**
+     * @param trustAllCertificates
+     *            whether every certificate is trusted and the host name is not verified, like in the SSL easy mode of
+     *            XLT. Otherwise the trust store of the JVM applies.
+     */
+    public void setTrustAllCertificates(final boolean trustAllCertificates)
+    {
+        if (this.trustAllCertificates != trustAllCertificates)
+        {
+            this.trustAllCertificates = trustAllCertificates;
+            this.sslContext = null;
+        }
+    }
+
+    /**
+     * Sends all requests through the HTTP proxy, except for the requests to {@link #addProxyBypassHost(String)
+     * bypassed hosts}.
+     *
+     * @param host
+     *            the host of the proxy
+     * @param port
+     *            the port of the proxy
+     * @param userName
+     *            the user name for basic authentication at the proxy, <code>null</code> if the proxy needs no
+     *            credentials
+     * @param password
+     *            the password for basic authentication at the proxy
+     */
+    public void setProxy(final String host, final int port, final String userName, final String password)
+    {
+        ParameterUtils.isNotNull(host, "host");
+        this.proxyHost = host;
+        this.proxyPort = port;
+        if (userName == null || userName.isEmpty())
+        {
+            this.proxyAuthorization = null;
+        }
+        else
+        {
+            final String userPass = userName + ":" + (password == null ? "" : password);
+            this.proxyAuthorization = "Basic " + Base64.encodeBase64String(userPass.getBytes(ISO_8859_1));
+        }
+    }
+
+    /**
+     * @param hostPattern
+     *            regular expression for hosts, that are connected directly, even if there is a proxy
+     */
+    public void addProxyBypassHost(final String hostPattern)
+    {
+        ParameterUtils.isNotNull(hostPattern, "hostPattern");
+        proxyBypassHosts.add(Pattern.compile(hostPattern));
+    }
+
+    /**
+     * Sends the request and returns immediately.
+     *
+     * @param request
+     *            the request
+     * @param keepBody
+     *            whether the body of the response is kept, otherwise it is only counted, e.g. for static content
+     * @return the pending response
+     */
+    public AsyncHttpFuture execute(final WebRequest request, final boolean keepBody)
+    {
+        ParameterUtils.isNotNull(request, "WebRequest");
+        if (closed)
+        {
+            throw new IllegalStateException("Client is closed");
+        }
+        final AsyncHttpFuture future = new AsyncHttpFuture(keepBody, null);
+        send(request, future, null, 0);
+        return future;
+    }
+
+    /**
+     * Sends the request and returns immediately. The body of the final response is offered to the consumer, while it
+     * arrives. It is kept for the response only, if the consumer does not take it over.
+     *
+     * @param request
+     *            the request
+     * @param consumer
+     *            is offered the body, <code>null</code> to keep the body
+     * @return the pending response
+     */
+    public AsyncHttpFuture execute(final WebRequest request, final AsyncHttpBodyConsumer consumer)
+    {
+        ParameterUtils.isNotNull(request, "WebRequest");
+        if (closed)
+        {
+            throw new IllegalStateException("Client is closed");
+        }
+        final AsyncHttpFuture future = new AsyncHttpFuture(true, consumer);
+        send(request, future, null, 0);
+        return future;
+    }
+
+    /**
+     * Sends the request and returns immediately. The body of the response is kept.
+     *
+     * @param request
+     *            the request
+     * @return the pending response
+     */
+    public AsyncHttpFuture execute(final WebRequest request)
+    {
+        return execute(request, true);
+    }
+
+    /**
+     * Closes the idle connections. Requests in progress are finished, but their connections are not kept alive.
+     */
+    public void close()
+    {
+        closed = true;
+        loop.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                final List<AsyncHttpConnection> connections = new ArrayList<AsyncHttpConnection>();
+                for (final ArrayDeque<AsyncHttpConnection> pool : idleConnections.values())
+                {
+                    connections.addAll(pool);
+                }
+                for (final AsyncHttpConnection connection : connections)
+                {
+                    loop.close(connection);
+                }
+            }
+        });
+    }
+
+    boolean isClosed()
+    {
+        return closed;
+    }
+
+    /**
+     * Serializes the request and hands it over to the loop.
+     *
+     * @param knownAddress
+     *            the resolved address of the request's host, <code>null</code> if it has to be resolved
+     */
+    private void send(final WebRequest request, final AsyncHttpFuture future, final InetSocketAddress knownAddress,
+                      final int redirects)
+    {
+        final AsyncHttpExchange exchange;
+        try
+        {
+            final URL url = request.getUrl();
+            final boolean proxied = usesProxy(url);
+            final InetSocketAddress address;
+            if (knownAddress != null)
+            {
+                address = knownAddress;
+            }
+            else
+            {
+                address = proxied ? new InetSocketAddress(proxyHost, proxyPort)
+                                  : new InetSocketAddress(url.getHost(), getPort(url));
+            }
+            if (address.isUnresolved())
+            {
+                throw new UnknownHostException(address.getHostString());
+            }
+            final boolean secure = "https".equalsIgnoreCase(url.getProtocol());
+            exchange = new AsyncHttpExchange(this, future, request, address,
+                                             (proxied && secure) ? serializeConnect(url) : null,
+                                             serialize(request, proxied && !secure), redirects, timeout);
+        }
+        catch (final IOException e)
+        {
+            future.addHop(new AsyncHttpFuture.Hop(request.getUrl(), System.currentTimeMillis(), 0, 0, null, 0, 0));
+            future.fail(e);
+            return;
+        }
+
+        if (loop.inLoop())
+        {
+            loop.start(exchange);
+        }
+        else
+        {
+            loop.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    loop.start(exchange);
+                }
+            });
+        }
+    }
+
+    /**
+     * Called by the loop, as soon as the response of the exchange is complete.
+     */
+    void onResponse(final AsyncHttpExchange exchange)
+    {
+        final AsyncHttpResponseParser parser = exchange.parser;
+        final AsyncHttpFuture future = exchange.future;
+        final long now = System.currentTimeMillis();
+        future.addHop(new AsyncHttpFuture.Hop(exchange.url, exchange.startTime, now - exchange.startTime,
+                                              parser.getStatusCode(), parser.getHeader("Content-Type"),
+                                              exchange.getBytesSent(), parser.getBytesReceived()));
+        storeCookies(exchange.url, parser.getHeaders());
+
+        final WebRequest redirect = getRedirect(exchange);
+        if (redirect != null)
+        {
+            final URL target = redirect.getUrl();
+            final boolean sameOrigin = target.getProtocol().equalsIgnoreCase(exchange.url.getProtocol())
+                                       && target.getHost().equalsIgnoreCase(exchange.url.getHost())
+                                       && getPort(target) == getPort(exchange.url);
+            send(redirect, future, sameOrigin ? exchange.address : null, exchange.redirects + 1);
+            return;
+        }
+
+        final WebResponseData data = new WebResponseData(parser.getBody(), parser.getStatusCode(),
+                                                         parser.getStatusMessage(), parser.getHeaders());
+        future.complete(new WebResponse(data, exchange.request, now - future.getHops().get(0).getStartTime()));
+    }
+
+    /**
+     * Called by the loop, if the exchange failed.
+     */
+    void onFailure(final AsyncHttpExchange exchange, final IOException e)
+    {
+        final long now = System.currentTimeMillis();
+        exchange.future.addHop(new AsyncHttpFuture.Hop(exchange.url, exchange.startTime, now - exchange.startTime, 0,
+                                                       null, exchange.getBytesSent(),
+                                                       exchange.parser.getBytesReceived()));
+        exchange.future.fail(e);
+    }
+
+    /**
+     * @return the request, that follows the redirect of the response, or <code>null</code> if there is none to follow
+     */
+    private WebRequest getRedirect(final AsyncHttpExchange exchange)
+    {
+        final int status = exchange.parser.getStatusCode();
+        final String location = exchange.parser.getHeader("Location");
+        if (!redirectEnabled || location == null || exchange.redirects >= MAX_REDIRECTS
+            || !(status == 301 || status == 302 || status == 303 || status == 307 || status == 308))
+        {
+            return null;
+        }
+
+        final URL target;
+        try
+        {
+            target = new URL(exchange.url, location);
+        }
+        catch (final MalformedURLException e)
+        {
+            XltLogger.runTimeLogger.warn("Ignoring malformed redirect location: " + location);
+            return null;
+        }
+
+        final WebRequest request = exchange.request;
+        final WebRequest redirect;
+        if (status <= 303 && request.getHttpMethod() != HttpMethod.HEAD)
+        {
+            redirect = new WebRequest(target, HttpMethod.GET);
+        }
+        else
+        {
+            redirect = new WebRequest(target, request.getHttpMethod());
+            redirect.setEncodingType(request.getEncodingType());
+            if (request.getRequestBody() != null)
+            {
+                redirect.setRequestBody(request.getRequestBody());
+            }
+            else if (!request.getRequestParameters().isEmpty())
+            {
+                redirect.setRequestParameters(request.getRequestParameters());
+            }
+        }
+        redirect.setCharset(request.getCharset());
+        redirect.setAdditionalHeaders(new HashMap<String, String>(request.getAdditionalHeaders()));
+        return redirect;
+    }
+
+    private void storeCookies(final URL url, final List<NameValuePair> headers)
+    {
+        final List<String> setCookies = new ArrayList<String>();
+        for (final NameValuePair header : headers)
+        {
+            if (header.getName().equalsIgnoreCase("Set-Cookie"))
+            {
+                setCookies.add(header.getValue());
+            }
+        }
+        if (!setCookies.isEmpty())
+        {
+            try
+            {
+                cookieManager.put(url.toURI(), Collections.singletonMap("Set-Cookie", setCookies));
+            }
+            catch (final IOException | URISyntaxException | IllegalArgumentException e)
+            {
+                XltLogger.runTimeLogger.warn("Ignoring cookies of " + url + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private String getCookies(final URL url) throws IOException
+    {
+        final Map<String, List<String>> cookies;
+        try
+        {
+            cookies = cookieManager.get(url.toURI(), Collections.<String, List<String>> emptyMap());
+        }
+        catch (final URISyntaxException e)
+        {
+            return null;
+        }
+        final List<String> values = cookies.get("Cookie");
+        if (values == null || values.isEmpty())
+        {
+            return null;
+        }
+        final StringBuilder builder = new StringBuilder();
+        for (final String value : values)
+        {
+            if (builder.length() > 0)
+            {
+                builder.append("; ");
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return <code>true</code> if the request to the URL goes through the proxy
+     */
+    private boolean usesProxy(final URL url)
+    {
+        if (proxyHost == null)
+        {
+            return false;
+        }
+        for (final Pattern bypassHost : proxyBypassHosts)
+        {
+            if (bypassHost.matcher(url.getHost()).find())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the request, that asks the proxy for a tunnel to the origin of the URL
+     */
+    private byte[] serializeConnect(final URL url)
+    {
+        final String authority = url.getHost() + ":" + getPort(url);
+        final StringBuilder head = new StringBuilder(128);
+        head.append("CONNECT ").append(authority).append(" HTTP/1.1\r\n");
+        head.append("Host: ").append(authority).append("\r\n");
+        if (proxyAuthorization != null)
+        {
+            head.append("Proxy-Authorization: ").append(proxyAuthorization).append("\r\n");
+        }
+        head.append("\r\n");
+        return head.toString().getBytes(ISO_8859_1);
+    }
+
+    /**
+     * @param viaProxy
+     *            whether the request is sent to a proxy instead of the origin, so it needs the absolute URL
+     * @return the request in HTTP/1.1 wire format
+     */
+    private byte[] serialize(final WebRequest request, final boolean viaProxy) throws IOException
+    {
+        final URL url = request.getUrl();
+        final Charset charset = Charset.forName(request.getCharset());
+
+        byte[] body = null;
+        String contentType = null;
+        if (request.getRequestBody() != null)
+        {
+            body = request.getRequestBody().getBytes(charset);
+        }
+        else if (!request.getRequestParameters().isEmpty())
+        {
+            final List<BasicNameValuePair> parameters = new ArrayList<BasicNameValuePair>();
+            for (final NameValuePair parameter : request.getRequestParameters())
+            {
+                parameters.add(new BasicNameValuePair(parameter.getName(), parameter.getValue()));
+            }
+            body = URLEncodedUtils.format(parameters, charset).getBytes(ISO_8859_1);
+            contentType = "application/x-www-form-urlencoded";
+        }
+
+        final Map<String, String> headers = new LinkedHashMap<String, String>();
+        final int port = url.getPort();
+        final String host = (port == -1 || port == url.getDefaultPort()) ? url.getHost() : url.getHost() + ":" + port;
+        headers.put("Host", host);
+        if (viaProxy && proxyAuthorization != null)
+        {
+            headers.put("Proxy-Authorization", proxyAuthorization);
+        }
+        headers.putAll(defaultHeaders);
+        for (final Map.Entry<String, String> header : request.getAdditionalHeaders().entrySet())
+        {
+            putHeader(headers, header.getKey(), header.getValue());
+        }
+
+        final String cookies = getCookies(url);
+        if (cookies != null)
+        {
+            final String explicitCookies = removeHeader(headers, "Cookie");
+            putHeader(headers, "Cookie", explicitCookies == null ? cookies : explicitCookies + "; " + cookies);
+        }
+        if (body != null)
+        {
+            if (contentType != null && getHeader(headers, "Content-Type") == null)
+            {
+                headers.put("Content-Type", contentType);
+            }
+            putHeader(headers, "Content-Length", String.valueOf(body.length));
+        }
+
+        final StringBuilder head = new StringBuilder(256);
+        final String file = url.getFile().isEmpty() ? "/" : url.getFile();
+        head.append(request.getHttpMethod().name()).append(' ');
+        if (viaProxy)
+        {
+            head.append(url.getProtocol()).append("://").append(host);
+        }
+        head.append(file).append(" HTTP/1.1\r\n");
+        for (final Map.Entry<String, String> header : headers.entrySet())
+        {
+            head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        }
+        head.append("\r\n");
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(head.length() + (body == null ? 0 : body.length));
+        bytes.write(head.toString().getBytes(ISO_8859_1));
+        if (body != null)
+        {
+            bytes.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Puts the header, replacing an existing one with the same name in any case.
+     */
+    private static void putHeader(final Map<String, String> headers, final String name, final String value)
+    {
+        removeHeader(headers, name);
+        headers.put(name, value);
+    }
+
+    private static String removeHeader(final Map<String, String> headers, final String name)
+    {
+        final String key = getHeader(headers, name);
+        return (key == null) ? null : headers.remove(key);
+    }
+
+    /**
+     * @return the name of the header as contained in the map, or <code>null</code>
+     */
+    private static String getHeader(final Map<String, String> headers, final String name)
+    {
+        for (final String key : headers.keySet())
+        {
+            if (key.equalsIgnoreCase(name))
+            {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private static int getPort(final URL url)
+    {
+        return (url.getPort() == -1) ? url.getDefaultPort() : url.getPort();
+    }
+
+    /**
+     * Creates a client side TLS engine, that verifies the certificate and the host name of the server, unless all
+     * certificates are trusted.
+     */
+    SSLEngine createSslEngine(final URL url) throws IOException
+    {
+        if (sslContext == null)
+        {
+            try
+            {
+                if (trustAllCertificates)
+                {
+                    sslContext = SSLContext.getInstance("TLS");
+                    sslContext.init(null, new TrustManager[]
+                        {
+                            new TrustAllManager()
+                        }, null);
+                }
+                else
+                {
+                    sslContext = SSLContext.getDefault();
+                }
+            }
+            catch (final GeneralSecurityException e)
+            {
+                throw new IOException("Cannot create SSL context", e);
+            }
+        }
+        final SSLEngine sslEngine = sslContext.createSSLEngine(url.getHost(), getPort(url));
+        sslEngine.setUseClientMode(true);
+        if (!trustAllCertificates)
+        {
+            final SSLParameters parameters = sslEngine.getSSLParameters();
+            parameters.setEndpointIdentificationAlgorithm("HTTPS");
+            sslEngine.setSSLParameters(parameters);
+        }
+        if (sslProtocols != null)
+        {
+            sslEngine.setEnabledProtocols(sslProtocols);
+        }
+        return sslEngine;
+    }
+
+    AsyncHttpConnection pollIdleConnection(final String poolKey)
+    {
+        final ArrayDeque<AsyncHttpConnection> pool = idleConnections.get(poolKey);
+        return (pool == null) ? null : pool.pollLast();
+    }
+
+    void releaseConnection(final AsyncHttpConnection connection)
+    {
+        ArrayDeque<AsyncHttpConnection> pool = idleConnections.get(connection.poolKey);
+        if (pool == null)
+        {
+            pool = new ArrayDeque<AsyncHttpConnection>();
+            idleConnections.put(connection.poolKey, pool);
+        }
+        pool.addLast(connection);
+    }
+
+    void removeIdleConnection(final AsyncHttpConnection connection)
+    {
+        final ArrayDeque<AsyncHttpConnection> pool = idleConnections.get(connection.poolKey);
+        if (pool != null)
+        {
+            pool.remove(connection);
+        }
+    }
+
+    private static class TrustAllManager implements X509TrustManager
+    {
+        @Override
+        public void checkClientTrusted(final X509Certificate[] chain, final String authType)
+        {
+        }
+
+        @Override
+        public void checkServerTrusted(final X509Certificate[] chain, final String authType)
+        {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers()
+        {
+            return new X509Certificate[0];
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package com.xceptance.xlt.common.util.async;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+
+/**
+ * A non-blocking connection to a single origin, optionally secured by TLS. <br>
+ * The connection is owned by exactly one event loop and must only be touched by its thread. It carries at most one
+ * {@link AsyncHttpExchange} at a time and is kept alive for further exchanges of the same client, if the server allows
+ * it.
+ */
+final class AsyncHttpConnection
+{
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private static final int PLAIN_BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Maximum size of the response of the proxy to the CONNECT request.
+     */
+    private static final int TUNNEL_RESPONSE_SIZE = 8 * 1024;
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    final AsyncHttpClient client;
+
+    final String poolKey;
+
+    final SocketChannel channel;
+
+    SelectionKey key;
+
+    /**
+     * The TLS engine, <code>null</code> for plain connections.
+     */
+    private final SSLEngine sslEngine;
+
+    /**
+     * Received network data, not yet decrypted. Write mode.
+     */
+    private ByteBuffer netIn;
+
+    /**
+     * Encrypted data, not yet sent. Write mode.
+     */
+    private ByteBuffer netOut;
+
+    /**
+     * Received application data. Used as read buffer of plain connections.
+     */
+    private ByteBuffer appIn;
+
+    private boolean connected;
+
+    /**
+     * The CONNECT request to the proxy, <code>null</code> if there is no tunnel or it is established. Read mode.
+     */
+    private ByteBuffer tunnelRequest;
+
+    /**
+     * The response of the proxy to the CONNECT request. Write mode.
+     */
+    private ByteBuffer tunnelResponse;
+
+    /**
+     * The exchange in progress, <code>null</code> if the connection is idle.
+     */
+    AsyncHttpExchange exchange;
+
+    /**
+     * Whether at least one exchange was completed on this connection.
+     */
+    boolean used;
+
+    /**
+     * Point in time the connection became idle, in nanoseconds.
+     */
+    long idleSince;
+
+    AsyncHttpConnection(final AsyncHttpClient client, final String poolKey, final SocketChannel channel,
+                        final SSLEngine sslEngine, final byte[] tunnelRequest)
+    {
+        this.client = client;
+        this.poolKey = poolKey;
+        this.channel = channel;
+        this.sslEngine = sslEngine;
+        if (tunnelRequest != null)
+        {
+            this.tunnelRequest = ByteBuffer.wrap(tunnelRequest);
+            this.tunnelResponse = ByteBuffer.allocate(TUNNEL_RESPONSE_SIZE);
+        }
+        if (sslEngine == null)
+        {
+            appIn = ByteBuffer.allocate(PLAIN_BUFFER_SIZE);
+        }
+        else
+        {
+            netIn = ByteBuffer.allocate(sslEngine.getSession().getPacketBufferSize());
+            netOut = ByteBuffer.allocate(sslEngine.getSession().getPacketBufferSize());
+            appIn = ByteBuffer.allocate(sslEngine.getSession().getApplicationBufferSize());
+        }
+    }
+
+    /**
+     * Makes as much progress as possible without blocking and registers the interest for the next step.
+     *
+     * @return <code>true</code> if the response of the current exchange is complete
+     * @throws IOException
+     *             if the connection failed
+     */
+    boolean process() throws IOException
+    {
+        if (!connected)
+        {
+            if (!channel.finishConnect())
+            {
+                interest(SelectionKey.OP_CONNECT);
+                return false;
+            }
+            connected = true;
+            if (sslEngine != null && tunnelRequest == null)
+            {
+                sslEngine.beginHandshake();
+            }
+        }
+        if (tunnelRequest != null)
+        {
+            if (!openTunnel())
+            {
+                return false;
+            }
+            tunnelRequest = null;
+            tunnelResponse = null;
+            if (sslEngine != null)
+            {
+                sslEngine.beginHandshake();
+            }
+        }
+        if (sslEngine != null)
+        {
+            if (!flush() || !handshake())
+            {
+                return false;
+            }
+        }
+        if (exchange == null)
+        {
+            // an idle connection must not receive anything, the server closed it or is misbehaving
+            throw new EOFException("Idle connection became readable");
+        }
+        if (!writeRequest())
+        {
+            interest(SelectionKey.OP_WRITE);
+            return false;
+        }
+        return readResponse();
+    }
+
+    /**
+     * Waits for the next exchange without any further activity.
+     */
+    void idle()
+    {
+        exchange = null;
+        used = true;
+        idleSince = System.nanoTime();
+        interest(SelectionKey.OP_READ);
+    }
+
+    private void interest(final int ops)
+    {
+        if (key.interestOps() != ops)
+        {
+            key.interestOps(ops);
+        }
+    }
+
+    /**
+     * Sends the CONNECT request to the proxy and reads its response. The proxy sends nothing else, until the client
+     * starts the TLS handshake, so the response is read as a whole.
+     *
+     * @return <code>true</code> if the tunnel is established
+     * @throws IOException
+     *             if the proxy refused the tunnel
+     */
+    private boolean openTunnel() throws IOException
+    {
+        while (tunnelRequest.hasRemaining())
+        {
+            if (channel.write(tunnelRequest) == 0)
+            {
+                interest(SelectionKey.OP_WRITE);
+                return false;
+            }
+        }
+        while (!isTunnelResponseComplete())
+        {
+            if (!tunnelResponse.hasRemaining())
+            {
+                throw new IOException("Response of proxy exceeds " + TUNNEL_RESPONSE_SIZE + " bytes: " + poolKey);
+            }
+            final int read = channel.read(tunnelResponse);
+            if (read < 0)
+            {
+                throw new EOFException("Proxy closed the connection before the tunnel was established: " + poolKey);
+            }
+            if (read == 0)
+            {
+                interest(SelectionKey.OP_READ);
+                return false;
+            }
+        }
+        final String response = new String(tunnelResponse.array(), 0, tunnelResponse.position(), ISO_8859_1);
+        final String statusLine = response.substring(0, response.indexOf("\r\n"));
+        final String[] parts = statusLine.split(" ", 3);
+        if (parts.length < 2 || !parts[1].startsWith("2"))
+        {
+            throw new IOException("Proxy refused tunnel to " + poolKey + ": " + statusLine);
+        }
+        return true;
+    }
+
+    private boolean isTunnelResponseComplete()
+    {
+        final byte[] bytes = tunnelResponse.array();
+        for (int i = 3; i < tunnelResponse.position(); i++)
+        {
+            if (bytes[i] == '\n' && bytes[i - 1] == '\r' && bytes[i - 2] == '\n' && bytes[i - 3] == '\r')
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean writeRequest() throws IOException
+    {
+        final ByteBuffer requestData = exchange.requestData;
+        if (sslEngine == null)
+        {
+            while (requestData.hasRemaining())
+            {
+                if (channel.write(requestData) == 0)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        while (requestData.hasRemaining())
+        {
+            final SSLEngineResult result = sslEngine.wrap(requestData, netOut);
+            switch (result.getStatus())
+            {
+                case BUFFER_OVERFLOW:
+                    if (netOut.position() == 0)
+                    {
+                        netOut = enlarge(netOut, sslEngine.getSession().getPacketBufferSize());
+                    }
+                    else if (!flush())
+                    {
+                        return false;
+                    }
+                    break;
+                case CLOSED:
+                    throw new EOFException("TLS connection closed");
+                default:
+                    runDelegatedTasks();
+                    if (!flush())
+                    {
+                        return false;
+                    }
+            }
+        }
+        return flush();
+    }
+
+    private boolean readResponse() throws IOException
+    {
+        final AsyncHttpResponseParser parser = exchange.parser;
+        while (true)
+        {
+            final int read;
+            if (sslEngine == null)
+            {
+                appIn.clear();
+                read = channel.read(appIn);
+                if (read > 0)
+                {
+                    appIn.flip();
+                    if (parser.feed(appIn))
+                    {
+                        return true;
+                    }
+                    continue;
+                }
+            }
+            else
+            {
+                netIn.flip();
+                final SSLEngineResult result = sslEngine.unwrap(netIn, appIn);
+                netIn.compact();
+                switch (result.getStatus())
+                {
+                    case OK:
+                        appIn.flip();
+                        final boolean complete = parser.feed(appIn);
+                        appIn.clear();
+                        if (complete)
+                        {
+                            return true;
+                        }
+                        if (result.getHandshakeStatus() != HandshakeStatus.NOT_HANDSHAKING
+                            && result.getHandshakeStatus() != HandshakeStatus.FINISHED && !handshake())
+                        {
+                            return false;
+                        }
+                        continue;
+                    case BUFFER_OVERFLOW:
+                        appIn = enlarge(appIn, sslEngine.getSession().getApplicationBufferSize());
+                        continue;
+                    case CLOSED:
+                        read = -1;
+                        break;
+                    default:
+                        // underflow, more network data needed
+                        read = readNetwork();
+                        if (read > 0)
+                        {
+                            continue;
+                        }
+                }
+            }
+
+            if (read == 0)
+            {
+                interest(SelectionKey.OP_READ);
+                return false;
+            }
+            if (parser.endOfStream())
+            {
+                return true;
+            }
+            throw new EOFException("Connection closed before the response was complete");
+        }
+    }
+
+    /**
+     * Performs the TLS handshake as far as possible.
+     *
+     * @return <code>true</code> if the handshake is finished
+     */
+    private boolean handshake() throws IOException
+    {
+        while (true)
+        {
+            final HandshakeStatus status = sslEngine.getHandshakeStatus();
+            if (status == HandshakeStatus.NOT_HANDSHAKING || status == HandshakeStatus.FINISHED)
+            {
+                return true;
+            }
+            else if (status == HandshakeStatus.NEED_TASK)
+            {
+                runDelegatedTasks();
+            }
+            else if (status == HandshakeStatus.NEED_WRAP)
+            {
+                final SSLEngineResult result = sslEngine.wrap(EMPTY, netOut);
+                if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW && netOut.position() == 0)
+                {
+                    netOut = enlarge(netOut, sslEngine.getSession().getPacketBufferSize());
+                }
+                else if (result.getStatus() == SSLEngineResult.Status.CLOSED)
+                {
+                    throw new EOFException("TLS connection closed during handshake");
+                }
+                if (!flush())
+                {
+                    return false;
+                }
+            }
+            else
+            {
+                // NEED_UNWRAP
+                netIn.flip();
+                final SSLEngineResult result = sslEngine.unwrap(netIn, appIn);
+                netIn.compact();
+                if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW)
+                {
+                    final int read = readNetwork();
+                    if (read < 0)
+                    {
+                        throw new EOFException("Connection closed during TLS handshake");
+                    }
+                    if (read == 0)
+                    {
+                        interest(SelectionKey.OP_READ);
+                        return false;
+                    }
+                }
+                else if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW)
+                {
+                    appIn = enlarge(appIn, sslEngine.getSession().getApplicationBufferSize());
+                }
+                else if (result.getStatus() == SSLEngineResult.Status.CLOSED)
+                {
+                    throw new EOFException("TLS connection closed during handshake");
+                }
+            }
+        }
+    }
+
+    private int readNetwork() throws IOException
+    {
+        if (!netIn.hasRemaining())
+        {
+            netIn = enlarge(netIn, sslEngine.getSession().getPacketBufferSize());
+        }
+        return channel.read(netIn);
+    }
+
+    /**
+     * Sends the pending encrypted data.
+     *
+     * @return <code>true</code> if everything was sent
+     */
+    private boolean flush() throws IOException
+    {
+        if (netOut.position() > 0)
+        {
+            netOut.flip();
+            channel.write(netOut);
+            netOut.compact();
+            if (netOut.position() > 0)
+            {
+                interest(SelectionKey.OP_WRITE);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void runDelegatedTasks()
+    {
+        Runnable task;
+        while ((task = sslEngine.getDelegatedTask()) != null)
+        {
+            task.run();
+        }
+    }
+
+    private static ByteBuffer enlarge(final ByteBuffer buffer, final int minimumIncrease)
+    {
+        final ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() + minimumIncrease);
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    void close()
+    {
+        if (key != null)
+        {
+            key.cancel();
+        }
+        try
+        {
+            channel.close();
+        }
+        catch (final IOException e)
+        {
+            // nothing left to do
+        }
+    }
+}
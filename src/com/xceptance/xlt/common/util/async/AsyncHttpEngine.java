@@ -0,0 +1,315 @@
+package com.xceptance.xlt.common.util.async;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLEngine;
+
+import com.xceptance.xlt.api.util.XltLogger;
+import com.xceptance.xlt.common.util.SharedThreadFactory;
+
+/**
+ * A non-blocking HTTP/1.1 engine. <br>
+ * A handful of event loop threads, each with its own {@link Selector}, multiplex the connections of all
+ * {@link AsyncHttpClient}s of the JVM. A client is bound to one loop for its whole life, so its connections and its
+ * keep-alive pool are only ever touched by a single thread and need no locking. <br>
+ * The engine is shared by all users of an agent and is created on first use, see {@link #getInstance(int)}. Its
+ * threads do not belong to any user, see {@link SharedThreadFactory}.
+ */
+public final class AsyncHttpEngine
+{
+    /**
+     * Maximum time to block in a single select, in milliseconds. Bounds the delay of timeout detection.
+     */
+    private static final long SELECT_TIMEOUT = 200;
+
+    /**
+     * Keep-alive connections idle for longer are closed, in nanoseconds.
+     */
+    private static final long IDLE_TIMEOUT = 30L * 1000 * 1000 * 1000;
+
+    private static AsyncHttpEngine instance;
+
+    private final EventLoop[] loops;
+
+    private final AtomicInteger nextLoop = new AtomicInteger();
+
+    /**
+     * Returns the engine of this JVM, creates it on first use.
+     *
+     * @param ioThreads
+     *            the number of event loop threads, only considered on first use
+     * @return the engine
+     */
+    public static synchronized AsyncHttpEngine getInstance(final int ioThreads)
+    {
+        if (instance == null)
+        {
+            instance = new AsyncHttpEngine(ioThreads);
+        }
+        return instance;
+    }
+
+    private AsyncHttpEngine(final int ioThreads)
+    {
+        if (ioThreads < 1)
+        {
+            throw new IllegalArgumentException("Number of IO threads must be at least 1: " + ioThreads);
+        }
+        loops = new EventLoop[ioThreads];
+        final SharedThreadFactory threadFactory = new SharedThreadFactory("AsyncHttpEngine-");
+        for (int i = 0; i < ioThreads; i++)
+        {
+            loops[i] = new EventLoop(threadFactory);
+        }
+        XltLogger.runTimeLogger.debug("Creating new Instance");
+    }
+
+    /**
+     * @return the loop for the next client, round robin
+     */
+    EventLoop nextLoop()
+    {
+        return loops[(nextLoop.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+    }
+
+    /**
+     * An event loop thread with its own selector.
+     */
+    static final class EventLoop implements Runnable
+    {
+        private final Selector selector;
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+        /**
+         * All open connections of this loop, busy and idle.
+         */
+        private final Set<AsyncHttpConnection> connections = new HashSet<AsyncHttpConnection>();
+
+        private final Thread thread;
+
+        private EventLoop(final SharedThreadFactory threadFactory)
+        {
+            try
+            {
+                selector = Selector.open();
+            }
+            catch (final IOException e)
+            {
+                throw new IllegalStateException("Cannot open selector", e);
+            }
+            thread = threadFactory.newThread(this);
+            thread.start();
+        }
+
+        /**
+         * Runs the task on the loop thread.
+         */
+        void execute(final Runnable task)
+        {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        boolean inLoop()
+        {
+            return Thread.currentThread() == thread;
+        }
+
+        @Override
+        public void run()
+        {
+            while (true)
+            {
+                try
+                {
+                    selector.select(SELECT_TIMEOUT);
+                    runTasks();
+                    processSelectedKeys();
+                    expire();
+                }
+                catch (final Throwable t)
+                {
+                    // keep the loop alive, a dead loop would hang all of its clients
+                    XltLogger.runTimeLogger.error("Unexpected error in " + thread.getName(), t);
+                }
+            }
+        }
+
+        private void runTasks()
+        {
+            Runnable task;
+            while ((task = tasks.poll()) != null)
+            {
+                task.run();
+            }
+        }
+
+        private void processSelectedKeys()
+        {
+            final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext())
+            {
+                final SelectionKey key = keys.next();
+                keys.remove();
+                if (key.isValid())
+                {
+                    process((AsyncHttpConnection) key.attachment());
+                }
+            }
+        }
+
+        /**
+         * Fails the exchanges, that exceeded their deadline, and closes the connections, that were idle for too long.
+         */
+        private void expire()
+        {
+            final long now = System.nanoTime();
+            final List<AsyncHttpConnection> expired = new ArrayList<AsyncHttpConnection>();
+            for (final AsyncHttpConnection connection : connections)
+            {
+                if (connection.exchange != null ? now - connection.exchange.deadline > 0
+                                                : now - connection.idleSince > IDLE_TIMEOUT)
+                {
+                    expired.add(connection);
+                }
+            }
+            for (final AsyncHttpConnection connection : expired)
+            {
+                if (connection.exchange != null)
+                {
+                    // a timed out request is never retried
+                    connection.exchange.retried = true;
+                }
+                failed(connection, new SocketTimeoutException("Timeout while waiting for " + connection.poolKey));
+            }
+        }
+
+        /**
+         * Sends the exchange on an idle connection of its client, or on a new one.
+         */
+        void start(final AsyncHttpExchange exchange)
+        {
+            AsyncHttpConnection connection = exchange.client.pollIdleConnection(exchange.poolKey);
+            if (connection == null)
+            {
+                try
+                {
+                    connection = connect(exchange);
+                }
+                catch (final IOException e)
+                {
+                    exchange.client.onFailure(exchange, e);
+                    return;
+                }
+            }
+            connection.exchange = exchange;
+            exchange.connection = connection;
+            exchange.reusedConnection = connection.used;
+            process(connection);
+        }
+
+        private AsyncHttpConnection connect(final AsyncHttpExchange exchange) throws IOException
+        {
+            final SocketChannel channel = SocketChannel.open();
+            try
+            {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.connect(exchange.address);
+
+                final SSLEngine sslEngine = exchange.secure ? exchange.client.createSslEngine(exchange.url) : null;
+                final AsyncHttpConnection connection = new AsyncHttpConnection(exchange.client, exchange.poolKey,
+                                                                               channel, sslEngine,
+                                                                               exchange.tunnelRequest);
+                connection.key = channel.register(selector, SelectionKey.OP_CONNECT, connection);
+                connections.add(connection);
+                return connection;
+            }
+            catch (final IOException e)
+            {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private void process(final AsyncHttpConnection connection)
+        {
+            try
+            {
+                if (connection.process())
+                {
+                    completed(connection);
+                }
+            }
+            catch (final IOException e)
+            {
+                failed(connection, e);
+            }
+            catch (final RuntimeException e)
+            {
+                // e.g. TLS failures, that are not reported as IOException
+                failed(connection, new IOException(e.getMessage(), e));
+            }
+        }
+
+        private void completed(final AsyncHttpConnection connection)
+        {
+            final AsyncHttpExchange exchange = connection.exchange;
+            if (exchange.parser.isKeepAlive() && !exchange.client.isClosed())
+            {
+                connection.idle();
+                exchange.client.releaseConnection(connection);
+            }
+            else
+            {
+                close(connection);
+            }
+            exchange.client.onResponse(exchange);
+        }
+
+        private void failed(final AsyncHttpConnection connection, final IOException e)
+        {
+            final AsyncHttpExchange exchange = connection.exchange;
+            close(connection);
+            if (exchange == null)
+            {
+                // an idle connection was closed by the server
+                return;
+            }
+            if (exchange.reusedConnection && !exchange.retried && !exchange.parser.hasReceivedData())
+            {
+                // the server closed the keep-alive connection, while the request was on its way
+                XltLogger.runTimeLogger.debug("Retrying request on a new connection: " + exchange.url);
+                exchange.retried = true;
+                exchange.reset();
+                start(exchange);
+                return;
+            }
+            exchange.client.onFailure(exchange, e);
+        }
+
+        /**
+         * Closes the connection and removes it from its pool.
+         */
+        void close(final AsyncHttpConnection connection)
+        {
+            connections.remove(connection);
+            connection.client.removeIdleConnection(connection);
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.xceptance.xlt.common.util.async;
+
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebRequest;
+
+/**
+ * A single request/response exchange on the wire. A redirect or a retry on a fresh connection creates a new exchange
+ * for the same {@link AsyncHttpFuture}.
+ */
+final class AsyncHttpExchange
+{
+    final AsyncHttpClient client;
+
+    final AsyncHttpFuture future;
+
+    /**
+     * The request, whose URL and method are sent by this exchange.
+     */
+    final WebRequest request;
+
+    final URL url;
+
+    final boolean secure;
+
+    final InetSocketAddress address;
+
+    /**
+     * Connections to the same origin share this key. Plain requests through the same proxy share their connections,
+     * tunnels belong to a single origin.
+     */
+    final String poolKey;
+
+    /**
+     * The CONNECT request, that opens a tunnel through the proxy, <code>null</code> if no tunnel is needed.
+     */
+    final byte[] tunnelRequest;
+
+    /**
+     * The serialized request.
+     */
+    private final byte[] requestBytes;
+
+    ByteBuffer requestData;
+
+    /**
+     * Number of redirects followed before this exchange.
+     */
+    final int redirects;
+
+    /**
+     * Whether the exchange is the retry of a request, that failed on a stale keep-alive connection.
+     */
+    boolean retried;
+
+    /**
+     * Whether the exchange was sent on a connection, that was used before.
+     */
+    boolean reusedConnection;
+
+    AsyncHttpResponseParser parser;
+
+    AsyncHttpConnection connection;
+
+    final long startTime;
+
+    final long deadline;
+
+    AsyncHttpExchange(final AsyncHttpClient client, final AsyncHttpFuture future, final WebRequest request,
+                      final InetSocketAddress address, final byte[] tunnelRequest, final byte[] requestBytes,
+                      final int redirects, final long timeout)
+    {
+        this.client = client;
+        this.future = future;
+        this.request = request;
+        this.url = request.getUrl();
+        this.secure = "https".equalsIgnoreCase(url.getProtocol());
+        this.address = address;
+        final String addressKey = address.getHostString() + ":" + address.getPort();
+        if (tunnelRequest == null)
+        {
+            this.poolKey = url.getProtocol().toLowerCase() + "://" + addressKey;
+        }
+        else
+        {
+            final int port = (url.getPort() == -1) ? url.getDefaultPort() : url.getPort();
+            this.poolKey = url.getProtocol().toLowerCase() + "://" + url.getHost().toLowerCase() + ":" + port + "@"
+                           + addressKey;
+        }
+        this.tunnelRequest = tunnelRequest;
+        this.requestBytes = requestBytes;
+        this.redirects = redirects;
+        this.startTime = System.currentTimeMillis();
+        this.deadline = System.nanoTime() + timeout * 1000000L;
+        reset();
+    }
+
+    /**
+     * Prepares the exchange for being sent (again).
+     */
+    void reset()
+    {
+        requestData = ByteBuffer.wrap(requestBytes);
+        parser = new AsyncHttpResponseParser(request.getHttpMethod() == HttpMethod.HEAD, future.keepsBody(),
+                                             future.getBodyConsumer());
+        connection = null;
+        reusedConnection = false;
+    }
+
+    long getBytesSent()
+    {
+        return requestBytes.length;
+    }
+}
@@ -0,0 +1,193 @@
+package com.xceptance.xlt.common.util.async;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import com.gargoylesoftware.htmlunit.WebResponse;
+
+/**
+ * The pending result of a request, that was passed to {@link AsyncHttpClient#execute(com.gargoylesoftware.htmlunit.WebRequest)}.
+ * <br>
+ * The response is completed by an event loop thread. The thread, that waits for it via {@link #get()}, finds the
+ * timings of every hop (redirects included) in {@link #getHops()}, so it can report them as it would report the
+ * requests of a web client.
+ */
+public class AsyncHttpFuture
+{
+    /**
+     * Timing and size of a single request on the wire.
+     */
+    public static class Hop
+    {
+        private final URL url;
+
+        private final long startTime;
+
+        private final long runTime;
+
+        private final int responseCode;
+
+        private final String contentType;
+
+        private final long bytesSent;
+
+        private final long bytesReceived;
+
+        Hop(final URL url, final long startTime, final long runTime, final int responseCode, final String contentType,
+            final long bytesSent, final long bytesReceived)
+        {
+            this.url = url;
+            this.startTime = startTime;
+            this.runTime = runTime;
+            this.responseCode = responseCode;
+            this.contentType = contentType;
+            this.bytesSent = bytesSent;
+            this.bytesReceived = bytesReceived;
+        }
+
+        public URL getUrl()
+        {
+            return url;
+        }
+
+        /**
+         * @return the point in time the request was started, in milliseconds since the epoch
+         */
+        public long getStartTime()
+        {
+            return startTime;
+        }
+
+        /**
+         * @return the time from starting the request until the response was complete, in milliseconds
+         */
+        public long getRunTime()
+        {
+            return runTime;
+        }
+
+        /**
+         * @return the status code, 0 if the request failed
+         */
+        public int getResponseCode()
+        {
+            return responseCode;
+        }
+
+        public String getContentType()
+        {
+            return contentType;
+        }
+
+        public long getBytesSent()
+        {
+            return bytesSent;
+        }
+
+        public long getBytesReceived()
+        {
+            return bytesReceived;
+        }
+    }
+
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    /**
+     * Whether the response body is kept, otherwise it is only counted.
+     */
+    private final boolean keepBody;
+
+    /**
+     * Is offered the body of the final response, <code>null</code> if there is none.
+     */
+    private final AsyncHttpBodyConsumer consumer;
+
+    private final List<Hop> hops = Collections.synchronizedList(new ArrayList<Hop>());
+
+    private volatile WebResponse response;
+
+    private volatile IOException failure;
+
+    AsyncHttpFuture(final boolean keepBody, final AsyncHttpBodyConsumer consumer)
+    {
+        this.keepBody = keepBody;
+        this.consumer = consumer;
+    }
+
+    boolean keepsBody()
+    {
+        return keepBody;
+    }
+
+    AsyncHttpBodyConsumer getBodyConsumer()
+    {
+        return consumer;
+    }
+
+    void addHop(final Hop hop)
+    {
+        hops.add(hop);
+    }
+
+    void complete(final WebResponse response)
+    {
+        this.response = response;
+        done.countDown();
+    }
+
+    void fail(final IOException failure)
+    {
+        this.failure = failure;
+        done.countDown();
+    }
+
+    /**
+     * @return whether the request is finished, successfully or not
+     */
+    public boolean isDone()
+    {
+        return done.getCount() == 0;
+    }
+
+    /**
+     * Waits until the request is finished. The time to wait is limited by the timeout of the client.
+     *
+     * @return the final response, after following redirects
+     * @throws IOException
+     *             if the request failed or timed out
+     */
+    public WebResponse get() throws IOException
+    {
+        try
+        {
+            done.await();
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response");
+        }
+        if (failure != null)
+        {
+            // rethrown with the stack of the waiting thread, the original one is the cause
+            throw new IOException(failure.getMessage(), failure);
+        }
+        return response;
+    }
+
+    /**
+     * @return the hops of the request in order, the last one belongs to the final response
+     */
+    public List<Hop> getHops()
+    {
+        synchronized (hops)
+        {
+            return new ArrayList<Hop>(hops);
+        }
+    }
+}
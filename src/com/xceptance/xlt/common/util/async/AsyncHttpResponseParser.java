@@ -0,0 +1,414 @@
+package com.xceptance.xlt.common.util.async;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+
+/**
+ * Incremental parser for a single HTTP/1.x response. <br>
+ * The bytes are passed in as they arrive via {@link #feed(ByteBuffer)}, so the parser never blocks. Supports bodies
+ * delimited by 'Content-Length', 'Transfer-Encoding: chunked' and by closing the connection. Interim (1xx) responses
+ * are skipped. <br>
+ * The body of the final response is offered to the {@link AsyncHttpBodyConsumer}, if there is one.
+ */
+final class AsyncHttpResponseParser
+{
+    /**
+     * Maximum length of the status line or a single header line.
+     */
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private enum State
+    {
+        STATUS_LINE, HEADERS, BODY_LENGTH, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILER, BODY_UNTIL_CLOSE, DONE
+    }
+
+    /**
+     * Whether the response belongs to a HEAD request, which never has a body.
+     */
+    private final boolean headRequest;
+
+    /**
+     * Whether the body is kept, otherwise it is only counted.
+     */
+    private boolean keepBody;
+
+    /**
+     * Is offered the body, <code>null</code> if there is none.
+     */
+    private final AsyncHttpBodyConsumer consumer;
+
+    /**
+     * Whether the body is passed to the {@link #consumer}.
+     */
+    private boolean consuming;
+
+    private State state = State.STATUS_LINE;
+
+    private final StringBuilder line = new StringBuilder();
+
+    private String httpVersion;
+
+    private int statusCode;
+
+    private String statusMessage;
+
+    private List<NameValuePair> headers = new ArrayList<NameValuePair>();
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    private long remaining;
+
+    private boolean keepAlive;
+
+    private long bytesReceived;
+
+    private long bodyBytes;
+
+    /**
+     * @param consumer
+     *            is offered the body of the final response, may be <code>null</code>
+     */
+    AsyncHttpResponseParser(final boolean headRequest, final boolean keepBody, final AsyncHttpBodyConsumer consumer)
+    {
+        this.headRequest = headRequest;
+        this.keepBody = keepBody;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Consumes the available bytes of the buffer.
+     *
+     * @param buffer
+     *            the received bytes, in read mode
+     * @return <code>true</code> if the response is complete
+     * @throws IOException
+     *             if the response is malformed
+     */
+    boolean feed(final ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining() && state != State.DONE)
+        {
+            switch (state)
+            {
+                case BODY_LENGTH:
+                case CHUNK_DATA:
+                    final int length = (int) Math.min(remaining, buffer.remaining());
+                    readBody(buffer, length);
+                    remaining -= length;
+                    if (remaining == 0)
+                    {
+                        state = (state == State.BODY_LENGTH) ? State.DONE : State.CHUNK_END;
+                    }
+                    break;
+                case BODY_UNTIL_CLOSE:
+                    readBody(buffer, buffer.remaining());
+                    break;
+                default:
+                    if (readLine(buffer))
+                    {
+                        handleLine(line.toString());
+                        line.setLength(0);
+                    }
+            }
+        }
+        return state == State.DONE;
+    }
+
+    /**
+     * Tells the parser, that the connection was closed by the server.
+     *
+     * @return <code>true</code> if the response is complete, since its body is delimited by the end of the stream
+     */
+    boolean endOfStream()
+    {
+        if (state == State.BODY_UNTIL_CLOSE)
+        {
+            state = State.DONE;
+        }
+        return state == State.DONE;
+    }
+
+    private void readBody(final ByteBuffer buffer, final int length)
+    {
+        if (consuming)
+        {
+            final ByteBuffer data = buffer.slice();
+            data.limit(length);
+            consuming = consumer.bodyReceived(data);
+            buffer.position(buffer.position() + length);
+        }
+        else if (keepBody)
+        {
+            if (buffer.hasArray())
+            {
+                body.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+                buffer.position(buffer.position() + length);
+            }
+            else
+            {
+                final byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                body.write(bytes, 0, length);
+            }
+        }
+        else
+        {
+            buffer.position(buffer.position() + length);
+        }
+        bytesReceived += length;
+        bodyBytes += length;
+    }
+
+    /**
+     * Reads until the end of the current line.
+     *
+     * @return <code>true</code> if the line is complete
+     */
+    private boolean readLine(final ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            final char c = (char) (buffer.get() & 0xff);
+            bytesReceived++;
+            if (c == '\n')
+            {
+                final int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r')
+                {
+                    line.setLength(length - 1);
+                }
+                return true;
+            }
+            if (line.length() >= MAX_LINE_LENGTH)
+            {
+                throw new IOException("Response line exceeds " + MAX_LINE_LENGTH + " characters");
+            }
+            line.append(c);
+        }
+        return false;
+    }
+
+    private void handleLine(final String text) throws IOException
+    {
+        switch (state)
+        {
+            case STATUS_LINE:
+                if (!text.isEmpty())
+                {
+                    parseStatusLine(text);
+                    state = State.HEADERS;
+                }
+                break;
+            case HEADERS:
+                if (text.isEmpty())
+                {
+                    headersComplete();
+                }
+                else
+                {
+                    parseHeader(text);
+                }
+                break;
+            case CHUNK_SIZE:
+                parseChunkSize(text);
+                break;
+            case CHUNK_END:
+                state = State.CHUNK_SIZE;
+                break;
+            case TRAILER:
+                if (text.isEmpty())
+                {
+                    state = State.DONE;
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unexpected state: " + state);
+        }
+    }
+
+    private void parseStatusLine(final String text) throws IOException
+    {
+        final String[] parts = text.split(" ", 3);
+        if (parts.length < 2 || !parts[0].startsWith("HTTP/"))
+        {
+            throw new IOException("Invalid status line: " + text);
+        }
+        httpVersion = parts[0];
+        try
+        {
+            statusCode = Integer.parseInt(parts[1].trim());
+        }
+        catch (final NumberFormatException e)
+        {
+            throw new IOException("Invalid status line: " + text);
+        }
+        statusMessage = (parts.length > 2) ? parts[2] : "";
+    }
+
+    private void parseHeader(final String text) throws IOException
+    {
+        if ((text.charAt(0) == ' ' || text.charAt(0) == '\t') && !headers.isEmpty())
+        {
+            // obsolete line folding
+            final NameValuePair last = headers.remove(headers.size() - 1);
+            headers.add(new NameValuePair(last.getName(), last.getValue() + " " + text.trim()));
+            return;
+        }
+        final int colon = text.indexOf(':');
+        if (colon <= 0)
+        {
+            throw new IOException("Invalid header: " + text);
+        }
+        headers.add(new NameValuePair(text.substring(0, colon).trim(), text.substring(colon + 1).trim()));
+    }
+
+    private void headersComplete() throws IOException
+    {
+        if (statusCode >= 100 && statusCode < 200)
+        {
+            // interim response, the final one follows
+            headers = new ArrayList<NameValuePair>();
+            state = State.STATUS_LINE;
+            return;
+        }
+
+        final String connection = getHeader("Connection");
+        if ("HTTP/1.0".equals(httpVersion))
+        {
+            keepAlive = connection != null && connection.equalsIgnoreCase("keep-alive");
+        }
+        else
+        {
+            keepAlive = connection == null || !connection.equalsIgnoreCase("close");
+        }
+
+        final String transferEncoding = getHeader("Transfer-Encoding");
+        final String contentLength = getHeader("Content-Length");
+
+        if (consumer != null && !isRedirect())
+        {
+            consuming = consumer.headersReceived(statusCode, headers);
+            keepBody = keepBody && !consuming;
+        }
+
+        if (headRequest || statusCode == 204 || statusCode == 304)
+        {
+            state = State.DONE;
+        }
+        else if (transferEncoding != null && transferEncoding.toLowerCase().contains("chunked"))
+        {
+            state = State.CHUNK_SIZE;
+        }
+        else if (contentLength != null)
+        {
+            try
+            {
+                remaining = Long.parseLong(contentLength.trim());
+            }
+            catch (final NumberFormatException e)
+            {
+                throw new IOException("Invalid Content-Length: " + contentLength);
+            }
+            state = (remaining > 0) ? State.BODY_LENGTH : State.DONE;
+        }
+        else
+        {
+            keepAlive = false;
+            state = State.BODY_UNTIL_CLOSE;
+        }
+    }
+
+    /**
+     * @return whether the response is a redirect, the body of a redirect is not offered to the {@link #consumer}
+     */
+    private boolean isRedirect()
+    {
+        return statusCode >= 300 && statusCode < 400 && getHeader("Location") != null;
+    }
+
+    private void parseChunkSize(final String text) throws IOException
+    {
+        final int extension = text.indexOf(';');
+        final String size = (extension < 0 ? text : text.substring(0, extension)).trim();
+        try
+        {
+            remaining = Long.parseLong(size, 16);
+        }
+        catch (final NumberFormatException e)
+        {
+            throw new IOException("Invalid chunk size: " + text);
+        }
+        state = (remaining > 0) ? State.CHUNK_DATA : State.TRAILER;
+    }
+
+    /**
+     * @return the first value of the header with the passed name, ignoring case, or <code>null</code>
+     */
+    String getHeader(final String name)
+    {
+        for (final NameValuePair header : headers)
+        {
+            if (header.getName().equalsIgnoreCase(name))
+            {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    boolean isComplete()
+    {
+        return state == State.DONE;
+    }
+
+    /**
+     * @return whether any byte of the response was received
+     */
+    boolean hasReceivedData()
+    {
+        return bytesReceived > 0;
+    }
+
+    /**
+     * @return whether the connection can be reused after the response is complete
+     */
+    boolean isKeepAlive()
+    {
+        return keepAlive;
+    }
+
+    int getStatusCode()
+    {
+        return statusCode;
+    }
+
+    String getStatusMessage()
+    {
+        return statusMessage;
+    }
+
+    List<NameValuePair> getHeaders()
+    {
+        return headers;
+    }
+
+    byte[] getBody()
+    {
+        return body.toByteArray();
+    }
+
+    long getBytesReceived()
+    {
+        return bytesReceived;
+    }
+
+    long getBodyBytes()
+    {
+        return bodyBytes;
+    }
+}
@@ -23,33 +23,59 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.apache.commons.lang.StringUtils;
 import org.eclipse.jdt.annotation.Nullable;
 
 import bsh.EvalError;
 import bsh.Interpreter;
+import bsh.Primitive;
+import bsh.UtilEvalError;
 
 import com.gargoylesoftware.htmlunit.util.NameValuePair;
 import com.xceptance.xlt.api.data.GeneralDataProvider;
 import com.xceptance.xlt.api.util.XltLogger;
 import com.xceptance.xlt.api.util.XltProperties;
+import com.xceptance.xlt.common.util.NoCodingEvents;
+import com.xceptance.xlt.common.util.StageTimers;
+import com.xceptance.xlt.common.util.StageTimers.Stage;
+import com.xceptance.xlt.common.util.feed.DataFeeder;
+import com.xceptance.xlt.common.util.feed.DataPartition;
 
 /**
  * Our implementation of the param interpreter, it will set some default data objects for later use, such as NOW and
  * RANDOM ect.
+ * <ul>
+ * <li>Variables, stored values and properties are resolved natively via {@link ParameterVariables}.
+ * <li>A BeanShell {@link Interpreter} is created lazily, only for parameters that are arbitrary expressions, such as
+ * <code>${Math.abs(-1)}</code>. Once it exists, it holds all variables and is the source of truth, since scripts can
+ * assign variables too.
+ * <li>Rows of the data feeds are resolved natively too, such as <code>${FEED.customers.email}</code>, see
+ * {@link DataFeeder}.
+ * </ul>
  */
-public class ParameterInterpreter extends Interpreter
+public class ParameterInterpreter
 {
     @Nullable
     private XltProperties properties;
 
-    private static final long serialVersionUID = -6490310093160560291L;
-
     /**
      * The pattern to get the inserted param or commands from strings, such as ${bar = System.currentTimeMillis()}
      */
     private final static Pattern parameterPattern = Pattern.compile("\\$\\{([^$]*)\\}");
 
+    private final ParameterVariables variables = new ParameterVariables();
+
+    /**
+     * BeanShell fallback, <code>null</code> until the first expression needs it.
+     */
+    @Nullable
+    private Interpreter beanShell;
+
+    /**
+     * Measures {@link #processDynamicData(String)}, <code>null</code> if not measured.
+     */
+    @Nullable
+    private StageTimers stageTimers;
+
     /**
      * Processes dynamic data on the input and use the set interpreter and its state.
      * 
@@ -62,20 +88,12 @@ public class ParameterInterpreter extends Interpreter
     public ParameterInterpreter(final XltProperties properties,
                                 final GeneralDataProvider dataProvider)
     {
-        super();
         XltLogger.runTimeLogger.debug("Creating new Instance");
-        try
-        {
-            this.set("NOW", new ParameterInterpreterNow());
-            this.set("RANDOM", new ParameterInterpreterRandom());
-            this.set("DATA", dataProvider);
-            this.set("DATE", new Date());
-            this.properties = properties;
-        }
-        catch (final EvalError e)
-        {
-            // nothing should happen here, we just add context
-        }
+        variables.put("NOW", new ParameterInterpreterNow());
+        variables.put("RANDOM", new ParameterInterpreterRandom());
+        variables.put("DATA", dataProvider);
+        variables.put("DATE", new Date());
+        this.properties = properties;
     }
 
     /**
@@ -90,7 +108,6 @@ public class ParameterInterpreter extends Interpreter
         {
             XltLogger.runTimeLogger.debug(addVariableMessage(name, value));
             this.set(name, value);
-            System.err.println(name + " : " + this.eval(name));
         }
         else
         {
@@ -100,6 +117,128 @@ public class ParameterInterpreter extends Interpreter
         }
     }
 
+    /**
+     * Adds the variable or replaces its value.
+     * 
+     * @param name
+     *            the name of the variable
+     * @param value
+     *            the value
+     * @throws EvalError
+     *             if the BeanShell fallback already exists and refuses the variable
+     */
+    public void set(final String name, final Object value) throws EvalError
+    {
+        variables.put(name, value);
+        if (beanShell != null)
+        {
+            beanShell.set(name, value);
+        }
+    }
+
+    /**
+     * Returns the value of a variable. Dotted names, such as <code>DATE.time</code> or static fields, are resolved by
+     * BeanShell, except for the fields of a {@link DataFeeder}.
+     * 
+     * @param name
+     *            the name of the variable
+     * @return the value, or <code>null</code> if there is no such variable
+     * @throws EvalError
+     *             if BeanShell fails to resolve a dotted name
+     * @throws IllegalArgumentException
+     *             if a data feed cannot provide the field
+     */
+    @Nullable
+    public Object get(final String name) throws EvalError
+    {
+        final int dot = name.indexOf('.');
+        if (dot >= 0)
+        {
+            final Object root = getVariable(name.substring(0, dot));
+            if (root instanceof DataFeeder)
+            {
+                return ((DataFeeder) root).get(name.substring(dot + 1));
+            }
+            return getBeanShell().get(name);
+        }
+        return getVariable(name);
+    }
+
+    @Nullable
+    private Object getVariable(final String name)
+    {
+        if (beanShell != null)
+        {
+            final Object value = getBeanShellVariable(name);
+            return (value == Primitive.VOID) ? null : Primitive.unwrap(value);
+        }
+        return variables.get(name);
+    }
+
+    /**
+     * @param name
+     *            the name of the variable
+     * @return <code>true</code> if the variable exists
+     */
+    public boolean isVariable(final String name)
+    {
+        if (beanShell != null)
+        {
+            return getBeanShellVariable(name) != Primitive.VOID;
+        }
+        return variables.contains(name);
+    }
+
+    /**
+     * Evaluates arbitrary code with BeanShell, creates the BeanShell interpreter if necessary.
+     * 
+     * @param script
+     *            the code
+     * @return the result
+     * @throws EvalError
+     *             if the code is invalid or fails
+     */
+    @Nullable
+    public Object eval(final String script) throws EvalError
+    {
+        return getBeanShell().eval(script);
+    }
+
+    /**
+     * @return <code>true</code> if the BeanShell fallback has been created
+     */
+    public boolean isBeanShellCreated()
+    {
+        return beanShell != null;
+    }
+
+    private Interpreter getBeanShell() throws EvalError
+    {
+        if (beanShell == null)
+        {
+            XltLogger.runTimeLogger.debug("Creating BeanShell Interpreter");
+            final Interpreter interpreter = new Interpreter();
+            for (final String name : variables.getNames())
+            {
+                interpreter.set(name, variables.get(name));
+            }
+            beanShell = interpreter;
+        }
+        return beanShell;
+    }
+
+    private Object getBeanShellVariable(final String name)
+    {
+        try
+        {
+            return beanShell.getNameSpace().getVariable(name);
+        }
+        catch (final UtilEvalError e)
+        {
+            return Primitive.VOID;
+        }
+    }
+
     /**
      * Maps input on predefined value. The value can be defined dynamically during runtime
      * or in the properties.  The lookup works the following way and breaks, when a value is found.
@@ -113,58 +252,63 @@ public class ParameterInterpreter extends Interpreter
     @Nullable
     public String processDynamicData(final String input)
     {
-        String result = null;
-
-        if (input != null)
+        if (input == null || input.indexOf("${") < 0)
         {
-            result = input;
-
-            final List<String> params = getPatternMatches(input);
-
-            if (!params.isEmpty())
+            // nothing to process, no need to touch the template cache
+            return input;
+        }
+        final NoCodingEvents.Event event = NoCodingEvents.begin(NoCodingEvents.INTERPRETATION);
+        if (stageTimers == null && event == null)
+        {
+            return ParameterTemplate.compile(input).render(this);
+        }
+        final long start = (stageTimers != null) ? stageTimers.start() : 0;
+        try
+        {
+            return ParameterTemplate.compile(input).render(this);
+        }
+        finally
+        {
+            if (stageTimers != null)
             {
-                for (final String param : params)
-                {
-                    if (param.trim().length() != 0)
-                    {
-                    	try
-                        {
-                            final Object evalResult = this.eval(param);
-                            if (evalResult != null)
-                            {
-                                result = StringUtils.replaceOnce(result,
-                                                                 "${"
-                                                                     + param
-                                                                     + "}",
-                                                                 evalResult.toString());
-                            }
-                        }
-                        catch (final EvalError e)
-                        {
-                            XltLogger.runTimeLogger.warn(MessageFormat.format("Unable to process dynamic parameter {0}",
-                                                                              "${"
-                                                                                  + param
-                                                                                  + "}"),
-                                                         e);
-                        }
-                        // first try to map it to a property if a test case is set otherwise ask the properties directly
-                    	if(result.equals(input))
-                    	{
-                    		final String propertyValue = getPropertyValue(param);
-       
-	                        if (propertyValue != null)
-	                        {
-	                            result = StringUtils.replaceOnce(result,
-	                                                             "${" + param + "}",
-	                                                             propertyValue);
-	                        }
-                    	}
-                        // look into variables map
-                    }
-                }
+                stageTimers.stop(Stage.INTERPRET, start);
+            }
+            if (event != null)
+            {
+                event.commit(input);
             }
         }
-        return result;
+    }
+
+    /**
+     * @param stageTimers
+     *            measures the interpretation of dynamic data as {@link Stage#INTERPRET}, only used if enabled
+     */
+    public void setStageTimers(@Nullable final StageTimers stageTimers)
+    {
+        this.stageTimers = (stageTimers != null && stageTimers.isEnabled()) ? stageTimers : null;
+    }
+
+    /**
+     * @param dataFeeder
+     *            the data feeds of the user, available as {@link DataFeeder#VARIABLE}
+     * @throws EvalError
+     *             if the BeanShell fallback already exists and refuses the variable
+     */
+    public void setDataFeeder(final DataFeeder dataFeeder) throws EvalError
+    {
+        set(DataFeeder.VARIABLE, dataFeeder);
+    }
+
+    /**
+     * @param dataPartition
+     *            the partition of the user and iteration, available as {@link DataPartition#VARIABLE}
+     * @throws EvalError
+     *             if the BeanShell fallback already exists and refuses the variable
+     */
+    public void setDataPartition(final DataPartition dataPartition) throws EvalError
+    {
+        set(DataPartition.VARIABLE, dataPartition);
     }
 
     protected List<String> getPatternMatches(final String input)
@@ -182,7 +326,7 @@ public class ParameterInterpreter extends Interpreter
     @Nullable
     protected String getPropertyValue(final String propertyName)
     {
-        final String propertyValue = properties.getProperty(propertyName);
+        final String propertyValue = (properties != null) ? properties.getProperty(propertyName) : null;
         return propertyValue;
     }
 
@@ -0,0 +1,607 @@
+/**
+ *  Copyright 2014 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.xceptance.xlt.common.util.bsh;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import bsh.EvalError;
+
+import com.xceptance.xlt.api.util.XltLogger;
+
+/**
+ * <p>
+ * A string with dynamic parameters such as <code>${host}/path?x=${RANDOM.Number(10)}</code>, compiled once into
+ * literal segments and expression nodes, so it can be rendered without scanning and parsing it again.
+ * </p>
+ * Supported expressions:
+ * <ul>
+ * <li>Names, such as <code>${host}</code>, <code>${NOW}</code> or <code>${com.xceptance.foo}</code>. Looked up in the
+ * variables of the interpreter and in the properties.</li>
+ * <li>Calls on a variable with literal arguments, such as <code>${RANDOM.String(8)}</code> or
+ * <code>${DATA.getFirstName(false)}</code>. The method is resolved once via reflection.</li>
+ * <li>Everything else is evaluated by BeanShell, see {@link ParameterInterpreter#eval(String)}.</li>
+ * </ul>
+ * Templates are immutable and shared between all users, see {@link #compile(String)}.
+ */
+public final class ParameterTemplate
+{
+    /**
+     * The pattern to get the inserted param or commands from strings, such as ${bar = System.currentTimeMillis()}
+     */
+    private static final Pattern PARAMETER_PATTERN = Pattern.compile("\\$\\{([^$]*)\\}");
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)*");
+
+    private static final Pattern CALL_PATTERN = Pattern.compile("([A-Za-z_][A-Za-z0-9_]*)\\.([A-Za-z_][A-Za-z0-9_]*)\\s*\\((.*)\\)");
+
+    private static final Pattern INTEGER_PATTERN = Pattern.compile("-?[0-9]{1,9}");
+
+    private static final Pattern STRING_PATTERN = Pattern.compile("\"([^\"\\\\]*)\"");
+
+    private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    /**
+     * Upper bound of cached templates, inputs beyond are compiled on every call.
+     */
+    private static final int MAX_CACHED_TEMPLATES = 10000;
+
+    private static final ConcurrentMap<String, ParameterTemplate> TEMPLATES = new ConcurrentHashMap<String, ParameterTemplate>();
+
+    /**
+     * The raw input.
+     */
+    private final String source;
+
+    /**
+     * The compiled segments or <code>null</code> if the input does not contain any parameter.
+     */
+    private final Segment[] segments;
+
+    /**
+     * Initial capacity for rendering.
+     */
+    private final int length;
+
+    private ParameterTemplate(final String source, final Segment[] segments)
+    {
+        this.source = source;
+        this.segments = segments;
+        this.length = source.length() + 16;
+    }
+
+    /**
+     * Returns the compiled template for the input. Templates are cached, so every distinct input is parsed only once.
+     *
+     * @param input
+     *            raw string, must not be null
+     * @return the template
+     */
+    public static ParameterTemplate compile(final String input)
+    {
+        ParameterTemplate template = TEMPLATES.get(input);
+        if (template == null)
+        {
+            template = parse(input);
+            if (TEMPLATES.size() < MAX_CACHED_TEMPLATES)
+            {
+                TEMPLATES.putIfAbsent(input, template);
+            }
+        }
+        return template;
+    }
+
+    private static ParameterTemplate parse(final String input)
+    {
+        final Matcher matcher = PARAMETER_PATTERN.matcher(input);
+        final List<Segment> segments = new ArrayList<Segment>();
+        int position = 0;
+        boolean dynamic = false;
+
+        while (matcher.find())
+        {
+            final String param = matcher.group(1);
+            if (param.trim().length() == 0)
+            {
+                // empty parameters are kept as they are
+                continue;
+            }
+            if (matcher.start() > position)
+            {
+                segments.add(new Literal(input.substring(position, matcher.start())));
+            }
+            segments.add(createExpression(param));
+            position = matcher.end();
+            dynamic = true;
+        }
+        if (!dynamic)
+        {
+            return new ParameterTemplate(input, null);
+        }
+        if (position < input.length())
+        {
+            segments.add(new Literal(input.substring(position)));
+        }
+        return new ParameterTemplate(input, segments.toArray(new Segment[segments.size()]));
+    }
+
+    private static Segment createExpression(final String param)
+    {
+        final String expression = param.trim();
+        if (NAME_PATTERN.matcher(expression).matches())
+        {
+            return new NameExpression(param, expression);
+        }
+
+        final Matcher callMatcher = CALL_PATTERN.matcher(expression);
+        if (callMatcher.matches())
+        {
+            final Object[] arguments = parseArguments(callMatcher.group(3));
+            if (arguments != null)
+            {
+                return new CallExpression(param, callMatcher.group(1), callMatcher.group(2), arguments);
+            }
+        }
+        return new ScriptExpression(param);
+    }
+
+    /**
+     * @return the literal arguments, or <code>null</code> if any of them is not a simple int, boolean or string
+     *         literal
+     */
+    private static Object[] parseArguments(final String rawArguments)
+    {
+        if (rawArguments.trim().length() == 0)
+        {
+            return new Object[0];
+        }
+        final String[] tokens = rawArguments.split(",", -1);
+        final Object[] arguments = new Object[tokens.length];
+        for (int i = 0; i < tokens.length; i++)
+        {
+            final String token = tokens[i].trim();
+            final Matcher stringMatcher = STRING_PATTERN.matcher(token);
+            if (INTEGER_PATTERN.matcher(token).matches())
+            {
+                arguments[i] = Integer.valueOf(token);
+            }
+            else if (token.equals("true") || token.equals("false"))
+            {
+                arguments[i] = Boolean.valueOf(token);
+            }
+            else if (stringMatcher.matches())
+            {
+                arguments[i] = stringMatcher.group(1);
+            }
+            else
+            {
+                return null;
+            }
+        }
+        return arguments;
+    }
+
+    /**
+     * @return <code>true</code> if the template does not contain any parameter
+     */
+    public boolean isStatic()
+    {
+        return segments == null;
+    }
+
+    /**
+     * @return the raw input
+     */
+    public String getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Adds the names of all variables, that rendering the template may read. <br>
+     * Names and calls contribute their root variable. Code evaluated by BeanShell contributes every identifier it
+     * contains, which is a superset of the variables it reads.
+     *
+     * @param names
+     *            receives the names
+     */
+    public void collectVariableNames(final Set<String> names)
+    {
+        if (segments != null)
+        {
+            for (final Segment segment : segments)
+            {
+                segment.collectVariableNames(names);
+            }
+        }
+    }
+
+    /**
+     * Renders the template with the state of the passed interpreter. Static templates return the raw input.
+     *
+     * @param interpreter
+     *            provides variables and properties
+     * @return the rendered string
+     */
+    public String render(final ParameterInterpreter interpreter)
+    {
+        if (segments == null)
+        {
+            return source;
+        }
+
+        final StringBuilder result = new StringBuilder(length);
+        for (final Segment segment : segments)
+        {
+            segment.appendTo(result, interpreter);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Part of a compiled template.
+     */
+    private abstract static class Segment
+    {
+        abstract void appendTo(StringBuilder result, ParameterInterpreter interpreter);
+
+        void collectVariableNames(final Set<String> names)
+        {
+        }
+    }
+
+    /**
+     * Plain text.
+     */
+    private static final class Literal extends Segment
+    {
+        private final String text;
+
+        private Literal(final String text)
+        {
+            this.text = text;
+        }
+
+        @Override
+        void appendTo(final StringBuilder result, final ParameterInterpreter interpreter)
+        {
+            result.append(text);
+        }
+    }
+
+    /**
+     * A <code>${...}</code> parameter. Falls back to the properties if the expression does not produce a value, and
+     * keeps the parameter untouched if there is no such property either.
+     */
+    private abstract static class Expression extends Segment
+    {
+        /**
+         * Content between the braces, as it was written.
+         */
+        protected final String param;
+
+        private Expression(final String param)
+        {
+            this.param = param;
+        }
+
+        abstract Object evaluate(ParameterInterpreter interpreter);
+
+        @Override
+        void appendTo(final StringBuilder result, final ParameterInterpreter interpreter)
+        {
+            final Object value = evaluate(interpreter);
+            if (value != null)
+            {
+                result.append(value.toString());
+                return;
+            }
+
+            final String propertyValue = interpreter.getPropertyValue(param);
+            if (propertyValue != null)
+            {
+                result.append(propertyValue);
+            }
+            else
+            {
+                result.append("${").append(param).append('}');
+            }
+        }
+    }
+
+    /**
+     * Plain or dotted name, resolved without parsing.
+     */
+    private static final class NameExpression extends Expression
+    {
+        private final String name;
+
+        /**
+         * First part of a dotted name, or <code>null</code> if the name is not dotted.
+         */
+        private final String root;
+
+        private NameExpression(final String param, final String name)
+        {
+            super(param);
+            this.name = name;
+            final int dot = name.indexOf('.');
+            this.root = (dot < 0) ? null : name.substring(0, dot);
+        }
+
+        @Override
+        void collectVariableNames(final Set<String> names)
+        {
+            names.add((root != null) ? root : name);
+        }
+
+        @Override
+        Object evaluate(final ParameterInterpreter interpreter)
+        {
+            // dotted names are usually properties, avoid the expensive class lookup of BeanShell for them
+            if (root != null && !interpreter.isVariable(root))
+            {
+                final String propertyValue = interpreter.getPropertyValue(name);
+                if (propertyValue != null)
+                {
+                    return propertyValue;
+                }
+            }
+            try
+            {
+                return interpreter.get(name);
+            }
+            catch (final EvalError e)
+            {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Method call on a variable with literal arguments, such as <code>RANDOM.Number(1, 10)</code>.
+     */
+    private static final class CallExpression extends Expression
+    {
+        private final String target;
+
+        private final String methodName;
+
+        private final Object[] arguments;
+
+        /**
+         * The method resolved for the last target class.
+         */
+        private volatile ResolvedMethod resolved;
+
+        private CallExpression(final String param,
+                               final String target,
+                               final String methodName,
+                               final Object[] arguments)
+        {
+            super(param);
+            this.target = target;
+            this.methodName = methodName;
+            this.arguments = arguments;
+        }
+
+        @Override
+        void collectVariableNames(final Set<String> names)
+        {
+            names.add(target);
+        }
+
+        @Override
+        Object evaluate(final ParameterInterpreter interpreter)
+        {
+            final Object targetObject;
+            try
+            {
+                targetObject = interpreter.get(target);
+            }
+            catch (final EvalError e)
+            {
+                return eval(interpreter, param);
+            }
+            if (targetObject == null)
+            {
+                return eval(interpreter, param);
+            }
+
+            final Method method = resolve(targetObject.getClass());
+            if (method == null)
+            {
+                return eval(interpreter, param);
+            }
+            try
+            {
+                return method.invoke(targetObject, arguments);
+            }
+            catch (final IllegalAccessException | IllegalArgumentException e)
+            {
+                // the method could not be called natively, BeanShell may still be able to
+                return eval(interpreter, param);
+            }
+            catch (final InvocationTargetException e)
+            {
+                // the method itself failed, calling it once more via BeanShell would only repeat its side effects
+                XltLogger.runTimeLogger.warn(MessageFormat.format("Unable to process dynamic parameter {0}", "${"
+                                                                                                            + param
+                                                                                                            + "}"),
+                                             e.getCause());
+                return null;
+            }
+        }
+
+        private Method resolve(final Class<?> targetClass)
+        {
+            ResolvedMethod current = resolved;
+            if (current == null || current.targetClass != targetClass)
+            {
+                current = new ResolvedMethod(targetClass, findMethod(targetClass));
+                resolved = current;
+            }
+            return current.method;
+        }
+
+        /**
+         * @return the method, declared by a public class or interface, so it can be invoked, <code>null</code> if
+         *         there is none
+         */
+        private Method findMethod(final Class<?> targetClass)
+        {
+            for (final Method method : targetClass.getMethods())
+            {
+                if (method.getName().equals(methodName) && isApplicable(method.getParameterTypes()))
+                {
+                    return findPublicMethod(targetClass, method.getParameterTypes());
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Looks up the method in the class and its supertypes, such as the public interface of a non-public collection
+         * class.
+         */
+        private Method findPublicMethod(final Class<?> type, final Class<?>[] parameterTypes)
+        {
+            if (type == null)
+            {
+                return null;
+            }
+            if (Modifier.isPublic(type.getModifiers()))
+            {
+                try
+                {
+                    return type.getMethod(methodName, parameterTypes);
+                }
+                catch (final NoSuchMethodException e)
+                {
+                    return null;
+                }
+            }
+            for (final Class<?> interfaceType : type.getInterfaces())
+            {
+                final Method method = findPublicMethod(interfaceType, parameterTypes);
+                if (method != null)
+                {
+                    return method;
+                }
+            }
+            return findPublicMethod(type.getSuperclass(), parameterTypes);
+        }
+
+        private boolean isApplicable(final Class<?>[] parameterTypes)
+        {
+            if (parameterTypes.length != arguments.length)
+            {
+                return false;
+            }
+            for (int i = 0; i < parameterTypes.length; i++)
+            {
+                final Class<?> type = parameterTypes[i];
+                final Object argument = arguments[i];
+                final boolean applicable;
+                if (argument instanceof Integer)
+                {
+                    applicable = type == int.class || type == Integer.class;
+                }
+                else if (argument instanceof Boolean)
+                {
+                    applicable = type == boolean.class || type == Boolean.class;
+                }
+                else
+                {
+                    applicable = type == String.class || type == Object.class || type == CharSequence.class;
+                }
+                if (!applicable)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Method lookup result for a target class, <code>method</code> is <code>null</code> if nothing matched.
+     */
+    private static final class ResolvedMethod
+    {
+        private final Class<?> targetClass;
+
+        private final Method method;
+
+        private ResolvedMethod(final Class<?> targetClass, final Method method)
+        {
+            this.targetClass = targetClass;
+            this.method = method;
+        }
+    }
+
+    /**
+     * Arbitrary code, evaluated by BeanShell.
+     */
+    private static final class ScriptExpression extends Expression
+    {
+        private ScriptExpression(final String param)
+        {
+            super(param);
+        }
+
+        @Override
+        void collectVariableNames(final Set<String> names)
+        {
+            final Matcher matcher = IDENTIFIER_PATTERN.matcher(param);
+            while (matcher.find())
+            {
+                names.add(matcher.group());
+            }
+        }
+
+        @Override
+        Object evaluate(final ParameterInterpreter interpreter)
+        {
+            return eval(interpreter, param);
+        }
+    }
+
+    private static Object eval(final ParameterInterpreter interpreter, final String param)
+    {
+        try
+        {
+            return interpreter.eval(param);
+        }
+        catch (final EvalError e)
+        {
+            XltLogger.runTimeLogger.warn(MessageFormat.format("Unable to process dynamic parameter {0}", "${" + param
+                                                                                                          + "}"),
+                                         e);
+            return null;
+        }
+    }
+}
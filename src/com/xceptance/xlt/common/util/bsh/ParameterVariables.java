@@ -0,0 +1,160 @@
+/**
+ *  Copyright 2014 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.xceptance.xlt.common.util.bsh;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The variables of a single user, such as stored values and the predefined objects NOW, RANDOM and DATA. <br>
+ * A small open addressing map with linear probing and String keys. Variables are only added or replaced, never
+ * removed, so no tombstones are needed. <br>
+ * Not thread safe, every user owns its own instance.
+ */
+public final class ParameterVariables
+{
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    public ParameterVariables()
+    {
+        keys = new String[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds the variable or replaces its value.
+     *
+     * @param name
+     *            the name, must not be null
+     * @param value
+     *            the value, can be null
+     */
+    public void put(final String name, final Object value)
+    {
+        if (name == null)
+        {
+            throw new IllegalArgumentException("Variable name cannot be null");
+        }
+        int index = indexOf(keys, name);
+        if (keys[index] == null)
+        {
+            // keep the load factor at or below 1/2, so probe sequences stay short
+            if ((size + 1) * 2 > keys.length)
+            {
+                resize();
+                index = indexOf(keys, name);
+            }
+            keys[index] = name;
+            size++;
+        }
+        values[index] = value;
+    }
+
+    /**
+     * @param name
+     *            the name
+     * @return the value, or <code>null</code> if there is no such variable or its value is null
+     */
+    public Object get(final String name)
+    {
+        if (name == null)
+        {
+            return null;
+        }
+        return values[indexOf(keys, name)];
+    }
+
+    /**
+     * @param name
+     *            the name
+     * @return <code>true</code> if the variable exists, even if its value is null
+     */
+    public boolean contains(final String name)
+    {
+        return name != null && keys[indexOf(keys, name)] != null;
+    }
+
+    /**
+     * @return the number of variables
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return the names of all variables, in no particular order
+     */
+    public List<String> getNames()
+    {
+        final List<String> names = new ArrayList<String>(size);
+        for (final String key : keys)
+        {
+            if (key != null)
+            {
+                names.add(key);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @return the slot of the key, or the free slot where it belongs
+     */
+    private static int indexOf(final String[] keys, final String name)
+    {
+        final int mask = keys.length - 1;
+        int index = spread(name.hashCode()) & mask;
+        while (true)
+        {
+            final String key = keys[index];
+            if (key == null || key.equals(name))
+            {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private static int spread(final int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void resize()
+    {
+        final String[] oldKeys = keys;
+        final Object[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeys[i] != null)
+            {
+                final int index = indexOf(keys, oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package com.xceptance.xlt.common.util.feed;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.xceptance.xlt.api.util.XltLogger;
+
+/**
+ * A CSV data file, that is shared by all users of the agent. <br>
+ * <ul>
+ * <li>The file is memory mapped, so it is paged in by the operating system on demand and never copied to the heap.
+ * Files larger than the heap are fine.</li>
+ * <li>The first non empty line holds the column names. Every further non empty line is a row, so a row must not
+ * contain line breaks. Fields may be quoted with double quotes, a double quote within a quoted field is escaped by
+ * another one.</li>
+ * <li>Lines are found by scanning the bytes for '\n', so the charset must encode it as this single byte and must not
+ * use it within other characters. Charsets like UTF-8 or ISO-8859-1 are fine, UTF-16 and UTF-32 are rejected.</li>
+ * <li>Rows are found via a sparse index, that holds the position of every {@value #INDEX_INTERVAL}th row only. Reading
+ * a row skips at most {@value #INDEX_INTERVAL} lines of the mapped file.</li>
+ * <li>Rows are handed out via a single atomic cursor or computed from the {@link DataPartition} of the user, see
+ * {@link #nextRow(FeedStrategy, DataPartition)}. Nothing is locked, once the file is
+ * {@link #open(File, char, Charset) opened}. Different files are opened concurrently, the users of the same file wait
+ * until it is indexed.</li>
+ * </ul>
+ * Thread safe.
+ *
+ * @author matthias mitterreiter
+ */
+public final class DataFeed
+{
+    /**
+     * The file is mapped in chunks of 1 GiB, since a single mapping is limited to 2 GiB.
+     */
+    private static final int CHUNK_SHIFT = 30;
+
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    /**
+     * Number of rows per index entry.
+     */
+    private static final int INDEX_INTERVAL = 64;
+
+    /**
+     * Size of the buffer, the file is scanned with while indexing.
+     */
+    private static final int INDEX_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Size of the buffer, the lines are scanned with while reading a row.
+     */
+    private static final int ROW_BUFFER_SIZE = 1024;
+
+    /**
+     * The opened or opening feeds by {@link #getKey(File, char, Charset) key}.
+     */
+    private static final ConcurrentMap<String, FutureTask<DataFeed>> FEEDS =
+        new ConcurrentHashMap<String, FutureTask<DataFeed>>();
+
+    private final String path;
+
+    private final char separator;
+
+    private final Charset charset;
+
+    private final MappedByteBuffer[] chunks;
+
+    private final long size;
+
+    private final String[] columns;
+
+    /**
+     * Position of every {@link #INDEX_INTERVAL}th row.
+     */
+    private final long[] index;
+
+    private final long rowCount;
+
+    /**
+     * Number of rows handed out by the {@link FeedStrategy#SEQUENTIAL sequential} and {@link FeedStrategy#UNIQUE
+     * unique} strategy.
+     */
+    private final AtomicLong cursor = new AtomicLong();
+
+    private DataFeed(final File file, final char separator, final Charset charset) throws IOException
+    {
+        XltLogger.runTimeLogger.debug("Creating new Instance");
+        this.path = file.getPath();
+        this.separator = separator;
+        this.charset = charset;
+
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try
+        {
+            final FileChannel channel = randomAccessFile.getChannel();
+            this.size = channel.size();
+            this.chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT)];
+            for (int i = 0; i < chunks.length; i++)
+            {
+                final long offset = (long) i << CHUNK_SHIFT;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(CHUNK_MASK + 1, size - offset));
+            }
+        }
+        finally
+        {
+            // the mappings stay valid
+            randomAccessFile.close();
+        }
+
+        String[] header = null;
+        long[] positions = new long[16];
+        long rows = 0;
+        final LineScanner scanner = new LineScanner(0, INDEX_BUFFER_SIZE);
+        while (scanner.next())
+        {
+            if (header == null)
+            {
+                header = readFields(scanner.start, scanner.end);
+            }
+            else
+            {
+                if (rows % INDEX_INTERVAL == 0)
+                {
+                    final int slot = (int) (rows / INDEX_INTERVAL);
+                    if (slot == positions.length)
+                    {
+                        positions = Arrays.copyOf(positions, slot * 2);
+                    }
+                    positions[slot] = scanner.start;
+                }
+                rows++;
+            }
+        }
+        if (header == null)
+        {
+            throw new IOException("Data feed file has no header: " + path);
+        }
+        this.columns = header;
+        this.rowCount = rows;
+        this.index = Arrays.copyOf(positions, (int) ((rows + INDEX_INTERVAL - 1) / INDEX_INTERVAL));
+        XltLogger.runTimeLogger.debug("Indexed " + rows + " rows of data feed: " + path);
+    }
+
+    /**
+     * Returns the shared feed of the file. Opens and indexes the file on first use.
+     *
+     * @param file
+     *            the CSV file
+     * @param separator
+     *            the field separator
+     * @param charset
+     *            the charset of the file
+     * @return the feed
+     * @throws IllegalArgumentException
+     *             if the charset does not encode '\n' as a single byte, or the file cannot be read or has no header
+     */
+    public static DataFeed open(final File file, final char separator, final Charset charset)
+    {
+        if (!Arrays.equals("\n".getBytes(charset), new byte[]
+            {
+                '\n'
+            }))
+        {
+            throw new IllegalArgumentException("Charset " + charset.name() + " is not supported by data feed: "
+                                               + file.getPath());
+        }
+
+        final String key = getKey(file, separator, charset);
+        FutureTask<DataFeed> task = FEEDS.get(key);
+        if (task == null)
+        {
+            final FutureTask<DataFeed> newTask = new FutureTask<DataFeed>(new Callable<DataFeed>()
+            {
+                @Override
+                public DataFeed call() throws IOException
+                {
+                    return new DataFeed(file, separator, charset);
+                }
+            });
+            task = FEEDS.putIfAbsent(key, newTask);
+            if (task == null)
+            {
+                // index the file in the calling thread, the other users of the file wait for it
+                task = newTask;
+                task.run();
+            }
+        }
+
+        try
+        {
+            return task.get();
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("Interrupted while opening data feed: " + file.getPath(), e);
+        }
+        catch (final ExecutionException e)
+        {
+            // a later attempt may succeed
+            FEEDS.remove(key, task);
+            final Throwable cause = e.getCause();
+            throw new IllegalArgumentException("Failed to open data feed: " + file.getPath() + ": "
+                                               + cause.getMessage(), cause);
+        }
+    }
+
+    private static String getKey(final File file, final char separator, final Charset charset)
+    {
+        String path;
+        try
+        {
+            path = file.getCanonicalPath();
+        }
+        catch (final IOException e)
+        {
+            path = file.getAbsolutePath();
+        }
+        return path + '\n' + separator + '\n' + charset.name();
+    }
+
+    /**
+     * @return the column names
+     */
+    public List<String> getColumns()
+    {
+        return new ArrayList<String>(Arrays.asList(columns));
+    }
+
+    /**
+     * @param column
+     *            the column name
+     * @return the position of the column, -1 if there is no such column
+     */
+    public int getColumnIndex(final String column)
+    {
+        for (int i = 0; i < columns.length; i++)
+        {
+            if (columns[i].equals(column))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of rows, without the header
+     */
+    public long getRowCount()
+    {
+        return rowCount;
+    }
+
+    /**
+     * Picks the next row for a user.
+     *
+     * @param strategy
+     *            how rows are handed out
+     * @return the number of the row, starting at 0
+     * @throws IllegalArgumentException
+     *             if the feed has no rows or the unique rows are used up
+     */
+    public long nextRow(final FeedStrategy strategy)
+    {
+        return nextRow(strategy, null);
+    }
+
+    /**
+     * Picks the next row for a user.
+     *
+     * @param strategy
+     *            how rows are handed out
+     * @param partition
+     *            the partition of the user, only used by the {@link FeedStrategy#PARTITIONED partitioned} strategy
+     * @return the number of the row, starting at 0
+     * @throws IllegalArgumentException
+     *             if the feed has no rows, the unique rows or the rows of the partition are used up, or the partitioned
+     *             strategy lacks a partition
+     */
+    public long nextRow(final FeedStrategy strategy, @Nullable final DataPartition partition)
+    {
+        if (rowCount == 0)
+        {
+            throw new IllegalArgumentException("Data feed has no rows: " + path);
+        }
+        switch (strategy)
+        {
+            case PARTITIONED:
+                if (partition == null)
+                {
+                    throw new IllegalArgumentException("Partitioned data feed requires a data partition: " + path);
+                }
+                return partition.getRow(rowCount);
+            case RANDOM:
+                return ThreadLocalRandom.current().nextLong(rowCount);
+            case UNIQUE:
+                final long row = cursor.getAndIncrement();
+                if (row >= rowCount)
+                {
+                    throw new IllegalArgumentException("All " + rowCount + " rows of data feed are used: " + path);
+                }
+                return row;
+            default:
+                return (cursor.getAndIncrement() & Long.MAX_VALUE) % rowCount;
+        }
+    }
+
+    /**
+     * @param row
+     *            the number of the row, starting at 0
+     * @return the fields of the row
+     * @throws IllegalArgumentException
+     *             if there is no such row
+     */
+    public String[] getRow(final long row)
+    {
+        if (row < 0 || row >= rowCount)
+        {
+            throw new IllegalArgumentException("Row " + row + " is out of range, data feed has " + rowCount
+                                               + " rows: " + path);
+        }
+        final LineScanner scanner = new LineScanner(index[(int) (row / INDEX_INTERVAL)], ROW_BUFFER_SIZE);
+        for (long skip = row % INDEX_INTERVAL; skip >= 0; skip--)
+        {
+            scanner.next();
+        }
+        return readFields(scanner.start, scanner.end);
+    }
+
+    /**
+     * Copies bytes of the file, but not beyond the end of the chunk, that holds the position.
+     *
+     * @return the number of bytes copied
+     */
+    private int read(final long position, final byte[] bytes, final int offset, final int length)
+    {
+        final ByteBuffer chunk = chunks[(int) (position >>> CHUNK_SHIFT)].duplicate();
+        chunk.position((int) (position & CHUNK_MASK));
+        final int count = Math.min(length, chunk.remaining());
+        chunk.get(bytes, offset, count);
+        return count;
+    }
+
+    private String[] readFields(final long start, final long end)
+    {
+        final byte[] bytes = new byte[(int) (end - start)];
+        int offset = 0;
+        while (offset < bytes.length)
+        {
+            offset += read(start + offset, bytes, offset, bytes.length - offset);
+        }
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\r')
+        {
+            length--;
+        }
+        return parseFields(new String(bytes, 0, length, charset), separator);
+    }
+
+    /**
+     * Finds the non blank lines of the file by scanning it in bulk.
+     */
+    private final class LineScanner
+    {
+        private final byte[] buffer;
+
+        /**
+         * Position of the first byte in the buffer.
+         */
+        private long bufferPosition;
+
+        private int bufferLength;
+
+        private int bufferIndex;
+
+        /**
+         * Position of the first byte of the current line.
+         */
+        long start;
+
+        /**
+         * Position of the line break, that ends the current line, the size of the file for the last line.
+         */
+        long end;
+
+        private LineScanner(final long position, final int bufferSize)
+        {
+            this.buffer = new byte[(int) Math.min(bufferSize, Math.max(1, size - position))];
+            this.bufferPosition = position;
+        }
+
+        /**
+         * Moves to the next non blank line.
+         *
+         * @return <code>false</code> if there are no more lines
+         */
+        boolean next()
+        {
+            while (bufferPosition + bufferIndex < size)
+            {
+                start = bufferPosition + bufferIndex;
+                // the last byte of the line, before the line break
+                byte last = '\n';
+                while (true)
+                {
+                    if (bufferIndex == bufferLength)
+                    {
+                        bufferPosition += bufferLength;
+                        bufferIndex = 0;
+                        bufferLength = 0;
+                        if (bufferPosition == size)
+                        {
+                            end = size;
+                            break;
+                        }
+                        bufferLength = read(bufferPosition, buffer, 0,
+                                            (int) Math.min(buffer.length, size - bufferPosition));
+                    }
+                    final byte b = buffer[bufferIndex++];
+                    if (b == '\n')
+                    {
+                        end = bufferPosition + bufferIndex - 1;
+                        break;
+                    }
+                    last = b;
+                }
+                final boolean blank = end == start || (end == start + 1 && last == '\r');
+                if (!blank)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static String[] parseFields(final String line, final char separator)
+    {
+        final List<String> fields = new ArrayList<String>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++)
+        {
+            final char c = line.charAt(i);
+            if (quoted)
+            {
+                if (c != '"')
+                {
+                    field.append(c);
+                }
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"')
+                {
+                    field.append('"');
+                    i++;
+                }
+                else
+                {
+                    quoted = false;
+                }
+            }
+            else if (c == '"' && field.length() == 0 && !wasQuoted)
+            {
+                quoted = true;
+                wasQuoted = true;
+            }
+            else if (c == separator)
+            {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            }
+            else
+            {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[fields.size()]);
+    }
+}
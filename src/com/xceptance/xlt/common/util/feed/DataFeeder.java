@@ -0,0 +1,153 @@
+package com.xceptance.xlt.common.util.feed;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.xceptance.xlt.api.util.XltLogger;
+
+/**
+ * The data feeds of a single user, available to parameters as <code>FEED</code>, such as
+ * <code>${FEED.customers.email}</code>. <br>
+ * A feed hands out one row per instance, which lives for one iteration of the user. All columns of a feed, that are
+ * read during the iteration, come from the same row, so <code>${FEED.customers.email}</code> and
+ * <code>${FEED.customers.password}</code> belong together. <br>
+ * Not thread safe, every user owns its own instance.
+ *
+ * @author matthias mitterreiter
+ */
+public class DataFeeder
+{
+    /**
+     * The name of the variable, the feeder is available as.
+     */
+    public static final String VARIABLE = "FEED";
+
+    private final Map<String, Feed> feeds = new HashMap<String, Feed>();
+
+    /**
+     * The partition of the user, used by {@link FeedStrategy#PARTITIONED partitioned} feeds.
+     */
+    @Nullable
+    private DataPartition partition;
+
+    public DataFeeder()
+    {
+        XltLogger.runTimeLogger.debug("Creating new Instance");
+    }
+
+    /**
+     * Adds a feed or replaces the one with the same name.
+     *
+     * @param name
+     *            the name of the feed, must not contain a dot
+     * @param feed
+     *            the shared data file
+     * @param strategy
+     *            how rows are handed out
+     */
+    public void addFeed(final String name, final DataFeed feed, final FeedStrategy strategy)
+    {
+        if (name == null || name.isEmpty() || name.indexOf('.') >= 0)
+        {
+            throw new IllegalArgumentException("Invalid data feed name: \"" + name + "\"");
+        }
+        feeds.put(name, new Feed(feed, strategy));
+    }
+
+    /**
+     * @param partition
+     *            the partition of the user and iteration, required by {@link FeedStrategy#PARTITIONED partitioned}
+     *            feeds
+     */
+    public void setPartition(@Nullable final DataPartition partition)
+    {
+        this.partition = partition;
+    }
+
+    /**
+     * @return <code>true</code> if there is no feed
+     */
+    public boolean isEmpty()
+    {
+        return feeds.isEmpty();
+    }
+
+    /**
+     * Returns a field of the current row of a feed. Picks the row on first use.
+     *
+     * @param path
+     *            the name of the feed and the column, separated by a dot, such as <code>customers.email</code>
+     * @return the value, an empty string if the row is shorter than the header
+     * @throws IllegalArgumentException
+     *             if there is no such feed or column, or the feed has no row left
+     */
+    public String get(final String path)
+    {
+        final int dot = path.indexOf('.');
+        if (dot < 0)
+        {
+            throw new IllegalArgumentException("Expected <feed>.<column> but was: \"" + path + "\"");
+        }
+        final String name = path.substring(0, dot);
+        final String column = path.substring(dot + 1);
+
+        final Feed feed = getFeed(name);
+        final int columnIndex = feed.dataFeed.getColumnIndex(column);
+        if (columnIndex < 0)
+        {
+            throw new IllegalArgumentException("Data feed \"" + name + "\" has no column: \"" + column + "\"");
+        }
+        final String[] row = feed.getRow(partition);
+        return (columnIndex < row.length) ? row[columnIndex] : "";
+    }
+
+    /**
+     * Drops the current rows, so every feed picks a new row on its next use.
+     */
+    public void nextRows()
+    {
+        for (final Feed feed : feeds.values())
+        {
+            feed.row = null;
+        }
+    }
+
+    private Feed getFeed(final String name)
+    {
+        final Feed feed = feeds.get(name);
+        if (feed == null)
+        {
+            throw new IllegalArgumentException("Unknown data feed: \"" + name + "\"");
+        }
+        return feed;
+    }
+
+    /**
+     * A shared data file and the row of this user.
+     */
+    private static final class Feed
+    {
+        private final DataFeed dataFeed;
+
+        private final FeedStrategy strategy;
+
+        private String[] row;
+
+        private Feed(final DataFeed dataFeed, final FeedStrategy strategy)
+        {
+            this.dataFeed = dataFeed;
+            this.strategy = strategy;
+        }
+
+        private String[] getRow(final DataPartition partition)
+        {
+            if (row == null)
+            {
+                row = dataFeed.getRow(dataFeed.nextRow(strategy, partition));
+            }
+            return row;
+        }
+    }
+}
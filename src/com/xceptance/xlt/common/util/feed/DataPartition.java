@@ -0,0 +1,231 @@
+package com.xceptance.xlt.common.util.feed;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.xceptance.xlt.api.engine.Session;
+import com.xceptance.xlt.api.util.XltProperties;
+import com.xceptance.xlt.common.util.NoCodingPropAdmin;
+
+/**
+ * The share of unique data of the current user and iteration, available to parameters as <code>PARTITION</code>, such
+ * as <code>${PARTITION.getUniqueNumber()}</code>. <br>
+ * Every user of the load test owns a slot, derived from its user type, agent number and user number:
+ * <code>slot = typeOffset + agentNumber * slotsPerAgent + userNumber</code>. The layout is computed from the load
+ * profile, <code>com.xceptance.xlt.loadtests</code> and the <code>users</code> of every listed type, so it is the
+ * same on every agent. Every user type gets <code>agentCount * slotsPerAgent</code> slots, its users rounded up evenly
+ * spread across the agents, and the types follow each other in the order of the list. Slots are disjoint across all
+ * user types and agents, so unique data is allocated without any coordination between agents or users:
+ * <ul>
+ * <li>{@link #getUniqueNumber()} interleaves the slots, <code>iteration * slotCount + slot</code>, so there is no upper
+ * bound.</li>
+ * <li>{@link #getRow(long)} splits the rows of a data file into one contiguous block per slot, the user takes the next
+ * row of its block in every iteration, see {@link FeedStrategy#PARTITIONED}.</li>
+ * </ul>
+ * Immutable.
+ *
+ * @author matthias mitterreiter
+ */
+public final class DataPartition
+{
+    /**
+     * The name of the variable, the partition is available as.
+     */
+    public static final String VARIABLE = "PARTITION";
+
+    /**
+     * The number of iterations started so far, keyed by user ID.
+     */
+    private static final ConcurrentMap<String, AtomicLong> ITERATIONS = new ConcurrentHashMap<String, AtomicLong>();
+
+    private final long slot;
+
+    private final long slotCount;
+
+    private final long iteration;
+
+    /**
+     * @param slot
+     *            the slot of the user, starting at 0
+     * @param slotCount
+     *            the number of slots of the load test
+     * @param iteration
+     *            the iteration of the user, starting at 0
+     */
+    public DataPartition(final long slot, final long slotCount, final long iteration)
+    {
+        if (slotCount <= 0 || slot < 0 || slot >= slotCount || iteration < 0)
+        {
+            throw new IllegalArgumentException("Invalid data partition: slot " + slot + " of " + slotCount
+                                               + ", iteration " + iteration);
+        }
+        this.slot = slot;
+        this.slotCount = slotCount;
+        this.iteration = iteration;
+    }
+
+    /**
+     * Starts the next iteration of the current user. Must be called once per iteration.
+     *
+     * @return the partition of the current user and the new iteration
+     * @throws IllegalArgumentException
+     *             if the load profile is invalid or the agent runs more users of the type than its share
+     */
+    public static DataPartition nextIteration()
+    {
+        final Session session = Session.getCurrent();
+        AtomicLong iterations = ITERATIONS.get(session.getUserID());
+        if (iterations == null)
+        {
+            final AtomicLong newIterations = new AtomicLong();
+            iterations = ITERATIONS.putIfAbsent(session.getUserID(), newIterations);
+            if (iterations == null)
+            {
+                iterations = newIterations;
+            }
+        }
+
+        return create(XltProperties.getInstance(), session.getUserName(), session.getUserNumber(),
+                      session.getAgentNumber(), session.getTotalAgentCount(), session.getTotalUserCount(),
+                      iterations.getAndIncrement());
+    }
+
+    /**
+     * Creates the partition of a user, see the slot layout above.
+     *
+     * @param properties
+     *            the properties, that hold the load profile
+     * @param userType
+     *            the user type, i.e. the name of the load test
+     * @param userNumber
+     *            the number of the user among the users of its type on the agent
+     * @param agentNumber
+     *            the number of the agent
+     * @param agentCount
+     *            the number of agents
+     * @param totalUserCount
+     *            the number of users of the type across all agents, only used if the type is not part of the load
+     *            profile, e.g. in development mode
+     * @param iteration
+     *            the iteration of the user, starting at 0
+     * @return the partition
+     * @throws IllegalArgumentException
+     *             if the load profile is invalid or the user number exceeds the share of the agent
+     */
+    public static DataPartition create(final XltProperties properties, final String userType, final int userNumber,
+                                       final int agentNumber, final int agentCount, final int totalUserCount,
+                                       final long iteration)
+    {
+        final int agents = Math.max(1, agentCount);
+        long typeOffset = -1;
+        long slotsPerAgent = 0;
+        long slotCount = 0;
+        final String loadTests = properties.getProperty(NoCodingPropAdmin.LOADTESTS, "").trim();
+        for (final String loadTest : loadTests.isEmpty() ? new String[0] : loadTests.split("[\\s,]+"))
+        {
+            final long typeSlotsPerAgent = getShare(getUserCount(properties, loadTest), agents);
+            if (typeOffset < 0 && loadTest.equals(userType))
+            {
+                typeOffset = slotCount;
+                slotsPerAgent = typeSlotsPerAgent;
+            }
+            slotCount += agents * typeSlotsPerAgent;
+        }
+        if (typeOffset < 0)
+        {
+            // not part of the load profile, the type gets the slots after all others
+            typeOffset = slotCount;
+            slotsPerAgent = getShare(Math.max(1, totalUserCount), agents);
+            slotCount += agents * slotsPerAgent;
+        }
+        if (userNumber >= slotsPerAgent)
+        {
+            throw new IllegalArgumentException("User " + userNumber + " of type " + userType + " exceeds the "
+                                               + slotsPerAgent + " data partition slots of agent " + agentNumber
+                                               + ", the users of a type must be spread evenly across the agents");
+        }
+        return new DataPartition(typeOffset + agentNumber * slotsPerAgent + userNumber, slotCount, iteration);
+    }
+
+    /**
+     * @return the number of users of the load test, the maximum of its load function
+     */
+    private static int getUserCount(final XltProperties properties, final String loadTest)
+    {
+        final String prefix = NoCodingPropAdmin.LOADTESTS + ".";
+        final String users = properties.getProperty(prefix + loadTest + ".users",
+                                                    properties.getProperty(prefix + "default.users", ""));
+        int max = 0;
+        try
+        {
+            // either a number or a load function like "0/1 1h/10"
+            for (final String point : users.trim().split("[\\s,]+"))
+            {
+                max = Math.max(max, Integer.parseInt(point.substring(point.indexOf('/') + 1)));
+            }
+        }
+        catch (final NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Invalid user count: \"" + users + "\" of load test: " + loadTest, e);
+        }
+        return max;
+    }
+
+    /**
+     * @return the users of a type per agent, rounded up
+     */
+    private static long getShare(final int userCount, final int agentCount)
+    {
+        return (userCount + agentCount - 1) / agentCount;
+    }
+
+    public long getSlot()
+    {
+        return slot;
+    }
+
+    public long getSlotCount()
+    {
+        return slotCount;
+    }
+
+    public long getIteration()
+    {
+        return iteration;
+    }
+
+    /**
+     * @return a number, that no other user and no other iteration gets
+     */
+    public long getUniqueNumber()
+    {
+        return iteration * slotCount + slot;
+    }
+
+    /**
+     * Returns the row of a data file, that belongs to this user and iteration.
+     *
+     * @param rowCount
+     *            the number of rows of the data file
+     * @return the number of the row, starting at 0
+     * @throws IllegalArgumentException
+     *             if the block of the user has no row left for this iteration
+     */
+    public long getRow(final long rowCount)
+    {
+        final long blockSize = rowCount / slotCount;
+        if (iteration >= blockSize)
+        {
+            throw new IllegalArgumentException("All " + blockSize + " rows of slot " + slot + " are used, "
+                                               + rowCount + " rows are split across " + slotCount + " slots");
+        }
+        return slot * blockSize + iteration;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "slot " + slot + " of " + slotCount + ", iteration " + iteration;
+    }
+}
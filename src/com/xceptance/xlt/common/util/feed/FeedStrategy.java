@@ -0,0 +1,48 @@
+package com.xceptance.xlt.common.util.feed;
+
+/**
+ * How the rows of a {@link DataFeed} are handed out to the users of the agent.
+ */
+public enum FeedStrategy
+{
+    /**
+     * One row after another, starting over at the end of the file.
+     */
+    SEQUENTIAL,
+
+    /**
+     * A random row, rows may repeat.
+     */
+    RANDOM,
+
+    /**
+     * One row after another, every row is handed out only once per agent. The feed fails, once all rows are used.
+     */
+    UNIQUE,
+
+    /**
+     * The next row of the contiguous block of the user, see {@link DataPartition#getRow(long)}. Every row is handed
+     * out only once across all agents, without any coordination. The feed fails, once the block is used.
+     */
+    PARTITIONED;
+
+    /**
+     * @param name
+     *            the name of the strategy, case insensitive
+     * @return the strategy
+     * @throws IllegalArgumentException
+     *             if there is no such strategy
+     */
+    public static FeedStrategy fromName(final String name)
+    {
+        for (final FeedStrategy strategy : values())
+        {
+            if (strategy.name().equalsIgnoreCase(name.trim()))
+            {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported data feed strategy: \"" + name
+                                           + "\", use one of: sequential, random, unique, partitioned");
+    }
+}
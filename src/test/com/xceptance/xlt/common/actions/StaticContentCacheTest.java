@@ -0,0 +1,106 @@
+package test.com.xceptance.xlt.common.actions;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.http.client.utils.DateUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.xceptance.xlt.common.actions.StaticContentCache;
+
+public class StaticContentCacheTest
+{
+    private static final String url = "http://localhost/style.css";
+
+    private StaticContentCache cache;
+
+    @Before
+    public void setup()
+    {
+        cache = new StaticContentCache(1000);
+    }
+
+    private WebResponse createResponse(final int statusCode, final String... headers) throws MalformedURLException
+    {
+        final List<NameValuePair> headerList = new ArrayList<NameValuePair>();
+        for (int i = 0; i < headers.length; i += 2)
+        {
+            headerList.add(new NameValuePair(headers[i], headers[i + 1]));
+        }
+        final WebResponseData data = new WebResponseData(new byte[0], statusCode, "", headerList);
+        return new WebResponse(data, new URL(url), HttpMethod.GET, 0);
+    }
+
+    @Test
+    public void testMaxAgeIsFresh() throws MalformedURLException
+    {
+        Assert.assertFalse(cache.isFresh(url));
+        cache.update(url, createResponse(200, "Cache-Control", "public, max-age=3600"), 100);
+        Assert.assertTrue(cache.isFresh(url));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(100, cache.getUsedBytes());
+    }
+
+    @Test
+    public void testExpires() throws MalformedURLException
+    {
+        final String future = DateUtils.formatDate(new Date(System.currentTimeMillis() + 60000));
+        cache.update(url, createResponse(200, "Expires", future), 100);
+        Assert.assertTrue(cache.isFresh(url));
+
+        final String past = DateUtils.formatDate(new Date(System.currentTimeMillis() - 60000));
+        cache.update(url, createResponse(200, "Expires", past, "ETag", "\"abc\""), 100);
+        Assert.assertFalse(cache.isFresh(url));
+    }
+
+    @Test
+    public void testNoStore() throws MalformedURLException
+    {
+        cache.update(url, createResponse(200, "Cache-Control", "max-age=3600, no-store", "ETag", "\"abc\""), 100);
+        Assert.assertFalse(cache.isFresh(url));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testRevalidation() throws MalformedURLException
+    {
+        final String lastModified = DateUtils.formatDate(new Date(0));
+        cache.update(url, createResponse(200, "Cache-Control", "no-cache", "ETag", "\"abc\"", "Last-Modified",
+                                         lastModified), 100);
+        Assert.assertFalse(cache.isFresh(url));
+
+        final WebRequest request = new WebRequest(new URL(url));
+        cache.addValidators(request);
+        Assert.assertEquals("\"abc\"", request.getAdditionalHeaders().get("If-None-Match"));
+        Assert.assertEquals(lastModified, request.getAdditionalHeaders().get("If-Modified-Since"));
+
+        cache.update(url, createResponse(304, "Cache-Control", "max-age=60"), 0);
+        Assert.assertEquals(1, cache.getRevalidations());
+        Assert.assertTrue(cache.isFresh(url));
+        Assert.assertEquals(100, cache.getUsedBytes());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() throws MalformedURLException
+    {
+        cache.update("http://localhost/a", createResponse(200, "Cache-Control", "max-age=60"), 400);
+        cache.update("http://localhost/b", createResponse(200, "Cache-Control", "max-age=60"), 400);
+        Assert.assertTrue(cache.isFresh("http://localhost/a"));
+
+        cache.update("http://localhost/c", createResponse(200, "Cache-Control", "max-age=60"), 400);
+        Assert.assertTrue(cache.isFresh("http://localhost/a"));
+        Assert.assertFalse(cache.isFresh("http://localhost/b"));
+        Assert.assertTrue(cache.isFresh("http://localhost/c"));
+        Assert.assertEquals(800, cache.getUsedBytes());
+    }
+}
@@ -0,0 +1,69 @@
+package test.com.xceptance.xlt.common.actions;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.xceptance.xlt.common.actions.StaticContentDownloadExecutors;
+
+public class StaticContentDownloadExecutorsTest
+{
+    @Test
+    public void testExecutorIsReused()
+    {
+        final ThreadPoolExecutor executor = StaticContentDownloadExecutors.getExecutor(2);
+        Assert.assertSame(executor, StaticContentDownloadExecutors.getExecutor(2));
+        Assert.assertFalse(executor.isShutdown());
+        Assert.assertEquals(2, executor.getMaximumPoolSize());
+    }
+
+    @Test
+    public void testResize()
+    {
+        final ThreadPoolExecutor executor = StaticContentDownloadExecutors.getExecutor(2);
+
+        Assert.assertSame(executor, StaticContentDownloadExecutors.getExecutor(4));
+        Assert.assertEquals(4, executor.getCorePoolSize());
+        Assert.assertEquals(4, executor.getMaximumPoolSize());
+
+        Assert.assertSame(executor, StaticContentDownloadExecutors.getExecutor(3));
+        Assert.assertEquals(3, executor.getCorePoolSize());
+        Assert.assertEquals(3, executor.getMaximumPoolSize());
+    }
+
+    @Test
+    public void testBounded() throws InterruptedException
+    {
+        final ThreadPoolExecutor executor = StaticContentDownloadExecutors.getExecutor(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(4);
+
+        for (int i = 0; i < 4; i++)
+        {
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        release.await();
+                    }
+                    catch (final InterruptedException e)
+                    {
+                        // ignore
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        Assert.assertTrue(executor.getPoolSize() <= 2);
+        Assert.assertEquals(2, StaticContentDownloadExecutors.getQueueDepth());
+
+        release.countDown();
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+}
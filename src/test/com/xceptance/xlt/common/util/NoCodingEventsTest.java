@@ -0,0 +1,62 @@
+package test.com.xceptance.xlt.common.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.xceptance.xlt.common.util.NoCodingEvents;
+
+public class NoCodingEventsTest
+{
+    @After
+    public void tearDown()
+    {
+        NoCodingEvents.setEnabled(false);
+    }
+
+    @Test
+    public void testDisabledByDefault()
+    {
+        Assert.assertFalse(NoCodingEvents.isEnabled());
+        Assert.assertNull(NoCodingEvents.begin(NoCodingEvents.ACTION));
+    }
+
+    @Test
+    public void testNotRecording()
+    {
+        NoCodingEvents.setEnabled(true);
+        Assert.assertNull(NoCodingEvents.begin(NoCodingEvents.STORE));
+    }
+
+    @Test
+    public void testRecording() throws Exception
+    {
+        // the test suite still compiles for JVMs without JFR, so the recording is controlled via reflection
+        final Class<?> recordingClass;
+        try
+        {
+            recordingClass = Class.forName("jdk.jfr.Recording");
+        }
+        catch (final ClassNotFoundException e)
+        {
+            Assume.assumeTrue(false);
+            return;
+        }
+        final Object recording = recordingClass.getDeclaredConstructor().newInstance();
+        recordingClass.getMethod("enable", String.class).invoke(recording, NoCodingEvents.VALIDATION.getName());
+        recordingClass.getMethod("start").invoke(recording);
+        try
+        {
+            NoCodingEvents.setEnabled(true);
+            final NoCodingEvents.Event event = NoCodingEvents.begin(NoCodingEvents.VALIDATION);
+            Assert.assertNotNull(event);
+            event.commit("Title", "XPath", "//title");
+        }
+        finally
+        {
+            recordingClass.getMethod("close").invoke(recording);
+        }
+        Assert.assertNull(NoCodingEvents.begin(NoCodingEvents.VALIDATION));
+    }
+}
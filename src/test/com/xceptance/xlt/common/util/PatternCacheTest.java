@@ -0,0 +1,70 @@
+package test.com.xceptance.xlt.common.util;
+
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import bsh.EvalError;
+
+import com.xceptance.xlt.api.data.GeneralDataProvider;
+import com.xceptance.xlt.api.util.XltProperties;
+import com.xceptance.xlt.common.util.PatternCache;
+import com.xceptance.xlt.common.util.action.data.URLActionDataStore;
+import com.xceptance.xlt.common.util.action.data.URLActionDataValidation;
+import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
+
+public class PatternCacheTest
+{
+    @Test
+    public void testGet()
+    {
+        Assert.assertSame(PatternCache.get("a+b"), PatternCache.get("a+b"));
+        Assert.assertEquals("a+b", PatternCache.get("a+b").pattern());
+    }
+
+    @Test(expected = PatternSyntaxException.class)
+    public void testGetInvalid()
+    {
+        PatternCache.get("a(b");
+    }
+
+    @Test
+    public void testCompileIfStatic()
+    {
+        Assert.assertSame(PatternCache.get("a+b"), PatternCache.compileIfStatic("a+b"));
+        Assert.assertNull(PatternCache.compileIfStatic("a${b}"));
+        Assert.assertNull(PatternCache.compileIfStatic("a(b"));
+        Assert.assertNull(PatternCache.compileIfStatic(null));
+    }
+
+    @Test
+    public void testValidationPatterns() throws EvalError
+    {
+        final ParameterInterpreter interpreter = new ParameterInterpreter(XltProperties.getInstance(),
+                                                                          GeneralDataProvider.getInstance());
+        final URLActionDataValidation validation = new URLActionDataValidation("v", URLActionDataValidation.REGEXP,
+                                                                               "id=[0-9]+",
+                                                                               URLActionDataValidation.MATCHES,
+                                                                               "id=${id}", interpreter);
+        Assert.assertSame(PatternCache.get("id=[0-9]+"), validation.getSelectionContentAsPattern());
+
+        interpreter.set("id", "1");
+        Assert.assertEquals("id=1", validation.getValidationContentAsPattern().pattern());
+        interpreter.set("id", "2");
+        Assert.assertEquals("id=2", validation.getValidationContentAsPattern().pattern());
+
+        final URLActionDataValidation copy = new URLActionDataValidation(validation, interpreter);
+        Assert.assertSame(validation.getSelectionContentAsPattern(), copy.getSelectionContentAsPattern());
+    }
+
+    @Test
+    public void testStorePattern()
+    {
+        final ParameterInterpreter interpreter = new ParameterInterpreter(XltProperties.getInstance(),
+                                                                          GeneralDataProvider.getInstance());
+        final URLActionDataStore store = new URLActionDataStore("s", URLActionDataStore.REGEXP, "id=([0-9]+)",
+                                                                URLActionDataStore.REGEXGROUP, "1", interpreter);
+        Assert.assertSame(PatternCache.get("id=([0-9]+)"), store.getSelectionContentAsPattern());
+    }
+}
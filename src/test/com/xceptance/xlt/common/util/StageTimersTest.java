@@ -0,0 +1,79 @@
+package test.com.xceptance.xlt.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.xceptance.xlt.api.data.GeneralDataProvider;
+import com.xceptance.xlt.api.util.XltProperties;
+import com.xceptance.xlt.common.util.StageTimers;
+import com.xceptance.xlt.common.util.StageTimers.Stage;
+import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
+
+public class StageTimersTest
+{
+    @Test
+    public void testSumPerActionAndStage() throws InterruptedException
+    {
+        final StageTimers timers = new StageTimers(true);
+
+        timers.setCurrentAction("Login");
+        long start = timers.start();
+        Thread.sleep(2);
+        timers.stop(Stage.BUILD, start);
+        final long firstBuild = timers.getTime("Login", Stage.BUILD);
+        Assert.assertTrue(firstBuild >= 2000000);
+
+        timers.setCurrentAction("Search");
+        start = timers.start();
+        timers.stop(Stage.BUILD, start);
+
+        timers.setCurrentAction("Login");
+        start = timers.start();
+        timers.stop(Stage.BUILD, start);
+        start = timers.start();
+        Thread.sleep(1);
+        timers.stopValidation("Title", start);
+
+        Assert.assertTrue(timers.getTime("Login", Stage.BUILD) >= firstBuild);
+        Assert.assertTrue(timers.getValidationTime("Login", "Title") >= 1000000);
+        Assert.assertEquals(timers.getValidationTime("Login", "Title"), timers.getTime("Login", Stage.VALIDATE));
+        Assert.assertEquals(0, timers.getTime("Search", Stage.VALIDATE));
+        Assert.assertEquals(0, timers.getTime("Unknown", Stage.BUILD));
+
+        timers.report("Login");
+        Assert.assertEquals(0, timers.getTime("Login", Stage.BUILD));
+        Assert.assertTrue(timers.getTime("Search", Stage.BUILD) > 0);
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        final StageTimers timers = new StageTimers(false);
+        timers.setCurrentAction("Login");
+
+        final long start = timers.start();
+        Assert.assertEquals(0, start);
+        timers.stop(Stage.EXECUTE, start);
+        timers.stopValidation("Title", start);
+        timers.report("Login");
+
+        Assert.assertEquals(0, timers.getTime("Login", Stage.EXECUTE));
+        Assert.assertEquals(0, timers.getValidationTime("Login", "Title"));
+    }
+
+    @Test
+    public void testInterpretation()
+    {
+        final StageTimers timers = new StageTimers(true);
+        timers.setCurrentAction("Login");
+
+        final ParameterInterpreter interpreter = new ParameterInterpreter(XltProperties.getInstance(),
+                                                                          GeneralDataProvider.getInstance());
+        interpreter.setStageTimers(timers);
+        interpreter.processDynamicData("no parameters");
+        Assert.assertEquals(0, timers.getTime("Login", Stage.INTERPRET));
+
+        interpreter.processDynamicData("${NOW}");
+        Assert.assertTrue(timers.getTime("Login", Stage.INTERPRET) > 0);
+    }
+}
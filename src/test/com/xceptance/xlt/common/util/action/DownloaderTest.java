@@ -3,6 +3,7 @@ package test.com.xceptance.xlt.common.util.action;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -42,6 +43,15 @@ public class DownloaderTest
         downloader = new Downloader(client, threadCount, userAgentUID);
     }
 
+    @Test
+    public void testNotLoadedAfterPageByDefault()
+    {
+        final Downloader downloader = new Downloader(client, threadCount, userAgentUID);
+        Assert.assertFalse(downloader.isLoadedAfterPage());
+        downloader.setLoadedAfterPage(true);
+        Assert.assertTrue(downloader.isLoadedAfterPage());
+    }
+
     @Test
     public void testEmptyUrls()
     {
@@ -0,0 +1,253 @@
+package test.com.xceptance.xlt.common.util.action.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import bsh.EvalError;
+
+import com.xceptance.xlt.api.data.GeneralDataProvider;
+import com.xceptance.xlt.api.util.XltProperties;
+import com.xceptance.xlt.common.util.action.data.URLActionData;
+import com.xceptance.xlt.common.util.action.data.URLActionDataBuilder;
+import com.xceptance.xlt.common.util.action.data.URLActionDataListCache;
+import com.xceptance.xlt.common.util.action.data.URLActionDataListFacade;
+import com.xceptance.xlt.common.util.action.data.URLActionDataStore;
+import com.xceptance.xlt.common.util.action.data.URLActionDataStoreBuilder;
+import com.xceptance.xlt.common.util.action.data.URLActionDataValidationBuilder;
+import com.xceptance.xlt.common.util.action.data.YAMLBasedURLActionDataListBuilder;
+import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
+
+public class URLActionDataListCacheTest
+{
+    private static final String script = "- Store :\n" + "    - host : http://localhost\n" + "- Action :\n"
+                                         + "    Name : first\n" + "    Request :\n" + "        Url : ${host}/a\n"
+                                         + "- Action :\n" + "    Name : second\n" + "    Request :\n"
+                                         + "        Url : ${host}/b\n";
+
+    private File file;
+
+    @Before
+    public void setup() throws IOException
+    {
+        URLActionDataListCache.clear();
+        file = File.createTempFile("cache", ".yml");
+        FileUtils.writeStringToFile(file, script);
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtils.deleteQuietly(file);
+        URLActionDataListCache.clear();
+    }
+
+    private ParameterInterpreter createInterpreter()
+    {
+        return new ParameterInterpreter(XltProperties.getInstance(), GeneralDataProvider.getInstance());
+    }
+
+    @Test
+    public void testParseOnce() throws EvalError
+    {
+        final ParameterInterpreter interpreter1 = createInterpreter();
+        final ParameterInterpreter interpreter2 = createInterpreter();
+
+        final List<URLActionData> actions1 = new URLActionDataListFacade(file.getPath(), interpreter1).buildUrlActions();
+        final List<URLActionData> actions2 = new URLActionDataListFacade(file.getPath(), interpreter2).buildUrlActions();
+
+        Assert.assertEquals(1, URLActionDataListCache.getMisses());
+        Assert.assertEquals(1, URLActionDataListCache.getHits());
+
+        Assert.assertEquals(2, actions1.size());
+        Assert.assertEquals(2, actions2.size());
+        Assert.assertNotSame(actions1, actions2);
+        Assert.assertNotSame(actions1.get(0), actions2.get(0));
+
+        Assert.assertSame(interpreter1, actions1.get(0).getInterpreter());
+        Assert.assertSame(interpreter2, actions2.get(0).getInterpreter());
+
+        // the global store is replayed for every user
+        Assert.assertEquals("http://localhost", interpreter1.get("host"));
+        Assert.assertEquals("http://localhost", interpreter2.get("host"));
+        Assert.assertEquals("http://localhost/a", actions2.get(0).getUrlString());
+    }
+
+    @Test
+    public void testListIsOwnedByCaller()
+    {
+        final List<URLActionData> actions1 = new URLActionDataListFacade(file.getPath(), createInterpreter()).buildUrlActions();
+        actions1.remove(0);
+
+        final List<URLActionData> actions2 = new URLActionDataListFacade(file.getPath(), createInterpreter()).buildUrlActions();
+        Assert.assertEquals(2, actions2.size());
+    }
+
+    @Test
+    public void testInvalidateOnChange() throws IOException
+    {
+        new URLActionDataListFacade(file.getPath(), createInterpreter()).buildUrlActions();
+
+        FileUtils.writeStringToFile(file, script + "- Action :\n" + "    Name : third\n" + "    Request :\n"
+                                          + "        Url : ${host}/c\n");
+        file.setLastModified(file.lastModified() + 2000);
+
+        final List<URLActionData> actions = new URLActionDataListFacade(file.getPath(), createInterpreter()).buildUrlActions();
+
+        Assert.assertEquals(3, actions.size());
+        Assert.assertEquals(2, URLActionDataListCache.getMisses());
+        Assert.assertEquals(0, URLActionDataListCache.getHits());
+    }
+
+    @Test
+    public void testCopiesShareTheDefinition()
+    {
+        final ParameterInterpreter interpreter1 = createInterpreter();
+        final ParameterInterpreter interpreter2 = createInterpreter();
+        final File scriptFile = createScript(1);
+        try
+        {
+            final URLActionData action1 = new URLActionDataListFacade(scriptFile.getPath(), interpreter1).buildUrlActions()
+                                                                                                       .get(0);
+            final URLActionData action2 = new URLActionDataListFacade(scriptFile.getPath(), interpreter2).buildUrlActions()
+                                                                                                       .get(0);
+
+            // store items and validations are bound to the user
+            final URLActionDataStore storeItem = action2.getStore().get(0);
+            Assert.assertSame(interpreter2, storeItem.getInterpreter());
+            Assert.assertEquals(1, action2.getValidations().size());
+
+            // copy on write
+            action1.setName("changed");
+            Assert.assertEquals("changed", action1.getName());
+            Assert.assertEquals("action_0", action2.getName());
+            Assert.assertEquals(2, action2.getHeaders().size());
+        }
+        finally
+        {
+            FileUtils.deleteQuietly(scriptFile);
+        }
+    }
+
+    @Test
+    public void testDeferrableValidations() throws IOException
+    {
+        // every action sends the token stored by the previous one, only the last one is free
+        final File scriptFile = createScript(3);
+        FileUtils.writeStringToFile(scriptFile, "- Action :\n" + "    Name : dynamic\n" + "    Request :\n"
+                                                + "        Url : http://localhost/\n" + "    Response :\n"
+                                                + "        Validate :\n" + "            - title :\n"
+                                                + "                Regex : \"${title}\"\n", true);
+        try
+        {
+            final List<URLActionData> actions = new URLActionDataListFacade(scriptFile.getPath(), createInterpreter()).buildUrlActions();
+
+            Assert.assertFalse(actions.get(0).hasDeferrableValidations());
+            Assert.assertFalse(actions.get(1).hasDeferrableValidations());
+            Assert.assertTrue(actions.get(2).hasDeferrableValidations());
+            // dynamic validations need the interpreter of the user
+            Assert.assertFalse(actions.get(3).hasDeferrableValidations());
+
+            // a modification invalidates the analysis
+            actions.get(2).setName("changed");
+            Assert.assertFalse(actions.get(2).hasDeferrableValidations());
+        }
+        finally
+        {
+            FileUtils.deleteQuietly(scriptFile);
+        }
+    }
+
+    @Test
+    public void testDefinitionsSharedByAllUsers()
+    {
+        final int actionCount = 10;
+        final int userCount = 5;
+        final File scriptFile = createScript(actionCount);
+        try
+        {
+            final ParameterInterpreter interpreter = createInterpreter();
+
+            // every user gets copies of the shared definitions, compiled only once
+            final List<URLActionData> first = new URLActionDataListFacade(scriptFile.getPath(), interpreter).buildUrlActions();
+            for (int i = 1; i < userCount; i++)
+            {
+                final List<URLActionData> actions = new URLActionDataListFacade(scriptFile.getPath(),
+                                                                                createInterpreter()).buildUrlActions();
+                Assert.assertEquals(actionCount, actions.size());
+                for (int j = 0; j < actionCount; j++)
+                {
+                    Assert.assertSame(first.get(j).getRequestTemplate(), actions.get(j).getRequestTemplate());
+                }
+            }
+
+            // a script parsed on its own holds definitions of its own
+            final List<URLActionData> parsed = new YAMLBasedURLActionDataListBuilder(scriptFile.getPath(),
+                                                                                     interpreter,
+                                                                                     new URLActionDataBuilder(),
+                                                                                     new URLActionDataValidationBuilder(),
+                                                                                     new URLActionDataStoreBuilder()).buildURLActionDataList();
+            Assert.assertNotSame(first.get(0).getRequestTemplate(), parsed.get(0).getRequestTemplate());
+            Assert.assertEquals(1, URLActionDataListCache.getMisses());
+
+            // the validations and store items of a copy are bound to its interpreter only once
+            final URLActionData copy = first.get(0);
+            Assert.assertFalse(copy.getValidations().isEmpty());
+            Assert.assertSame(copy.getValidations(), copy.getValidations());
+            Assert.assertFalse(copy.getStore().isEmpty());
+            Assert.assertSame(copy.getStore(), copy.getStore());
+        }
+        finally
+        {
+            FileUtils.deleteQuietly(scriptFile);
+        }
+    }
+
+    /**
+     * @return a script with the passed number of actions, each with headers, parameters, a validation and a store
+     *         item.
+     */
+    private File createScript(final int actionCount)
+    {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < actionCount; i++)
+        {
+            sb.append("- Action :\n");
+            sb.append("    Name : action_").append(i).append("\n");
+            sb.append("    Request :\n");
+            sb.append("        Url : http://localhost/shop/category/").append(i).append("\n");
+            sb.append("        Method : POST\n");
+            sb.append("        Headers :\n");
+            sb.append("            - Accept : text/html\n");
+            sb.append("            - Accept-Language : en-US\n");
+            sb.append("        Parameters :\n");
+            sb.append("            - productId : ").append(i).append("\n");
+            sb.append("            - token : ${token}\n");
+            sb.append("    Response :\n");
+            sb.append("        Httpcode : 200\n");
+            sb.append("        Validate :\n");
+            sb.append("            - title :\n");
+            sb.append("                Regex : \"<title>[^<]*</title>\"\n");
+            sb.append("        Store :\n");
+            sb.append("            - token :\n");
+            sb.append("                Regex : \"name=.token. value=.([^\\\"]*)\"\n");
+            sb.append("                Group : 1\n");
+        }
+        try
+        {
+            final File scriptFile = File.createTempFile("footprint", ".yml");
+            FileUtils.writeStringToFile(scriptFile, sb.toString());
+            return scriptFile;
+        }
+        catch (final IOException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
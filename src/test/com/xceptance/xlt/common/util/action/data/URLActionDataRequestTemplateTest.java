@@ -0,0 +1,102 @@
+package test.com.xceptance.xlt.common.util.action.data;
+
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import bsh.EvalError;
+
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.xceptance.xlt.api.data.GeneralDataProvider;
+import com.xceptance.xlt.api.util.XltProperties;
+import com.xceptance.xlt.common.util.action.data.URLActionData;
+import com.xceptance.xlt.common.util.action.data.URLActionDataRequestTemplate;
+import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
+
+public class URLActionDataRequestTemplateTest
+{
+    private final String url = "https://www.xceptance.com/?x=%45s&amp;y=1#q=xeceptance+%2B";
+
+    private ParameterInterpreter interpreter;
+
+    private URLActionData action;
+
+    @Before
+    public void setup() throws EvalError
+    {
+        interpreter = new ParameterInterpreter(XltProperties.getInstance(), GeneralDataProvider.getInstance());
+        interpreter.set("id", "4%2B2");
+        interpreter.set("session", "abc");
+
+        action = new URLActionData("Name", url, interpreter);
+    }
+
+    @Test
+    public void testStaticParts() throws MalformedURLException, UnsupportedEncodingException
+    {
+        action.addParameter(new NameValuePair("a%26b", "c%2Bd"));
+        action.setHeaders(createPairs("Accept", "text/html"));
+        action.setCookies(createPairs("c1", "v1"));
+
+        final URLActionDataRequestTemplate template = action.getRequestTemplate();
+        Assert.assertSame(template, action.getRequestTemplate());
+        Assert.assertSame(template, new URLActionData(action, interpreter).getRequestTemplate());
+
+        Assert.assertEquals(url, template.getUrl(interpreter).toString());
+        Assert.assertSame(template.getUrl(interpreter), template.getUrl(interpreter));
+        Assert.assertEquals("https://www.xceptance.com/?x=%45s&y=1&a&b=c+d#q=xeceptance+%2B",
+                            template.getUrlWithParameters(interpreter, true).toString());
+        Assert.assertEquals("https://www.xceptance.com/?x=%45s&y=1&a%26b=c%2Bd#q=xeceptance+%2B",
+                            template.getUrlWithParameters(interpreter, false).toString());
+        Assert.assertEquals("a&b", template.getParameters(interpreter, true).get(0).getName());
+        Assert.assertEquals("Accept", template.getHeaders(interpreter).get(0).getName());
+        Assert.assertEquals("c1=v1;", template.getCookieHeader(interpreter));
+    }
+
+    @Test
+    public void testDynamicParts() throws MalformedURLException, UnsupportedEncodingException, EvalError
+    {
+        action.setUrl("http://localhost/${session}");
+        action.addParameter(new NameValuePair("id", "${id}"));
+        action.addParameter(new NameValuePair("static", "1"));
+        action.setHeaders(createPairs("X-Session", "${session}"));
+        action.setCookies(createPairs("c1", "v1", "session", "${session}", "c3", "v3"));
+
+        final URLActionDataRequestTemplate template = action.getRequestTemplate();
+        Assert.assertEquals("http://localhost/abc?id=4+2&static=1",
+                            template.getUrlWithParameters(interpreter, true).toString());
+        Assert.assertEquals("abc", template.getHeaders(interpreter).get(0).getValue());
+        Assert.assertEquals("c1=v1;session=abc;c3=v3;", template.getCookieHeader(interpreter));
+
+        interpreter.set("session", "xyz");
+        Assert.assertEquals("http://localhost/xyz", template.getUrl(interpreter).toString());
+        Assert.assertEquals("c1=v1;session=xyz;c3=v3;", template.getCookieHeader(interpreter));
+    }
+
+    @Test
+    public void testModificationRecompiles() throws UnsupportedEncodingException
+    {
+        final URLActionDataRequestTemplate template = action.getRequestTemplate();
+        Assert.assertNull(template.getCookieHeader(interpreter));
+        Assert.assertTrue(template.getParameters(interpreter, false).isEmpty());
+
+        action.addParameter(new NameValuePair("a", "b"));
+        Assert.assertNotSame(template, action.getRequestTemplate());
+        Assert.assertEquals(1, action.getRequestTemplate().getParameters(interpreter, false).size());
+    }
+
+    private List<NameValuePair> createPairs(final String... namesAndValues)
+    {
+        final List<NameValuePair> pairs = new ArrayList<NameValuePair>();
+        for (int i = 0; i < namesAndValues.length; i += 2)
+        {
+            pairs.add(new NameValuePair(namesAndValues[i], namesAndValues[i + 1]));
+        }
+        return pairs;
+    }
+}
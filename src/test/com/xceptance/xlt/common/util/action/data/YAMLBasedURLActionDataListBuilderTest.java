@@ -45,6 +45,14 @@ public class YAMLBasedURLActionDataListBuilderTest
 
     private final String fileComplexTestCase = path + "complexTestCase.yml";
 
+    private final String fileParallelSubrequests = path + "parallelSubrequests.yml";
+
+    private final String fileParallelSubrequestsNested = path + "parallelSubrequestsNested.yml";
+
+    private final String fileBetweenSelection = path + "betweenSelection.yml";
+
+    private final String fileBetweenSelectionWithoutRight = path + "betweenSelectionWithoutRight.yml";
+
     private final URLActionDataBuilder actionBuilder = new URLActionDataBuilder();
 
     private final URLActionDataStoreBuilder storeBuilder = new URLActionDataStoreBuilder();
@@ -238,6 +246,91 @@ public class YAMLBasedURLActionDataListBuilderTest
 
     }
 
+    @Test
+    public void testParallelSubrequestCreation() throws MalformedURLException
+    {
+        final YAMLBasedURLActionDataListBuilder listBuilder = new YAMLBasedURLActionDataListBuilder(this.fileParallelSubrequests,
+                                                                                                    this.interpreter,
+                                                                                                    this.actionBuilder,
+                                                                                                    this.validationBuilder,
+                                                                                                    this.storeBuilder);
+        final List<URLActionData> actions = listBuilder.buildURLActionDataList();
+        Assert.assertEquals(6, actions.size());
+
+        Assert.assertFalse(actions.get(0).isParallel());
+        Assert.assertNull(actions.get(0).getParallelGroup());
+
+        final URLActionData xhr_action_1 = actions.get(1);
+        Assert.assertEquals("xhr_name_1", xhr_action_1.getName());
+        Assert.assertTrue(xhr_action_1.isXHRAction());
+        Assert.assertTrue(xhr_action_1.isParallel());
+        Assert.assertEquals(1, xhr_action_1.getStore().size());
+
+        Assert.assertTrue(actions.get(2).isStaticContent());
+        Assert.assertFalse(actions.get(2).isParallel());
+
+        final URLActionData xhr_action_2 = actions.get(3);
+        Assert.assertEquals("xhr_name_2", xhr_action_2.getName());
+        Assert.assertTrue(xhr_action_2.isParallel());
+        Assert.assertEquals(xhr_action_1.getParallelGroup(),
+                            xhr_action_2.getParallelGroup());
+
+        final URLActionData xhr_action_3 = actions.get(4);
+        Assert.assertTrue(xhr_action_3.isParallel());
+        Assert.assertFalse(xhr_action_1.getParallelGroup().equals(xhr_action_3.getParallelGroup()));
+
+        final URLActionData xhr_action_4 = actions.get(5);
+        Assert.assertTrue(xhr_action_4.isXHRAction());
+        Assert.assertFalse(xhr_action_4.isParallel());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParallelSubrequestWithXhrSubrequest()
+    {
+        final YAMLBasedURLActionDataListBuilder listBuilder = new YAMLBasedURLActionDataListBuilder(this.fileParallelSubrequestsNested,
+                                                                                                    this.interpreter,
+                                                                                                    this.actionBuilder,
+                                                                                                    this.validationBuilder,
+                                                                                                    this.storeBuilder);
+        listBuilder.buildURLActionDataList();
+    }
+
+    @Test
+    public void testBetweenSelection()
+    {
+        final YAMLBasedURLActionDataListBuilder listBuilder = new YAMLBasedURLActionDataListBuilder(this.fileBetweenSelection,
+                                                                                                    this.interpreter,
+                                                                                                    this.actionBuilder,
+                                                                                                    this.validationBuilder,
+                                                                                                    this.storeBuilder);
+        final List<URLActionData> actions = listBuilder.buildURLActionDataList();
+        Assert.assertEquals(1, actions.size());
+
+        final URLActionDataValidation validation = actions.get(0).getValidations().get(0);
+        Assert.assertEquals(URLActionDataValidation.BETWEEN, validation.getSelectionMode());
+        Assert.assertEquals("<title>", validation.getSelectionContent());
+        Assert.assertEquals("</title>", validation.getRightBoundary());
+        Assert.assertEquals(0, validation.getOccurrence());
+        Assert.assertEquals(URLActionDataValidation.TEXT, validation.getValidationMode());
+
+        final URLActionDataStore store = actions.get(0).getStore().get(0);
+        Assert.assertEquals(URLActionDataStore.BETWEEN, store.getSelectionMode());
+        Assert.assertEquals("name=\"token\" value=\"", store.getSelectionContent());
+        Assert.assertEquals("\"", store.getRightBoundary());
+        Assert.assertEquals(2, store.getOccurrence());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBetweenSelectionWithoutRightBoundary()
+    {
+        final YAMLBasedURLActionDataListBuilder listBuilder = new YAMLBasedURLActionDataListBuilder(this.fileBetweenSelectionWithoutRight,
+                                                                                                    this.interpreter,
+                                                                                                    this.actionBuilder,
+                                                                                                    this.validationBuilder,
+                                                                                                    this.storeBuilder);
+        listBuilder.buildURLActionDataList();
+    }
+
     @Test
     public void testXomplexTestCase() throws MalformedURLException
     {
@@ -1,11 +1,16 @@
 package test.com.xceptance.xlt.common.util.action.execution;
 
+import java.net.MalformedURLException;
+import java.net.URL;
+
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.gargoylesoftware.htmlunit.WebRequest;
 import com.xceptance.xlt.api.util.XltProperties;
 import com.xceptance.xlt.common.util.NoCodingPropAdmin;
+import com.xceptance.xlt.common.util.action.execution.AsyncActionFactory;
 import com.xceptance.xlt.common.util.action.execution.HtmlPageActionFactory;
 import com.xceptance.xlt.common.util.action.execution.LightWeightPageActionFactory;
 import com.xceptance.xlt.common.util.action.execution.URLActionDataExecutionableFactory;
@@ -67,4 +72,39 @@ public class URLActionDataExecutableFactoryBuilderTest
         Assert.assertTrue(actionFactory instanceof LightWeightPageActionFactory);
     }
 
+    @Test
+    public void testCorrectAsyncBuildingResult()
+    {
+        final URLActionDataExecutionbleFactoryBuilder factory = new URLActionDataExecutionbleFactoryBuilder(URLActionDataExecutableFactoryBuilderTest.propAdmin,
+                                                                                                            URLActionDataExecutionbleFactoryBuilder.MODE_ASYNC);
+        final URLActionDataExecutionableFactory actionFactory = factory.buildFactory();
+        Assert.assertTrue(actionFactory instanceof AsyncActionFactory);
+        actionFactory.close();
+    }
+
+    @Test
+    public void testAsyncXhrActionNeedsPageAction() throws MalformedURLException
+    {
+        final AsyncActionFactory actionFactory = new AsyncActionFactory(propAdmin);
+        try
+        {
+            final WebRequest request = new WebRequest(new URL("http://localhost/"));
+            try
+            {
+                actionFactory.createXhrPageAction("xhr", request);
+                Assert.fail("Xhr action without page action expected to fail");
+            }
+            catch (final IllegalArgumentException e)
+            {
+                Assert.assertTrue(e.getMessage().contains("first action"));
+            }
+            actionFactory.createPageAction("page", request);
+            Assert.assertNotNull(actionFactory.createXhrPageAction("xhr", request));
+        }
+        finally
+        {
+            actionFactory.close();
+        }
+    }
+
 }
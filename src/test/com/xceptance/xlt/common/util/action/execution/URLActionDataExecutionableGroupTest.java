@@ -0,0 +1,190 @@
+package test.com.xceptance.xlt.common.util.action.execution;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.xceptance.xlt.api.data.GeneralDataProvider;
+import com.xceptance.xlt.api.util.XltProperties;
+import com.xceptance.xlt.common.util.action.data.URLActionData;
+import com.xceptance.xlt.common.util.action.execution.URLActionDataExecutionable;
+import com.xceptance.xlt.common.util.action.execution.URLActionDataExecutionableFactory;
+import com.xceptance.xlt.common.util.action.execution.URLActionDataExecutionableGroup;
+import com.xceptance.xlt.common.util.action.validation.StreamingValidation;
+import com.xceptance.xlt.common.util.action.validation.URLActionDataExecutableResult;
+import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
+
+public class URLActionDataExecutionableGroupTest
+{
+    @Test
+    public void testMembersRunConcurrently()
+    {
+        final CountDownLatch started = new CountDownLatch(3);
+        final URLActionDataExecutionableGroup group = new URLActionDataExecutionableGroup();
+        final TestExecutionable[] members = new TestExecutionable[3];
+        for (int i = 0; i < members.length; i++)
+        {
+            // every member waits until all members are running, so this only completes if they run concurrently
+            members[i] = new TestExecutionable(started, null);
+            group.add(members[i]);
+        }
+
+        group.executeAll();
+
+        for (final TestExecutionable member : members)
+        {
+            Assert.assertTrue(member.executed);
+        }
+        Assert.assertSame(members[0], group.getExecutionables().get(0));
+    }
+
+    @Test
+    public void testFirstFailureInOrderIsRethrown()
+    {
+        final URLActionDataExecutionableGroup group = new URLActionDataExecutionableGroup();
+        final TestExecutionable first = new TestExecutionable(null, null);
+        final TestExecutionable second = new TestExecutionable(null, "second");
+        final TestExecutionable third = new TestExecutionable(null, "third");
+        group.add(first);
+        group.add(second);
+        group.add(third);
+
+        try
+        {
+            group.executeAll();
+            Assert.fail("Expected failure");
+        }
+        catch (final IllegalArgumentException e)
+        {
+            Assert.assertEquals("second", e.getMessage());
+        }
+        Assert.assertTrue(first.executed);
+        Assert.assertTrue(third.executed);
+    }
+
+    @Test
+    public void testParallelGroupsNeedConcurrency()
+    {
+        final URLActionData action = new URLActionData("xhr", "http://localhost/",
+                                                       new ParameterInterpreter(XltProperties.getInstance(),
+                                                                                GeneralDataProvider.getInstance()));
+        action.setType(URLActionData.TYPE_XHR);
+        action.setParallelGroup("search");
+        final List<URLActionData> actions = Collections.singletonList(action);
+
+        new TestFactory(true).checkActions(actions);
+        try
+        {
+            new TestFactory(false).checkActions(actions);
+            Assert.fail("Expected parallel group to be rejected");
+        }
+        catch (final IllegalArgumentException e)
+        {
+            Assert.assertTrue(e.getMessage().contains("\"search\""));
+        }
+    }
+
+    @Test
+    public void testEmptyGroup()
+    {
+        new URLActionDataExecutionableGroup().executeAll();
+    }
+
+    private static class TestFactory extends URLActionDataExecutionableFactory
+    {
+        private final boolean concurrencySupported;
+
+        private TestFactory(final boolean concurrencySupported)
+        {
+            this.concurrencySupported = concurrencySupported;
+        }
+
+        @Override
+        public URLActionDataExecutionable createPageAction(final String name, final WebRequest request)
+        {
+            return null;
+        }
+
+        @Override
+        public URLActionDataExecutionable createXhrPageAction(final String name, final WebRequest request)
+        {
+            return null;
+        }
+
+        @Override
+        public boolean isConcurrencySupported()
+        {
+            return concurrencySupported;
+        }
+    }
+
+    private static class TestExecutionable implements URLActionDataExecutionable
+    {
+        private final CountDownLatch started;
+
+        private final String failure;
+
+        private volatile boolean executed;
+
+        private TestExecutionable(final CountDownLatch started, final String failure)
+        {
+            this.started = started;
+            this.failure = failure;
+        }
+
+        @Override
+        public void executeAction()
+        {
+            if (started != null)
+            {
+                started.countDown();
+                try
+                {
+                    Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+                }
+                catch (final InterruptedException e)
+                {
+                    throw new IllegalStateException(e);
+                }
+            }
+            executed = true;
+            if (failure != null)
+            {
+                throw new IllegalArgumentException(failure);
+            }
+        }
+
+        @Override
+        public URLActionDataExecutableResult getResult()
+        {
+            return null;
+        }
+
+        @Override
+        public void releaseResult()
+        {
+        }
+
+        @Override
+        public void setStreamingValidation(final StreamingValidation streamingValidation)
+        {
+        }
+
+        @Override
+        public void addStaticRequest(final URL url)
+        {
+        }
+
+        @Override
+        public URL getUrl()
+        {
+            return null;
+        }
+    }
+}
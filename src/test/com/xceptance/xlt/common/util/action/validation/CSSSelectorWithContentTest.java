@@ -0,0 +1,94 @@
+package test.com.xceptance.xlt.common.util.action.validation;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.xceptance.xlt.common.util.action.validation.CSSSelectorWithContent;
+
+public class CSSSelectorWithContentTest
+{
+    String htmlContent = "<html><head><title>Shop</title></head><body>"
+                         + "<form id=\"login\" class=\"form wide\" action=\"/login\">"
+                         + "<input type=hidden name=csrf value=\"a1b2c3\">"
+                         + "<input type=text name=\"user-name\" lang=en-US>"
+                         + "</form>"
+                         + "<ul class=\"products\">"
+                         + "<li class=\"product\"><a href=\"/p/1\">Pizza</a>"
+                         + "<li class=\"product sale\"><a href=\"/p/2\">Apple Pie</a>"
+                         + "<li class=\"product\"><a href=\"/p/3\">Pasta</a>"
+                         + "<li class=\"product\"><a href=\"/p/4\">Salad</a>"
+                         + "</ul>"
+                         + "<h2>Sales</h2><p>first</p><p>second</p><div><span></span></div>"
+                         + "</body></html>";
+
+    CSSSelectorWithContent selector = new CSSSelectorWithContent(htmlContent);
+
+    @Test
+    public void testAttributeSelection()
+    {
+        Assert.assertEquals(Collections.singletonList("a1b2c3"),
+                            selector.getByCSS("input[name=csrf]::attr(value)"));
+        Assert.assertEquals(Collections.singletonList("a1b2c3"),
+                            selector.getByCSS("form#login > input[type='hidden']::attr(VALUE)"));
+        Assert.assertEquals(Arrays.asList("/p/1", "/p/2", "/p/3", "/p/4"),
+                            selector.getByCSS("ul.products a[href^=\"/p/\"]::attr(href)"));
+        Assert.assertEquals(Collections.singletonList("/login"), selector.getByCSS(".form.wide::attr(action)"));
+    }
+
+    @Test
+    public void testText()
+    {
+        Assert.assertEquals(Collections.singletonList("Apple Pie"), selector.getByCSS("li.sale"));
+        Assert.assertEquals(Collections.singletonList("Shop"), selector.getByCSS("head > title::text"));
+        Assert.assertEquals(4, selector.getByCSS("UL LI").size());
+        Assert.assertTrue(selector.getByCSS("div.unknown").isEmpty());
+    }
+
+    @Test
+    public void testAttributeOperators()
+    {
+        Assert.assertEquals(1, selector.getByCSS("input[lang|=en]").size());
+        Assert.assertEquals(1, selector.getByCSS("[name$=name]").size());
+        Assert.assertEquals(1, selector.getByCSS("[name*=\"er-na\"]").size());
+        Assert.assertEquals(2, selector.getByCSS("form [name]").size());
+        Assert.assertEquals(1, selector.getByCSS("form[class~=wide]").size());
+        Assert.assertEquals(0, selector.getByCSS("form[class~=wid]").size());
+    }
+
+    @Test
+    public void testPseudoClasses()
+    {
+        Assert.assertEquals(Collections.singletonList("Pizza"), selector.getByCSS("li:first-child"));
+        Assert.assertEquals(Collections.singletonList("Salad"), selector.getByCSS("li:last-child a"));
+        Assert.assertEquals(Arrays.asList("Apple Pie", "Salad"), selector.getByCSS("li:nth-child(even)"));
+        Assert.assertEquals(Arrays.asList("Pizza", "Pasta"), selector.getByCSS("li:nth-child(2n+1)"));
+        Assert.assertEquals(Arrays.asList("Pizza", "Apple Pie"), selector.getByCSS("li:nth-child(-n+2)"));
+        Assert.assertEquals(Collections.singletonList("Pasta"), selector.getByCSS("li:nth-last-child(2)"));
+        Assert.assertEquals(Arrays.asList("Pizza", "Pasta", "Salad"), selector.getByCSS("li:not(.sale)"));
+        Assert.assertEquals(1, selector.getByCSS("div > span:only-child:empty").size());
+    }
+
+    @Test
+    public void testCombinatorsAndGroups()
+    {
+        Assert.assertEquals(Collections.singletonList("first"), selector.getByCSS("h2 + p"));
+        Assert.assertEquals(Arrays.asList("first", "second"), selector.getByCSS("h2 ~ p"));
+        Assert.assertEquals(Arrays.asList("Sales", "first", "second"), selector.getByCSS("p, h2"));
+        Assert.assertEquals(Arrays.asList("Pizza", "Pasta"), selector.getByCSS("body>ul>li:nth-child(odd)>a"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedSelector()
+    {
+        selector.getByCSS("input[name=");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedPseudoClass()
+    {
+        selector.getByCSS("a:hover");
+    }
+}
@@ -0,0 +1,142 @@
+package test.com.xceptance.xlt.common.util.action.validation;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.xceptance.xlt.common.util.action.validation.DeferredValidations;
+
+public class DeferredValidationsTest
+{
+    @Test
+    public void testExecutorIsShared()
+    {
+        Assert.assertSame(DeferredValidations.getExecutor(2), DeferredValidations.getExecutor(4));
+    }
+
+    @Test
+    public void testThreadsDoNotJoinTheUserGroup() throws InterruptedException
+    {
+        final ThreadGroup[] groups = new ThreadGroup[1];
+        final Thread user = new Thread(new ThreadGroup("user"), new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                final DeferredValidations validations = new DeferredValidations(2);
+                validations.submit("group", new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        groups[0] = Thread.currentThread().getThreadGroup();
+                    }
+                });
+                validations.awaitAll();
+            }
+        });
+        user.start();
+        user.join(10000);
+        Assert.assertNull(groups[0].getParent());
+    }
+
+    @Test
+    public void testCheckDoesNotWait() throws InterruptedException
+    {
+        final DeferredValidations validations = new DeferredValidations(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        validations.submit("slow", new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                await(release);
+                Assert.fail("too slow");
+            }
+        });
+
+        validations.checkFailures();
+        Assert.assertEquals(1, validations.getPendingCount());
+
+        release.countDown();
+        try
+        {
+            validations.awaitAll();
+            Assert.fail("Failure was not rethrown");
+        }
+        catch (final AssertionError e)
+        {
+            Assert.assertEquals("Deferred validation of action \"slow\" failed: too slow", e.getMessage());
+        }
+        Assert.assertEquals(0, validations.getPendingCount());
+    }
+
+    @Test
+    public void testFailuresInOrderOfActions()
+    {
+        final DeferredValidations validations = new DeferredValidations(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        validations.submit("first", new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                await(release);
+                throw new IllegalArgumentException("first failed");
+            }
+        });
+        validations.submit("second", new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                throw new IllegalArgumentException("second failed");
+            }
+        });
+
+        release.countDown();
+        try
+        {
+            validations.awaitAll();
+            Assert.fail("Failure was not rethrown");
+        }
+        catch (final IllegalArgumentException e)
+        {
+            Assert.assertEquals("Deferred validation of action \"first\" failed: first failed", e.getMessage());
+        }
+        // the iteration failed, the remaining tasks are dropped
+        Assert.assertEquals(0, validations.getPendingCount());
+    }
+
+    @Test
+    public void testSuccess()
+    {
+        final DeferredValidations validations = new DeferredValidations(2);
+        final CountDownLatch done = new CountDownLatch(1);
+        validations.submit("ok", new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                done.countDown();
+            }
+        });
+        validations.awaitAll();
+        Assert.assertEquals(0, done.getCount());
+        Assert.assertEquals(0, validations.getPendingCount());
+    }
+
+    private static void await(final CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(10, TimeUnit.SECONDS);
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package test.com.xceptance.xlt.common.util.action.validation;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import test.com.xceptance.xlt.common.util.MockWebResponse;
+
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.xceptance.xlt.common.util.action.validation.JSONPathWithWebResponse;
+
+public class JSONPathWithWebResponseTest
+{
+    String jsonType = "application/json";
+
+    String jsonContent = "{"
+        + "  \"geodata\": ["
+        + "    {"
+        + "      \"id\": 1,"
+        + "      \"name\": \"Julie Sherman\","
+        + "      \"tags\": [\"a\", \"b\"],"
+        + "      \"active\": true"
+        + "    },"
+        + "    {"
+        + "      \"id\": 2,"
+        + "      \"name\": \"Johnny Depp\","
+        + "      \"tags\": [],"
+        + "      \"active\": null"
+        + "    }"
+        + "  ],"
+        + "  \"total name\": \"2\""
+        + "}";
+
+    WebResponse jsonResponse;
+
+    WebResponse maliciousJsonResponse;
+
+    @Before
+    public void setup() throws MalformedURLException
+    {
+        final URL url = new URL("http://www.xceptance.com");
+        jsonResponse = new MockWebResponse(jsonContent, url, jsonType);
+        maliciousJsonResponse = new MockWebResponse("{\"geodata\": [", url, jsonType);
+    }
+
+    @Test
+    public void testMembersAndIndexes()
+    {
+        final JSONPathWithWebResponse json = new JSONPathWithWebResponse(jsonResponse);
+        Assert.assertEquals(Arrays.asList("Johnny Depp"), json.getByJSONPath("$.geodata[1].name"));
+        Assert.assertEquals(Arrays.asList("Johnny Depp"), json.getByJSONPath("geodata[-1]['name']"));
+        Assert.assertEquals(Arrays.asList("2"), json.getByJSONPath("$['total name']"));
+        Assert.assertEquals(Arrays.asList("1"), json.getByJSONPath("$.geodata[0].id"));
+        Assert.assertEquals(Arrays.asList("true"), json.getByJSONPath("$.geodata[0].active"));
+        Assert.assertEquals(Arrays.asList("null"), json.getByJSONPath("$.geodata[1].active"));
+        Assert.assertEquals(Arrays.asList("[\"a\",\"b\"]"), json.getByJSONPath("$.geodata[0].tags"));
+    }
+
+    @Test
+    public void testWildcards()
+    {
+        final JSONPathWithWebResponse json = new JSONPathWithWebResponse(jsonResponse);
+        Assert.assertEquals(Arrays.asList("Julie Sherman", "Johnny Depp"), json.getByJSONPath("$.geodata[*].name"));
+        Assert.assertEquals(Arrays.asList("a", "b"), json.getByJSONPath("$.geodata[0].tags.*"));
+        Assert.assertEquals(2, json.getByJSONPath("$.geodata.*").size());
+    }
+
+    @Test
+    public void testRecursiveDescent()
+    {
+        final JSONPathWithWebResponse json = new JSONPathWithWebResponse(jsonResponse);
+        Assert.assertEquals(Arrays.asList("Julie Sherman", "Johnny Depp"), json.getByJSONPath("$..name"));
+        Assert.assertEquals(Arrays.asList("a"), json.getByJSONPath("$..tags[0]"));
+    }
+
+    @Test
+    public void testNothingFound()
+    {
+        final JSONPathWithWebResponse json = new JSONPathWithWebResponse(jsonResponse);
+        final List<String> list = json.getByJSONPath("$.geodata[5].name");
+        Assert.assertTrue(list.isEmpty());
+        Assert.assertTrue(json.getByJSONPath("$.unknown.name").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedPath()
+    {
+        new JSONPathWithWebResponse(jsonResponse).getByJSONPath("$.geodata[x]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedContent()
+    {
+        new JSONPathWithWebResponse(maliciousJsonResponse).getByJSONPath("$.geodata");
+    }
+}
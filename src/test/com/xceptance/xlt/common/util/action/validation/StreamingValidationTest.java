@@ -0,0 +1,223 @@
+package test.com.xceptance.xlt.common.util.action.validation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.xceptance.xlt.api.data.GeneralDataProvider;
+import com.xceptance.xlt.api.util.XltProperties;
+import com.xceptance.xlt.common.util.action.data.URLActionData;
+import com.xceptance.xlt.common.util.action.data.URLActionDataStore;
+import com.xceptance.xlt.common.util.action.data.URLActionDataValidation;
+import com.xceptance.xlt.common.util.action.validation.StreamingValidation;
+import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
+
+public class StreamingValidationTest
+{
+    private ParameterInterpreter interpreter;
+
+    private URLActionData action;
+
+    @Before
+    public void setup()
+    {
+        interpreter = new ParameterInterpreter(XltProperties.getInstance(), GeneralDataProvider.getInstance());
+        action = new URLActionData("Action", "http://localhost/", interpreter);
+    }
+
+    @Test
+    public void testStreamableValidations()
+    {
+        Assert.assertTrue(action.hasStreamableValidations());
+
+        action.addValidation(validation(URLActionDataValidation.REGEXP, "id=\\d+", URLActionDataValidation.EXISTS));
+        action.addValidation(validation(URLActionDataValidation.HEADER, "Content-Type", URLActionDataValidation.COUNT));
+        Assert.assertTrue(action.hasStreamableValidations());
+
+        final URLActionData counting = new URLActionData(action, interpreter);
+        counting.addValidation(validation(URLActionDataValidation.REGEXP, "id=\\d+", URLActionDataValidation.COUNT));
+        Assert.assertFalse(counting.hasStreamableValidations());
+
+        final URLActionData dynamic = new URLActionData(action, interpreter);
+        dynamic.addValidation(validation(URLActionDataValidation.REGEXP, "${id}", URLActionDataValidation.EXISTS));
+        Assert.assertFalse(dynamic.hasStreamableValidations());
+
+        final URLActionData storing = new URLActionData(action, interpreter);
+        storing.setStore(Collections.singletonList(new URLActionDataStore("id", URLActionDataStore.REGEXP, "id=\\d+",
+                                                                          interpreter)));
+        Assert.assertFalse(storing.hasStreamableValidations());
+        storing.setStore(Collections.singletonList(new URLActionDataStore("type", URLActionDataStore.HEADER,
+                                                                          "Content-Type", interpreter)));
+        Assert.assertTrue(storing.hasStreamableValidations());
+    }
+
+    @Test
+    public void testMatchAcrossParts()
+    {
+        final URLActionDataValidation regex = validation(URLActionDataValidation.REGEXP, "id=\\d+",
+                                                         URLActionDataValidation.TEXT);
+        final URLActionDataValidation between = validation(URLActionDataValidation.BETWEEN, "<b>",
+                                                           URLActionDataValidation.EXISTS);
+        between.setRightBoundary("</b>");
+        action.addValidation(regex);
+        action.addValidation(between);
+
+        final StreamingValidation streaming = new StreamingValidation(action, 1000);
+        Assert.assertTrue(streaming.headersReceived(200, headers("text/html; charset=UTF-8", null)));
+        Assert.assertTrue(streaming.isApplied());
+        Assert.assertTrue(streaming.bodyReceived(utf8("<p>id=12")));
+        // the number might continue
+        Assert.assertTrue(streaming.bodyReceived(utf8("34</p><b>f")));
+        Assert.assertFalse(streaming.bodyReceived(utf8("üße</b> and much more")));
+
+        // copies of the action select the same
+        final URLActionData copy = new URLActionData(action, interpreter);
+        Assert.assertEquals(Collections.singletonList("id=1234"), streaming.getSelection(copy.getValidations().get(0)));
+        Assert.assertEquals(Collections.singletonList("füße"), streaming.getSelection(between));
+    }
+
+    @Test
+    public void testNoMatch()
+    {
+        final URLActionDataValidation anchored = validation(URLActionDataValidation.REGEXP, "end$",
+                                                            URLActionDataValidation.EXISTS);
+        final URLActionDataValidation missing = validation(URLActionDataValidation.REGEXP, "missing",
+                                                           URLActionDataValidation.EXISTS);
+        action.addValidation(anchored);
+        action.addValidation(missing);
+
+        final StreamingValidation streaming = new StreamingValidation(action, 100);
+        streaming.headersReceived(200, headers("text/plain", null));
+        Assert.assertTrue(streaming.bodyReceived(utf8("the end")));
+        Assert.assertTrue(streaming.bodyReceived(utf8(" is not the end")));
+
+        Assert.assertEquals(Collections.singletonList("end"), streaming.getSelection(anchored));
+        Assert.assertTrue(streaming.getSelection(missing).isEmpty());
+    }
+
+    @Test
+    public void testBoundedWindow()
+    {
+        final URLActionDataValidation start = validation(URLActionDataValidation.REGEXP, "^x",
+                                                         URLActionDataValidation.EXISTS);
+        final URLActionDataValidation tooLong = validation(URLActionDataValidation.REGEXP, "<a>[^<]*</a>",
+                                                           URLActionDataValidation.EXISTS);
+        action.addValidation(start);
+        action.addValidation(tooLong);
+
+        final StreamingValidation streaming = new StreamingValidation(action, 10);
+        streaming.headersReceived(200, headers("text/plain", null));
+        streaming.bodyReceived(utf8("y<a>"));
+        for (int i = 0; i < 5000; i++)
+        {
+            streaming.bodyReceived(utf8("xxxxxxxxxx"));
+        }
+        streaming.bodyReceived(utf8("</a>"));
+
+        // '^' still means the start of the body, a match longer than the window is not found
+        Assert.assertTrue(streaming.getSelection(start).isEmpty());
+        Assert.assertTrue(streaming.getSelection(tooLong).isEmpty());
+    }
+
+    @Test
+    public void testGzip() throws IOException
+    {
+        final URLActionDataValidation regex = validation(URLActionDataValidation.REGEXP, "item-999",
+                                                         URLActionDataValidation.EXISTS);
+        action.addValidation(regex);
+
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+        {
+            body.append("<li>item-").append(i).append("</li>");
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+        gzip.write(body.toString().getBytes("UTF-8"));
+        gzip.close();
+        final byte[] compressed = bytes.toByteArray();
+
+        final StreamingValidation streaming = new StreamingValidation(action, 100);
+        Assert.assertTrue(streaming.headersReceived(200, headers("text/html", "gzip")));
+        boolean needed = true;
+        for (int i = 0; i < compressed.length && needed; i += 3)
+        {
+            needed = streaming.bodyReceived(ByteBuffer.wrap(compressed, i, Math.min(3, compressed.length - i)));
+        }
+        Assert.assertFalse(needed);
+        Assert.assertEquals(Collections.singletonList("item-999"), streaming.getSelection(regex));
+    }
+
+    @Test
+    public void testUnexpectedStatusCode()
+    {
+        action.addValidation(validation(URLActionDataValidation.REGEXP, "x", URLActionDataValidation.EXISTS));
+
+        final StreamingValidation streaming = new StreamingValidation(action, 100);
+        Assert.assertTrue(streaming.headersReceived(500, headers("text/plain", null)));
+        Assert.assertFalse(streaming.bodyReceived(utf8("x")));
+    }
+
+    @Test
+    public void testUnsupportedEncoding()
+    {
+        action.addValidation(validation(URLActionDataValidation.REGEXP, "x", URLActionDataValidation.EXISTS));
+
+        final StreamingValidation streaming = new StreamingValidation(action, 100);
+        Assert.assertFalse(streaming.headersReceived(200, headers("text/plain", "br")));
+        Assert.assertFalse(streaming.isApplied());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedBody()
+    {
+        final URLActionDataValidation regex = validation(URLActionDataValidation.REGEXP, "x",
+                                                         URLActionDataValidation.EXISTS);
+        action.addValidation(regex);
+
+        final StreamingValidation streaming = new StreamingValidation(action, 100);
+        streaming.headersReceived(200, headers("text/plain", "gzip"));
+        Assert.assertFalse(streaming.bodyReceived(utf8("not compressed")));
+        streaming.getSelection(regex);
+    }
+
+    private URLActionDataValidation validation(final String selectionMode, final String selectionContent,
+                                               final String validationMode)
+    {
+        final String validationContent = URLActionDataValidation.COUNT.equals(validationMode) ? "1" : "id=1234";
+        return new URLActionDataValidation(selectionMode + validationMode, selectionMode, selectionContent,
+                                           validationMode, validationContent, interpreter);
+    }
+
+    private static List<NameValuePair> headers(final String contentType, final String contentEncoding)
+    {
+        final List<NameValuePair> headers = new ArrayList<NameValuePair>();
+        headers.add(new NameValuePair("Content-Type", contentType));
+        if (contentEncoding != null)
+        {
+            headers.add(new NameValuePair("Content-Encoding", contentEncoding));
+        }
+        return headers;
+    }
+
+    private static ByteBuffer utf8(final String text)
+    {
+        try
+        {
+            return ByteBuffer.wrap(text.getBytes("UTF-8"));
+        }
+        catch (final IOException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
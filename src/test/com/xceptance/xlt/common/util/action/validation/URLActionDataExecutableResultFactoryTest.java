@@ -32,12 +32,12 @@ public class URLActionDataExecutableResultFactoryTest
         Assert.assertEquals(something.get(0), "Committed to Software Quality");
     }
 
-    @Test(expected = IllegalArgumentException.class)
+    @Test
     public void testGetResultWithLightWeightPage()
     {
         final URLActionDataExecutableResult result = resultFactory.getResult(mockObjects.getLightWeightPage());
-        @SuppressWarnings("unused")
-		final List<String> something = result.getByXPath("//*[@id='service-areas']/div[1]/div/div/h1");
+        final List<String> something = result.getByXPath("//*[@id='service-areas']/div[1]/div/div/h1");
+        Assert.assertEquals(something.get(0), "Committed to Software Quality");
     }
 
     @Test
@@ -0,0 +1,110 @@
+package test.com.xceptance.xlt.common.util.action.validation;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.xceptance.xlt.common.util.action.validation.URLActionDataExecutableResult;
+import com.xceptance.xlt.common.util.action.validation.XPathGetable;
+
+public class URLActionDataExecutableResultTestSelections
+{
+    private static final String content = "<a href=\"/en/\">en</a><a href=\"/de/\">de</a>";
+
+    private int decodeCount;
+
+    private URLActionDataExecutableResult result;
+
+    @Before
+    public void setup() throws Exception
+    {
+        final List<NameValuePair> headers = new ArrayList<NameValuePair>();
+        headers.add(new NameValuePair("Content-Type", "text/html"));
+        headers.add(new NameValuePair("Set-Cookie", "a=1"));
+        headers.add(new NameValuePair("Set-Cookie", "b=2"));
+        headers.add(new NameValuePair("Set-Cookie", "a=3"));
+        final WebResponseData data = new WebResponseData(content.getBytes("UTF-8"), 200, "OK", headers);
+        final WebResponse response = new WebResponse(data, new URL("http://localhost/"), HttpMethod.GET, 0)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public String getContentAsString()
+            {
+                decodeCount++;
+                return content;
+            }
+        };
+        result = new URLActionDataExecutableResult(response, new XPathGetable()
+        {
+            @Override
+            public List<String> getByXPath(final String xPath)
+            {
+                return new ArrayList<String>();
+            }
+        });
+    }
+
+    @Test
+    public void testBodyIsDecodedOnce()
+    {
+        final Pattern pattern = Pattern.compile("href=\"([^\"]*)\"");
+        Assert.assertEquals(Arrays.asList("href=\"/en/\"", "href=\"/de/\""), result.getByRegEx(pattern));
+        Assert.assertEquals(Arrays.asList("/en/", "/de/"), result.getByRegExGroup(pattern, 1));
+        Assert.assertEquals(Arrays.asList("/en/", "/de/"), result.getByRegExGroup("href=\"([^\"]*)\"", 1));
+        Assert.assertEquals(Arrays.asList(">en<", ">de<"), result.getByRegEx(">[a-z]+<"));
+        Assert.assertEquals(1, decodeCount);
+    }
+
+    @Test
+    public void testBoundaries()
+    {
+        Assert.assertEquals(Arrays.asList("/en/", "/de/"), result.getByBoundaries("href=\"", "\"", 0));
+        Assert.assertEquals(Arrays.asList("de"), result.getByBoundaries("\">", "</a>", 2));
+        Assert.assertTrue(result.getByBoundaries("\">", "</a>", 3).isEmpty());
+        Assert.assertTrue(result.getByBoundaries("<b>", "</b>", 0).isEmpty());
+        Assert.assertTrue(result.getByBoundaries("<a", "</b>", 0).isEmpty());
+        Assert.assertEquals(Arrays.asList("<a href=\"/de/\">de"), result.getByBoundaries("</a>", "</a>", 0));
+        Assert.assertEquals(1, decodeCount);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyBoundary()
+    {
+        result.getByBoundaries("href", "", 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testUnknownGroup()
+    {
+        result.getByRegExGroup("href", 1);
+    }
+
+    @Test
+    public void testHeadersAndCookies()
+    {
+        Assert.assertEquals(Arrays.asList("text/html"), result.getHeaderByName("Content-Type"));
+        Assert.assertTrue(result.getHeaderByName("Unknown").isEmpty());
+
+        Assert.assertEquals(Arrays.asList("1", "3"), result.getCookieAsStringByName("a"));
+        Assert.assertEquals(Arrays.asList("2"), result.getCookieAsStringByName("b"));
+        Assert.assertTrue(result.getCookieByName("c").isEmpty());
+        Assert.assertEquals(3, result.getCookie().size());
+
+        // returned lists are copies
+        result.getCookieAsStringByName("a").clear();
+        result.getHeaderByName("Content-Type").clear();
+        Assert.assertEquals(2, result.getCookieByName("a").size());
+        Assert.assertEquals(1, result.getHeaderByName("Content-Type").size());
+    }
+}
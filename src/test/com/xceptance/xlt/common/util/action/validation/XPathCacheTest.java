@@ -0,0 +1,62 @@
+package test.com.xceptance.xlt.common.util.action.validation;
+
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import com.xceptance.xlt.common.util.action.validation.XPathCache;
+
+public class XPathCacheTest
+{
+    @Test
+    public void testExpressionIsCompiledOncePerThread() throws Exception
+    {
+        final XPathExpression expression = XPathCache.getExpression("/data/name");
+        Assert.assertSame(expression, XPathCache.getExpression("/data/name"));
+        Assert.assertNotSame(expression, XPathCache.getExpression("/data/title"));
+
+        final AtomicReference<XPathExpression> otherThread = new AtomicReference<XPathExpression>();
+        final Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    otherThread.set(XPathCache.getExpression("/data/name"));
+                }
+                catch (final Exception e)
+                {
+                    // leaves the reference empty
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+        Assert.assertNotNull(otherThread.get());
+        Assert.assertNotSame(expression, otherThread.get());
+    }
+
+    @Test
+    public void testDocumentBuilderIsReused() throws Exception
+    {
+        final DocumentBuilder documentBuilder = XPathCache.getDocumentBuilder();
+        final Document first = documentBuilder.parse(new InputSource(new StringReader("<data><name>John</name></data>")));
+
+        Assert.assertSame(documentBuilder, XPathCache.getDocumentBuilder());
+        final Document second = XPathCache.getDocumentBuilder()
+                                          .parse(new InputSource(new StringReader("<data><name>Sara</name></data>")));
+
+        final XPathExpression expression = XPathCache.getExpression("/data/name");
+        Assert.assertEquals("John", expression.evaluate(first, XPathConstants.STRING));
+        Assert.assertEquals("Sara", expression.evaluate(second, XPathConstants.STRING));
+    }
+}
@@ -0,0 +1,123 @@
+package test.com.xceptance.xlt.common.util.action.validation;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import test.com.xceptance.xlt.common.util.MockWebResponse;
+
+import com.xceptance.xlt.api.htmlunit.LightWeightPage;
+import com.xceptance.xlt.common.util.action.validation.XPathWithLightWeightPage;
+
+public class XPathWithLightWeightPageTest
+{
+    String urlString = "http://www.xceptance.com";
+
+    URL url;
+
+    String htmlType = "text/html";
+
+    String htmlContent = "<!DOCTYPE html>\n"
+                         + "<html xmlns=\"http://www.w3.org/1999/xhtml\" lang=en>"
+                         + "<head><title>Shop &amp; More</title>"
+                         + "<script>if (a < b && c) { document.write('<div id=\"fake\">'); }</script>"
+                         + "<meta charset=utf-8></head>"
+                         + "<body class='home'>"
+                         + "<!-- a comment -->"
+                         + "<h1 id=\"titleIndex\">Check out our products</h1>"
+                         + "<ul id=\"products\"><li>Pizza<li>Apple Pie<li data-price=3 DATA-PRICE=4>Pasta</ul>"
+                         + "<p>first<p>second<div>block</div>"
+                         + "<table><tr><td>a<td>b<tr><td>c</table>"
+                         + "<form><input name=q value=\"a &quot;b&quot;\"><br>"
+                         + "<select><option>1<option selected>2</select></form>"
+                         + "</span></body></html><p>trailing";
+
+    String brokenContent = "plain text<b>bold<i>both</b>italic";
+
+    LightWeightPage htmlPage;
+
+    LightWeightPage brokenPage;
+
+    @Before
+    public void setup() throws MalformedURLException
+    {
+        url = new URL(urlString);
+        htmlPage = new LightWeightPage(new MockWebResponse(htmlContent, url, htmlType), "test");
+        brokenPage = new LightWeightPage(new MockWebResponse(brokenContent, url, htmlType), "test");
+    }
+
+    @Test
+    public void testHeadAndRawText()
+    {
+        final XPathWithLightWeightPage xpathPage = new XPathWithLightWeightPage(htmlPage);
+
+        Assert.assertEquals("Shop & More", xpathPage.getByXPath("/html/head/title").get(0));
+        Assert.assertEquals(1, xpathPage.getByXPath("/html/head/script").size());
+        Assert.assertTrue(xpathPage.getByXPath("//*[@id='fake']").isEmpty());
+        Assert.assertEquals("en", xpathPage.getByXPath("/html/@lang").get(0));
+    }
+
+    @Test
+    public void testGetById()
+    {
+        final XPathWithLightWeightPage xpathPage = new XPathWithLightWeightPage(htmlPage);
+
+        Assert.assertEquals("Check out our products", xpathPage.getByXPath("id('titleIndex')").get(0));
+        Assert.assertEquals("Check out our products", xpathPage.getByXPath("/html/body/h1").get(0));
+        Assert.assertEquals("home", xpathPage.getByXPath("/html/body/@class").get(0));
+    }
+
+    @Test
+    public void testImpliedEndTags()
+    {
+        final XPathWithLightWeightPage xpathPage = new XPathWithLightWeightPage(htmlPage);
+
+        final List<String> products = xpathPage.getByXPath("id('products')/li");
+        Assert.assertEquals(3, products.size());
+        Assert.assertEquals("Apple Pie", products.get(1));
+        Assert.assertEquals("3", xpathPage.getByXPath("id('products')/li/@data-price").get(0));
+
+        final List<String> paragraphs = xpathPage.getByXPath("/html/body/p");
+        Assert.assertEquals("first", paragraphs.get(0));
+        Assert.assertEquals("second", paragraphs.get(1));
+        Assert.assertEquals("trailing", paragraphs.get(2));
+        Assert.assertEquals("block", xpathPage.getByXPath("/html/body/div").get(0));
+
+        Assert.assertEquals(2, xpathPage.getByXPath("//table/tr").size());
+        Assert.assertEquals("b", xpathPage.getByXPath("//table/tr[1]/td[2]").get(0));
+        Assert.assertEquals("c", xpathPage.getByXPath("//table/tr[2]/td").get(0));
+
+        Assert.assertEquals("2", xpathPage.getByXPath("//option[@selected]").get(0));
+    }
+
+    @Test
+    public void testAttributes()
+    {
+        final XPathWithLightWeightPage xpathPage = new XPathWithLightWeightPage(htmlPage);
+
+        Assert.assertEquals("a \"b\"", xpathPage.getByXPath("//input[@name='q']/@value").get(0));
+        Assert.assertTrue(xpathPage.getByXPath("//input/*").isEmpty());
+        Assert.assertEquals(1, xpathPage.getByXPath("//form/br").size());
+    }
+
+    @Test
+    public void testBrokenMarkup()
+    {
+        final XPathWithLightWeightPage xpathPage = new XPathWithLightWeightPage(brokenPage);
+
+        Assert.assertEquals("plain textbolditalic", xpathPage.getByXPath("/html/body").get(0).replace("both", ""));
+        Assert.assertEquals("boldboth", xpathPage.getByXPath("//b").get(0));
+        Assert.assertTrue(xpathPage.getByXPath("//div").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidXPath()
+    {
+        final XPathWithLightWeightPage xpathPage = new XPathWithLightWeightPage(htmlPage);
+        xpathPage.getByXPath("//[");
+    }
+}
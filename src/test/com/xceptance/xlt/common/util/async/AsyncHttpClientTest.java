@@ -0,0 +1,494 @@
+package test.com.xceptance.xlt.common.util.async;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.xceptance.xlt.api.data.GeneralDataProvider;
+import com.xceptance.xlt.api.util.XltProperties;
+import com.xceptance.xlt.common.util.NoCodingPropAdmin;
+import com.xceptance.xlt.common.util.action.data.URLActionData;
+import com.xceptance.xlt.common.util.action.data.URLActionDataValidation;
+import com.xceptance.xlt.common.util.action.execution.AsyncActionFactory;
+import com.xceptance.xlt.common.util.action.execution.URLActionDataExecutionable;
+import com.xceptance.xlt.common.util.action.validation.StreamingValidation;
+import com.xceptance.xlt.common.util.async.AsyncHttpClient;
+import com.xceptance.xlt.common.util.async.AsyncHttpEngine;
+import com.xceptance.xlt.common.util.async.AsyncHttpFuture;
+import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
+
+/**
+ * Runs the {@link AsyncHttpClient} against an embedded HTTP server.
+ */
+public class AsyncHttpClientTest
+{
+    private static HttpServer server;
+
+    private static String baseUrl;
+
+    private AsyncHttpClient client;
+
+    @BeforeClass
+    public static void startServer() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/text", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                respond(exchange, 200, "text/plain", "Hello " + exchange.getRequestMethod());
+            }
+        });
+        server.createContext("/chunked", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                exchange.getResponseHeaders().add("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(200, 0);
+                final OutputStream out = exchange.getResponseBody();
+                for (int i = 0; i < 1000; i++)
+                {
+                    out.write("0123456789".getBytes("UTF-8"));
+                    out.flush();
+                }
+                out.close();
+            }
+        });
+        server.createContext("/gzip", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                final GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+                gzip.write("compressed".getBytes("UTF-8"));
+                gzip.close();
+                exchange.getResponseHeaders().add("Content-Type", "text/plain");
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, bytes.size());
+                exchange.getResponseBody().write(bytes.toByteArray());
+                exchange.close();
+            }
+        });
+        server.createContext("/echo", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                final String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                respond(exchange, 200, "text/plain", contentType + "|" + read(exchange.getRequestBody()));
+            }
+        });
+        server.createContext("/setcookie", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                exchange.getResponseHeaders().add("Set-Cookie", "session=abc; Path=/");
+                respond(exchange, 200, "text/plain", "set");
+            }
+        });
+        server.createContext("/getcookie", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                respond(exchange, 200, "text/plain", String.valueOf(exchange.getRequestHeaders().getFirst("Cookie")));
+            }
+        });
+        server.createContext("/redirect", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                exchange.getResponseHeaders().add("Location", "/text");
+                exchange.sendResponseHeaders(302, -1);
+                exchange.close();
+            }
+        });
+        server.createContext("/slow", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                try
+                {
+                    Thread.sleep(3000);
+                }
+                catch (final InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                respond(exchange, 200, "text/plain", "late");
+            }
+        });
+        server.createContext("/html", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                respond(exchange, 200, "text/html", "<html><body><h1 id=\"title\">Async</h1></body></html>");
+            }
+        });
+        server.createContext("/proxied", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                respond(exchange, 200, "text/plain", exchange.getRequestURI() + "|"
+                                                     + exchange.getRequestHeaders().getFirst("Proxy-Authorization"));
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterClass
+    public static void stopServer()
+    {
+        server.stop(0);
+    }
+
+    @Before
+    public void setup()
+    {
+        client = new AsyncHttpClient(AsyncHttpEngine.getInstance(2));
+    }
+
+    @After
+    public void tearDown()
+    {
+        client.close();
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String contentType,
+                                final String body) throws IOException
+    {
+        final byte[] bytes = body.getBytes("UTF-8");
+        exchange.getResponseHeaders().add("Content-Type", contentType + "; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static String read(final InputStream in) throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+        {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toString("UTF-8");
+    }
+
+    private WebRequest request(final String path) throws IOException
+    {
+        return new WebRequest(new URL(baseUrl + path));
+    }
+
+    @Test
+    public void testGet() throws IOException
+    {
+        final AsyncHttpFuture future = client.execute(request("/text"));
+        final WebResponse response = future.get();
+        Assert.assertEquals(200, response.getStatusCode());
+        Assert.assertEquals("Hello GET", response.getContentAsString());
+        Assert.assertTrue(future.isDone());
+        Assert.assertEquals(1, future.getHops().size());
+        Assert.assertEquals(200, future.getHops().get(0).getResponseCode());
+    }
+
+    @Test
+    public void testChunkedAndCompressed() throws IOException
+    {
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+        {
+            expected.append("0123456789");
+        }
+        Assert.assertEquals(expected.toString(), client.execute(request("/chunked")).get().getContentAsString());
+        Assert.assertEquals("compressed", client.execute(request("/gzip")).get().getContentAsString());
+    }
+
+    @Test
+    public void testDiscardedBody() throws IOException
+    {
+        final AsyncHttpFuture future = client.execute(request("/chunked"), false);
+        Assert.assertEquals(0, future.get().getContentAsString().length());
+        Assert.assertTrue(future.getHops().get(0).getBytesReceived() > 10000);
+    }
+
+    @Test
+    public void testStreamedBody() throws IOException
+    {
+        final ParameterInterpreter interpreter = new ParameterInterpreter(XltProperties.getInstance(),
+                                                                          GeneralDataProvider.getInstance());
+        final URLActionData action = new URLActionData("Action", baseUrl + "/chunked", interpreter);
+        final URLActionDataValidation validation = new URLActionDataValidation("Digits", URLActionDataValidation.REGEXP,
+                                                                               "8901", URLActionDataValidation.EXISTS,
+                                                                               null, interpreter);
+        action.addValidation(validation);
+
+        StreamingValidation streaming = new StreamingValidation(action, 100);
+        AsyncHttpFuture future = client.execute(request("/chunked"), streaming);
+        Assert.assertEquals(0, future.get().getContentAsString().length());
+        Assert.assertTrue(future.getHops().get(0).getBytesReceived() > 10000);
+        Assert.assertTrue(streaming.isApplied());
+        Assert.assertEquals(Collections.singletonList("8901"), streaming.getSelection(validation));
+
+        // only the final response is streamed
+        streaming = new StreamingValidation(action, 100);
+        future = client.execute(request("/redirect"), streaming);
+        Assert.assertEquals(0, future.get().getContentAsString().length());
+        Assert.assertEquals(2, future.getHops().size());
+        Assert.assertTrue(streaming.getSelection(validation).isEmpty());
+    }
+
+    @Test
+    public void testKeepAlive() throws IOException
+    {
+        final HttpHandler counter = new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                respond(exchange, 200, "text/plain", String.valueOf(exchange.getRemoteAddress().getPort()));
+            }
+        };
+        server.createContext("/port", counter);
+        try
+        {
+            final String first = client.execute(request("/port")).get().getContentAsString();
+            for (int i = 0; i < 5; i++)
+            {
+                Assert.assertEquals(first, client.execute(request("/port")).get().getContentAsString());
+            }
+        }
+        finally
+        {
+            server.removeContext("/port");
+        }
+    }
+
+    @Test
+    public void testConcurrentRequests() throws IOException
+    {
+        final List<AsyncHttpFuture> futures = new ArrayList<AsyncHttpFuture>();
+        for (int i = 0; i < 50; i++)
+        {
+            futures.add(client.execute(request("/text")));
+        }
+        for (final AsyncHttpFuture future : futures)
+        {
+            Assert.assertEquals("Hello GET", future.get().getContentAsString());
+        }
+    }
+
+    @Test
+    public void testPostParameters() throws IOException
+    {
+        final WebRequest request = request("/echo");
+        request.setHttpMethod(HttpMethod.POST);
+        request.setRequestParameters(Collections.singletonList(new NameValuePair("q", "a b&c")));
+        Assert.assertEquals("application/x-www-form-urlencoded|q=a+b%26c",
+                            client.execute(request).get().getContentAsString());
+    }
+
+    @Test
+    public void testPostBody() throws IOException
+    {
+        final WebRequest request = request("/echo");
+        request.setHttpMethod(HttpMethod.POST);
+        request.setAdditionalHeader("Content-Type", "application/json");
+        request.setRequestBody("{\"a\":1}");
+        Assert.assertEquals("application/json|{\"a\":1}", client.execute(request).get().getContentAsString());
+    }
+
+    @Test
+    public void testCookies() throws IOException
+    {
+        client.execute(request("/setcookie")).get();
+        Assert.assertEquals("session=abc", client.execute(request("/getcookie")).get().getContentAsString());
+
+        final WebRequest request = request("/getcookie");
+        request.setAdditionalHeader("Cookie", "explicit=1");
+        Assert.assertEquals("explicit=1; session=abc", client.execute(request).get().getContentAsString());
+    }
+
+    @Test
+    public void testRedirect() throws IOException
+    {
+        final AsyncHttpFuture future = client.execute(request("/redirect"));
+        final WebResponse response = future.get();
+        Assert.assertEquals("Hello GET", response.getContentAsString());
+        Assert.assertEquals(2, future.getHops().size());
+        Assert.assertEquals(302, future.getHops().get(0).getResponseCode());
+        Assert.assertEquals(baseUrl + "/text", response.getWebRequest().getUrl().toString());
+
+        client.setRedirectEnabled(false);
+        Assert.assertEquals(302, client.execute(request("/redirect")).get().getStatusCode());
+    }
+
+    @Test
+    public void testTimeout() throws IOException
+    {
+        client.setTimeout(300);
+        final AsyncHttpFuture future = client.execute(request("/slow"));
+        try
+        {
+            future.get();
+            Assert.fail("Timeout expected");
+        }
+        catch (final IOException e)
+        {
+            Assert.assertTrue(e.getCause() instanceof java.net.SocketTimeoutException);
+        }
+        Assert.assertEquals(0, future.getHops().get(0).getResponseCode());
+    }
+
+    @Test(expected = IOException.class)
+    public void testConnectionRefused() throws IOException
+    {
+        final ServerSocket closed = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        final int port = closed.getLocalPort();
+        closed.close();
+        client.execute(new WebRequest(new URL("http://127.0.0.1:" + port + "/"))).get();
+    }
+
+    @Test
+    public void testProxy() throws IOException
+    {
+        client.setProxy("127.0.0.1", server.getAddress().getPort(), "user", "secret");
+        final WebResponse response = client.execute(new WebRequest(new URL("http://proxied.invalid/proxied?a=1")))
+                                           .get();
+        Assert.assertEquals("http://proxied.invalid/proxied?a=1|Basic dXNlcjpzZWNyZXQ=",
+                            response.getContentAsString());
+    }
+
+    @Test
+    public void testProxyBypass() throws IOException
+    {
+        final ServerSocket closed = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        final int port = closed.getLocalPort();
+        closed.close();
+        client.setProxy("127.0.0.1", port, null, null);
+        client.addProxyBypassHost("^127\\.0\\.0\\.1$");
+        Assert.assertEquals("Hello GET", client.execute(request("/text")).get().getContentAsString());
+    }
+
+    @Test
+    public void testTunnelRefused() throws Exception
+    {
+        final ServerSocket proxy = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        final StringBuilder connectRequest = new StringBuilder();
+        final Thread proxyThread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    final Socket socket = proxy.accept();
+                    final InputStream in = socket.getInputStream();
+                    int c;
+                    while (connectRequest.indexOf("\r\n\r\n") < 0 && (c = in.read()) != -1)
+                    {
+                        connectRequest.append((char) c);
+                    }
+                    final String response = "HTTP/1.1 407 Proxy Authentication Required\r\nContent-Length: 0\r\n\r\n";
+                    socket.getOutputStream().write(response.getBytes("ISO-8859-1"));
+                    socket.close();
+                }
+                catch (final IOException e)
+                {
+                    // reported by the client
+                }
+            }
+        };
+        proxyThread.start();
+        try
+        {
+            client.setProxy("127.0.0.1", proxy.getLocalPort(), null, null);
+            client.execute(new WebRequest(new URL("https://secure.invalid/"))).get();
+            Assert.fail("Refused tunnel expected");
+        }
+        catch (final IOException e)
+        {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("407"));
+        }
+        finally
+        {
+            proxyThread.join(5000);
+            proxy.close();
+        }
+        Assert.assertTrue(connectRequest.toString().startsWith("CONNECT secure.invalid:443 HTTP/1.1\r\n"));
+    }
+
+    @Test
+    public void testActionFactory() throws IOException
+    {
+        final NoCodingPropAdmin propAdmin = new NoCodingPropAdmin(XltProperties.getInstance(), "", "");
+        final AsyncActionFactory factory = new AsyncActionFactory(propAdmin);
+        try
+        {
+            URLActionDataExecutionable executionable = factory.createPageAction("Action", request("/html"));
+            executionable.addStaticRequest(new URL(baseUrl + "/chunked"));
+            executionable.executeAction();
+            Assert.assertEquals(Collections.singletonList("Async"),
+                                executionable.getResult().getByRegExGroup("<h1 id=\"title\">(.*?)</h1>", 1));
+
+            executionable = factory.createXhrPageAction("Xhr", request("/text"));
+            executionable.executeAction();
+            Assert.assertEquals("Hello GET", executionable.getResult().getWebResponse().getContentAsString());
+        }
+        finally
+        {
+            factory.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testXhrAsFirstAction() throws IOException
+    {
+        final NoCodingPropAdmin propAdmin = new NoCodingPropAdmin(XltProperties.getInstance(), "", "");
+        final AsyncActionFactory factory = new AsyncActionFactory(propAdmin);
+        try
+        {
+            factory.createXhrPageAction("Xhr", request("/text"));
+        }
+        finally
+        {
+            factory.close();
+        }
+    }
+}
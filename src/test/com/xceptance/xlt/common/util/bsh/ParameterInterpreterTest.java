@@ -131,6 +131,31 @@ public class ParameterInterpreterTest
         Assert.assertEquals("CD", interpreter.processDynamicData("${c}${d}"));
         Assert.assertEquals("C", interpreter.processDynamicData("${c}"));
     }
+
+    @Test
+    public void noBeanShellForVariables() throws EvalError
+    {
+        interpreter.set(new NameValuePair("e", "E"));
+        Assert.assertEquals("E", interpreter.processDynamicData("${e}"));
+        Assert.assertTrue(interpreter.processDynamicData("${NOW}-${RANDOM.Number(1, 9)}").matches("[0-9]+-[1-9]"));
+        Assert.assertEquals("x${unknown}y", interpreter.processDynamicData("x${unknown}y"));
+        Assert.assertFalse(interpreter.isBeanShellCreated());
+    }
+
+    @Test
+    public void beanShellSharesVariables() throws EvalError
+    {
+        interpreter.set("f", "F");
+        Assert.assertEquals("FG", interpreter.processDynamicData("${f + \"G\"}"));
+        Assert.assertTrue(interpreter.isBeanShellCreated());
+
+        interpreter.set("f", "H");
+        Assert.assertEquals("HG", interpreter.processDynamicData("${f + \"G\"}"));
+        Assert.assertEquals("3", interpreter.processDynamicData("${g = 3}"));
+        Assert.assertEquals("3H", interpreter.processDynamicData("${g}${f}"));
+        Assert.assertTrue(interpreter.isVariable("g"));
+    }
+
     // ----------------------------------------------------------------------------------------
     /* Error handling */
     // ----------------------------------------------------------------------------------------
@@ -0,0 +1,140 @@
+/**
+ *  Copyright 2014 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package test.com.xceptance.xlt.common.util.bsh;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import bsh.EvalError;
+
+import com.xceptance.xlt.api.data.GeneralDataProvider;
+import com.xceptance.xlt.api.util.XltProperties;
+import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
+import com.xceptance.xlt.common.util.bsh.ParameterTemplate;
+
+/**
+ * Test the compiled parameter templates.
+ */
+public class ParameterTemplateTest
+{
+    private ParameterInterpreter interpreter;
+
+    @Before
+    public void setup()
+    {
+        interpreter = new ParameterInterpreter(XltProperties.getInstance(), GeneralDataProvider.getInstance());
+    }
+
+    @Test
+    public void staticTemplate()
+    {
+        final String input = "No data here.";
+        final ParameterTemplate template = ParameterTemplate.compile(input);
+        Assert.assertTrue(template.isStatic());
+        Assert.assertSame(input, template.render(interpreter));
+        Assert.assertSame(input, interpreter.processDynamicData(input));
+    }
+
+    @Test
+    public void emptyParamsAreStatic()
+    {
+        Assert.assertTrue(ParameterTemplate.compile("No ${ } here.").isStatic());
+    }
+
+    @Test
+    public void compiledOnce()
+    {
+        Assert.assertSame(ParameterTemplate.compile("a ${b} c"), ParameterTemplate.compile("a ${b} c"));
+    }
+
+    @Test
+    public void variableNames()
+    {
+        final Set<String> names = new HashSet<String>();
+        ParameterTemplate.compile("${host}/${com.xceptance.page}?r=${RANDOM.Number(10)}&t=${token.substring(1 + offset)}")
+                         .collectVariableNames(names);
+
+        Assert.assertTrue(names.contains("host"));
+        Assert.assertTrue(names.contains("com"));
+        Assert.assertTrue(names.contains("RANDOM"));
+        // code is not analyzed, all of its identifiers count
+        Assert.assertTrue(names.contains("token"));
+        Assert.assertTrue(names.contains("offset"));
+        Assert.assertFalse(names.contains("page"));
+    }
+
+    @Test
+    public void variables() throws EvalError
+    {
+        interpreter.set("host", "http://localhost");
+        interpreter.set("count", 3);
+        final ParameterTemplate template = ParameterTemplate.compile("${host}/path?count=${count}&x=${ host }");
+        Assert.assertFalse(template.isStatic());
+        Assert.assertEquals("http://localhost/path?count=3&x=http://localhost", template.render(interpreter));
+    }
+
+    @Test
+    public void stateChangesBetweenRenders() throws EvalError
+    {
+        final ParameterTemplate template = ParameterTemplate.compile("v=${v}");
+        interpreter.set("v", "1");
+        Assert.assertEquals("v=1", template.render(interpreter));
+        interpreter.set("v", "2");
+        Assert.assertEquals("v=2", template.render(interpreter));
+    }
+
+    @Test
+    public void unknownParameterIsKept()
+    {
+        Assert.assertEquals("x${unknownVariable}y", interpreter.processDynamicData("x${unknownVariable}y"));
+        Assert.assertEquals("x${unknown.property}y", interpreter.processDynamicData("x${unknown.property}y"));
+    }
+
+    @Test
+    public void calls()
+    {
+        Assert.assertEquals(8, interpreter.processDynamicData("${RANDOM.String(8)}").length());
+        Assert.assertTrue(interpreter.processDynamicData("${RANDOM.DigitString( 4 )}").matches("[0-9]{4}"));
+        final int number = Integer.parseInt(interpreter.processDynamicData("${RANDOM.Number(3, 5)}"));
+        Assert.assertTrue(number >= 3 && number <= 5);
+        Assert.assertTrue(interpreter.processDynamicData("${NOW}").matches("[0-9]+"));
+    }
+
+    @Test
+    public void callOnNonPublicClass() throws EvalError
+    {
+        // the list is a non-public class, its methods are called via the public interface
+        interpreter.set("list", Collections.unmodifiableList(Arrays.asList("a", "b")));
+        Assert.assertEquals("2", interpreter.processDynamicData("${list.size()}"));
+        Assert.assertEquals("b", interpreter.processDynamicData("${list.get(1)}"));
+        Assert.assertFalse(interpreter.isBeanShellCreated());
+    }
+
+    @Test
+    public void scriptFallback()
+    {
+        Assert.assertEquals("No 1 here.", interpreter.processDynamicData("No ${Math.abs(-1)} here."));
+        Assert.assertEquals("3", interpreter.processDynamicData("${1 + 2}"));
+        Assert.assertEquals("ab", interpreter.processDynamicData("${\"a\".concat(\"b\")}"));
+    }
+}
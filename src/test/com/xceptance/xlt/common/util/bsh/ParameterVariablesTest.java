@@ -0,0 +1,82 @@
+/**
+ *  Copyright 2014 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package test.com.xceptance.xlt.common.util.bsh;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.xceptance.xlt.common.util.bsh.ParameterVariables;
+
+/**
+ * Test the variable store of a user.
+ */
+public class ParameterVariablesTest
+{
+    @Test
+    public void putAndGet()
+    {
+        final ParameterVariables variables = new ParameterVariables();
+        variables.put("a", "A");
+        variables.put("b", null);
+
+        Assert.assertEquals("A", variables.get("a"));
+        Assert.assertNull(variables.get("b"));
+        Assert.assertTrue(variables.contains("b"));
+        Assert.assertFalse(variables.contains("c"));
+        Assert.assertNull(variables.get("c"));
+        Assert.assertEquals(2, variables.size());
+    }
+
+    @Test
+    public void replace()
+    {
+        final ParameterVariables variables = new ParameterVariables();
+        variables.put("a", "A");
+        variables.put("a", "B");
+
+        Assert.assertEquals("B", variables.get("a"));
+        Assert.assertEquals(1, variables.size());
+    }
+
+    @Test
+    public void growAndCollide()
+    {
+        final ParameterVariables variables = new ParameterVariables();
+        // "Aa" and "BB" share the same hash code
+        variables.put("Aa", "1");
+        variables.put("BB", "2");
+        for (int i = 0; i < 1000; i++)
+        {
+            variables.put("v" + i, i);
+        }
+
+        Assert.assertEquals(1002, variables.size());
+        Assert.assertEquals(1002, variables.getNames().size());
+        Assert.assertEquals("1", variables.get("Aa"));
+        Assert.assertEquals("2", variables.get("BB"));
+        for (int i = 0; i < 1000; i++)
+        {
+            Assert.assertEquals(i, variables.get("v" + i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullName()
+    {
+        new ParameterVariables().put(null, "A");
+    }
+}
@@ -0,0 +1,216 @@
+package test.com.xceptance.xlt.common.util.feed;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import bsh.EvalError;
+
+import com.xceptance.xlt.api.data.GeneralDataProvider;
+import com.xceptance.xlt.api.util.XltProperties;
+import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
+import com.xceptance.xlt.common.util.feed.DataFeed;
+import com.xceptance.xlt.common.util.feed.DataFeeder;
+import com.xceptance.xlt.common.util.feed.FeedStrategy;
+
+public class DataFeedTest
+{
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private File file;
+
+    @Before
+    public void setup() throws IOException
+    {
+        file = File.createTempFile("feed", ".csv");
+        final StringBuilder content = new StringBuilder("\r\nemail,password,name\r\n");
+        for (int i = 0; i < 200; i++)
+        {
+            content.append("user").append(i).append("@example.com,secret").append(i).append(",\"Doe, J").append(i)
+                   .append("\"\r\n");
+            if (i % 50 == 0)
+            {
+                // blank lines are ignored
+                content.append("\r\n");
+            }
+        }
+        content.append("quote@example.com,\"say \"\"hi\"\"\"");
+        write(file, content.toString());
+    }
+
+    @After
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+    @Test
+    public void testRows()
+    {
+        final DataFeed feed = DataFeed.open(file, ',', UTF8);
+        Assert.assertEquals(Arrays.asList("email", "password", "name"), feed.getColumns());
+        Assert.assertEquals(201, feed.getRowCount());
+        Assert.assertEquals(1, feed.getColumnIndex("password"));
+        Assert.assertEquals(-1, feed.getColumnIndex("missing"));
+
+        Assert.assertArrayEquals(new String[]
+            {
+                "user0@example.com", "secret0", "Doe, J0"
+            }, feed.getRow(0));
+        for (int i = 0; i < 200; i++)
+        {
+            Assert.assertEquals("user" + i + "@example.com", feed.getRow(i)[0]);
+        }
+        Assert.assertArrayEquals(new String[]
+            {
+                "quote@example.com", "say \"hi\""
+            }, feed.getRow(200));
+        Assert.assertSame(feed, DataFeed.open(new File(file.getPath()), ',', UTF8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRowOutOfRange()
+    {
+        DataFeed.open(file, ',', UTF8).getRow(201);
+    }
+
+    @Test
+    public void testLongRows() throws IOException
+    {
+        final File large = File.createTempFile("feed", ".csv");
+        try
+        {
+            // rows longer than the buffers, the lines are scanned with
+            final StringBuilder value = new StringBuilder();
+            for (int i = 0; i < 10000; i++)
+            {
+                value.append((char) ('a' + i % 26));
+            }
+            write(large, "id,value\n1," + value + "\r\n\r\n2," + value + "x");
+            final DataFeed feed = DataFeed.open(large, ',', UTF8);
+            Assert.assertEquals(2, feed.getRowCount());
+            Assert.assertArrayEquals(new String[]
+                {
+                    "1", value.toString()
+                }, feed.getRow(0));
+            Assert.assertArrayEquals(new String[]
+                {
+                    "2", value + "x"
+                }, feed.getRow(1));
+        }
+        finally
+        {
+            large.delete();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedCharset()
+    {
+        DataFeed.open(file, ',', Charset.forName("UTF-16"));
+    }
+
+    @Test
+    public void testStrategies() throws IOException
+    {
+        final File small = File.createTempFile("feed", ".csv");
+        try
+        {
+            write(small, "id\n1\n2\n3\n");
+            final DataFeed feed = DataFeed.open(small, ',', UTF8);
+            Assert.assertEquals(0, feed.nextRow(FeedStrategy.SEQUENTIAL));
+            Assert.assertEquals(1, feed.nextRow(FeedStrategy.SEQUENTIAL));
+            Assert.assertEquals(2, feed.nextRow(FeedStrategy.SEQUENTIAL));
+            Assert.assertEquals(0, feed.nextRow(FeedStrategy.SEQUENTIAL));
+
+            final Set<Long> rows = new HashSet<Long>();
+            for (int i = 0; i < 100; i++)
+            {
+                final long row = feed.nextRow(FeedStrategy.RANDOM);
+                Assert.assertTrue(row >= 0 && row < 3);
+                rows.add(row);
+            }
+            Assert.assertEquals(3, rows.size());
+
+            final DataFeed unique = DataFeed.open(small, ';', UTF8);
+            Assert.assertEquals(0, unique.nextRow(FeedStrategy.UNIQUE));
+            Assert.assertEquals(1, unique.nextRow(FeedStrategy.UNIQUE));
+            Assert.assertEquals(2, unique.nextRow(FeedStrategy.UNIQUE));
+            try
+            {
+                unique.nextRow(FeedStrategy.UNIQUE);
+                Assert.fail("Used up feed expected");
+            }
+            catch (final IllegalArgumentException e)
+            {
+                Assert.assertTrue(e.getMessage().contains("are used"));
+            }
+        }
+        finally
+        {
+            small.delete();
+        }
+    }
+
+    @Test
+    public void testStrategyName()
+    {
+        Assert.assertEquals(FeedStrategy.UNIQUE, FeedStrategy.fromName(" Unique"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownStrategy()
+    {
+        FeedStrategy.fromName("shuffled");
+    }
+
+    @Test
+    public void testFeeder() throws EvalError
+    {
+        final DataFeeder feeder = new DataFeeder();
+        feeder.addFeed("customers", DataFeed.open(file, ',', UTF8), FeedStrategy.RANDOM);
+        final ParameterInterpreter interpreter = new ParameterInterpreter(XltProperties.getInstance(),
+                                                                          GeneralDataProvider.getInstance());
+        interpreter.setDataFeeder(feeder);
+
+        // the columns of an iteration come from the same row
+        final String login = interpreter.processDynamicData("${FEED.customers.email}:${FEED.customers.password}");
+        final String[] parts = login.split(":");
+        Assert.assertEquals(parts[0].replace("user", "secret").replace("@example.com", ""), parts[1]);
+        Assert.assertEquals(login, interpreter.processDynamicData("${FEED.customers.email}:${FEED.customers.password}"));
+        Assert.assertEquals(parts[0], interpreter.processDynamicData("${FEED.get(\"customers.email\")}"));
+        Assert.assertFalse(interpreter.isBeanShellCreated());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownColumn() throws EvalError
+    {
+        final DataFeeder feeder = new DataFeeder();
+        feeder.addFeed("customers", DataFeed.open(file, ',', UTF8), FeedStrategy.SEQUENTIAL);
+        feeder.get("customers.phone");
+    }
+
+    private static void write(final File file, final String content) throws IOException
+    {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF8);
+        try
+        {
+            writer.write(content);
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package test.com.xceptance.xlt.common.util.feed;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import bsh.EvalError;
+
+import com.xceptance.xlt.api.data.GeneralDataProvider;
+import com.xceptance.xlt.api.util.XltProperties;
+import com.xceptance.xlt.common.util.bsh.ParameterInterpreter;
+import com.xceptance.xlt.common.util.feed.DataFeed;
+import com.xceptance.xlt.common.util.feed.DataFeeder;
+import com.xceptance.xlt.common.util.feed.DataPartition;
+import com.xceptance.xlt.common.util.feed.FeedStrategy;
+
+public class DataPartitionTest
+{
+    @Test
+    public void testDisjointUniqueNumbers()
+    {
+        final Set<Long> numbers = new HashSet<Long>();
+        for (int slot = 0; slot < 6; slot++)
+        {
+            for (int iteration = 0; iteration < 10; iteration++)
+            {
+                Assert.assertTrue(numbers.add(new DataPartition(slot, 6, iteration).getUniqueNumber()));
+            }
+        }
+        Assert.assertEquals(60, numbers.size());
+    }
+
+    @Test
+    public void testDisjointRows()
+    {
+        final Set<Long> rows = new HashSet<Long>();
+        for (int slot = 0; slot < 6; slot++)
+        {
+            for (int iteration = 0; iteration < 3; iteration++)
+            {
+                final long row = new DataPartition(slot, 6, iteration).getRow(20);
+                Assert.assertTrue(row >= 0 && row < 20);
+                Assert.assertTrue(rows.add(row));
+            }
+        }
+        Assert.assertEquals(3, new DataPartition(1, 6, 0).getRow(20));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRowsUsedUp()
+    {
+        new DataPartition(5, 6, 3).getRow(20);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSlot()
+    {
+        new DataPartition(6, 6, 0);
+    }
+
+    @Test
+    public void testNextIteration() throws EvalError
+    {
+        final DataPartition first = DataPartition.nextIteration();
+        final DataPartition second = DataPartition.nextIteration();
+        Assert.assertEquals(first.getSlot(), second.getSlot());
+        Assert.assertEquals(first.getIteration() + 1, second.getIteration());
+        Assert.assertTrue(first.getSlot() < first.getSlotCount());
+
+        final ParameterInterpreter interpreter = new ParameterInterpreter(XltProperties.getInstance(),
+                                                                          GeneralDataProvider.getInstance());
+        interpreter.setDataPartition(second);
+        Assert.assertEquals(String.valueOf(second.getUniqueNumber()),
+                            interpreter.processDynamicData("${PARTITION.getUniqueNumber()}"));
+        Assert.assertFalse(interpreter.isBeanShellCreated());
+    }
+
+    @Test
+    public void testUserTypes()
+    {
+        System.setProperty("com.xceptance.xlt.loadtests", "TLogin TOrder");
+        System.setProperty("com.xceptance.xlt.loadtests.TLogin.users", "3");
+        System.setProperty("com.xceptance.xlt.loadtests.TOrder.users", "0/1, 10m/4");
+        try
+        {
+            final XltProperties properties = XltProperties.getInstance();
+            final Set<Long> numbers = new HashSet<Long>();
+            for (final String userType : new String[]
+                {
+                    "TLogin", "TOrder"
+                })
+            {
+                for (int agent = 0; agent < 2; agent++)
+                {
+                    for (int user = 0; user < 2; user++)
+                    {
+                        for (int iteration = 0; iteration < 5; iteration++)
+                        {
+                            // the total user count of the session is ignored for configured types
+                            final DataPartition partition = DataPartition.create(properties, userType, user, agent,
+                                                                                 2, 1, iteration);
+                            Assert.assertEquals(8, partition.getSlotCount());
+                            Assert.assertTrue(numbers.add(partition.getUniqueNumber()));
+                        }
+                    }
+                }
+            }
+            Assert.assertEquals(40, numbers.size());
+            Assert.assertEquals(4, DataPartition.create(properties, "TOrder", 0, 0, 2, 4, 0).getSlot());
+
+            try
+            {
+                DataPartition.create(properties, "TLogin", 2, 0, 2, 3, 0);
+                Assert.fail("User beyond the share of the agent expected to fail");
+            }
+            catch (final IllegalArgumentException e)
+            {
+                Assert.assertTrue(e.getMessage().contains("spread evenly"));
+            }
+        }
+        finally
+        {
+            System.clearProperty("com.xceptance.xlt.loadtests");
+            System.clearProperty("com.xceptance.xlt.loadtests.TLogin.users");
+            System.clearProperty("com.xceptance.xlt.loadtests.TOrder.users");
+        }
+    }
+
+    @Test
+    public void testPartitionedFeed() throws IOException
+    {
+        final File file = File.createTempFile("partitioned", ".csv");
+        try
+        {
+            final FileOutputStream out = new FileOutputStream(file);
+            try
+            {
+                out.write("id\n0\n1\n2\n3\n4\n5\n6\n7\n8\n9\n".getBytes("UTF-8"));
+            }
+            finally
+            {
+                out.close();
+            }
+            final DataFeed feed = DataFeed.open(file, ',', Charset.forName("UTF-8"));
+
+            final DataFeeder feeder = new DataFeeder();
+            feeder.addFeed("accounts", feed, FeedStrategy.PARTITIONED);
+            feeder.setPartition(new DataPartition(2, 3, 1));
+            // blocks of 3 rows, the third slot starts at row 6
+            Assert.assertEquals("7", feeder.get("accounts.id"));
+
+            try
+            {
+                feed.nextRow(FeedStrategy.PARTITIONED);
+                Assert.fail("Missing partition expected");
+            }
+            catch (final IllegalArgumentException e)
+            {
+                Assert.assertTrue(e.getMessage().contains("requires a data partition"));
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+}